@@ -16,7 +16,12 @@
 package org.gradle;
 
 import org.gradle.api.GradleException;
+import org.gradle.api.artifacts.ResolutionMetrics;
 import org.gradle.api.initialization.Settings;
+import org.gradle.api.tasks.compile.CompileMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * <p>A {@code BuildResult} packages up the results of a build executed by a {@link Gradle} instance.</p>
@@ -24,10 +29,23 @@ import org.gradle.api.initialization.Settings;
 public class BuildResult {
     private final Settings settings;
     private final Throwable failure;
+    private final ResolutionMetrics resolutionMetrics;
+    private final List<CompileMetrics> compileMetrics;
 
     public BuildResult(Settings settings, Throwable failure) {
+        this(settings, failure, new ResolutionMetrics());
+    }
+
+    public BuildResult(Settings settings, Throwable failure, ResolutionMetrics resolutionMetrics) {
+        this(settings, failure, resolutionMetrics, new ArrayList<CompileMetrics>());
+    }
+
+    public BuildResult(Settings settings, Throwable failure, ResolutionMetrics resolutionMetrics,
+                       List<CompileMetrics> compileMetrics) {
         this.settings = settings;
         this.failure = failure;
+        this.resolutionMetrics = resolutionMetrics;
+        this.compileMetrics = compileMetrics;
     }
 
     public Settings getSettings() {
@@ -38,6 +56,24 @@ public class BuildResult {
         return failure;
     }
 
+    /**
+     * <p>Returns the metrics of the dependency resolves of the build.</p>
+     *
+     * @return The metrics. Never returns null.
+     */
+    public ResolutionMetrics getResolutionMetrics() {
+        return resolutionMetrics;
+    }
+
+    /**
+     * <p>Returns the metrics of the compile tasks executed by the build, the most costly compile first.</p>
+     *
+     * @return The metrics. Never returns null.
+     */
+    public List<CompileMetrics> getCompileMetrics() {
+        return compileMetrics;
+    }
+
     /**
      * <p>Rethrows the build failure. Does nothing if there was no build failure.</p>
      */
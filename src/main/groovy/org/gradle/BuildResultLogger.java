@@ -18,11 +18,16 @@ package org.gradle;
 import org.slf4j.Logger;
 import org.gradle.util.Clock;
 import org.gradle.api.logging.Logging;
+import org.gradle.api.artifacts.ResolutionMetrics;
 import org.gradle.api.initialization.Settings;
 import org.gradle.api.invocation.Build;
 import org.gradle.api.execution.TaskExecutionGraph;
 import org.gradle.api.internal.SettingsInternal;
 import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.tasks.compile.CompileMetrics;
+
+import java.util.List;
+import java.util.Map;
 
 /**
  * A {@link BuildListener} which logs the final result of the build.
@@ -73,6 +78,41 @@ public class BuildResultLogger implements BuildListener {
         } else {
             logger.error(String.format("%nBUILD FAILED%n"));
         }
+        logResolutionMetrics(result.getResolutionMetrics());
+        logCompileMetrics(result.getCompileMetrics());
         logger.info(Logging.LIFECYCLE, String.format("Total time: %s", buildTimeClock.getTime()));
     }
+
+    private void logResolutionMetrics(ResolutionMetrics metrics) {
+        if (metrics.getConfigurationResolveTimes().isEmpty()) {
+            return;
+        }
+        logger.info(String.format("Resolved %s configurations in %s ms, %s modules resolved, %s cache hits, %s cache misses.",
+                metrics.getConfigurationResolveTimes().size(), metrics.getTotalResolveTime(),
+                metrics.getModulesResolved(), metrics.getCacheHits(), metrics.getCacheMisses()));
+        for (Map.Entry<String, Long> entry : metrics.getConfigurationResolveTimes().entrySet()) {
+            logger.info(String.format("  Resolve of %s: %s ms", entry.getKey(), entry.getValue()));
+        }
+        Map<String, Long> bytesDownloaded = metrics.getBytesDownloaded();
+        for (Map.Entry<String, Long> entry : metrics.getResolverTimes().entrySet()) {
+            Long bytes = bytesDownloaded.get(entry.getKey());
+            logger.info(String.format("  Resolver %s: %s ms, %s bytes downloaded", entry.getKey(), entry.getValue(),
+                    bytes == null ? 0 : bytes));
+        }
+    }
+
+    private void logCompileMetrics(List<CompileMetrics> metrics) {
+        if (metrics.isEmpty()) {
+            return;
+        }
+        long totalTime = 0;
+        for (CompileMetrics compileMetrics : metrics) {
+            totalTime += compileMetrics.getTotalTime();
+        }
+        logger.info(String.format("Executed %s compile tasks in %s ms, most costly first:", metrics.size(), totalTime));
+        for (CompileMetrics compileMetrics : metrics) {
+            // The metrics only walk the classpath dirs when they are logged
+            logger.info("  {}", compileMetrics);
+        }
+    }
 }
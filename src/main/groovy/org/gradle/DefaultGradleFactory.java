@@ -90,6 +90,7 @@ public class DefaultGradleFactory implements GradleFactory {
                                 new DefaultAntBuilderFactory(new AntLoggingAdapter()))
                 ),
                 new BuildConfigurer(new ProjectDependencies2TaskResolver()));
+        gradle.setResolutionMetrics(dependencyManagerFactory.getResolutionMetrics());
 
         return gradle;
     }
@@ -16,10 +16,15 @@
 
 package org.gradle;
 
+import org.gradle.api.artifacts.ResolutionMetrics;
 import org.gradle.api.internal.BuildInternal;
 import org.gradle.api.internal.SettingsInternal;
+import org.gradle.api.internal.artifacts.ResolveAheadListener;
 import org.gradle.api.execution.TaskExecutionGraphListener;
 import org.gradle.api.execution.TaskExecutionGraph;
+import org.gradle.api.tasks.compile.Compile;
+import org.gradle.api.tasks.compile.CompileMetricsCollector;
+import org.gradle.api.tasks.compile.CompilerDaemonClient;
 import org.gradle.configuration.BuildConfigurer;
 import org.gradle.execution.BuildExecuter;
 import org.gradle.initialization.*;
@@ -62,6 +67,7 @@ public class Gradle {
     private SettingsProcessor settingsProcessor;
     private BuildLoader buildLoader;
     private BuildConfigurer buildConfigurer;
+    private ResolutionMetrics resolutionMetrics = new ResolutionMetrics();
 
     private final ListenerBroadcast<BuildListener> buildListeners = new ListenerBroadcast<BuildListener>(
             BuildListener.class);
@@ -88,20 +94,29 @@ public class Gradle {
 
         SettingsInternal settings = null;
         Throwable failure = null;
+        CompileMetricsCollector compileMetricsCollector = new CompileMetricsCollector();
+        ResolveAheadListener resolveAheadListener = new ResolveAheadListener();
         try {
             settings = init(startParameter);
-            runInternal(settings, startParameter);
+            runInternal(settings, startParameter, compileMetricsCollector, resolveAheadListener);
         } catch (Throwable t) {
             failure = t;
+        } finally {
+            resolveAheadListener.stop();
         }
 
-        BuildResult buildResult = new BuildResult(settings, failure);
+        BuildResult buildResult = new BuildResult(settings, failure, resolutionMetrics,
+                compileMetricsCollector.getMetrics());
         fireBuildFinished(buildResult);
+        // Compiler daemons which are not reused across builds end with the build
+        CompilerDaemonClient.stopDaemons();
+        Compile.closeFileManager();
 
         return buildResult;
     }
 
-    private void runInternal(SettingsInternal settings, StartParameter startParameter) {
+    private void runInternal(SettingsInternal settings, StartParameter startParameter,
+                             CompileMetricsCollector compileMetricsCollector, ResolveAheadListener resolveAheadListener) {
         ClassLoader classLoader = settings.createClassLoader();
 
         // Load build
@@ -112,7 +127,7 @@ public class Gradle {
         // Configure build
         buildConfigurer.process(build.getRootProject());
         fireProjectsEvaluated(build);
-        attachTaskGraphListener(build);
+        attachTaskGraphListener(build, compileMetricsCollector, resolveAheadListener);
 
         // Execute build
         BuildExecuter executer = startParameter.getBuildExecuter();
@@ -121,12 +136,15 @@ public class Gradle {
         executer.execute(build.getTaskGraph());
     }
 
-    private void attachTaskGraphListener(BuildInternal build) {
+    private void attachTaskGraphListener(BuildInternal build, CompileMetricsCollector compileMetricsCollector,
+                                         ResolveAheadListener resolveAheadListener) {
         build.getTaskGraph().addTaskExecutionGraphListener(new TaskExecutionGraphListener() {
             public void graphPopulated(TaskExecutionGraph graph) {
                 fireTaskGraphPrepared(graph);
             }
         });
+        build.getTaskGraph().addTaskExecutionGraphListener(resolveAheadListener);
+        build.getTaskGraph().addTaskExecutionListener(compileMetricsCollector);
     }
 
     private SettingsInternal init(StartParameter startParameter) {
@@ -172,6 +190,14 @@ public class Gradle {
         return startParameter;
     }
 
+    public ResolutionMetrics getResolutionMetrics() {
+        return resolutionMetrics;
+    }
+
+    public void setResolutionMetrics(ResolutionMetrics resolutionMetrics) {
+        this.resolutionMetrics = resolutionMetrics;
+    }
+
     public ISettingsFinder getSettingsFinder() {
         return settingsFinder;
     }
@@ -251,6 +251,56 @@ public interface DependencyManager extends DependencyContainer {
 
     ResolverContainer createResolverContainer();
 
+    /**
+     * Returns the time to live for the metadata of changing modules (e.g. Maven snapshots). Within this time a
+     * changing module, which has been resolved before, is served from the local cache instead of being checked against
+     * the remote repository. Running Gradle with a cache usage other than 'on' forces a remote check for this build.
+     *
+     * @return the time to live in milliseconds. A value of 0 means changing modules are always checked.
+     */
+    long getChangingModulesTtl();
+
+    /**
+     * Sets the time to live for the metadata of changing modules.
+     *
+     * @param changingModulesTtl the time to live in milliseconds.
+     * @see #getChangingModulesTtl()
+     */
+    void setChangingModulesTtl(long changingModulesTtl);
+
+    /**
+     * Returns what happens when a file downloaded from a repository does not match the SHA-1 or MD5 checksum published
+     * with it. The checksum is computed while the file is downloaded. The default is {@link ChecksumPolicy#FAIL}.
+     *
+     * @return the checksum policy. Never returns null.
+     */
+    ChecksumPolicy getChecksumPolicy();
+
+    /**
+     * Sets what happens when a downloaded file does not match its published checksum.
+     *
+     * @param checksumPolicy the checksum policy.
+     * @see #getChecksumPolicy()
+     */
+    void setChecksumPolicy(ChecksumPolicy checksumPolicy);
+
+    /**
+     * Returns whether the configurations needed by the scheduled tasks of this project are resolved in the background
+     * as soon as the task graph is populated. A task then gets the result of the resolve ahead, unless the
+     * configuration has changed since. The default is false.
+     *
+     * @return true if configurations are resolved ahead.
+     */
+    boolean isResolveAhead();
+
+    /**
+     * Sets whether the configurations needed by the scheduled tasks of this project are resolved ahead.
+     *
+     * @param resolveAhead true if configurations should be resolved ahead.
+     * @see #isResolveAhead()
+     */
+    void setResolveAhead(boolean resolveAhead);
+
     void addIvySettingsTransformer(Transformer<IvySettings> transformer);
 
     void addIvySettingsTransformer(Closure transformer);
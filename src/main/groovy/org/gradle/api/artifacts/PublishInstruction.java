@@ -28,6 +28,8 @@ public class PublishInstruction {
 
     private Spec<PublishArtifact> artifactSpec = Specs.satisfyAll();
 
+    private int maxParallelUploads = 1;
+
     public ModuleDescriptorInstruction getModuleDescriptor() {
         return moduleDescriptor;
     }
@@ -40,6 +42,18 @@ public class PublishInstruction {
         this.artifactSpec = artifactSpec;
     }
 
+    /**
+     * Returns the maximum number of artifacts which are uploaded concurrently. Defaults to 1, which uploads the
+     * artifacts one after the other.
+     */
+    public int getMaxParallelUploads() {
+        return maxParallelUploads;
+    }
+
+    public void setMaxParallelUploads(int maxParallelUploads) {
+        this.maxParallelUploads = maxParallelUploads;
+    }
+
     public static class ModuleDescriptorInstruction {
         private boolean publish = true;
 
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.artifacts;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>Collects how much time and traffic the dependency resolves of a build cost. The metrics of all resolves of a build
+ * are added to the same instance, which might happen from several threads at once.</p>
+ *
+ * <p>The time of a resolver covers the descriptors it resolved and the artifacts it downloaded. Modules and artifacts
+ * which are served from the cache count as cache hits, all others as cache misses.</p>
+ */
+public class ResolutionMetrics {
+    private final Map<String, Long> configurationResolveTimes = new LinkedHashMap<String, Long>();
+
+    private final Map<String, Long> resolverTimes = new LinkedHashMap<String, Long>();
+
+    private final Map<String, Long> bytesDownloaded = new LinkedHashMap<String, Long>();
+
+    private int modulesResolved;
+
+    private int cacheHits;
+
+    private int cacheMisses;
+
+    /**
+     * Adds the time it took to resolve the given configuration.
+     *
+     * @param configuration A description of the configuration, including the module it belongs to.
+     * @param timeMillis The time of the resolve.
+     */
+    public synchronized void addConfigurationResolve(String configuration, long timeMillis) {
+        add(configurationResolveTimes, configuration, timeMillis);
+    }
+
+    /**
+     * Adds the number of modules in the dependency graph of a resolved configuration. Ivy reads the descriptors of
+     * these modules, from the cache or from a repository.
+     */
+    public synchronized void addModulesResolved(int count) {
+        modulesResolved += count;
+    }
+
+    public synchronized void addCacheHit() {
+        cacheHits++;
+    }
+
+    public synchronized void addCacheMiss() {
+        cacheMisses++;
+    }
+
+    public synchronized void addResolverTime(String resolver, long timeMillis) {
+        add(resolverTimes, resolver, timeMillis);
+    }
+
+    public synchronized void addBytesDownloaded(String resolver, long bytes) {
+        add(bytesDownloaded, resolver, bytes);
+    }
+
+    private void add(Map<String, Long> values, String key, long value) {
+        Long currentValue = values.get(key);
+        values.put(key, currentValue == null ? value : currentValue + value);
+    }
+
+    /**
+     * Returns the resolve time in milliseconds of each resolved configuration, in the order the configurations were
+     * first resolved.
+     */
+    public synchronized Map<String, Long> getConfigurationResolveTimes() {
+        return Collections.unmodifiableMap(new LinkedHashMap<String, Long>(configurationResolveTimes));
+    }
+
+    public synchronized long getTotalResolveTime() {
+        long totalResolveTime = 0;
+        for (Long resolveTime : configurationResolveTimes.values()) {
+            totalResolveTime += resolveTime;
+        }
+        return totalResolveTime;
+    }
+
+    /**
+     * Returns the time in milliseconds spent in each resolver, by the name of the resolver.
+     */
+    public synchronized Map<String, Long> getResolverTimes() {
+        return Collections.unmodifiableMap(new LinkedHashMap<String, Long>(resolverTimes));
+    }
+
+    /**
+     * Returns the number of bytes downloaded by each resolver, by the name of the resolver.
+     */
+    public synchronized Map<String, Long> getBytesDownloaded() {
+        return Collections.unmodifiableMap(new LinkedHashMap<String, Long>(bytesDownloaded));
+    }
+
+    public synchronized int getModulesResolved() {
+        return modulesResolved;
+    }
+
+    public synchronized int getCacheHits() {
+        return cacheHits;
+    }
+
+    public synchronized int getCacheMisses() {
+        return cacheMisses;
+    }
+}
@@ -27,4 +27,13 @@ public interface MavenResolver extends DependencyResolver, PomFilterContainer {
      * This property is filled after publishing. Before this property is null.
      */
     Settings getSettings();
+
+    /**
+     * Returns the maximum number of modules whose poms and artifacts are deployed concurrently. Poms for the same
+     * group and artifact id are always deployed one after the other, as they share the repository metadata and the
+     * snapshot version. Defaults to 1.
+     */
+    int getMaxParallelDeploys();
+
+    void setMaxParallelDeploys(int maxParallelDeploys);
 }
@@ -19,7 +19,9 @@ import java.util.HashSet;
 import java.util.Set;
 
 /**
- * Domain object that represents a node in a IvyDependencyGraph.
+ * Domain object that represents a node in a IvyDependencyGraph. Besides the module id, it carries how the module was
+ * resolved: the resolver which served it, whether it came from the cache, the size of its artifacts and the time
+ * spent resolving its descriptor and downloading its artifacts.
  *
  * @author Phil Messenger
  */
@@ -44,6 +46,11 @@ public class IvyDependency
 	private String organisation;
 	private String name;
 	private String rev;
+	private String resolver;
+	private boolean fromCache = true;
+	private long size;
+	private long resolveTimeMillis;
+	private long downloadTimeMillis;
 
 	private Set<IvyDependency> dependencies = new HashSet<IvyDependency>();
 
@@ -113,4 +120,57 @@ public class IvyDependency
 	{
 		return rev;
 	}
+
+	public String getResolver()
+	{
+		return resolver;
+	}
+
+	public void setResolver(String resolver)
+	{
+		this.resolver = resolver;
+	}
+
+	public boolean isFromCache()
+	{
+		return fromCache;
+	}
+
+	public void setFromCache(boolean fromCache)
+	{
+		this.fromCache = fromCache;
+	}
+
+	/**
+	 * Returns the total size of the artifacts of this module, in bytes.
+	 */
+	public long getSize()
+	{
+		return size;
+	}
+
+	public void setSize(long size)
+	{
+		this.size = size;
+	}
+
+	public long getResolveTimeMillis()
+	{
+		return resolveTimeMillis;
+	}
+
+	public void setResolveTimeMillis(long resolveTimeMillis)
+	{
+		this.resolveTimeMillis = resolveTimeMillis;
+	}
+
+	public long getDownloadTimeMillis()
+	{
+		return downloadTimeMillis;
+	}
+
+	public void setDownloadTimeMillis(long downloadTimeMillis)
+	{
+		this.downloadTimeMillis = downloadTimeMillis;
+	}
 }
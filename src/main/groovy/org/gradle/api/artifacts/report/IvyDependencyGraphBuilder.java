@@ -20,7 +20,9 @@ import org.apache.ivy.core.report.ResolveReport;
 import org.apache.ivy.core.resolve.IvyNode;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Builds a collection of IvyDependencyGraphs for a given project.
@@ -30,7 +32,7 @@ import java.util.List;
 public class IvyDependencyGraphBuilder
 {
 
-    private IvyDependency processNode(IvyNode node, IvyDependencyGraph graph, String conf)
+    private IvyDependency processNode(IvyNode node, IvyDependencyGraph graph, String conf, Set<IvyDependency> processed)
     {
         String name = node.getResolvedId().getName();
         String group = node.getResolvedId().getOrganisation();
@@ -38,11 +40,17 @@ public class IvyDependencyGraphBuilder
 
         IvyDependency ivyDependency = graph.findOrCreateDependeny(name, group, revision);
 
+        // The dependencies of a node shared by several dependents are only added once
+        if(!processed.add(ivyDependency))
+        {
+            return ivyDependency;
+        }
+
         Collection<IvyNode> dependencies = node.getDependencies(conf, new String[] { conf });
 
         for(IvyNode dependency : dependencies)
         {
-            IvyDependency retDep = processNode(dependency, graph, conf);
+            IvyDependency retDep = processNode(dependency, graph, conf, processed);
             
             ivyDependency.addDependency(retDep);
         }
@@ -66,9 +74,11 @@ public class IvyDependencyGraphBuilder
 
         graph.setRoot(root);
 
+        Set<IvyDependency> processed = new HashSet<IvyDependency>();
+
         for(IvyNode dependency : dependencies)
         {
-            root.addDependency(processNode(dependency, graph, conf));
+            root.addDependency(processNode(dependency, graph, conf, processed));
         }
 
         return graph;
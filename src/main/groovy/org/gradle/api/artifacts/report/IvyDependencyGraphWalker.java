@@ -0,0 +1,135 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.artifacts.report;
+
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.report.ArtifactDownloadReport;
+import org.apache.ivy.core.report.ConfigurationResolveReport;
+import org.apache.ivy.core.report.DownloadStatus;
+import org.apache.ivy.core.report.MetadataArtifactDownloadReport;
+import org.apache.ivy.core.report.ResolveReport;
+import org.apache.ivy.core.resolve.IvyNode;
+import org.apache.ivy.core.resolve.IvyNodeCallers.Caller;
+import org.apache.ivy.core.resolve.ResolvedModuleRevision;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Walks the dependency graph of a {@link ResolveReport} depth first, without building a copy of the graph in
+ * memory. The visitor can write out each dependency as it is visited.</p>
+ *
+ * <p>The walk starts with the direct dependencies of the root module, i.e. the modules the root is a caller of. The
+ * transitive dependencies are only reached through the modules depending on them, and not listed below the root as
+ * well, as the resolve report lists them. If the callers are unknown, all modules of the report are walked from the
+ * root.</p>
+ *
+ * <p>The dependencies of a module are only walked the first time the module is reached. Later occurrences of the
+ * module are visited with their dependencies omitted, so shared subtrees are walked and reported only once.</p>
+ *
+ * <p>Each occurrence of a module carries how it was resolved, as recorded in the download reports of Ivy. Later
+ * occurrences are visited with the dependency created for the first one.</p>
+ */
+public class IvyDependencyGraphWalker {
+    public void walk(ResolveReport report, String conf, IvyDependencyVisitor visitor) throws IOException {
+        ModuleRevisionId rootId = report.getModuleDescriptor().getModuleRevisionId();
+        visitor.visitDependency(createDependency(rootId), 0, false);
+        Map<ModuleRevisionId, WalkedModule> walkedModules = new HashMap<ModuleRevisionId, WalkedModule>();
+        ConfigurationResolveReport configurationReport = report.getConfigurationReport(conf);
+        for (IvyNode node : getDirectDependencies(report, conf, rootId)) {
+            walk(node, conf, configurationReport, 1, walkedModules, visitor);
+        }
+    }
+
+    private void walk(IvyNode node, String conf, ConfigurationResolveReport configurationReport, int depth,
+                      Map<ModuleRevisionId, WalkedModule> walkedModules, IvyDependencyVisitor visitor) throws IOException {
+        ModuleRevisionId id = node.getResolvedId();
+        WalkedModule walkedModule = walkedModules.get(id);
+        if (walkedModule != null) {
+            visitor.visitDependency(walkedModule.dependency, depth, walkedModule.hasDependencies);
+            return;
+        }
+        Collection<IvyNode> dependencies = node.getDependencies(conf, new String[] {conf});
+        IvyDependency ivyDependency = createDependency(node, configurationReport);
+        // Marked before walking the dependencies, so a cycle ends at the second occurrence of a module
+        walkedModules.put(id, new WalkedModule(ivyDependency, !dependencies.isEmpty()));
+        visitor.visitDependency(ivyDependency, depth, false);
+        for (IvyNode dependency : dependencies) {
+            walk(dependency, conf, configurationReport, depth + 1, walkedModules, visitor);
+        }
+    }
+
+    private List<IvyNode> getDirectDependencies(ResolveReport report, String conf, ModuleRevisionId rootId) {
+        List<IvyNode> dependencies = report.getDependencies();
+        List<IvyNode> directDependencies = new ArrayList<IvyNode>();
+        for (IvyNode node : dependencies) {
+            for (Caller caller : node.getCallers(conf)) {
+                if (rootId.equals(caller.getModuleRevisionId())) {
+                    directDependencies.add(node);
+                    break;
+                }
+            }
+        }
+        return directDependencies.isEmpty() ? dependencies : directDependencies;
+    }
+
+    private IvyDependency createDependency(IvyNode node, ConfigurationResolveReport configurationReport) {
+        IvyDependency dependency = createDependency(node.getResolvedId());
+        boolean fromCache = true;
+        ResolvedModuleRevision moduleRevision = node.getModuleRevision();
+        if (moduleRevision != null) {
+            if (moduleRevision.getResolver() != null) {
+                dependency.setResolver(moduleRevision.getResolver().getName());
+            }
+            MetadataArtifactDownloadReport descriptorReport = moduleRevision.getReport();
+            if (descriptorReport != null) {
+                dependency.setResolveTimeMillis(descriptorReport.getDownloadTimeMillis());
+                fromCache = descriptorReport.getDownloadStatus() != DownloadStatus.SUCCESSFUL;
+            }
+        }
+        if (configurationReport != null) {
+            long size = 0;
+            long downloadTimeMillis = 0;
+            for (ArtifactDownloadReport artifactReport : configurationReport.getDownloadReports(node.getResolvedId())) {
+                size += artifactReport.getSize();
+                downloadTimeMillis += artifactReport.getDownloadTimeMillis();
+                fromCache &= artifactReport.getDownloadStatus() != DownloadStatus.SUCCESSFUL;
+            }
+            dependency.setSize(size);
+            dependency.setDownloadTimeMillis(downloadTimeMillis);
+        }
+        dependency.setFromCache(fromCache);
+        return dependency;
+    }
+
+    private IvyDependency createDependency(ModuleRevisionId id) {
+        return new IvyDependency(id.getName(), id.getOrganisation(), id.getRevision());
+    }
+
+    private static class WalkedModule {
+        private final IvyDependency dependency;
+        private final boolean hasDependencies;
+
+        private WalkedModule(IvyDependency dependency, boolean hasDependencies) {
+            this.dependency = dependency;
+            this.hasDependencies = hasDependencies;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.artifacts.report;
+
+import java.io.IOException;
+
+/**
+ * A visitor of the dependencies of a dependency graph, as walked by {@link IvyDependencyGraphWalker}.
+ */
+public interface IvyDependencyVisitor {
+    /**
+     * Visits a dependency of the graph. The root module of the graph has depth 0, its direct dependencies depth 1.
+     *
+     * @param dependency The dependency.
+     * @param depth The depth of the dependency in the graph.
+     * @param dependenciesOmitted True if the dependency has been visited before and its own dependencies are not
+     * visited again.
+     */
+    void visitDependency(IvyDependency dependency, int depth, boolean dependenciesOmitted) throws IOException;
+}
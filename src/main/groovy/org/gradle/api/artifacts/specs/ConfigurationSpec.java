@@ -56,6 +56,10 @@ public class ConfigurationSpec<T extends ConfigurationHolder> implements Spec<T>
         return result;
     }
 
+    public boolean isIncludeExtendees() {
+        return includeExtendees;
+    }
+
     public List<String> getConfs() {
         return Collections.unmodifiableList(confs);
     }
@@ -65,6 +65,8 @@ public class BaseDependencyManager implements DependencyManagerInternal {
 
     private ConfigurationResolverFactory configurationResolverFactory;
 
+    private boolean resolveAhead;
+
     public BaseDependencyManager() {
 
     }
@@ -259,6 +261,30 @@ public class BaseDependencyManager implements DependencyManagerInternal {
         ivyService.getSettingsConverter().addIvyTransformer(transformer);
     }
 
+    public long getChangingModulesTtl() {
+        return ivyService.getSettingsConverter().getChangingModuleTtl();
+    }
+
+    public void setChangingModulesTtl(long changingModulesTtl) {
+        ivyService.getSettingsConverter().setChangingModuleTtl(changingModulesTtl);
+    }
+
+    public ChecksumPolicy getChecksumPolicy() {
+        return ivyService.getSettingsConverter().getChecksumPolicy();
+    }
+
+    public void setChecksumPolicy(ChecksumPolicy checksumPolicy) {
+        ivyService.getSettingsConverter().setChecksumPolicy(checksumPolicy);
+    }
+
+    public boolean isResolveAhead() {
+        return resolveAhead;
+    }
+
+    public void setResolveAhead(boolean resolveAhead) {
+        this.resolveAhead = resolveAhead;
+    }
+
     public void addIvyModuleTransformer(Transformer<DefaultModuleDescriptor> transformer) {
         ivyService.getModuleDescriptorConverter().addIvyTransformer(transformer);
     }
@@ -78,6 +78,15 @@ public class DefaultConfigurationResolver implements ConfigurationResolver {
         });
     }
 
+    /**
+     * Returns a resolve of this configuration which can be executed ahead of the time the configuration is needed. A
+     * later resolve with the same resolve instruction modifier returns the result of this resolve.
+     */
+    public Runnable resolveAhead(ResolveInstructionModifier resolveInstructionModifier) {
+        ResolveInstruction resolveInstruction = resolveInstructionModifier.modify(getResolveInstruction());
+        return ivyService.resolveAhead(getName(), dependencyContainer.getConfigurations(), dependencyContainer, dependencyResolvers.getResolverList(), resolveInstruction, gradleUserHome);
+    }
+
     public ResolveReport resolveAsReport(ResolveInstructionModifier resolveInstructionModifier) {
         ResolveInstruction resolveInstruction = resolveInstructionModifier.modify(getResolveInstruction());
         return ivyService.resolveAsReport(getName(), dependencyContainer.getConfigurations(), dependencyContainer, dependencyResolvers.getResolverList(), resolveInstruction, gradleUserHome);
@@ -125,8 +134,10 @@ public class DefaultConfigurationResolver implements ConfigurationResolver {
                 for (ProjectDependency projectDependency : getProjectDependencies()) {
                     List<String> dependencyConfigurations = projectDependency.getDependencyConfigurations(getName());
                     for (String dependencyConfiguration : dependencyConfigurations) {
+                        // The artifacts of project dependencies are resolved in memory, so we only need to build them
                         ConfigurationResolver configuration = projectDependency.getDependencyProject().getDependencies().configuration(dependencyConfiguration);
-                        taskDependency.add(projectDependency.getDependencyProject().task(configuration.getUploadInternalTaskName()));
+                        taskDependency.add(configuration.getBuildArtifactDependencies());
+                        taskDependency.add(configuration.getBuildProjectDependencies());
                     }
                 }
                 return taskDependency.getDependencies(task);
@@ -20,6 +20,7 @@ import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
 import org.gradle.CacheUsage;
 import org.gradle.api.DependencyManager;
 import org.gradle.api.Project;
+import org.gradle.api.artifacts.ResolutionMetrics;
 import org.gradle.api.artifacts.ResolverContainer;
 import org.gradle.api.internal.artifacts.configurations.DefaultConfigurationContainer;
 import org.gradle.api.internal.artifacts.dependencies.*;
@@ -32,6 +33,7 @@ import org.gradle.util.WrapUtil;
 
 import java.io.File;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -40,6 +42,8 @@ import java.util.Set;
 public class DefaultDependencyManagerFactory implements DependencyManagerFactory {
     private ISettingsFinder settingsFinder;
     private CacheUsage cacheUsage;
+    private final ResolutionMetrics resolutionMetrics = new ResolutionMetrics();
+    private final Map<File, ChangingModuleCache> changingModuleCaches = new HashMap<File, ChangingModuleCache>();
 
     public DefaultDependencyManagerFactory(ISettingsFinder settingsFinder, CacheUsage cacheUsage) {
         this.settingsFinder = settingsFinder;
@@ -56,8 +60,12 @@ public class DefaultDependencyManagerFactory implements DependencyManagerFactory
         }
         DefaultConfigurationContainer configurationContainer = new DefaultConfigurationContainer();
         DefaultBuildResolverHandler buildResolverHandler = new DefaultBuildResolverHandler(buildResolverDir, new LocalReposCacheHandler());
+        DefaultSettingsConverter settingsConverter = new DefaultSettingsConverter(
+                new ProjectDependencyResolver(SettingsConverter.PROJECT_DEPENDENCY_RESOLVER_NAME, project));
+        settingsConverter.setRefreshChangingModules(cacheUsage != CacheUsage.ON);
+        settingsConverter.setChangingModuleCache(getChangingModuleCache(gradleUserHomeDir));
         DefaultIvyService ivyHandler = new DefaultIvyService(
-                new DefaultSettingsConverter(),
+                settingsConverter,
                 new DefaultModuleDescriptorConverter(
                         new DefaultModuleDescriptorFactory(),
                         new DefaultConfigurationsToModuleDescriptorConverter(), 
@@ -69,6 +77,7 @@ public class DefaultDependencyManagerFactory implements DependencyManagerFactory
                 new DefaultIvyDependencyResolver(new DefaultResolveOptionsFactory(), new Report2Classpath()),
                 new DefaultIvyDependencyPublisher(new DefaultPublishOptionsFactory())
         );
+        ivyHandler.setMetrics(resolutionMetrics);
         DefaultResolverFactory resolverFactory = new DefaultResolverFactory(
                 new File(project.getBuildDir(), DependencyManager.TMP_CACHE_DIR_NAME));
         DefaultDependencyManager dependencyManager = new DefaultDependencyManager(
@@ -91,6 +100,19 @@ public class DefaultDependencyManagerFactory implements DependencyManagerFactory
         return dependencyManager;
     }
 
+    private ChangingModuleCache getChangingModuleCache(File gradleUserHomeDir) {
+        ChangingModuleCache changingModuleCache = changingModuleCaches.get(gradleUserHomeDir);
+        if (changingModuleCache == null) {
+            changingModuleCache = new ChangingModuleCache(new File(gradleUserHomeDir, DependencyManager.DEFAULT_CACHE_DIR_NAME));
+            changingModuleCaches.put(gradleUserHomeDir, changingModuleCache);
+        }
+        return changingModuleCache;
+    }
+
+    public ResolutionMetrics getResolutionMetrics() {
+        return resolutionMetrics;
+    }
+
     public ISettingsFinder getSettingsFinder() {
         return settingsFinder;
     }
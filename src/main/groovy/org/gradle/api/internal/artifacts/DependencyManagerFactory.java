@@ -18,6 +18,7 @@ package org.gradle.api.internal.artifacts;
 
 import org.gradle.api.DependencyManager;
 import org.gradle.api.Project;
+import org.gradle.api.artifacts.ResolutionMetrics;
 
 import java.io.File;
 
@@ -26,4 +27,9 @@ import java.io.File;
  */
 public interface DependencyManagerFactory {
     DependencyManager createDependencyManager(Project project, File gradleUserHomeDir);
+
+    /**
+     * Returns the metrics of the resolves of all dependency managers created by this factory.
+     */
+    ResolutionMetrics getResolutionMetrics();
 }
@@ -21,6 +21,7 @@ import org.apache.ivy.core.report.ResolveReport;
 import org.apache.ivy.plugins.resolver.DependencyResolver;
 import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.artifacts.PublishInstruction;
+import org.gradle.api.artifacts.ResolutionMetrics;
 import org.gradle.api.artifacts.ResolveInstruction;
 import org.gradle.api.internal.artifacts.ivyservice.BuildResolverHandler;
 import org.gradle.api.internal.artifacts.ivyservice.IvyFactory;
@@ -48,12 +49,26 @@ public interface IvyService {
     
     ResolveReport getLastResolveReport();
 
+    /**
+     * Returns the metrics of the resolves done by this service.
+     */
+    ResolutionMetrics getMetrics();
+
     List<File> resolve(String conf, Set<? extends Configuration> configurations, DependencyContainerInternal dependencyContainer, List<DependencyResolver> dependencyResolvers,
                               ResolveInstruction resolveInstruction, File gradleUserHome);
 
     ResolveReport resolveAsReport(String conf, Set<? extends Configuration> configurations, DependencyContainerInternal dependencyContainer, List<DependencyResolver> dependencyResolvers,
                               ResolveInstruction resolveInstruction, File gradleUserHome);
 
+    /**
+     * Creates a resolve of the given configuration which can be executed ahead of the time the configuration is
+     * needed, for example by another thread. A later call to
+     * {@link #resolveAsReport(String, java.util.Set, DependencyContainerInternal, java.util.List, org.gradle.api.artifacts.ResolveInstruction, java.io.File)}
+     * with the same configuration and resolve instruction returns the result of this resolve.
+     */
+    Runnable resolveAhead(String conf, Set<? extends Configuration> configurations, DependencyContainerInternal dependencyContainer, List<DependencyResolver> dependencyResolvers,
+                              ResolveInstruction resolveInstruction, File gradleUserHome);
+
     void publish(String configuration, PublishInstruction publishInstruction,
                         List<DependencyResolver> publishResolvers, ConfigurationContainer configurationContainer,
                         DependencyContainerInternal dependencyContainer,
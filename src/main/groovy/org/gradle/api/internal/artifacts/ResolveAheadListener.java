@@ -0,0 +1,154 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts;
+
+import org.gradle.api.DependencyManager;
+import org.gradle.api.Task;
+import org.gradle.api.artifacts.ConfigurationResolveInstructionModifier;
+import org.gradle.api.artifacts.ConfigurationResolver;
+import org.gradle.api.execution.TaskExecutionGraph;
+import org.gradle.api.execution.TaskExecutionGraphListener;
+import org.gradle.api.internal.artifacts.ivyservice.DefaultSettingsConverter;
+import org.gradle.api.internal.tasks.ResolvingTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Resolves the configurations needed by the tasks of a populated task graph concurrently, before the tasks are
+ * executed. When a task later resolves its configuration, it gets the result of the resolve ahead. Only the
+ * configurations of dependency managers with {@link DependencyManager#isResolveAhead()} set are resolved ahead.</p>
+ *
+ * <p>The configurations of one dependency manager are resolved one after the other, in the order the tasks are
+ * executed, as they share the resolvers of the dependency manager. The configurations of different dependency
+ * managers are resolved in parallel, by a bounded number of threads. Downloads of these threads do not log their
+ * progress, as it would be interleaved with the output of the tasks.</p>
+ *
+ * <p>{@link #stop()} cancels the resolves ahead which have not been started at the end of the build.</p>
+ */
+public class ResolveAheadListener implements TaskExecutionGraphListener {
+    private static Logger logger = LoggerFactory.getLogger(ResolveAheadListener.class);
+
+    private static final int MAX_THREAD_COUNT = 8;
+
+    private int threadCount;
+
+    private ExecutorService executor;
+
+    public ResolveAheadListener() {
+        // Resolving is mostly waiting for remote repositories, so we use more threads than processors
+        this(Math.min(Runtime.getRuntime().availableProcessors() * 2, MAX_THREAD_COUNT));
+    }
+
+    public ResolveAheadListener(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    public void graphPopulated(TaskExecutionGraph graph) {
+        Map<DependencyManager, List<Runnable>> resolves = new LinkedHashMap<DependencyManager, List<Runnable>>();
+        for (Task task : graph.getAllTasks()) {
+            if (task instanceof ResolvingTask) {
+                addResolveAhead((ResolvingTask) task, resolves);
+            }
+        }
+        if (resolves.isEmpty() || threadCount < 1) {
+            return;
+        }
+        logger.debug("Resolving ahead the configurations of {} dependency managers.", resolves.size());
+        for (final List<Runnable> dependencyManagerResolves : resolves.values()) {
+            getExecutor().execute(new Runnable() {
+                public void run() {
+                    for (Runnable resolve : dependencyManagerResolves) {
+                        if (Thread.currentThread().isInterrupted()) {
+                            return;
+                        }
+                        resolve.run();
+                    }
+                }
+            });
+        }
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+                public Thread newThread(final Runnable runnable) {
+                    Thread thread = new Thread(new Runnable() {
+                        public void run() {
+                            DefaultSettingsConverter.setProgressLogging(false);
+                            runnable.run();
+                        }
+                    }, "Resolve ahead");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * Cancels the resolves ahead which have not been started yet and waits for the running ones to finish, so that no
+     * resolve writes to the Ivy cache after the build. A task which needs a cancelled resolve resolves its
+     * configuration itself.
+     */
+    public void stop() {
+        ExecutorService executor;
+        synchronized (this) {
+            executor = this.executor;
+            this.executor = null;
+        }
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void addResolveAhead(ResolvingTask task, Map<DependencyManager, List<Runnable>> resolves) {
+        ConfigurationResolveInstructionModifier resolveInstruction = task.getResolveInstruction();
+        DependencyManager dependencyManager = task.getDependencyManager();
+        if (resolveInstruction == null || dependencyManager == null || !dependencyManager.isResolveAhead()) {
+            return;
+        }
+        ConfigurationResolver configuration = dependencyManager.findConfiguration(resolveInstruction.getConfiguration());
+        if (!(configuration instanceof DefaultConfigurationResolver)) {
+            return;
+        }
+        List<Runnable> dependencyManagerResolves = resolves.get(dependencyManager);
+        if (dependencyManagerResolves == null) {
+            dependencyManagerResolves = new ArrayList<Runnable>();
+            resolves.put(dependencyManager, dependencyManagerResolves);
+        }
+        dependencyManagerResolves.add(((DefaultConfigurationResolver) configuration).resolveAhead(resolveInstruction));
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+}
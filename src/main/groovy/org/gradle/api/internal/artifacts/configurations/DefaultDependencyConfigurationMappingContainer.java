@@ -23,11 +23,14 @@ import org.gradle.api.artifacts.UnknownConfigurationException;
 import org.gradle.util.WrapUtil;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author Hans Dockter
  */
 public class DefaultDependencyConfigurationMappingContainer implements DependencyConfigurationMappingContainer {
+    private static final AtomicLong masterConfigurationChangeCount = new AtomicLong();
+
     private Map<Configuration, List<String>> mappings = new HashMap<Configuration, List<String>>();
 
     public DefaultDependencyConfigurationMappingContainer(Map<Configuration, List<String>> mappings) {
@@ -59,6 +62,7 @@ public class DefaultDependencyConfigurationMappingContainer implements Dependenc
         throwExceptionIfNull(dependencyConfigurations, "The dependency configuration list");
         if (mappings.get(masterConf) == null) {
             mappings.put(masterConf, new ArrayList<String>());
+            masterConfigurationsChanged();
         }
         for (String dependencyConfiguration : dependencyConfigurations) {
             throwExceptionIfNull(dependencyConfiguration, "A dependency configuration");
@@ -66,6 +70,24 @@ public class DefaultDependencyConfigurationMappingContainer implements Dependenc
         }
     }
 
+    /**
+     * Returns how often master configurations have been added to any mapping container, or a dependency has been
+     * given another mapping container. Anything derived from the master configurations of dependencies is up-to-date
+     * as long as this count doesn't change. Changes made directly to the map returned by {@link #getMappings()} are
+     * not counted.
+     */
+    public static long getMasterConfigurationChangeCount() {
+        return masterConfigurationChangeCount.get();
+    }
+
+    /**
+     * Counts a change of master configurations which is not made by a mapping container, e.g. the replacement of
+     * the mapping container of a dependency.
+     */
+    public static void masterConfigurationsChanged() {
+        masterConfigurationChangeCount.incrementAndGet();
+    }
+
     private void throwExceptionIfNull(Object property, String text) {
         if (property == null) {
             throw new InvalidUserDataException(text + " must not be null");
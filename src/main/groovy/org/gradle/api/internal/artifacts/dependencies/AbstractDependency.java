@@ -21,6 +21,7 @@ import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
 import org.gradle.api.Transformer;
 import org.gradle.api.artifacts.*;
 import org.gradle.api.internal.ChainingTransformer;
+import org.gradle.api.internal.artifacts.configurations.DefaultDependencyConfigurationMappingContainer;
 import org.gradle.util.ConfigureUtil;
 
 import java.util.ArrayList;
@@ -72,6 +73,7 @@ public abstract class AbstractDependency implements Dependency {
 
     public void setDependencyConfigurationMappings(DependencyConfigurationMappingContainer dependencyConfigurationMappings) {
         this.dependencyConfigurationMappings = dependencyConfigurationMappings;
+        DefaultDependencyConfigurationMappingContainer.masterConfigurationsChanged();
     }
 
     public List<DependencyArtifact> getArtifacts() {
@@ -19,6 +19,7 @@ package org.gradle.api.internal.artifacts.dependencies;
 import groovy.lang.Closure;
 import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
 import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.Transformer;
 import org.gradle.api.artifacts.*;
@@ -30,7 +31,13 @@ import org.gradle.api.internal.artifacts.ivyservice.DefaultDependencyDescriptorF
 import org.gradle.api.internal.artifacts.ivyservice.DependencyDescriptorFactory;
 import org.gradle.util.WrapUtil;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
+ * <p>The module descriptor of a client module is built the first time a dependency descriptor is created for it. It is
+ * reused by later resolves, as long as no dependencies are added to the client module.</p>
+ *
  * @author Hans Dockter
  */
 public class DefaultClientModule extends AbstractDependency implements ClientModule {
@@ -56,6 +63,10 @@ public class DefaultClientModule extends AbstractDependency implements ClientMod
 
     private ClientModuleDescriptorFactory clientModuleDescriptorFactory = new DefaultClientModuleDescriptorFactory();
 
+    private ModuleDescriptor moduleDescriptor;
+
+    private List<Dependency> moduleDescriptorDependencies;
+
     public DefaultClientModule() {
     }
 
@@ -104,11 +115,20 @@ public class DefaultClientModule extends AbstractDependency implements ClientMod
 
     public DependencyDescriptor createDependencyDescriptor(ModuleDescriptor parent) {
         DependencyDescriptor dd = dependencyDescriptorFactory.createFromClientModule(parent, this);
-        ModuleDescriptor moduleDescriptor = clientModuleDescriptorFactory.createModuleDescriptor(dd.getDependencyRevisionId(), dependencyContainer);
-        dependencyContainer.getClientModuleRegistry().put(id, moduleDescriptor);
+        dependencyContainer.getClientModuleRegistry().put(id, getModuleDescriptor(dd.getDependencyRevisionId()));
         return transformer.transform(dd);
     }
 
+    private synchronized ModuleDescriptor getModuleDescriptor(ModuleRevisionId moduleRevisionId) {
+        List<Dependency> dependencies = new ArrayList<Dependency>(dependencyContainer.getDependencies());
+        if (moduleDescriptor == null || !moduleDescriptor.getModuleRevisionId().equals(moduleRevisionId)
+                || !dependencies.equals(moduleDescriptorDependencies)) {
+            moduleDescriptor = clientModuleDescriptorFactory.createModuleDescriptor(moduleRevisionId, dependencyContainer);
+            moduleDescriptorDependencies = dependencies;
+        }
+        return moduleDescriptor;
+    }
+
     public String getId() {
         return id;
     }
@@ -202,7 +222,8 @@ public class DefaultClientModule extends AbstractDependency implements ClientMod
         return clientModuleDescriptorFactory;
     }
 
-    public void setClientModuleDescriptorFactory(ClientModuleDescriptorFactory clientModuleDescriptorFactory) {
+    public synchronized void setClientModuleDescriptorFactory(ClientModuleDescriptorFactory clientModuleDescriptorFactory) {
         this.clientModuleDescriptorFactory = clientModuleDescriptorFactory;
+        moduleDescriptor = null;
     }
 }
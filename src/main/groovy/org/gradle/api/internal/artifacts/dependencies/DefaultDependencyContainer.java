@@ -19,10 +19,14 @@ import groovy.lang.Closure;
 import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.*;
+import org.gradle.api.artifacts.specs.ConfigurationSpec;
+import org.gradle.api.artifacts.specs.DependencyTypeSpec;
+import org.gradle.api.artifacts.specs.Type;
 import org.gradle.api.internal.artifacts.ConfigurationContainer;
 import org.gradle.api.internal.artifacts.DependencyContainerInternal;
 import org.gradle.api.internal.artifacts.configurations.DefaultConfigurationContainer;
 import org.gradle.api.internal.artifacts.configurations.DefaultDependencyConfigurationMappingContainer;
+import org.gradle.api.specs.AndSpec;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.specs.Specs;
 import org.gradle.util.ConfigureUtil;
@@ -31,6 +35,12 @@ import org.gradle.util.GUtil;
 import java.util.*;
 
 /**
+ * <p>Queries for dependencies with a {@link ConfigurationSpec} or {@link DependencyTypeSpec} (also as part of an
+ * {@link AndSpec}) are served from an index by master configuration and type. The index is rebuilt whenever a
+ * dependency has been added, or master configurations have been added to any mapping container since the index was
+ * built (see {@link DefaultDependencyConfigurationMappingContainer#getMasterConfigurationChangeCount()}), so
+ * checking whether the index is up-to-date doesn't depend on the number of dependencies.</p>
+ *
  * @author Hans Dockter
  */
 public class DefaultDependencyContainer implements DependencyContainerInternal {
@@ -40,7 +50,8 @@ public class DefaultDependencyContainer implements DependencyContainerInternal {
     private List<Dependency> dependencies = new ArrayList<Dependency>();
     private ExcludeRuleContainer excludeRules;
     private Map<String, ModuleDescriptor> clientModuleRegistry;
-    
+    private DependencyIndex dependencyIndex;
+    private DefaultConfigurationContainer clientModuleConfigurationContainer;
 
     public DefaultDependencyContainer(Project project, ConfigurationContainer configurationContainer, DependencyFactory dependencyFactory,
                                       ExcludeRuleContainer excludeRuleContainer, Map<String, ModuleDescriptor> clientModuleRegistry) {
@@ -57,6 +68,7 @@ public class DefaultDependencyContainer implements DependencyContainerInternal {
 
     public void addDependencies(Dependency... dependencies) {
         this.dependencies.addAll(Arrays.asList(dependencies));
+        invalidateIndex();
     }
 
     public Dependency dependency(List<String> confs, Object id, Closure configureClosure) {
@@ -68,12 +80,14 @@ public class DefaultDependencyContainer implements DependencyContainerInternal {
             this.dependencies.add(dependencyFactory.createDependency(
                     getStandardConfigurationMapping(configurationMappings), dependency, project));
         }
+        invalidateIndex();
     }
 
     public Dependency dependency(Map<Configuration, List<String>> configurationMappings, Object userDependencyDescription, Closure configureClosure) {
         Dependency dependency = dependencyFactory.createDependency(getStandardConfigurationMapping(configurationMappings), userDependencyDescription, project);
         dependencies.add(dependency);
         ConfigureUtil.configure(configureClosure, dependency);
+        invalidateIndex();
         return dependency;
     }
 
@@ -92,18 +106,41 @@ public class DefaultDependencyContainer implements DependencyContainerInternal {
 
     public ClientModule clientModule(Map<Configuration, List<String>> configurationMappings, String moduleDescriptor, Closure configureClosure) {
         // todo: We might better have a client module factory here
-        DefaultConfigurationContainer defaultConfigurationContainer = new DefaultConfigurationContainer();
-        defaultConfigurationContainer.add(Dependency.DEFAULT_CONFIGURATION);
         DefaultClientModule clientModule = new DefaultClientModule(getStandardConfigurationMapping(configurationMappings), moduleDescriptor,
-                new DefaultDependencyContainer(project, defaultConfigurationContainer,
+                new DefaultDependencyContainer(project, getClientModuleConfigurationContainer(),
                         dependencyFactory, new DefaultExcludeRuleContainer(), clientModuleRegistry));
         dependencies.add(clientModule);
         ConfigureUtil.configure(configureClosure, clientModule);
+        invalidateIndex();
         return clientModule;
     }
 
     public <T extends Dependency> List<T> getDependencies(Spec<T> spec) {
-        return Specs.filterIterable((Iterable<T>) getDependencies(), spec);
+        List<? extends Dependency> candidates = getIndex().findCandidates(spec);
+        return Specs.filterIterable((Iterable<T>) (candidates == null ? getDependencies() : candidates), spec);
+    }
+
+    /**
+     * The client modules declared in this container only have the default configuration, so they share a single
+     * configuration container.
+     */
+    private DefaultConfigurationContainer getClientModuleConfigurationContainer() {
+        if (clientModuleConfigurationContainer == null) {
+            clientModuleConfigurationContainer = new DefaultConfigurationContainer();
+            clientModuleConfigurationContainer.add(Dependency.DEFAULT_CONFIGURATION);
+        }
+        return clientModuleConfigurationContainer;
+    }
+
+    private synchronized DependencyIndex getIndex() {
+        if (dependencyIndex == null || !dependencyIndex.isIndexOf(dependencies)) {
+            dependencyIndex = new DependencyIndex(dependencies);
+        }
+        return dependencyIndex;
+    }
+
+    private synchronized void invalidateIndex() {
+        dependencyIndex = null;
     }
 
     private Configuration[] getConfigurations(List<String> masterConfs) {
@@ -134,6 +171,7 @@ public class DefaultDependencyContainer implements DependencyContainerInternal {
 
     public void setDependencies(List<Dependency> dependencies) {
         this.dependencies = dependencies;
+        invalidateIndex();
     }
     
     public DependencyFactory getDependencyFactory() {
@@ -163,4 +201,100 @@ public class DefaultDependencyContainer implements DependencyContainerInternal {
     public Set<Configuration> getConfigurations() {
         return configurationContainer.get();
     }
+
+    /**
+     * Holds the dependencies of this container by master configuration and by type. Queries return a list of
+     * candidates in declaration order, which still has to be filtered by the spec of the query.
+     */
+    private static class DependencyIndex {
+        private final List<Dependency> indexedDependencies;
+        private final int indexedSize;
+        private final Map<Dependency, Integer> positions = new IdentityHashMap<Dependency, Integer>();
+        private final long indexedChangeCount;
+        private final Map<Configuration, List<Dependency>> byConfiguration = new LinkedHashMap<Configuration, List<Dependency>>();
+        private final Map<Type, List<Dependency>> byType = new HashMap<Type, List<Dependency>>();
+
+        DependencyIndex(List<Dependency> dependencies) {
+            this.indexedDependencies = dependencies;
+            this.indexedSize = dependencies.size();
+            this.indexedChangeCount = DefaultDependencyConfigurationMappingContainer.getMasterConfigurationChangeCount();
+            for (Type type : Type.values()) {
+                byType.put(type, new ArrayList<Dependency>());
+            }
+            int position = 0;
+            for (Dependency dependency : dependencies) {
+                positions.put(dependency, position++);
+                for (Configuration configuration : dependency.getConfigurations()) {
+                    List<Dependency> configurationDependencies = byConfiguration.get(configuration);
+                    if (configurationDependencies == null) {
+                        configurationDependencies = new ArrayList<Dependency>();
+                        byConfiguration.put(configuration, configurationDependencies);
+                    }
+                    configurationDependencies.add(dependency);
+                }
+                for (Type type : Type.values()) {
+                    if (type.isOf(dependency)) {
+                        byType.get(type).add(dependency);
+                    }
+                }
+            }
+        }
+
+        boolean isIndexOf(List<Dependency> dependencies) {
+            return indexedDependencies == dependencies && indexedSize == dependencies.size()
+                    && indexedChangeCount == DefaultDependencyConfigurationMappingContainer.getMasterConfigurationChangeCount();
+        }
+
+        /**
+         * Returns the smallest list of dependencies the index can provide which contains all dependencies satisfying
+         * the given spec, or null if the spec can't be answered from the index.
+         */
+        List<Dependency> findCandidates(Spec spec) {
+            if (spec instanceof ConfigurationSpec) {
+                ConfigurationSpec configurationSpec = (ConfigurationSpec) spec;
+                return findByConfigurations(configurationSpec.getConfs(), configurationSpec.isIncludeExtendees());
+            }
+            if (spec instanceof DependencyTypeSpec) {
+                return byType.get(((DependencyTypeSpec) spec).getType());
+            }
+            if (spec instanceof AndSpec) {
+                List<Dependency> smallest = null;
+                for (Spec childSpec : ((AndSpec<?>) spec).getSpecs()) {
+                    List<Dependency> candidates = findCandidates(childSpec);
+                    if (candidates != null && (smallest == null || candidates.size() < smallest.size())) {
+                        smallest = candidates;
+                    }
+                }
+                return smallest;
+            }
+            return null;
+        }
+
+        private List<Dependency> findByConfigurations(List<String> confs, boolean includeExtendees) {
+            List<List<Dependency>> matches = new ArrayList<List<Dependency>>();
+            for (Map.Entry<Configuration, List<Dependency>> entry : byConfiguration.entrySet()) {
+                Set<? extends Configuration> configurations = includeExtendees
+                        ? entry.getKey().getChain()
+                        : Collections.singleton(entry.getKey());
+                for (Configuration configuration : configurations) {
+                    if (confs.contains(configuration.getName())) {
+                        matches.add(entry.getValue());
+                        break;
+                    }
+                }
+            }
+            if (matches.size() == 1) {
+                return matches.get(0);
+            }
+            Set<Dependency> result = new TreeSet<Dependency>(new Comparator<Dependency>() {
+                public int compare(Dependency dependency1, Dependency dependency2) {
+                    return positions.get(dependency1).compareTo(positions.get(dependency2));
+                }
+            });
+            for (List<Dependency> match : matches) {
+                result.addAll(match);
+            }
+            return new ArrayList<Dependency>(result);
+        }
+    }
 }
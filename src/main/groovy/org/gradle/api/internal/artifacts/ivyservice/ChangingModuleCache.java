@@ -0,0 +1,122 @@
+/*
+ * Copyright 2007-2008 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.util.GUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Records in the local cache when the metadata of a changing module (e.g. a Maven snapshot) was last fetched from a
+ * remote repository.
+ *
+ * <p>The cache file is read once, on first use. A check is written through to the file under a file lock, merged with
+ * the checks other builds have written in the meantime. One instance should be shared by all dependency managers of a
+ * build.</p>
+ */
+public class ChangingModuleCache {
+    public static final String FILE_NAME = "changing-modules.properties";
+
+    private final File cacheFile;
+
+    private Map<String, Long> lastChecked;
+
+    public ChangingModuleCache(File cacheDir) {
+        this.cacheFile = new File(cacheDir, FILE_NAME);
+    }
+
+    public File getCacheFile() {
+        return cacheFile;
+    }
+
+    /**
+     * Returns whether the given module has been checked against its remote repository within the given time to live.
+     */
+    public synchronized boolean isUpToDate(ModuleRevisionId moduleRevisionId, long ttl, long now) {
+        if (ttl <= 0) {
+            return false;
+        }
+        if (lastChecked == null) {
+            lastChecked = new HashMap<String, Long>();
+            merge(lastChecked, load());
+        }
+        Long checked = lastChecked.get(moduleRevisionId.toString());
+        return checked != null && now - checked < ttl;
+    }
+
+    /**
+     * Records that the given module has been checked against its remote repository at the given time.
+     */
+    public synchronized void checked(ModuleRevisionId moduleRevisionId, long now) {
+        if (lastChecked == null) {
+            lastChecked = new HashMap<String, Long>();
+        }
+        lastChecked.put(moduleRevisionId.toString(), now);
+        cacheFile.getParentFile().mkdirs();
+        try {
+            RandomAccessFile lockFile = new RandomAccessFile(new File(cacheFile.getPath() + ".lock"), "rw");
+            try {
+                FileLock lock = lockFile.getChannel().lock();
+                try {
+                    // Other builds sharing the cache may have written checks since we read the file
+                    merge(lastChecked, load());
+                    Properties properties = new Properties();
+                    for (Map.Entry<String, Long> entry : lastChecked.entrySet()) {
+                        properties.setProperty(entry.getKey(), String.valueOf(entry.getValue()));
+                    }
+                    GUtil.saveProperties(properties, cacheFile);
+                } finally {
+                    lock.release();
+                }
+            } finally {
+                lockFile.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Properties load() {
+        if (!cacheFile.isFile()) {
+            return new Properties();
+        }
+        return GUtil.loadProperties(cacheFile);
+    }
+
+    private static void merge(Map<String, Long> lastChecked, Properties properties) {
+        for (Object key : properties.keySet()) {
+            String moduleRevisionId = (String) key;
+            Long checked;
+            try {
+                checked = Long.valueOf(properties.getProperty(moduleRevisionId));
+            } catch (NumberFormatException e) {
+                // An unparseable entry is treated as expired
+                continue;
+            }
+            Long known = lastChecked.get(moduleRevisionId);
+            if (known == null || known < checked) {
+                lastChecked.put(moduleRevisionId, checked);
+            }
+        }
+    }
+}
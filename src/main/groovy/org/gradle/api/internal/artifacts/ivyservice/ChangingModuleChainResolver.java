@@ -0,0 +1,80 @@
+/*
+ * Copyright 2007-2008 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.resolve.ResolveData;
+import org.apache.ivy.core.resolve.ResolvedModuleRevision;
+import org.apache.ivy.plugins.resolver.ChainResolver;
+
+import java.text.ParseException;
+
+/**
+ * A chain resolver which serves changing modules from the local cache as long as their last remote check is within
+ * the configured time to live. Modules which are not changing are resolved as by a normal {@link ChainResolver}.
+ */
+public class ChangingModuleChainResolver extends ChainResolver {
+    public static final String CHANGING_PATTERN = ".*-SNAPSHOT";
+
+    private ChangingModuleCache changingModuleCache;
+
+    private long changingModuleTtl;
+
+    private boolean refreshChangingModules;
+
+    public ChangingModuleChainResolver(ChangingModuleCache changingModuleCache, long changingModuleTtl, boolean refreshChangingModules) {
+        this.changingModuleCache = changingModuleCache;
+        this.changingModuleTtl = changingModuleTtl;
+        this.refreshChangingModules = refreshChangingModules;
+    }
+
+    public ResolvedModuleRevision getDependency(DependencyDescriptor dd, ResolveData data) throws ParseException {
+        ModuleRevisionId moduleRevisionId = dd.getDependencyRevisionId();
+        if (!isChanging(dd)) {
+            return super.getDependency(dd, data);
+        }
+        if (!refreshChangingModules && changingModuleCache.isUpToDate(moduleRevisionId, changingModuleTtl, System.currentTimeMillis())) {
+            ResolveData cacheOnlyData = new ResolveData(data, data.isValidate());
+            cacheOnlyData.getOptions().setUseCacheOnly(true);
+            ResolvedModuleRevision cachedRevision = super.getDependency(dd, cacheOnlyData);
+            if (cachedRevision != null) {
+                return cachedRevision;
+            }
+        }
+        ResolvedModuleRevision resolvedRevision = super.getDependency(dd, data);
+        if (resolvedRevision != null) {
+            changingModuleCache.checked(moduleRevisionId, System.currentTimeMillis());
+        }
+        return resolvedRevision;
+    }
+
+    private boolean isChanging(DependencyDescriptor dd) {
+        return dd.isChanging() || dd.getDependencyRevisionId().getRevision().matches(CHANGING_PATTERN);
+    }
+
+    public ChangingModuleCache getChangingModuleCache() {
+        return changingModuleCache;
+    }
+
+    public long getChangingModuleTtl() {
+        return changingModuleTtl;
+    }
+
+    public boolean isRefreshChangingModules() {
+        return refreshChangingModules;
+    }
+}
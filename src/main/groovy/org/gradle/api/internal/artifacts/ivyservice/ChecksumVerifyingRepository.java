@@ -0,0 +1,308 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.ivy.core.module.descriptor.Artifact;
+import org.apache.ivy.plugins.repository.AbstractRepository;
+import org.apache.ivy.plugins.repository.BasicResource;
+import org.apache.ivy.plugins.repository.Repository;
+import org.apache.ivy.plugins.repository.Resource;
+import org.apache.ivy.plugins.repository.TransferEvent;
+import org.apache.ivy.plugins.repository.TransferListener;
+import org.gradle.api.artifacts.ChecksumPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>A repository which verifies the checksums published along with a file while the file is downloaded. The digest is
+ * computed from the bytes as they are written to the destination, so the downloaded file is never read a second
+ * time.</p>
+ *
+ * <p>The checksum algorithms are tried in the given order. The first one for which the repository provides a checksum
+ * file is verified. Files without a checksum file are not verified. All other operations are delegated to the wrapped
+ * repository.</p>
+ *
+ * <p>Once a file has been downloaded, its checksum files appear to be missing from the resources returned by this
+ * repository. A resolver which verifies the checksums of a download itself, by cloning the downloaded resource, thus
+ * skips the file. Publishing is not affected, so resolvers keep uploading checksum files.</p>
+ *
+ * <p>Resolves of different dependency managers run concurrently and may download the same artifact to the same file
+ * of the Ivy cache. Downloads to the same file are thus executed one at a time.</p>
+ */
+public class ChecksumVerifyingRepository extends AbstractRepository {
+    private static Logger logger = LoggerFactory.getLogger(ChecksumVerifyingRepository.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private Repository repository;
+
+    private String[] algorithms;
+
+    private ChecksumPolicy checksumPolicy;
+
+    private final Set<String> downloadedSources = Collections.synchronizedSet(new HashSet<String>());
+
+    private static final ConcurrentMap<String, Object> DESTINATION_LOCKS = new ConcurrentHashMap<String, Object>();
+
+    public ChecksumVerifyingRepository(Repository repository, String[] algorithms, ChecksumPolicy checksumPolicy) {
+        this.repository = repository;
+        this.algorithms = algorithms;
+        this.checksumPolicy = checksumPolicy;
+    }
+
+    public void get(String source, File destination) throws IOException {
+        synchronized (destinationLock(destination)) {
+            doGet(source, destination);
+        }
+    }
+
+    private static Object destinationLock(File destination) {
+        String path = destination.getAbsolutePath();
+        Object lock = DESTINATION_LOCKS.get(path);
+        if (lock == null) {
+            Object newLock = new Object();
+            lock = DESTINATION_LOCKS.putIfAbsent(path, newLock);
+            if (lock == null) {
+                lock = newLock;
+            }
+        }
+        return lock;
+    }
+
+    private void doGet(String source, File destination) throws IOException {
+        Resource resource = repository.getResource(source);
+        fireTransferInitiated(resource, TransferEvent.REQUEST_GET);
+        try {
+            String algorithm = null;
+            String expectedChecksum = null;
+            if (checksumPolicy != ChecksumPolicy.IGNORE) {
+                for (int i = 0; i < algorithms.length && expectedChecksum == null; i++) {
+                    algorithm = algorithms[i];
+                    expectedChecksum = readChecksum(source + "." + algorithm);
+                }
+            }
+            MessageDigest digest = expectedChecksum == null ? null : createDigest(algorithm);
+            if (resource.getContentLength() > 0) {
+                fireTransferStarted(resource.getContentLength());
+            } else {
+                fireTransferStarted();
+            }
+            copy(resource, destination, digest);
+            if (digest != null) {
+                verify(source, destination, algorithm, expectedChecksum, toHexString(digest.digest()));
+            }
+            downloadedSources.add(source);
+            fireTransferCompleted(destination.length());
+        } catch (IOException e) {
+            fireTransferError(e);
+            throw e;
+        } catch (RuntimeException e) {
+            fireTransferError(e);
+            throw e;
+        }
+    }
+
+    private String readChecksum(String checksumSource) throws IOException {
+        Resource checksumResource = repository.getResource(checksumSource);
+        if (!checksumResource.exists()) {
+            return null;
+        }
+        InputStream inputStream = checksumResource.openStream();
+        try {
+            // A checksum file might contain the name of the file after the checksum
+            String content = IOUtils.toString(inputStream).trim();
+            return content.split("\\s")[0].toLowerCase();
+        } finally {
+            IOUtils.closeQuietly(inputStream);
+        }
+    }
+
+    private MessageDigest createDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm.equalsIgnoreCase("sha1") ? "SHA-1" : algorithm.toUpperCase());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException("Unknown checksum algorithm: " + algorithm);
+        }
+    }
+
+    private void copy(Resource resource, File destination, MessageDigest digest) throws IOException {
+        InputStream inputStream = resource.openStream();
+        if (digest != null) {
+            inputStream = new DigestInputStream(inputStream, digest);
+        }
+        OutputStream outputStream = null;
+        try {
+            outputStream = new FileOutputStream(destination);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int count;
+            while ((count = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, count);
+                fireTransferProgress(count);
+            }
+        } finally {
+            IOUtils.closeQuietly(inputStream);
+            IOUtils.closeQuietly(outputStream);
+        }
+    }
+
+    private void verify(String source, File destination, String algorithm, String expectedChecksum, String actualChecksum)
+            throws IOException {
+        if (expectedChecksum.equals(actualChecksum)) {
+            return;
+        }
+        String message = String.format("Invalid %s checksum for %s: expected %s but was %s.", algorithm, source,
+                expectedChecksum, actualChecksum);
+        if (checksumPolicy == ChecksumPolicy.FAIL) {
+            destination.delete();
+            throw new IOException(message);
+        }
+        logger.warn(message);
+    }
+
+    private static String toHexString(byte[] bytes) {
+        StringBuilder hexString = new StringBuilder();
+        for (byte b : bytes) {
+            hexString.append(Character.forDigit((b >> 4) & 0xF, 16));
+            hexString.append(Character.forDigit(b & 0xF, 16));
+        }
+        return hexString.toString();
+    }
+
+    public Resource getResource(String source) throws IOException {
+        return new DownloadedResource(repository.getResource(source));
+    }
+
+    public void put(Artifact artifact, File source, String destination, boolean overwrite) throws IOException {
+        repository.put(artifact, source, destination, overwrite);
+    }
+
+    public List list(String parent) throws IOException {
+        return repository.list(parent);
+    }
+
+    public void addTransferListener(TransferListener listener) {
+        super.addTransferListener(listener);
+        repository.addTransferListener(listener);
+    }
+
+    public void removeTransferListener(TransferListener listener) {
+        super.removeTransferListener(listener);
+        repository.removeTransferListener(listener);
+    }
+
+    public String getFileSeparator() {
+        return repository.getFileSeparator();
+    }
+
+    public String standardize(String source) {
+        return repository.standardize(source);
+    }
+
+    public String getName() {
+        return repository.getName();
+    }
+
+    public Repository getRepository() {
+        return repository;
+    }
+
+    public String[] getAlgorithms() {
+        return algorithms;
+    }
+
+    public ChecksumPolicy getChecksumPolicy() {
+        return checksumPolicy;
+    }
+
+    public void setChecksumPolicy(ChecksumPolicy checksumPolicy) {
+        this.checksumPolicy = checksumPolicy;
+    }
+
+    private boolean isChecksumOfDownloadedSource(String source, String checksumSource) {
+        if (!downloadedSources.contains(source)) {
+            return false;
+        }
+        for (String algorithm : algorithms) {
+            if (checksumSource.equals(source + "." + algorithm)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A resource of the wrapped repository whose checksum files are hidden once it has been downloaded.
+     */
+    private class DownloadedResource implements Resource {
+        private final Resource resource;
+
+        private DownloadedResource(Resource resource) {
+            this.resource = resource;
+        }
+
+        public Resource clone(String cloneName) {
+            if (isChecksumOfDownloadedSource(resource.getName(), cloneName)) {
+                // The checksum has already been verified while downloading
+                return new BasicResource(cloneName, false, 0, 0, resource.isLocal());
+            }
+            return new DownloadedResource(resource.clone(cloneName));
+        }
+
+        public String getName() {
+            return resource.getName();
+        }
+
+        public long getLastModified() {
+            return resource.getLastModified();
+        }
+
+        public long getContentLength() {
+            return resource.getContentLength();
+        }
+
+        public boolean exists() {
+            return resource.exists();
+        }
+
+        public boolean isLocal() {
+            return resource.isLocal();
+        }
+
+        public InputStream openStream() throws IOException {
+            return resource.openStream();
+        }
+
+        public String toString() {
+            return resource.toString();
+        }
+    }
+}
@@ -33,14 +33,19 @@ import org.gradle.api.artifacts.ClientModule;
 import java.io.File;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
+ * <p>Serves the module descriptors of client modules from the module registry. The resolved module revision of a client
+ * module is created once and reused by later resolves, as long as the registry holds the same module descriptor.</p>
+ *
  * @author Hans Dockter
  */
 public class ClientModuleResolver extends BasicResolver {
     private Map moduleRegistry;
     private DependencyResolver userResolver;
+    private final Map<String, ResolvedModuleRevision> resolvedModules = new HashMap<String, ResolvedModuleRevision>();
 
     public ClientModuleResolver(String name, Map moduleRegistry, DependencyResolver userResolver) {
         setName(name);
@@ -49,19 +54,31 @@ public class ClientModuleResolver extends BasicResolver {
     }
 
     public ResolvedModuleRevision getDependency(DependencyDescriptor dde, ResolveData data) {
-        if (dde.getExtraAttribute(ClientModule.CLIENT_MODULE_KEY) != null) {
-            IvyContext context = IvyContext.pushNewCopyContext();
-            context.setDependencyDescriptor(dde);
-            context.setResolveData(data);
-            DefaultModuleDescriptor moduleDescriptor =
-                    (DefaultModuleDescriptor) moduleRegistry.get(dde.getExtraAttribute(ClientModule.CLIENT_MODULE_KEY));
-            MetadataArtifactDownloadReport downloadReport = new MetadataArtifactDownloadReport(moduleDescriptor.getMetadataArtifact());
-            downloadReport.setDownloadStatus(DownloadStatus.NO);
-            downloadReport.setSearched(false);
-            IvyContext.popContext();
-            return new ResolvedModuleRevision(userResolver, userResolver, moduleDescriptor, downloadReport);
+        String clientModuleId = dde.getExtraAttribute(ClientModule.CLIENT_MODULE_KEY);
+        if (clientModuleId == null) {
+            return null;
         }
-        return null;
+        DefaultModuleDescriptor moduleDescriptor = (DefaultModuleDescriptor) moduleRegistry.get(clientModuleId);
+        synchronized (resolvedModules) {
+            ResolvedModuleRevision resolvedModule = resolvedModules.get(clientModuleId);
+            if (resolvedModule == null || resolvedModule.getDescriptor() != moduleDescriptor) {
+                resolvedModule = createResolvedModule(dde, data, moduleDescriptor);
+                resolvedModules.put(clientModuleId, resolvedModule);
+            }
+            return resolvedModule;
+        }
+    }
+
+    private ResolvedModuleRevision createResolvedModule(DependencyDescriptor dde, ResolveData data,
+                                                        DefaultModuleDescriptor moduleDescriptor) {
+        IvyContext context = IvyContext.pushNewCopyContext();
+        context.setDependencyDescriptor(dde);
+        context.setResolveData(data);
+        MetadataArtifactDownloadReport downloadReport = new MetadataArtifactDownloadReport(moduleDescriptor.getMetadataArtifact());
+        downloadReport.setDownloadStatus(DownloadStatus.NO);
+        downloadReport.setSearched(false);
+        IvyContext.popContext();
+        return new ResolvedModuleRevision(userResolver, userResolver, moduleDescriptor, downloadReport);
     }
 
     public ResolvedResource findIvyFileRef(DependencyDescriptor dd, ResolveData data) {
@@ -18,6 +18,7 @@ package org.gradle.api.internal.artifacts.ivyservice;
 import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
 import org.apache.ivy.core.publish.PublishEngine;
 import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.apache.ivy.plugins.resolver.RepositoryResolver;
 import org.gradle.api.artifacts.PublishInstruction;
 import org.gradle.util.WrapUtil;
 import org.slf4j.Logger;
@@ -26,8 +27,12 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * @author Hans Dockter
@@ -51,21 +56,93 @@ public class DefaultIvyDependencyPublisher implements IvyDependencyPublisher {
                         List<DependencyResolver> publishResolvers,
                         ModuleDescriptor moduleDescriptor,
                         PublishEngine publishEngine) {
+        ExecutorService executor = createUploadExecutor(publishInstruction.getMaxParallelUploads());
         try {
             File ivyFile = null;
             if (publishInstruction.getModuleDescriptor().isPublish()) {
                 ivyFile = new File(publishInstruction.getModuleDescriptor().getIvyFileParentDir(), IVY_FILE_NAME);
                 moduleDescriptor.toIvyFile(ivyFile);
             }
-            for (DependencyResolver resolver : publishResolvers) {
-                logger.info("Publishing to Resolver {}", resolver);
-                publishEngine.publish(moduleDescriptor, ARTIFACT_PATTERN, resolver,
-                        publishOptionsFactory.createPublishOptions(configurations, publishInstruction, ivyFile));
+            List<ParallelPublishResolver> parallelPublishResolvers = new ArrayList<ParallelPublishResolver>();
+            boolean published = false;
+            try {
+                for (DependencyResolver resolver : publishResolvers) {
+                    logger.info("Publishing to Resolver {}", resolver);
+                    DependencyResolver publishResolver = wrapForParallelUploads(resolver, executor);
+                    if (publishResolver instanceof ParallelPublishResolver) {
+                        parallelPublishResolvers.add((ParallelPublishResolver) publishResolver);
+                    }
+                    publishEngine.publish(moduleDescriptor, ARTIFACT_PATTERN, publishResolver,
+                            publishOptionsFactory.createPublishOptions(configurations, publishInstruction, ivyFile));
+                }
+                published = true;
+            } finally {
+                // The uploads to different repositories run in parallel until here. The uploads to the resolvers which
+                // have been published to are completed, also if the publish to a later resolver has failed.
+                completeUploads(parallelPublishResolvers, published);
             }
         } catch (IOException e) {
             throw new RuntimeException(e);
         } catch (ParseException e) {
             throw new RuntimeException(e);
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Completes the uploads to all given resolvers and reports the failures of all of them at once. If throwFailure is
+     * false, the failures are logged instead, as another failure of the publish is reported.
+     */
+    private void completeUploads(List<ParallelPublishResolver> parallelPublishResolvers, boolean throwFailure) throws IOException {
+        List<Exception> failures = new ArrayList<Exception>();
+        for (ParallelPublishResolver parallelPublishResolver : parallelPublishResolvers) {
+            try {
+                parallelPublishResolver.complete();
+            } catch (IOException e) {
+                failures.add(e);
+            } catch (RuntimeException e) {
+                failures.add(e);
+            }
+        }
+        if (failures.isEmpty()) {
+            return;
+        }
+        StringBuilder message = new StringBuilder(String.format("Could not publish to %s of %s resolvers:",
+                failures.size(), parallelPublishResolvers.size()));
+        for (Exception failure : failures) {
+            message.append(String.format("%n%s", failure.getMessage()));
+        }
+        IOException exception = new IOException(message.toString());
+        exception.initCause(failures.get(0));
+        if (!throwFailure) {
+            logger.error(exception.getMessage(), exception);
+            return;
+        }
+        throw exception;
+    }
+
+    private ExecutorService createUploadExecutor(int maxParallelUploads) {
+        if (maxParallelUploads <= 1) {
+            return null;
+        }
+        return Executors.newFixedThreadPool(maxParallelUploads, new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "Upload");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    private DependencyResolver wrapForParallelUploads(DependencyResolver resolver, ExecutorService executor) {
+        // Only repository resolvers upload each artifact independently. Other resolvers, like the Maven resolvers,
+        // collect the artifacts of a transaction and are not safe to be called concurrently.
+        if (executor == null || !(resolver instanceof RepositoryResolver)) {
+            return resolver;
         }
+        return new ParallelPublishResolver(resolver, executor);
     }
 }
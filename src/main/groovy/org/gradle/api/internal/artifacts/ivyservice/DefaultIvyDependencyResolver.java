@@ -37,7 +37,8 @@ public class DefaultIvyDependencyResolver implements IvyDependencyResolver {
     private ResolveOptionsFactory resolveOptionsFactory;
     private Report2Classpath report2Classpath;
 
-    private ResolveReport lastResolveReport = null;
+    // Configurations might be resolved concurrently, so each thread gets its own last report
+    private final ThreadLocal<ResolveReport> lastResolveReport = new ThreadLocal<ResolveReport>();
 
     public DefaultIvyDependencyResolver(ResolveOptionsFactory resolveOptionsFactory, Report2Classpath report2Classpath) {
         this.resolveOptionsFactory = resolveOptionsFactory;
@@ -60,7 +61,7 @@ public class DefaultIvyDependencyResolver implements IvyDependencyResolver {
         try {
             resolveReport = ivy.resolve(
                     moduleDescriptor, resolveOptions);
-            lastResolveReport = resolveReport;
+            lastResolveReport.set(resolveReport);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -73,6 +74,6 @@ public class DefaultIvyDependencyResolver implements IvyDependencyResolver {
     }
 
     public ResolveReport getLastResolveReport() {
-        return lastResolveReport;
+        return lastResolveReport.get();
     }
 }
@@ -16,12 +16,22 @@
 package org.gradle.api.internal.artifacts.ivyservice;
 
 import org.apache.ivy.Ivy;
+import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
 import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
+import org.apache.ivy.core.module.id.ModuleId;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.report.ArtifactDownloadReport;
+import org.apache.ivy.core.report.ConfigurationResolveReport;
+import org.apache.ivy.core.report.DownloadStatus;
 import org.apache.ivy.core.report.ResolveReport;
+import org.apache.ivy.core.resolve.IvyNode;
+import org.apache.ivy.core.resolve.ResolvedModuleRevision;
 import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.gradle.api.DependencyManager;
 import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.artifacts.PublishArtifact;
 import org.gradle.api.artifacts.PublishInstruction;
+import org.gradle.api.artifacts.ResolutionMetrics;
 import org.gradle.api.artifacts.ResolveInstruction;
 import org.gradle.api.internal.artifacts.ArtifactContainer;
 import org.gradle.api.internal.artifacts.ConfigurationContainer;
@@ -36,6 +46,11 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 /**
  * @author Hans Dockter
@@ -49,6 +64,22 @@ public class DefaultIvyService implements IvyService {
     private BuildResolverHandler buildResolverHandler;
     private IvyDependencyResolver dependencyResolver;
     private IvyDependencyPublisher dependencyPublisher;
+    private ResolutionMetrics metrics = new ResolutionMetrics();
+
+    private final Map<List<Object>, ResolveAhead> resolveAheads = new ConcurrentHashMap<List<Object>, ResolveAhead>();
+
+    /**
+     * The resolvers of a dependency manager are shared by all its resolves, so we resolve one configuration at a time.
+     * Configurations of different dependency managers are resolved concurrently.
+     */
+    private final Object resolveLock = new Object();
+
+    /**
+     * The locks of the resolve IDs of the Ivy caches used in this JVM. A resolve writes the resolved descriptor and the
+     * reports of its module to the cache, under the organisation and name of the module. Modules with the same
+     * organisation and name are thus not resolved concurrently, also if they belong to different dependency managers.
+     */
+    private static final ConcurrentMap<String, Object> RESOLVE_ID_LOCKS = new ConcurrentHashMap<String, Object>();
 
     public DefaultIvyService(SettingsConverter settingsConverter, ModuleDescriptorConverter moduleDescriptorConverter,
                              IvyFactory ivyFactory, BuildResolverHandler buildResolverHandler, IvyDependencyResolver dependencyResolver,
@@ -98,6 +129,14 @@ public class DefaultIvyService implements IvyService {
         return dependencyPublisher;
     }
 
+    public ResolutionMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(ResolutionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     public ResolveReport getLastResolveReport() {
         return dependencyResolver.getLastResolveReport();
     }
@@ -115,16 +154,187 @@ public class DefaultIvyService implements IvyService {
     public ResolveReport resolveAsReport(String conf, Set<? extends Configuration> configurations, DependencyContainerInternal dependencyContainer,
                                          List<DependencyResolver> dependencyResolvers,
                                          ResolveInstruction resolveInstruction, File gradleUserHome) {
-        Ivy ivy = ivy(dependencyResolvers,
-                    new ArrayList<DependencyResolver>(),
-                    gradleUserHome,
-                    dependencyContainer.getClientModuleRegistry());
-        ModuleDescriptor moduleDescriptor = moduleDescriptorConverter.convert(WrapUtil.toMap(conf, resolveInstruction.isTransitive()), new DefaultConfigurationContainer(configurations), Specs.<Configuration>satisfyAll(),
+        ModuleDescriptor moduleDescriptor = createModuleDescriptor(conf, configurations, dependencyContainer, resolveInstruction);
+        List<Object> key = resolveAheadKey(conf, resolveInstruction);
+        ResolveAhead resolveAhead = resolveAheads.remove(key);
+        if (resolveAhead != null) {
+            if (resolveAhead.fingerprint.equals(fingerprint(moduleDescriptor, dependencyResolvers))) {
+                TimedResolveReport resolveReport = getResolveAheadReport(conf, resolveAhead.resolve);
+                if (resolveReport != null) {
+                    // The metrics of a resolve ahead are only added once its result is used
+                    if (!resolveAhead.metricsAdded) {
+                        addMetrics(conf, moduleDescriptor, resolveReport.resolveReport, resolveReport.timeMillis);
+                        resolveAhead.metricsAdded = true;
+                    }
+                    // Keep the result for later resolves of the same configuration
+                    resolveAheads.put(key, resolveAhead);
+                    return resolveReport.resolveReport;
+                }
+            } else {
+                logger.debug("Configuration {} has changed since it was resolved ahead.", conf);
+                resolveAhead.resolve.cancel(false);
+            }
+        }
+        return doResolveAsReport(conf, moduleDescriptor, dependencyContainer, dependencyResolvers, resolveInstruction,
+                gradleUserHome, true).resolveReport;
+    }
+
+    public Runnable resolveAhead(final String conf, Set<? extends Configuration> configurations, final DependencyContainerInternal dependencyContainer,
+                                 final List<DependencyResolver> dependencyResolvers, ResolveInstruction resolveInstruction, final File gradleUserHome) {
+        // Errors are not reported by the resolve ahead. A later resolve of the configuration reports them.
+        final ResolveInstruction resolveAheadInstruction = new ResolveInstruction(resolveInstruction).setFailOnResolveError(false);
+        final ModuleDescriptor moduleDescriptor = createModuleDescriptor(conf, configurations, dependencyContainer, resolveInstruction);
+        FutureTask<TimedResolveReport> resolve = new FutureTask<TimedResolveReport>(new Callable<TimedResolveReport>() {
+            public TimedResolveReport call() {
+                return doResolveAsReport(conf, moduleDescriptor, dependencyContainer, dependencyResolvers, resolveAheadInstruction,
+                        gradleUserHome, false);
+            }
+        });
+        ResolveAhead resolveAhead = new ResolveAhead(resolve, fingerprint(moduleDescriptor, dependencyResolvers));
+        ResolveAhead existingResolveAhead = resolveAheads.put(resolveAheadKey(conf, resolveInstruction), resolveAhead);
+        if (existingResolveAhead != null) {
+            existingResolveAhead.resolve.cancel(false);
+        }
+        return resolve;
+    }
+
+    private List<Object> resolveAheadKey(String conf, ResolveInstruction resolveInstruction) {
+        return WrapUtil.<Object>toList(conf, new ResolveInstruction(resolveInstruction).setFailOnResolveError(false));
+    }
+
+    /**
+     * Returns what a resolve of the given module descriptor depends on. Changes to the configuration which are made
+     * after a resolve ahead change the fingerprint.
+     */
+    private List<Object> fingerprint(ModuleDescriptor moduleDescriptor, List<DependencyResolver> dependencyResolvers) {
+        List<Object> fingerprint = new ArrayList<Object>(dependencyResolvers);
+        for (org.apache.ivy.core.module.descriptor.Configuration configuration : moduleDescriptor.getConfigurations()) {
+            fingerprint.add(WrapUtil.<Object>toList(configuration.getName(), Arrays.asList(configuration.getExtends()),
+                    configuration.isTransitive()));
+        }
+        for (DependencyDescriptor dependencyDescriptor : moduleDescriptor.getDependencies()) {
+            fingerprint.add(WrapUtil.<Object>toList(dependencyDescriptor.getDependencyRevisionId(), dependencyDescriptor.isTransitive(),
+                    dependencyDescriptor.isChanging(), dependencyDescriptor.isForce()));
+            for (String conf : dependencyDescriptor.getModuleConfigurations()) {
+                // Artifact descriptors and rules are compared by their description, as they refer to their dependency descriptor
+                fingerprint.add(WrapUtil.<Object>toList(conf, Arrays.asList(dependencyDescriptor.getDependencyConfigurations(conf)),
+                        Arrays.asList(dependencyDescriptor.getDependencyArtifacts(conf)).toString(),
+                        Arrays.asList(dependencyDescriptor.getIncludeRules(conf)).toString(),
+                        Arrays.asList(dependencyDescriptor.getExcludeRules(conf)).toString()));
+            }
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Returns the report of the resolve ahead, or null if it has failed. If the resolve ahead has not been started yet,
+     * it is executed by the calling thread.
+     */
+    private TimedResolveReport getResolveAheadReport(String conf, FutureTask<TimedResolveReport> resolveAhead) {
+        resolveAhead.run();
+        TimedResolveReport resolveReport;
+        try {
+            resolveReport = resolveAhead.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            logger.debug("Resolve ahead of configuration " + conf + " has failed.", e.getCause());
+            return null;
+        }
+        // A project dependency might not have been built at the time of the resolve ahead
+        return resolveReport.resolveReport.hasError() ? null : resolveReport;
+    }
+
+    private ModuleDescriptor createModuleDescriptor(String conf, Set<? extends Configuration> configurations, DependencyContainerInternal dependencyContainer,
+                                                    ResolveInstruction resolveInstruction) {
+        return moduleDescriptorConverter.convert(WrapUtil.toMap(conf, resolveInstruction.isTransitive()), new DefaultConfigurationContainer(configurations), Specs.<Configuration>satisfyAll(),
                 dependencyContainer, resolveInstruction.getDependencySpec(), ArtifactContainer.EMPTY_CONTAINER, Specs.<PublishArtifact>satisfyAll());
-        return dependencyResolver.resolveAsReport(conf, resolveInstruction, ivy, moduleDescriptor);
     }
 
+    /**
+     * Resolves the given module descriptor. If addMetrics is true, the metrics of the resolve are added, also if it
+     * fails. Otherwise the caller adds them if it uses the result.
+     */
+    private TimedResolveReport doResolveAsReport(String conf, ModuleDescriptor moduleDescriptor, DependencyContainerInternal dependencyContainer,
+                                                 List<DependencyResolver> dependencyResolvers,
+                                                 ResolveInstruction resolveInstruction, File gradleUserHome, boolean addMetrics) {
+        synchronized (resolveLock) {
+            synchronized (resolveIdLock(gradleUserHome, moduleDescriptor)) {
+                Ivy ivy = ivy(dependencyResolvers,
+                            new ArrayList<DependencyResolver>(),
+                            gradleUserHome,
+                            dependencyContainer.getClientModuleRegistry());
+                long start = System.currentTimeMillis();
+                ResolveReport resolveReport = null;
+                try {
+                    resolveReport = dependencyResolver.resolveAsReport(conf, resolveInstruction, ivy, moduleDescriptor);
+                    return new TimedResolveReport(resolveReport, System.currentTimeMillis() - start);
+                } finally {
+                    if (addMetrics) {
+                        addMetrics(conf, moduleDescriptor, resolveReport, System.currentTimeMillis() - start);
+                    }
+                }
+            }
+        }
+    }
+
+    private static Object resolveIdLock(File gradleUserHome, ModuleDescriptor moduleDescriptor) {
+        ModuleId moduleId = moduleDescriptor.getModuleRevisionId().getModuleId();
+        String resolveId = new File(gradleUserHome, DependencyManager.DEFAULT_CACHE_DIR_NAME).getAbsolutePath() + "|"
+                + moduleId.getOrganisation() + "|" + moduleId.getName();
+        Object lock = RESOLVE_ID_LOCKS.get(resolveId);
+        if (lock == null) {
+            Object newLock = new Object();
+            lock = RESOLVE_ID_LOCKS.putIfAbsent(resolveId, newLock);
+            if (lock == null) {
+                lock = newLock;
+            }
+        }
+        return lock;
+    }
+
+    private void addMetrics(String conf, ModuleDescriptor moduleDescriptor, ResolveReport resolveReport, long timeMillis) {
+        ModuleRevisionId moduleRevisionId = moduleDescriptor.getModuleRevisionId();
+        metrics.addConfigurationResolve(String.format("%s:%s:%s", moduleRevisionId.getOrganisation(),
+                moduleRevisionId.getName(), conf), timeMillis);
+        if (resolveReport == null) {
+            return;
+        }
+        ConfigurationResolveReport configurationReport = resolveReport.getConfigurationReport(conf);
+        int modulesResolved = 0;
+        for (IvyNode node : (List<IvyNode>) resolveReport.getDependencies()) {
+            ResolvedModuleRevision moduleRevision = node.getModuleRevision();
+            if (moduleRevision == null) {
+                continue;
+            }
+            modulesResolved++;
+            if (moduleRevision.getReport() != null) {
+                addDownloadMetrics(moduleRevision.getResolver(), moduleRevision.getReport());
+            }
+            if (configurationReport != null) {
+                for (ArtifactDownloadReport artifactReport : configurationReport.getDownloadReports(node.getResolvedId())) {
+                    addDownloadMetrics(moduleRevision.getArtifactResolver(), artifactReport);
+                }
+            }
+        }
+        metrics.addModulesResolved(modulesResolved);
+    }
 
+    private void addDownloadMetrics(DependencyResolver resolver, ArtifactDownloadReport downloadReport) {
+        if (downloadReport.getDownloadStatus() == DownloadStatus.SUCCESSFUL) {
+            metrics.addCacheMiss();
+        } else if (downloadReport.getDownloadStatus() == DownloadStatus.NO) {
+            metrics.addCacheHit();
+        }
+        if (resolver == null) {
+            return;
+        }
+        metrics.addResolverTime(resolver.getName(), downloadReport.getDownloadTimeMillis());
+        if (downloadReport.getDownloadStatus() == DownloadStatus.SUCCESSFUL) {
+            metrics.addBytesDownloaded(resolver.getName(), downloadReport.getSize());
+        }
+    }
 
     public void publish(String configuration, PublishInstruction publishInstruction,
                         List<DependencyResolver> publishResolvers, ConfigurationContainer configurationContainer,
@@ -144,4 +354,25 @@ public class DefaultIvyService implements IvyService {
                         artifactContainer, publishInstruction.getArtifactSpec()),
                 ivy.getPublishEngine());
     }
+
+    private static class ResolveAhead {
+        private final FutureTask<TimedResolveReport> resolve;
+        private final List<Object> fingerprint;
+        private boolean metricsAdded;
+
+        private ResolveAhead(FutureTask<TimedResolveReport> resolve, List<Object> fingerprint) {
+            this.resolve = resolve;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private static class TimedResolveReport {
+        private final ResolveReport resolveReport;
+        private final long timeMillis;
+
+        private TimedResolveReport(ResolveReport resolveReport, long timeMillis) {
+            this.resolveReport = resolveReport;
+            this.timeMillis = timeMillis;
+        }
+    }
 }
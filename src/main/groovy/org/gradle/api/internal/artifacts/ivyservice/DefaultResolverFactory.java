@@ -43,6 +43,20 @@ import java.util.Map;
 public class DefaultResolverFactory implements ResolverFactory {
     private File tmpIvyCache;
 
+    /**
+     * Shared by the installers and deployers, so a pom generated for one of them is reused by the others.
+     */
+    private final PomFileWriter pomFileWriter = new DefaultPomFileWriter(
+            new DefaultPomWriter(
+                    new DefaultPomHeaderWriter(),
+                    new DefaultPomModuleIdWriter(),
+                    new DefaultPomDependenciesWriter(
+                            new DefaultPomDependenciesConverter(
+                                    new DefaultExcludeRuleConverter()
+                            )
+                    )
+            ));
+
     public DefaultResolverFactory(File tmpIvyCache) {
         this.tmpIvyCache = tmpIvyCache;
     }
@@ -119,16 +133,7 @@ public class DefaultResolverFactory implements ResolverFactory {
         return new DefaultGroovyMavenDeployer(name,
                 pomFilterContainer,
                 new DefaultArtifactPomContainer(pomDir, pomFilterContainer,
-                        new DefaultPomFileWriter(
-                                new DefaultPomWriter(
-                                        new DefaultPomHeaderWriter(),
-                                        new DefaultPomModuleIdWriter(),
-                                        new DefaultPomDependenciesWriter(
-                                                new DefaultPomDependenciesConverter(
-                                                        new DefaultExcludeRuleConverter()
-                                                )
-                                        )
-                                )),
+                        pomFileWriter,
                         new DefaultArtifactPomFactory()),
                 dependencyManager
         );
@@ -140,16 +145,7 @@ public class DefaultResolverFactory implements ResolverFactory {
         return new BaseMavenInstaller(name,
                 pomFilterContainer,
                 new DefaultArtifactPomContainer(pomDir, pomFilterContainer,
-                        new DefaultPomFileWriter(
-                                new DefaultPomWriter(
-                                        new DefaultPomHeaderWriter(),
-                                        new DefaultPomModuleIdWriter(),
-                                        new DefaultPomDependenciesWriter(
-                                                new DefaultPomDependenciesConverter(
-                                                        new DefaultExcludeRuleConverter()
-                                                )
-                                        )
-                                )),
+                        pomFileWriter,
                         new DefaultArtifactPomFactory()),
                 dependencyManager
         );
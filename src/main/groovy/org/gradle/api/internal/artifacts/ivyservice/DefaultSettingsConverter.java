@@ -23,11 +23,14 @@ import org.apache.ivy.plugins.matcher.PatternMatcher;
 import org.apache.ivy.plugins.repository.Repository;
 import org.apache.ivy.plugins.repository.TransferEvent;
 import org.apache.ivy.plugins.repository.TransferListener;
+import org.apache.ivy.plugins.repository.file.FileRepository;
 import org.apache.ivy.plugins.resolver.ChainResolver;
 import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.apache.ivy.plugins.resolver.DualResolver;
 import org.apache.ivy.plugins.resolver.RepositoryResolver;
 import org.gradle.api.DependencyManager;
 import org.gradle.api.Transformer;
+import org.gradle.api.artifacts.ChecksumPolicy;
 import org.gradle.api.internal.ChainingTransformer;
 import org.gradle.api.logging.Logging;
 import org.gradle.api.logging.StandardOutputLogging;
@@ -46,11 +49,23 @@ import java.util.Map;
 public class DefaultSettingsConverter implements SettingsConverter {
     private static Logger logger = LoggerFactory.getLogger(DefaultSettingsConverter.class);
 
+    private static final ThreadLocal<Boolean> PROGRESS_LOGGING = new ThreadLocal<Boolean>() {
+        protected Boolean initialValue() {
+            return true;
+        }
+    };
+
     private static final TransferListener TRANSFER_LISTENER = new TransferListener() {
         public void transferProgress(TransferEvent evt) {
             if (evt.getResource().isLocal()) {
                 return;
             }
+            if (!PROGRESS_LOGGING.get()) {
+                if (evt.getEventType() == TransferEvent.TRANSFER_STARTED && evt.getRequestType() == TransferEvent.REQUEST_GET) {
+                    logger.info(String.format("downloading (%s) %s", getLengthText(evt), evt.getResource().getName()));
+                }
+                return;
+            }
             if (evt.getEventType() == TransferEvent.TRANSFER_STARTED) {
                 logger.info(Logging.LIFECYCLE_ALLWAYS, String.format("downloading (%s) %s", getLengthText(evt), evt.getResource().getName()));
             }
@@ -78,10 +93,36 @@ public class DefaultSettingsConverter implements SettingsConverter {
     }
 
 
+    /**
+     * Sets whether the downloads of the calling thread log their progress to the console. Threads running in the
+     * background of a build switch it off, so that their progress does not interleave with the output of the build.
+     * Their downloads are then logged at info level.
+     */
+    public static void setProgressLogging(boolean progressLogging) {
+        PROGRESS_LOGGING.set(progressLogging);
+    }
+
     private IvySettings ivySettings;
 
+    private ProjectDependencyResolver projectDependencyResolver;
+
+    private long changingModuleTtl;
+
+    private boolean refreshChangingModules;
+
+    private ChangingModuleCache changingModuleCache;
+
+    private ChecksumPolicy checksumPolicy = ChecksumPolicy.FAIL;
+
     private ChainingTransformer<IvySettings> transformer = new ChainingTransformer<IvySettings>(IvySettings.class);
 
+    public DefaultSettingsConverter() {
+    }
+
+    public DefaultSettingsConverter(ProjectDependencyResolver projectDependencyResolver) {
+        this.projectDependencyResolver = projectDependencyResolver;
+    }
+
     public void addIvyTransformer(Transformer<IvySettings> transformer) {
         this.transformer.add(transformer);
     }
@@ -95,7 +136,7 @@ public class DefaultSettingsConverter implements SettingsConverter {
         if (ivySettings != null) {
             return ivySettings;
         }
-        ChainResolver userResolverChain = createUserResolverChain(classpathResolvers, buildResolver);
+        ChainResolver userResolverChain = createUserResolverChain(classpathResolvers, buildResolver, gradleUserHome);
         ClientModuleResolver clientModuleResolver = createClientModuleResolver(clientModuleRegistry, userResolverChain);
         ChainResolver outerChain = createOuterChain(userResolverChain, clientModuleResolver);
 
@@ -110,6 +151,9 @@ public class DefaultSettingsConverter implements SettingsConverter {
         List<DependencyResolver> allResolvers = new ArrayList(otherResolvers);
         allResolvers.addAll(classpathResolvers);
         allResolvers.addAll(WrapUtil.toList(buildResolver, outerChain, clientModuleResolver, userResolverChain));
+        if (projectDependencyResolver != null) {
+            allResolvers.add(projectDependencyResolver);
+        }
         return allResolvers;
     }
 
@@ -118,6 +162,9 @@ public class DefaultSettingsConverter implements SettingsConverter {
         clientModuleChain.setName(CLIENT_MODULE_CHAIN_NAME);
         clientModuleChain.setReturnFirst(true);
         clientModuleChain.add(clientModuleResolver);
+        if (projectDependencyResolver != null) {
+            clientModuleChain.add(projectDependencyResolver);
+        }
         clientModuleChain.add(userResolverChain);
         return clientModuleChain;
     }
@@ -127,12 +174,15 @@ public class DefaultSettingsConverter implements SettingsConverter {
         return clientModuleResolver;
     }
 
-    private ChainResolver createUserResolverChain(List<DependencyResolver> classpathResolvers, RepositoryResolver buildResolver) {
-        ChainResolver chainResolver = new ChainResolver();
+    private ChainResolver createUserResolverChain(List<DependencyResolver> classpathResolvers, RepositoryResolver buildResolver, File gradleUserHome) {
+        if (changingModuleCache == null) {
+            changingModuleCache = new ChangingModuleCache(new File(gradleUserHome, DependencyManager.DEFAULT_CACHE_DIR_NAME));
+        }
+        ChainResolver chainResolver = new ChangingModuleChainResolver(changingModuleCache, changingModuleTtl, refreshChangingModules);
         chainResolver.setName(CHAIN_RESOLVER_NAME);
         chainResolver.add(buildResolver);
         // todo Figure out why Ivy thinks this is necessary. The IBiblio resolver has already this pattern which should be good enough. By doing this we let Maven semantics seep into our whole system.
-        chainResolver.setChangingPattern(".*-SNAPSHOT");
+        chainResolver.setChangingPattern(ChangingModuleChainResolver.CHANGING_PATTERN);
         chainResolver.setChangingMatcher(PatternMatcher.REGEXP);
         chainResolver.setReturnFirst(true);
         for (Object classpathResolver : classpathResolvers) {
@@ -154,12 +204,30 @@ public class DefaultSettingsConverter implements SettingsConverter {
         for (DependencyResolver dependencyResolver : allResolvers) {
             ivySettings.addResolver(dependencyResolver);
             ((DefaultRepositoryCacheManager) dependencyResolver.getRepositoryCacheManager()).setSettings(ivySettings);
-            if (dependencyResolver instanceof RepositoryResolver) {
-                Repository repository = ((RepositoryResolver) dependencyResolver).getRepository();
-                if (!repository.hasTransferListener(TRANSFER_LISTENER)) {
-                    repository.addTransferListener(TRANSFER_LISTENER);
-                }
-            }
+            initializeRepository(dependencyResolver);
+        }
+    }
+
+    private void initializeRepository(DependencyResolver dependencyResolver) {
+        if (dependencyResolver instanceof DualResolver) {
+            initializeRepository(((DualResolver) dependencyResolver).getIvyResolver());
+            initializeRepository(((DualResolver) dependencyResolver).getArtifactResolver());
+        }
+        if (!(dependencyResolver instanceof RepositoryResolver)) {
+            return;
+        }
+        RepositoryResolver repositoryResolver = (RepositoryResolver) dependencyResolver;
+        Repository repository = repositoryResolver.getRepository();
+        if (repository instanceof ChecksumVerifyingRepository) {
+            ((ChecksumVerifyingRepository) repository).setChecksumPolicy(checksumPolicy);
+        } else if (!(repository instanceof FileRepository)) {
+            // The checksums are verified while downloading. The repository hides them from the resolver afterwards,
+            // so Ivy does not read the downloaded file again. The resolver keeps its checksums for publishing.
+            repository = new ChecksumVerifyingRepository(repository, repositoryResolver.getChecksumAlgorithms(), checksumPolicy);
+            repositoryResolver.setRepository(repository);
+        }
+        if (!repository.hasTransferListener(TRANSFER_LISTENER)) {
+            repository.addTransferListener(TRANSFER_LISTENER);
         }
     }
 
@@ -170,4 +238,40 @@ public class DefaultSettingsConverter implements SettingsConverter {
     public void setIvySettings(IvySettings ivySettings) {
         this.ivySettings = ivySettings;
     }
+
+    public ProjectDependencyResolver getProjectDependencyResolver() {
+        return projectDependencyResolver;
+    }
+
+    public long getChangingModuleTtl() {
+        return changingModuleTtl;
+    }
+
+    public void setChangingModuleTtl(long changingModuleTtl) {
+        this.changingModuleTtl = changingModuleTtl;
+    }
+
+    public boolean isRefreshChangingModules() {
+        return refreshChangingModules;
+    }
+
+    public void setRefreshChangingModules(boolean refreshChangingModules) {
+        this.refreshChangingModules = refreshChangingModules;
+    }
+
+    public ChangingModuleCache getChangingModuleCache() {
+        return changingModuleCache;
+    }
+
+    public void setChangingModuleCache(ChangingModuleCache changingModuleCache) {
+        this.changingModuleCache = changingModuleCache;
+    }
+
+    public ChecksumPolicy getChecksumPolicy() {
+        return checksumPolicy;
+    }
+
+    public void setChecksumPolicy(ChecksumPolicy checksumPolicy) {
+        this.checksumPolicy = checksumPolicy;
+    }
 }
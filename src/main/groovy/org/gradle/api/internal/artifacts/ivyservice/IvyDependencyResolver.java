@@ -29,6 +29,9 @@ import java.util.List;
 public interface IvyDependencyResolver {
     ResolveReport resolveAsReport(String conf, ResolveInstruction resolveInstruction, Ivy ivy, ModuleDescriptor moduleDescriptor);
 
+    /**
+     * Returns the report of the last resolve executed by the calling thread.
+     */
     ResolveReport getLastResolveReport();
 
     List<File> resolve(String conf, ResolveInstruction resolveInstruction, Ivy ivy, ModuleDescriptor moduleDescriptor);
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.apache.ivy.core.module.descriptor.Artifact;
+import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.resolve.ResolveData;
+import org.apache.ivy.plugins.repository.Repository;
+import org.apache.ivy.plugins.repository.Resource;
+import org.apache.ivy.plugins.repository.file.FileRepository;
+import org.apache.ivy.plugins.repository.url.URLRepository;
+import org.apache.ivy.plugins.resolver.BasicResolver;
+import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.apache.ivy.plugins.resolver.RepositoryResolver;
+import org.apache.ivy.plugins.resolver.util.ResolvedResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>A resolver which uploads the artifacts of a publish transaction in the background, using the given executor. The
+ * uploads are delegated to the wrapped resolver.</p>
+ *
+ * <p>File and URL repositories open a new stream or connection for each upload, so the artifacts are uploaded to them
+ * concurrently. Other repositories, like the ssh and sftp repositories, share a session between their operations, so
+ * the uploads to one of them are executed one at a time. Committing the transaction does not wait for the uploads.
+ * They are awaited by {@link #complete()}, so that a publish can go on with the uploads to other repositories
+ * meanwhile.</p>
+ *
+ * <p>A publish is all or nothing: when the transaction is completed, all uploads are awaited. If any of them failed,
+ * the transaction of the wrapped resolver is aborted and the failures of all artifacts are reported at once. The module
+ * descriptor is only uploaded after all other artifacts have been uploaded successfully.</p>
+ *
+ * <p>The uploads do not log the progress of their transfers. Each finished upload is logged instead.</p>
+ */
+public class ParallelPublishResolver extends BasicResolver {
+    private static Logger logger = LoggerFactory.getLogger(ParallelPublishResolver.class);
+
+    private DependencyResolver resolver;
+
+    private Object repositoryLock;
+
+    private ExecutorService executor;
+
+    private List<ArtifactUpload> uploads = new ArrayList<ArtifactUpload>();
+
+    private List<ArtifactUpload> descriptorUploads = new ArrayList<ArtifactUpload>();
+
+    private boolean committed;
+
+    private AtomicInteger uploadedCount = new AtomicInteger();
+
+    private AtomicLong uploadedBytes = new AtomicLong();
+
+    private long startTime;
+
+    public ParallelPublishResolver(DependencyResolver resolver, ExecutorService executor) {
+        this.resolver = resolver;
+        this.repositoryLock = getRepositoryLock(resolver);
+        this.executor = executor;
+        setName(resolver.getName());
+    }
+
+    /**
+     * Returns the lock the uploads to the repository of the given resolver are executed with, or null if the repository
+     * can upload several files concurrently.
+     */
+    static Object getRepositoryLock(DependencyResolver resolver) {
+        if (!(resolver instanceof RepositoryResolver)) {
+            return resolver;
+        }
+        Repository repository = ((RepositoryResolver) resolver).getRepository();
+        Repository uploadingRepository = repository instanceof ChecksumVerifyingRepository
+                ? ((ChecksumVerifyingRepository) repository).getRepository() : repository;
+        if (uploadingRepository instanceof FileRepository || uploadingRepository instanceof URLRepository) {
+            return null;
+        }
+        return repository;
+    }
+
+    public void beginPublishTransaction(ModuleRevisionId module, boolean overwrite) throws IOException {
+        uploads.clear();
+        descriptorUploads.clear();
+        committed = false;
+        uploadedCount.set(0);
+        uploadedBytes.set(0);
+        startTime = System.currentTimeMillis();
+        resolver.beginPublishTransaction(module, overwrite);
+    }
+
+    public void publish(Artifact artifact, File src, boolean overwrite) {
+        ArtifactUpload upload = new ArtifactUpload(artifact, src, overwrite);
+        if ("ivy".equals(artifact.getType())) {
+            descriptorUploads.add(upload);
+        } else {
+            upload.submit();
+            uploads.add(upload);
+        }
+    }
+
+    public void commitPublishTransaction() {
+        committed = true;
+    }
+
+    /**
+     * Awaits the uploads of a committed transaction, uploads the module descriptor and commits the transaction of the
+     * wrapped resolver. If an upload has failed, the transaction of the wrapped resolver is aborted instead. Does
+     * nothing if no transaction has been committed.
+     */
+    public void complete() throws IOException {
+        if (!committed) {
+            return;
+        }
+        committed = false;
+        try {
+            awaitUploads(uploads);
+            for (ArtifactUpload upload : descriptorUploads) {
+                upload.submit();
+            }
+            awaitUploads(descriptorUploads);
+        } catch (IOException e) {
+            resolver.abortPublishTransaction();
+            throw e;
+        }
+        logger.info("Uploaded {} artifacts ({} bytes) to {} in {} ms.", new Object[] {uploadedCount.get(),
+                uploadedBytes.get(), getName(), System.currentTimeMillis() - startTime});
+        resolver.commitPublishTransaction();
+    }
+
+    public void abortPublishTransaction() throws IOException {
+        committed = false;
+        try {
+            // Descriptor uploads which have not been submitted yet never will be
+            awaitUploads(uploads);
+            awaitUploads(descriptorUploads);
+        } catch (IOException e) {
+            // The failures are reported by the caller which aborts the transaction
+        } finally {
+            resolver.abortPublishTransaction();
+        }
+    }
+
+    private void awaitUploads(List<ArtifactUpload> uploadsToAwait) throws IOException {
+        Map<Artifact, Throwable> failures = new LinkedHashMap<Artifact, Throwable>();
+        for (ArtifactUpload upload : uploadsToAwait) {
+            Throwable failure = upload.await();
+            if (failure != null) {
+                failures.put(upload.artifact, failure);
+            }
+        }
+        if (failures.isEmpty()) {
+            return;
+        }
+        StringBuilder message = new StringBuilder(String.format("Could not upload %s of %s artifacts to %s:",
+                failures.size(), uploadsToAwait.size(), getName()));
+        for (Map.Entry<Artifact, Throwable> failure : failures.entrySet()) {
+            message.append(String.format("%n  %s: %s", failure.getKey(), failure.getValue().getMessage()));
+        }
+        IOException exception = new IOException(message.toString());
+        exception.initCause(failures.values().iterator().next());
+        throw exception;
+    }
+
+    public ResolvedResource findIvyFileRef(DependencyDescriptor dd, ResolveData data) {
+        return null;
+    }
+
+    protected Collection findNames(Map tokenValues, String token) {
+        return null;
+    }
+
+    protected ResolvedResource findArtifactRef(Artifact artifact, Date date) {
+        return null;
+    }
+
+    protected long get(Resource resource, File dest) {
+        return 0;
+    }
+
+    protected Resource getResource(String s) {
+        return null;
+    }
+
+    public DependencyResolver getResolver() {
+        return resolver;
+    }
+
+    private class ArtifactUpload {
+        private final Artifact artifact;
+        private final File src;
+        private final boolean overwrite;
+        private Future<Object> future;
+
+        private ArtifactUpload(Artifact artifact, File src, boolean overwrite) {
+            this.artifact = artifact;
+            this.src = src;
+            this.overwrite = overwrite;
+        }
+
+        private void submit() {
+            future = executor.submit(new Callable<Object>() {
+                public Object call() throws Exception {
+                    DefaultSettingsConverter.setProgressLogging(false);
+                    if (repositoryLock == null) {
+                        resolver.publish(artifact, src, overwrite);
+                    } else {
+                        synchronized (repositoryLock) {
+                            resolver.publish(artifact, src, overwrite);
+                        }
+                    }
+                    uploadedBytes.addAndGet(src.length());
+                    logger.info("Uploaded {} to {} ({} artifacts done).", new Object[] {artifact, getName(),
+                            uploadedCount.incrementAndGet()});
+                    return null;
+                }
+            });
+        }
+
+        private Throwable await() {
+            if (future == null) {
+                return null;
+            }
+            try {
+                future.get();
+                return null;
+            } catch (ExecutionException e) {
+                return e.getCause();
+            } catch (InterruptedException e) {
+                return e;
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.apache.ivy.core.module.descriptor.Artifact;
+import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
+import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
+import org.apache.ivy.core.module.id.ArtifactRevisionId;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.report.ArtifactDownloadReport;
+import org.apache.ivy.core.report.DownloadReport;
+import org.apache.ivy.core.report.DownloadStatus;
+import org.apache.ivy.core.report.MetadataArtifactDownloadReport;
+import org.apache.ivy.core.resolve.DownloadOptions;
+import org.apache.ivy.core.resolve.ResolveData;
+import org.apache.ivy.core.resolve.ResolvedModuleRevision;
+import org.apache.ivy.plugins.repository.Resource;
+import org.apache.ivy.plugins.resolver.BasicResolver;
+import org.apache.ivy.plugins.resolver.util.ResolvedResource;
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.Dependency;
+import org.gradle.api.artifacts.PublishArtifact;
+import org.gradle.api.internal.artifacts.DependencyManagerInternal;
+import org.gradle.api.specs.Specs;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resolves the dependencies on projects of the current build directly from the in-memory model of the project. The
+ * module descriptor is created from the dependency manager of the project and the artifacts point to the files produced
+ * by the project. No publishing to the build resolver is required for this.
+ */
+public class ProjectDependencyResolver extends BasicResolver {
+    private Project project;
+
+    private Map<ArtifactRevisionId, File> artifactFiles = Collections.synchronizedMap(new HashMap<ArtifactRevisionId, File>());
+
+    public ProjectDependencyResolver(String name, Project project) {
+        setName(name);
+        this.project = project;
+    }
+
+    public ResolvedModuleRevision getDependency(DependencyDescriptor dde, ResolveData data) {
+        Project dependencyProject = findProject(dde.getDependencyRevisionId());
+        if (dependencyProject == null) {
+            return null;
+        }
+        DependencyManagerInternal dependencyManager = (DependencyManagerInternal) dependencyProject.getDependencies();
+        ModuleDescriptor moduleDescriptor = dependencyManager.createModuleDescriptor(Specs.<Configuration>satisfyAll(),
+                Specs.<Dependency>satisfyAll(), Specs.<PublishArtifact>satisfyAll());
+        for (PublishArtifact publishArtifact : dependencyManager.getArtifacts()) {
+            artifactFiles.put(publishArtifact.createIvyArtifact(moduleDescriptor.getModuleRevisionId()).getId(), publishArtifact.getFile());
+        }
+        MetadataArtifactDownloadReport downloadReport = new MetadataArtifactDownloadReport(moduleDescriptor.getMetadataArtifact());
+        downloadReport.setDownloadStatus(DownloadStatus.NO);
+        downloadReport.setSearched(false);
+        return new ResolvedModuleRevision(this, this, moduleDescriptor, downloadReport);
+    }
+
+    private Project findProject(ModuleRevisionId moduleRevisionId) {
+        for (Project candidate : project.getRootProject().getAllprojects()) {
+            if (candidate.getDependencies() != null
+                    && moduleRevisionId.getOrganisation().equals(candidate.getGroup().toString())
+                    && moduleRevisionId.getName().equals(candidate.getName())
+                    && moduleRevisionId.getRevision().equals(candidate.getVersion().toString())) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    public DownloadReport download(Artifact[] artifacts, DownloadOptions options) {
+        DownloadReport downloadReport = new DownloadReport();
+        for (Artifact artifact : artifacts) {
+            ArtifactDownloadReport artifactReport = new ArtifactDownloadReport(artifact);
+            File file = artifactFiles.get(artifact.getId());
+            if (file == null || !file.isFile()) {
+                artifactReport.setDownloadStatus(DownloadStatus.FAILED);
+                artifactReport.setDownloadDetails(ArtifactDownloadReport.MISSING_ARTIFACT);
+            } else {
+                artifactReport.setDownloadStatus(DownloadStatus.NO);
+                artifactReport.setLocalFile(file);
+                artifactReport.setSize(file.length());
+            }
+            downloadReport.addArtifactReport(artifactReport);
+        }
+        return downloadReport;
+    }
+
+    public ResolvedResource findIvyFileRef(DependencyDescriptor dd, ResolveData data) {
+        return null;
+    }
+
+    protected Collection findNames(Map tokenValues, String token) {
+        return null;
+    }
+
+    protected ResolvedResource findArtifactRef(Artifact artifact, Date date) {
+        return null;
+    }
+
+    protected long get(Resource resource, File dest) {
+        return resource.getContentLength();
+    }
+
+    protected Resource getResource(String s) {
+        return null;
+    }
+
+    public void publish(Artifact artifact, File src, boolean overwrite) {}
+
+    public Project getProject() {
+        return project;
+    }
+}
@@ -18,6 +18,7 @@ package org.gradle.api.internal.artifacts.ivyservice;
 import org.apache.ivy.core.settings.IvySettings;
 import org.apache.ivy.plugins.resolver.DependencyResolver;
 import org.apache.ivy.plugins.resolver.RepositoryResolver;
+import org.gradle.api.artifacts.ChecksumPolicy;
 import org.gradle.api.artifacts.IvyObjectBuilder;
 
 import java.io.File;
@@ -31,7 +32,39 @@ public interface SettingsConverter extends IvyObjectBuilder<IvySettings> {
     String CHAIN_RESOLVER_NAME = "chain";
     String CLIENT_MODULE_CHAIN_NAME = "clientModuleChain";
     String CLIENT_MODULE_NAME = "clientModule";
+    String PROJECT_DEPENDENCY_RESOLVER_NAME = "projectDependencies";
 
     IvySettings convert(List<DependencyResolver> classpathResolvers, List<DependencyResolver> otherResolvers, File gradleUserHome, RepositoryResolver buildResolver,
                         Map clientModuleRegistry);
+
+    /**
+     * Returns the time in milliseconds during which the metadata of a changing module is served from the local cache
+     * instead of being checked against the remote repository.
+     */
+    long getChangingModuleTtl();
+
+    void setChangingModuleTtl(long changingModuleTtl);
+
+    /**
+     * Returns whether changing modules should be checked against the remote repository regardless of their time to
+     * live.
+     */
+    boolean isRefreshChangingModules();
+
+    void setRefreshChangingModules(boolean refreshChangingModules);
+
+    /**
+     * Returns the cache recording when changing modules were last checked, or null if it is created from the gradle
+     * user home on conversion.
+     */
+    ChangingModuleCache getChangingModuleCache();
+
+    void setChangingModuleCache(ChangingModuleCache changingModuleCache);
+
+    /**
+     * Returns what happens when a downloaded file does not match the checksum published with it.
+     */
+    ChecksumPolicy getChecksumPolicy();
+
+    void setChecksumPolicy(ChecksumPolicy checksumPolicy);
 }
@@ -17,36 +17,111 @@
  */
 package org.gradle.api.internal.artifacts.publish.maven;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.ivy.core.module.descriptor.DependencyArtifactDescriptor;
 import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
+import org.apache.ivy.core.module.descriptor.ExcludeRule;
+import org.gradle.api.artifacts.maven.Conf2ScopeMapping;
+import org.gradle.api.artifacts.maven.Conf2ScopeMappingContainer;
 import org.gradle.api.artifacts.maven.MavenPom;
 
 import java.io.*;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
+/**
+ * Writes a pom file. The generated content is cached against a hash of the inputs of the pom, so a pom with the same
+ * inputs is only generated once. A pom file which already has the generated content is not rewritten, so its
+ * timestamp stays unchanged.
+ */
 public final class DefaultPomFileWriter implements PomFileWriter {
+    private static final String ENCODING = "UTF-8";
+
     PomWriter pomWriter;
 
+    private final Map<String, String> pomCache = new HashMap<String, String>();
+
     public DefaultPomFileWriter(PomWriter pomWriter) {
         this.pomWriter = pomWriter;
     }
 
     public void write(MavenPom pom, List<DependencyDescriptor> dependencies, File output) {
-        if (output.getParentFile() != null) {
-            output.getParentFile().mkdirs();
-        }
-        PrintWriter out = null;
+        String content = getContent(pom, dependencies);
         try {
-            out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(output),
-                    "UTF-8"));
+            if (output.isFile() && content.equals(FileUtils.readFileToString(output, ENCODING))) {
+                return;
+            }
+            FileUtils.writeStringToFile(output, content, ENCODING);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private synchronized String getContent(MavenPom pom, List<DependencyDescriptor> dependencies) {
+        String inputsHash = hashInputs(pom, dependencies);
+        String content = pomCache.get(inputsHash);
+        if (content == null) {
+            StringWriter stringWriter = new StringWriter();
+            PrintWriter out = new PrintWriter(stringWriter);
             pomWriter.convert(pom, dependencies, out);
-        } catch (UnsupportedEncodingException e) {
+            out.close();
+            content = stringWriter.toString();
+            pomCache.put(inputsHash, content);
+        }
+        return content;
+    }
+
+    private String hashInputs(MavenPom pom, List<DependencyDescriptor> dependencies) {
+        StringBuilder inputs = new StringBuilder();
+        append(inputs, pom.getGroupId(), pom.getArtifactId(), pom.getVersion(), pom.getClassifier(), pom.getPackaging(),
+                pom.getLicenseHeader());
+        Conf2ScopeMappingContainer scopeMappings = pom.getScopeMappings();
+        if (scopeMappings != null) {
+            append(inputs, scopeMappings.isSkipUnmappedConfs());
+            for (Conf2ScopeMapping mapping : new TreeMap<String, Conf2ScopeMapping>(scopeMappings.getMappings()).values()) {
+                append(inputs, mapping.getConf(), mapping.getScope(), mapping.getPriority());
+            }
+        }
+        for (DependencyDescriptor dependency : dependencies) {
+            appendDependency(inputs, dependency);
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(inputs.toString().getBytes(ENCODING));
+            return new BigInteger(1, digest).toString(16);
+        } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException(e);
-        } catch (FileNotFoundException e) {
+        } catch (UnsupportedEncodingException e) {
             throw new RuntimeException(e);
-        } finally {
-            if (out != null) {
-                out.close();
+        }
+    }
+
+    private void appendDependency(StringBuilder inputs, DependencyDescriptor dependency) {
+        String[] moduleConfigurations = dependency.getModuleConfigurations();
+        append(inputs, "dependency", dependency.getDependencyRevisionId(), Arrays.asList(moduleConfigurations),
+                dependency.canExclude());
+        for (String configuration : moduleConfigurations) {
+            append(inputs, configuration);
+            for (DependencyArtifactDescriptor artifact : dependency.getDependencyArtifacts(configuration)) {
+                append(inputs, artifact.getName(), artifact.getType(), artifact.getExt());
+            }
+        }
+        if (dependency.canExclude()) {
+            for (ExcludeRule excludeRule : dependency.getExcludeRules(moduleConfigurations)) {
+                append(inputs, excludeRule.getId(), excludeRule.getMatcher().getName());
             }
         }
     }
-}
\ No newline at end of file
+
+    private void append(StringBuilder inputs, Object... values) {
+        for (Object value : values) {
+            inputs.append(value).append('\u0000');
+        }
+        inputs.append('\n');
+    }
+}
@@ -23,7 +23,9 @@ import org.gradle.api.artifacts.maven.MavenPom;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Hans Dockter
@@ -37,19 +39,30 @@ public class DefaultPomDependenciesConverter implements PomDependenciesConverter
 
     public List<MavenDependency> convert(MavenPom pom, List<DependencyDescriptor> dependencies) {
         List<MavenDependency> mavenDependencies = new ArrayList<MavenDependency>();
+        // Most dependencies share a few combinations of configurations, so the scope of each combination is looked up once
+        Map<List<String>, String> scopes = new HashMap<List<String>, String>();
         for (DependencyDescriptor dependencyDescriptor : dependencies) {
             if (dependencyDescriptor.getAllDependencyArtifacts().length == 0) {
-                addFromDependencyDescriptor(mavenDependencies, pom, dependencyDescriptor);
+                addFromDependencyDescriptor(mavenDependencies, pom, dependencyDescriptor, scopes);
             } else {
-                addFromArtifactDescriptor(mavenDependencies, pom, dependencyDescriptor);
+                addFromArtifactDescriptor(mavenDependencies, pom, dependencyDescriptor, scopes);
             }
         }
         return mavenDependencies;
     }
 
-    private void addFromArtifactDescriptor(List<MavenDependency> mavenDependencies, MavenPom pom, DependencyDescriptor dependencyDescriptor) {
+    private String getScope(MavenPom pom, String[] configurations, Map<List<String>, String> scopes) {
+        List<String> key = Arrays.asList(configurations);
+        if (!scopes.containsKey(key)) {
+            scopes.put(key, pom.getScopeMappings().getScope(configurations));
+        }
+        return scopes.get(key);
+    }
+
+    private void addFromArtifactDescriptor(List<MavenDependency> mavenDependencies, MavenPom pom, DependencyDescriptor dependencyDescriptor,
+                                           Map<List<String>, String> scopes) {
         for (DependencyArtifactDescriptor artifactDescriptor : dependencyDescriptor.getAllDependencyArtifacts()) {
-            String scope = pom.getScopeMappings().getScope(getArtifactConfigurations(dependencyDescriptor, artifactDescriptor));
+            String scope = getScope(pom, getArtifactConfigurations(dependencyDescriptor, artifactDescriptor), scopes);
             if (useScope(pom, scope)) {
                 return;
             }
@@ -67,8 +80,9 @@ public class DefaultPomDependenciesConverter implements PomDependenciesConverter
         return configurations.toArray(new String[configurations.size()]);
     }
 
-    private void addFromDependencyDescriptor(List<MavenDependency> mavenDependencies, MavenPom pom, DependencyDescriptor dependencyDescriptor) {
-        String scope = pom.getScopeMappings().getScope(dependencyDescriptor.getModuleConfigurations());
+    private void addFromDependencyDescriptor(List<MavenDependency> mavenDependencies, MavenPom pom, DependencyDescriptor dependencyDescriptor,
+                                             Map<List<String>, String> scopes) {
+        String scope = getScope(pom, dependencyDescriptor.getModuleConfigurations(), scopes);
         if (useScope(pom, scope)) {
             return;
         }
@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.artifacts.publish.maven.deploy;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.ivy.core.cache.ArtifactOrigin;
 import org.apache.ivy.core.cache.DefaultRepositoryCacheManager;
 import org.apache.ivy.core.cache.RepositoryCacheManager;
@@ -34,6 +35,8 @@ import org.apache.ivy.plugins.resolver.ResolverSettings;
 import org.apache.ivy.plugins.resolver.util.ResolvedResource;
 import org.apache.maven.artifact.ant.InstallDeployTaskSupport;
 import org.apache.maven.artifact.ant.Pom;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
 import org.apache.maven.settings.Settings;
 import org.apache.tools.ant.Project;
 import org.gradle.api.DependencyManager;
@@ -52,10 +55,22 @@ import org.gradle.api.specs.Specs;
 import org.gradle.util.AntUtil;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * @author Hans Dockter
@@ -71,6 +86,8 @@ public abstract class AbstractMavenResolver implements MavenResolver {
 
     private Settings settings;
 
+    private int maxParallelDeploys = 1;
+
     public AbstractMavenResolver(String name, PomFilterContainer pomFilterContainer, ArtifactPomContainer artifactPomContainer, DependencyManagerInternal dependencyManager) {
         this.name = name;
         this.pomFilterContainer = pomFilterContainer;
@@ -177,10 +194,18 @@ public abstract class AbstractMavenResolver implements MavenResolver {
     }
 
     public void commitPublishTransaction() throws IOException {
-        InstallDeployTaskSupport installDeployTaskSupport = createPreConfiguredTask(AntUtil.createProject());
         Map<File, File> deployableUnits = getArtifactPomContainer().createDeployableUnits(
                 Arrays.asList(dependencyManager.createModuleDescriptor(Specs.<Configuration>satisfyAll(), Specs.<Dependency>satisfyAll(),
                         Specs.<PublishArtifact>satisfyAll()).getDependencies()));
+        if (maxParallelDeploys > 1 && deployableUnits.size() > 1) {
+            deployConcurrently(deployableUnits);
+        } else {
+            deploy(deployableUnits);
+        }
+    }
+
+    private void deploy(Map<File, File> deployableUnits) {
+        InstallDeployTaskSupport installDeployTaskSupport = createPreConfiguredTask(AntUtil.createProject());
         for (File pomFile : deployableUnits.keySet()) {
             addPomAndArtifact(installDeployTaskSupport, pomFile, deployableUnits.get(pomFile));
             execute(installDeployTaskSupport);
@@ -188,6 +213,87 @@ public abstract class AbstractMavenResolver implements MavenResolver {
         settings = ((CustomInstallDeployTaskSupport) installDeployTaskSupport).getSettings();
     }
 
+    /**
+     * Deploys the units of different modules concurrently. The units with the same group and artifact id, like the
+     * main, sources and javadoc artifacts of a module, are deployed one after the other with the same task, as they
+     * update the same repository metadata and share the timestamp and build number of a snapshot. Each module gets its
+     * own task, and thereby its own Ant project and Maven container, as those are not thread safe.
+     */
+    private void deployConcurrently(Map<File, File> deployableUnits) throws IOException {
+        Map<String, Map<File, File>> unitsByModule = new LinkedHashMap<String, Map<File, File>>();
+        for (File pomFile : deployableUnits.keySet()) {
+            String moduleKey = getModuleKey(pomFile);
+            if (!unitsByModule.containsKey(moduleKey)) {
+                unitsByModule.put(moduleKey, new LinkedHashMap<File, File>());
+            }
+            unitsByModule.get(moduleKey).put(pomFile, deployableUnits.get(pomFile));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(maxParallelDeploys, unitsByModule.size()),
+                new ThreadFactory() {
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "Maven deploy");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        // The output is captured once for all units, as the capture replaces System.out for all threads
+        StandardOutputCapture outputCapture = new DefaultStandardOutputCapture(true, LogLevel.INFO).start();
+        Map<String, Throwable> failures = new LinkedHashMap<String, Throwable>();
+        try {
+            Map<String, Future<Settings>> deploys = new LinkedHashMap<String, Future<Settings>>();
+            for (final Map.Entry<String, Map<File, File>> units : unitsByModule.entrySet()) {
+                deploys.put(units.getKey(), executor.submit(new Callable<Settings>() {
+                    public Settings call() {
+                        InstallDeployTaskSupport installDeployTaskSupport = createPreConfiguredTask(AntUtil.createProject());
+                        for (File pomFile : units.getValue().keySet()) {
+                            addPomAndArtifact(installDeployTaskSupport, pomFile, units.getValue().get(pomFile));
+                            installDeployTaskSupport.execute();
+                        }
+                        return ((CustomInstallDeployTaskSupport) installDeployTaskSupport).getSettings();
+                    }
+                }));
+            }
+            for (Map.Entry<String, Future<Settings>> deploy : deploys.entrySet()) {
+                try {
+                    settings = deploy.getValue().get();
+                } catch (ExecutionException e) {
+                    failures.put(deploy.getKey(), e.getCause());
+                } catch (InterruptedException e) {
+                    failures.put(deploy.getKey(), e);
+                }
+            }
+        } finally {
+            outputCapture.stop();
+            executor.shutdown();
+        }
+        if (!failures.isEmpty()) {
+            StringBuilder message = new StringBuilder(String.format("Could not deploy %s of %s modules with %s:",
+                    failures.size(), unitsByModule.size(), getName()));
+            for (Map.Entry<String, Throwable> failure : failures.entrySet()) {
+                message.append(String.format("%n  %s: %s", failure.getKey(), failure.getValue().getMessage()));
+            }
+            IOException exception = new IOException(message.toString());
+            exception.initCause(failures.values().iterator().next());
+            throw exception;
+        }
+    }
+
+    private String getModuleKey(File pomFile) {
+        Reader reader = null;
+        try {
+            reader = new InputStreamReader(new FileInputStream(pomFile), "UTF-8");
+            Model model = new MavenXpp3Reader().read(reader);
+            String groupId = model.getGroupId() == null && model.getParent() != null
+                    ? model.getParent().getGroupId() : model.getGroupId();
+            return groupId + ":" + model.getArtifactId();
+        } catch (Exception e) {
+            // The deploy reports an invalid pom, so we just don't share its task with any other unit
+            return pomFile.getAbsolutePath();
+        } finally {
+            IOUtils.closeQuietly(reader);
+        }
+    }
+
     private void execute(InstallDeployTaskSupport deployTask) {
         StandardOutputCapture outputCapture = new DefaultStandardOutputCapture(true, LogLevel.INFO).start();
         try {
@@ -224,6 +330,14 @@ public abstract class AbstractMavenResolver implements MavenResolver {
         return settings;
     }
 
+    public int getMaxParallelDeploys() {
+        return maxParallelDeploys;
+    }
+
+    public void setMaxParallelDeploys(int maxParallelDeploys) {
+        this.maxParallelDeploys = maxParallelDeploys;
+    }
+
     public PublishFilter getFilter() {
         return pomFilterContainer.getFilter();
     }
@@ -16,29 +16,36 @@
 
 package org.gradle.api.tasks;
 
-import org.apache.commons.io.FileUtils;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.Project;
 import org.gradle.api.Task;
 import org.gradle.api.TaskAction;
 import org.gradle.api.internal.ConventionTask;
 import org.gradle.api.tasks.util.ExistingDirsFilter;
+import org.gradle.api.tasks.util.FileDeleter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.IOException;
 
 /**
-* @author Hans Dockter
-*/
+ * Deletes the <code>dir</code> with all its content. The content is deleted concurrently. If
+ * <code>deleteInBackground</code> is set, the dir is renamed and deleted by a background thread, so that the build can
+ * continue right away.
+ *
+ * @author Hans Dockter
+ */
 public class Clean extends ConventionTask {
     private static Logger logger = LoggerFactory.getLogger(Clean.class);
 
     File dir;
 
+    boolean deleteInBackground;
+
     ExistingDirsFilter existingDirsFilter = new ExistingDirsFilter();
 
+    FileDeleter fileDeleter = new FileDeleter();
+
     public Clean(Project project, String name) {
         super(project, name);
         doFirst(new TaskAction() {
@@ -55,10 +62,10 @@ public class Clean extends ConventionTask {
         existingDirsFilter.checkExistenceAndThrowStopActionIfNot(getDir());
         logger.debug("Deleting dir: {}", getDir());
 
-        try {
-            FileUtils.deleteDirectory(getDir());
-        } catch (IOException e) {
-            throw new InvalidUserDataException("Can't delete directory: " + getDir());
+        if (isDeleteInBackground()) {
+            fileDeleter.deleteInBackground(getDir());
+        } else {
+            fileDeleter.delete(getDir());
         }
     }
 
@@ -70,6 +77,14 @@ public class Clean extends ConventionTask {
         this.dir = dir;
     }
 
+    public boolean isDeleteInBackground() {
+        return deleteInBackground;
+    }
+
+    public void setDeleteInBackground(boolean deleteInBackground) {
+        this.deleteInBackground = deleteInBackground;
+    }
+
     public ExistingDirsFilter getExistingDirsFilter() {
         return existingDirsFilter;
     }
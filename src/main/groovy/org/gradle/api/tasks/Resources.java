@@ -20,9 +20,13 @@ import org.gradle.api.Project;
 import org.gradle.api.Task;
 import org.gradle.api.TaskAction;
 import org.gradle.api.internal.ConventionTask;
+import org.gradle.api.tasks.util.CopyInstruction;
 import org.gradle.api.tasks.util.CopyInstructionFactory;
 import org.gradle.api.tasks.util.ExistingDirsFilter;
+import org.gradle.api.tasks.util.FileCopier;
 import org.gradle.util.GUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.*;
 import java.io.File;
@@ -30,11 +34,17 @@ import java.io.File;
 /**
  * Copies the content of the <code>sourceDirs</code> to the <code>destinationDir</code>.
  * You can define global or local includes, excludes or filters. Global ones apply to all
- * source dirs local ones only to a single source dir.
+ * source dirs local ones only to a single source dir. The source dirs are copied concurrently.
+ * If several source dirs contain the same file, the file of the first source dir is copied.
+ * The copy is incremental: Only files whose content, source or filters have changed since the last execution are
+ * copied, and files of the last execution whose source has been removed are deleted from the destination dir.
  *
  * @author Hans Dockter
  */
 public class Resources extends ConventionTask {
+    private static Logger logger = LoggerFactory.getLogger(Resources.class);
+
+    public static final String SNAPSHOT_DIR_NAME = Project.TMP_DIR_NAME + "/resources";
 
     /**
      * A list of file objects denoting the directories to extract the content from.
@@ -62,7 +72,7 @@ public class Resources extends ConventionTask {
     /**
      * A map of filters which is applied to all source dirs. An example is: <code>[TODAY: new Date()]</code>,
      * which would replace the text content <code>@TODAY@</code> with the current date.
-     * We use an Ant filterset to implement this. Right now you can't specify the token specifier, it's always @.
+     * The replacement works like an Ant filterset. Right now you can't specify the token specifier, it's always @.
      */
     private Map<String, String> globalFilters = new HashMap<String, String>();
 
@@ -85,10 +95,17 @@ public class Resources extends ConventionTask {
      * A map of filters which is applied to a single source dirs. An example is: <code>[TODAY: new Date()]</code>,
      * which would replace the text content <code>@TODAY@</code> with the current date.
      * The key of the map is the file object denoting the source dir. The value of the entry is a map of filters.
-     * We use an Ant filterset to implement this. Right now you can't specify the token specifier, it's always @.
+     * The replacement works like an Ant filterset. Right now you can't specify the token specifier, it's always @.
      */
     private Map<File, Map<String, String>> sourceDirFilters = new HashMap<File, Map<String, String>>();
 
+    /**
+     * The file which records the state of the copied files, to find the files which have changed since the last
+     * execution. Defaults to a file in the <code>.gradle/resources</code> dir of the build dir, named after this task.
+     * It must not be located in the destination dir.
+     */
+    private File snapshotFile;
+
     // It is too cumbersone, if every user of this class has to set this property.
     // So we break IoC a little bit, but anyone can inject a new instance. And this is Groovy,
     // so we don't need an interface.
@@ -96,6 +113,8 @@ public class Resources extends ConventionTask {
 
     ExistingDirsFilter existentDirsFilter = new ExistingDirsFilter();
 
+    FileCopier fileCopier = new FileCopier();
+
     public Resources(Project project, String name) {
         super(project, name);
         copyInstructionFactory = new CopyInstructionFactory(project.getAnt());
@@ -110,11 +129,15 @@ public class Resources extends ConventionTask {
         List<File> existingSourceDirs = existentDirsFilter.checkDestDirAndFindExistingDirsAndThrowStopActionIfNone(
                 getDestinationDir(), getSrcDirs());
 
+        List<CopyInstruction> copyInstructions = new ArrayList<CopyInstruction>();
         for (File sourceDir : existingSourceDirs) {
             Set includes = GUtil.addSets(getSetFromMap(sourceDirIncludes, sourceDir), globalIncludes);
             Set excludes = GUtil.addSets(getSetFromMap(sourceDirExcludes, sourceDir), globalExcludes);
             Map filters = GUtil.addMaps(getMapFromMap(sourceDirFilters, sourceDir), globalFilters);
-            copyInstructionFactory.createCopyInstruction(sourceDir, getDestinationDir(), includes, excludes, filters).execute();
+            copyInstructions.add(copyInstructionFactory.createCopyInstruction(sourceDir, getDestinationDir(), includes, excludes, filters));
+        }
+        if (fileCopier.copy(copyInstructions, getSnapshotFile()) == 0) {
+            logger.info("Skipping {} as it is up-to-date.", task.getPath());
         }
     }
 
@@ -221,6 +244,17 @@ public class Resources extends ConventionTask {
         this.destinationDir = destinationDir;
     }
 
+    public File getSnapshotFile() {
+        if (snapshotFile == null) {
+            return new File(getProject().getBuildDir(), SNAPSHOT_DIR_NAME + "/" + getName() + ".properties");
+        }
+        return snapshotFile;
+    }
+
+    public void setSnapshotFile(File snapshotFile) {
+        this.snapshotFile = snapshotFile;
+    }
+
     public Set<String> getGlobalIncludes() {
         return globalIncludes;
     }
@@ -35,6 +35,8 @@ import org.slf4j.LoggerFactory
 public abstract class AbstractArchiveTask extends ConventionTask {
     private static Logger logger = LoggerFactory.getLogger(AbstractArchiveTask.class);
 
+    public static final String INDEX_DIR_NAME = Project.TMP_DIR_NAME + '/archives'
+
     /**
      * If you create a fileset and don't assign a directory to this fileset, the baseDir value is assigned to the dir
      * property of the fileset.
@@ -51,6 +53,18 @@ public abstract class AbstractArchiveTask extends ConventionTask {
      */
     boolean createIfEmpty = false
 
+    /**
+     * Controls if the archive is created by Ant instead of the native archiver. The archive is always created by Ant,
+     * if the archiver can't handle its content, for example an Ant directive.
+     */
+    boolean useAnt = false
+
+    /**
+     * The index of the archive created last by the native archiver, which is used to update the archive incrementally.
+     * Defaults to a file in the build dir.
+     */
+    private File indexFile
+
     /**
      * The dir where the created archive is placed.
      */
@@ -110,11 +124,36 @@ public abstract class AbstractArchiveTask extends ConventionTask {
             throw new InvalidUserDataException('You mustspecify the destinationDir.')
         }
         getDestinationDir().mkdirs()
-        createAntArchiveTask().call()
+        if (getUseAnt() || !createNativeArchive()) {
+            // The index can only describe archives created by the native archiver
+            getIndexFile().delete()
+            createAntArchiveTask().call()
+        }
+    }
+
+    /**
+     * Creates the archive without Ant.
+     *
+     * @return false, if the archive has to be created by Ant.
+     */
+    protected boolean createNativeArchive() {
+        ZipArchiver archiver = createZipArchiver()
+        if (!archiver) {
+            return false
+        }
+        archiver.write(getArchivePath(), getIndexFile())
+        true
     }
 
     protected abstract Closure createAntArchiveTask()
 
+    /**
+     * Returns an archiver with the content of this archive, or null if the archive has to be created by Ant.
+     */
+    protected ZipArchiver createZipArchiver() {
+        null
+    }
+
     /**
      * Returns the archive name. If the customName is not set, the pattern for the name is:
      * [baseName]-[version].[extension]
@@ -256,6 +295,17 @@ public abstract class AbstractArchiveTask extends ConventionTask {
         this.destinationDir = destinationDir;
     }
 
+    public File getIndexFile() {
+        if (indexFile == null) {
+            return new File(project.getBuildDir(), "$INDEX_DIR_NAME/${name}.properties")
+        }
+        return indexFile;
+    }
+
+    public void setIndexFile(File indexFile) {
+        this.indexFile = indexFile;
+    }
+
     public String getCustomName() {
         return customName;
     }
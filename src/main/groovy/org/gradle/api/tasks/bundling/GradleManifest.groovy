@@ -72,6 +72,33 @@ class GradleManifest implements AntBuilderAware {
         mergedManifest
     }
 
+    /**
+     * Creates the manifest which is written to an archive: The content of the manifest file, if there is one, merged
+     * with the manifest created by this object.
+     */
+    Manifest createArchiveManifest() {
+        Manifest archiveManifest = createDefaultManifest()
+        if (file) {
+            file.withInputStream { InputStream inputStream -> archiveManifest.read(inputStream) }
+        }
+        Manifest manifest = createManifest()
+        archiveManifest.mainAttributes.putAll(manifest.mainAttributes)
+        manifest.entries.each { String name, Attributes attributes ->
+            if (archiveManifest.entries[name]) {
+                archiveManifest.entries[name].putAll(attributes)
+            } else {
+                archiveManifest.entries[name] = attributes
+            }
+        }
+        archiveManifest
+    }
+
+    static Manifest createDefaultManifest() {
+        Manifest manifest = new Manifest()
+        manifest.mainAttributes.putValue('Manifest-Version', '1.0')
+        manifest
+    }
+
     public addToAntBuilder(node, String childNodeName = null) {
         Manifest manifest = createManifest()
         node."${childNodeName ?: 'manifest'}"() {
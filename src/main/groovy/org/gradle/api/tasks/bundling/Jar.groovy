@@ -48,6 +48,23 @@ public class Jar extends Zip {
                 getCreateIfEmpty(), getDestinationDir(), getArchiveName(), getManifest(), getMetaInfResourceCollections(), project.ant))}
     }
 
+    protected boolean addToZipArchiver(ZipArchiver archiver) {
+        if (!ZipArchiver.canArchive(getMetaInfResourceCollections())) {
+            return false
+        }
+        archiver.manifest = getManifest() ? getManifest().createArchiveManifest() : GradleManifest.createDefaultManifest()
+        addPrecedingEntries(archiver)
+        archiver.addResourceCollections(getMetaInfResourceCollections(), 'META-INF/')
+        super.addToZipArchiver(archiver)
+    }
+
+    /**
+     * Adds the entries which take precedence over entries of the same name in the content of this archive, as the
+     * archiver keeps the first entry of a name. They follow the manifest.
+     */
+    protected void addPrecedingEntries(ZipArchiver archiver) {
+    }
+
     public AntJar getAntJar() {
         return antJar;
     }
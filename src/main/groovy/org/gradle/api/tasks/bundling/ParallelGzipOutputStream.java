@@ -0,0 +1,136 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.bundling;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.LinkedList;
+import java.util.concurrent.*;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An output stream which splits the written data into blocks and gzips the blocks concurrently. Each block is
+ * compressed into an independent gzip member and the members are written in order. Concatenated gzip members are a
+ * valid gzip stream for the gzip command, but the {@link java.util.zip.GZIPInputStream} of Java 5 and 6, and thereby
+ * the Ant untar task, only reads the first member. So this stream must only be used on request.
+ */
+class ParallelGzipOutputStream extends OutputStream {
+    static final int BLOCK_SIZE = 1024 * 1024;
+
+    private final OutputStream outputStream;
+    private final int threadCount;
+    private final ExecutorService executor;
+    private final LinkedList<Future<ByteArrayOutputStream>> pendingBlocks
+            = new LinkedList<Future<ByteArrayOutputStream>>();
+    private byte[] block;
+    private int count;
+    private boolean empty = true;
+    private boolean closed;
+
+    ParallelGzipOutputStream(OutputStream outputStream, int blockSize, int threadCount) {
+        this.outputStream = outputStream;
+        this.threadCount = Math.max(1, threadCount);
+        this.block = new byte[blockSize];
+        executor = Executors.newFixedThreadPool(this.threadCount, new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "Compress archive blocks");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    public void write(int b) throws IOException {
+        if (count == block.length) {
+            submitBlock();
+        }
+        block[count++] = (byte) b;
+    }
+
+    public void write(byte[] data, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (count == block.length) {
+                submitBlock();
+            }
+            int chunkLength = Math.min(length, block.length - count);
+            System.arraycopy(data, offset, block, count, chunkLength);
+            count += chunkLength;
+            offset += chunkLength;
+            length -= chunkLength;
+        }
+    }
+
+    /**
+     * Gzips the current block concurrently. Not more than a few blocks are compressed ahead of the output, so
+     * that only a few blocks are held in memory.
+     */
+    private void submitBlock() throws IOException {
+        final byte[] data = block;
+        final int length = count;
+        pendingBlocks.add(executor.submit(new Callable<ByteArrayOutputStream>() {
+            public ByteArrayOutputStream call() throws IOException {
+                ByteArrayOutputStream member = new ByteArrayOutputStream(length / 2);
+                GZIPOutputStream gzipStream = new GZIPOutputStream(member);
+                gzipStream.write(data, 0, length);
+                gzipStream.finish();
+                return member;
+            }
+        }));
+        block = new byte[data.length];
+        count = 0;
+        empty = false;
+        while (pendingBlocks.size() > threadCount * 2) {
+            writeFirstPendingBlock();
+        }
+    }
+
+    private void writeFirstPendingBlock() throws IOException {
+        try {
+            pendingBlocks.removeFirst().get().writeTo(outputStream);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException("Interrupted while compressing the archive.");
+        }
+    }
+
+    /**
+     * Writes the remaining blocks and closes the underlying stream. An empty stream still gets a member, so that it
+     * is a valid gzip stream.
+     */
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (count > 0 || empty) {
+                submitBlock();
+            }
+            while (!pendingBlocks.isEmpty()) {
+                writeFirstPendingBlock();
+            }
+        } finally {
+            executor.shutdownNow();
+            outputStream.close();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.bundling;
+
+import java.util.Calendar;
+
+/**
+ * The header data of a zip entry, as it is written to the local and the central header of a zip file. The entry data
+ * itself is written separately, already compressed with the method of the entry. Entries read by {@link RawZipFile}
+ * also know the offset of their local header.
+ */
+class RawZipEntry {
+    static final int STORED = 0;
+    static final int DEFLATED = 8;
+
+    static final int PLATFORM_UNIX = 3;
+
+    /**
+     * The version needed to extract the entries created by Gradle, which is 2.0 for deflated entries and directories.
+     */
+    static final int DEFAULT_VERSION_NEEDED = 20;
+
+    private static final int UNIX_FILE_TYPE = 0100000;
+    private static final int UNIX_DIR_TYPE = 040000;
+    private static final int DOS_DIR_ATTRIBUTE = 0x10;
+
+    final String name;
+    final int flags;
+    final int method;
+    final long crc;
+    final long compressedSize;
+    final long size;
+    final long dosTime;
+    final int versionMadeBy;
+    final int versionNeeded;
+    final long externalAttributes;
+    final long localHeaderOffset;
+
+    RawZipEntry(String name, int flags, int method, long crc, long compressedSize, long size, long dosTime,
+                int versionMadeBy, int versionNeeded, long externalAttributes, long localHeaderOffset) {
+        this.name = name;
+        this.flags = flags;
+        this.method = method;
+        this.crc = crc;
+        this.compressedSize = compressedSize;
+        this.size = size;
+        this.dosTime = dosTime;
+        this.versionMadeBy = versionMadeBy;
+        this.versionNeeded = versionNeeded;
+        this.externalAttributes = externalAttributes;
+        this.localHeaderOffset = localHeaderOffset;
+    }
+
+    /**
+     * Creates an entry with the given unix mode, like Ant does for the entries of the archives it creates.
+     */
+    static RawZipEntry create(String name, int method, long crc, long compressedSize, long size, long time,
+                              int unixMode) {
+        return create(name, 0, DEFAULT_VERSION_NEEDED, method, crc, compressedSize, size, toDosTime(time), unixMode);
+    }
+
+    static RawZipEntry create(String name, int flags, int versionNeeded, int method, long crc, long compressedSize,
+                              long size, long dosTime, int unixMode) {
+        boolean directory = isDirectory(name);
+        long externalAttributes = ((long) ((directory ? UNIX_DIR_TYPE : UNIX_FILE_TYPE) | unixMode)) << 16;
+        if (directory) {
+            externalAttributes |= DOS_DIR_ATTRIBUTE;
+        }
+        return new RawZipEntry(name, flags, method, crc, compressedSize, size, dosTime,
+                (PLATFORM_UNIX << 8) | DEFAULT_VERSION_NEEDED, versionNeeded, externalAttributes, -1);
+    }
+
+    /**
+     * Returns a copy of this entry with the given name, to be written to another zip file.
+     */
+    RawZipEntry rename(String newName) {
+        return new RawZipEntry(newName, flags, method, crc, compressedSize, size, dosTime, versionMadeBy,
+                versionNeeded, externalAttributes, -1);
+    }
+
+    boolean isDirectory() {
+        return isDirectory(name);
+    }
+
+    static boolean isDirectory(String name) {
+        return name.endsWith("/");
+    }
+
+    static long toDosTime(long time) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+        int year = calendar.get(Calendar.YEAR);
+        if (year < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return ((long) (year - 1980) << 25)
+                | (calendar.get(Calendar.MONTH) + 1) << 21
+                | calendar.get(Calendar.DAY_OF_MONTH) << 16
+                | calendar.get(Calendar.HOUR_OF_DAY) << 11
+                | calendar.get(Calendar.MINUTE) << 5
+                | calendar.get(Calendar.SECOND) >> 1;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.bundling;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipException;
+
+/**
+ * Reads the entries of a zip file from its central directory, including where the compressed data of each entry is
+ * located. This allows to copy the compressed data of an entry to another zip file without decompressing it. Zip files
+ * which need Zip64 extensions are not supported.
+ */
+class RawZipFile {
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+    private static final int MAX_COMMENT_SIZE = 0xffff;
+    private static final long ZIP64_MARKER = 0xffffffffL;
+
+    /**
+     * Returns the entries of the given zip file, in the order of its central directory. Entry names are always decoded as
+     * UTF-8, like {@link java.util.zip.ZipFile} does. The jar tool and the {@link java.util.zip.ZipOutputStream} write
+     * UTF-8 names without setting the UTF-8 flag.
+     *
+     * @throws ZipException If the file is not a zip file or needs Zip64 extensions.
+     */
+    static List<RawZipEntry> readEntries(File zip) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(zip, "r");
+        try {
+            ByteBuffer end = findEndOfCentralDirectory(file);
+            int entryCount = end.getShort(10) & 0xffff;
+            long centralDirectorySize = end.getInt(12) & 0xffffffffL;
+            long centralDirectoryOffset = end.getInt(16) & 0xffffffffL;
+            if (entryCount == 0xffff || centralDirectoryOffset == ZIP64_MARKER) {
+                throw new ZipException(String.format("%s needs Zip64 extensions.", zip));
+            }
+            ByteBuffer centralDirectory = read(file.getChannel(), centralDirectoryOffset, (int) centralDirectorySize);
+            List<RawZipEntry> entries = new ArrayList<RawZipEntry>(entryCount);
+            for (int i = 0; i < entryCount; i++) {
+                entries.add(readCentralHeader(zip, centralDirectory));
+            }
+            return entries;
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Returns the position of the compressed data of the given entry, which directly follows its local header.
+     */
+    static long dataOffset(FileChannel channel, RawZipEntry entry) throws IOException {
+        ByteBuffer localHeader = read(channel, entry.localHeaderOffset, LOCAL_HEADER_SIZE);
+        if (localHeader.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+            throw new ZipException(String.format("Invalid local header of entry %s.", entry.name));
+        }
+        int nameLength = localHeader.getShort(26) & 0xffff;
+        int extraLength = localHeader.getShort(28) & 0xffff;
+        return entry.localHeaderOffset + LOCAL_HEADER_SIZE + nameLength + extraLength;
+    }
+
+    private static ByteBuffer findEndOfCentralDirectory(RandomAccessFile file) throws IOException {
+        long length = file.length();
+        int tailLength = (int) Math.min(length, END_OF_CENTRAL_DIRECTORY_SIZE + MAX_COMMENT_SIZE);
+        ByteBuffer tail = read(file.getChannel(), length - tailLength, tailLength);
+        for (int i = tailLength - END_OF_CENTRAL_DIRECTORY_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+                tail.position(i);
+                return tail.slice().order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+        throw new ZipException("Could not find the central directory.");
+    }
+
+    private static RawZipEntry readCentralHeader(File zip, ByteBuffer centralDirectory) throws IOException {
+        int position = centralDirectory.position();
+        if (centralDirectory.remaining() < CENTRAL_HEADER_SIZE
+                || centralDirectory.getInt(position) != CENTRAL_HEADER_SIGNATURE) {
+            throw new ZipException(String.format("Invalid central directory of %s.", zip));
+        }
+        int versionMadeBy = centralDirectory.getShort(position + 4) & 0xffff;
+        int versionNeeded = centralDirectory.getShort(position + 6) & 0xffff;
+        int flags = centralDirectory.getShort(position + 8) & 0xffff;
+        int method = centralDirectory.getShort(position + 10) & 0xffff;
+        long dosTime = centralDirectory.getInt(position + 12) & 0xffffffffL;
+        long crc = centralDirectory.getInt(position + 16) & 0xffffffffL;
+        long compressedSize = centralDirectory.getInt(position + 20) & 0xffffffffL;
+        long size = centralDirectory.getInt(position + 24) & 0xffffffffL;
+        int nameLength = centralDirectory.getShort(position + 28) & 0xffff;
+        int extraLength = centralDirectory.getShort(position + 30) & 0xffff;
+        int commentLength = centralDirectory.getShort(position + 32) & 0xffff;
+        long externalAttributes = centralDirectory.getInt(position + 38) & 0xffffffffL;
+        long localHeaderOffset = centralDirectory.getInt(position + 42) & 0xffffffffL;
+        if (compressedSize == ZIP64_MARKER || size == ZIP64_MARKER || localHeaderOffset == ZIP64_MARKER) {
+            throw new ZipException(String.format("%s needs Zip64 extensions.", zip));
+        }
+        byte[] name = new byte[nameLength];
+        centralDirectory.position(position + CENTRAL_HEADER_SIZE);
+        centralDirectory.get(name);
+        centralDirectory.position(position + CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength);
+        return new RawZipEntry(new String(name, "UTF-8"), flags, method, crc, compressedSize, size, dosTime,
+                versionMadeBy, versionNeeded, externalAttributes, localHeaderOffset);
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new ZipException("Unexpected end of zip file.");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
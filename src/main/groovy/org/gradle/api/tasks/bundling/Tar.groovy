@@ -18,6 +18,8 @@ package org.gradle.api.tasks.bundling
 
 import org.gradle.api.Project
 import org.gradle.api.tasks.util.TarFileSet
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
 
 /**
  * @author Hans Dockter
@@ -25,10 +27,18 @@ import org.gradle.api.tasks.util.TarFileSet
 public class Tar extends Zip {
     public static final String TAR_EXTENSION = 'tar'
 
+    private static Logger logger = LoggerFactory.getLogger(Tar)
+
     Compression compression
 
     LongFile longFile
 
+    /**
+     * Controls if a gzip compressed archive is compressed in blocks by several threads. The archive then consists of
+     * several gzip members, which the gzip command can read, but not the Ant untar task on Java 5 and 6.
+     */
+    boolean parallelGzip = false
+
     AntTar antTar = new AntTar()
 
     Tar(Project project, String name) {
@@ -45,6 +55,21 @@ public class Tar extends Zip {
         }
     }
 
+    protected boolean createNativeArchive() {
+        if (!TarArchiver.canArchive(getResourceCollections()) || getMergeFileSets() || getMergeGroupFileSets()) {
+            logger.debug("Creating the archive with Ant, as its content can't be handled by the native archiver.")
+            return false
+        }
+        TarArchiver archiver = new TarArchiver()
+        archiver.createIfEmpty = getCreateIfEmpty()
+        archiver.compression = getCompression()
+        archiver.longFile = getLongFile()
+        archiver.parallelGzip = parallelGzip
+        archiver.addResourceCollections(getResourceCollections(), '')
+        archiver.write(getArchivePath())
+        true
+    }
+
     TarFileSet tarFileSet(Closure configureClosure) {
         tarFileSet([:], configureClosure)
     }
@@ -0,0 +1,319 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.bundling;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.tools.ant.DirectoryScanner;
+import org.apache.tools.bzip2.CBZip2OutputStream;
+import org.apache.tools.tar.TarConstants;
+import org.apache.tools.tar.TarEntry;
+import org.apache.tools.tar.TarOutputStream;
+import org.apache.tools.zip.UnixStat;
+import org.gradle.api.GradleException;
+import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.tasks.util.FileCollection;
+import org.gradle.api.tasks.util.FileSet;
+import org.gradle.api.tasks.util.TarFileSet;
+import org.gradle.api.tasks.util.ZipFileSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <p>Creates tar archives without Ant. The entries are streamed into the archive in the order in which the content
+ * has been added, with the files of a fileset sorted by their path. Long file names are handled as by the Ant Tar
+ * task.</p>
+ *
+ * <p>A compressed archive is compressed by a single thread into a single gzip member or bzip2 stream. On request, a
+ * gzip compressed archive is compressed in blocks by a pool of threads instead. Each block becomes an independent
+ * member of the gzip stream, which the gzip command reads, but not the Ant untar task on Java 5 and 6. A bzip2
+ * compressed archive is never compressed in blocks, as the Ant bzip2 input stream can't read concatenated
+ * streams.</p>
+ */
+public class TarArchiver {
+    private static Logger logger = LoggerFactory.getLogger(TarArchiver.class);
+
+    private final int threadCount;
+
+    private boolean createIfEmpty;
+
+    private Compression compression = Compression.NONE;
+
+    private boolean parallelGzip;
+
+    private LongFile longFile = LongFile.WARN;
+
+    private final List<TarSource> entries = new ArrayList<TarSource>();
+
+    private int fileCount;
+
+    private boolean longFileWarningGiven;
+
+    public TarArchiver() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public TarArchiver(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    public void setCreateIfEmpty(boolean createIfEmpty) {
+        this.createIfEmpty = createIfEmpty;
+    }
+
+    public void setCompression(Compression compression) {
+        this.compression = compression;
+    }
+
+    /**
+     * Sets whether a gzip compressed archive is compressed in blocks by a pool of threads. Defaults to false.
+     */
+    public void setParallelGzip(boolean parallelGzip) {
+        this.parallelGzip = parallelGzip;
+    }
+
+    public void setLongFile(LongFile longFile) {
+        this.longFile = longFile;
+    }
+
+    /**
+     * Returns whether the given resource collections can be added to an archiver. Only filesets of dirs and file
+     * collections can be added, other archives or an {@link org.gradle.api.tasks.util.AntDirective} for example can
+     * only be handled by Ant.
+     */
+    public static boolean canArchive(List<?> resourceCollections) {
+        if (resourceCollections == null) {
+            return true;
+        }
+        for (Object resourceCollection : resourceCollections) {
+            if (!(resourceCollection instanceof FileSet) && !(resourceCollection instanceof FileCollection)) {
+                return false;
+            }
+            if (resourceCollection instanceof FileSet && ZipArchiver.isArchive((FileSet) resourceCollection)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds the files of the given resource collections. Filesets whose dir does not exist are skipped.
+     *
+     * @param resourceCollections The resource collections. Must be accepted by {@link #canArchive(java.util.List)}.
+     * @param prefix The path in the archive to add the files to. Either empty or ending with a <code>/</code>.
+     */
+    public void addResourceCollections(List<?> resourceCollections, String prefix) {
+        if (!canArchive(resourceCollections)) {
+            throw new InvalidUserDataException("The resource collections can't be archived without Ant.");
+        }
+        if (resourceCollections == null) {
+            return;
+        }
+        for (Object resourceCollection : resourceCollections) {
+            if (resourceCollection instanceof FileCollection) {
+                for (Object file : ((FileCollection) resourceCollection).getFiles()) {
+                    addFile((File) file, prefix + ((File) file).getName());
+                }
+            } else {
+                addFileSet((FileSet) resourceCollection, prefix);
+            }
+        }
+    }
+
+    public void addFile(File file, String entryName) {
+        entries.add(new TarSource(entryName, file, ZipArchiver.mode(null, true), null));
+        fileCount++;
+    }
+
+    private void addFileSet(FileSet fileSet, String prefix) {
+        File dir = fileSet.getDir();
+        if (dir == null || !dir.isDirectory()) {
+            logger.debug("Skipping fileset as its dir does not exist: {}", dir);
+            return;
+        }
+        String entryPrefix = prefix + ZipArchiver.zipPrefix(fileSet);
+        TarFileSet tarFileSet = fileSet instanceof TarFileSet ? (TarFileSet) fileSet : null;
+        int fileMode = ZipArchiver.mode(fileSet, true);
+        int dirMode = ZipArchiver.mode(fileSet, false);
+        DirectoryScanner scanner = ZipArchiver.scan(fileSet);
+        for (String path : ZipArchiver.sortedPaths(scanner.getIncludedDirectories())) {
+            entries.add(new TarSource(entryPrefix + path + "/", new File(dir, path), dirMode, tarFileSet));
+        }
+        List<String> paths = ZipArchiver.sortedPaths(scanner.getIncludedFiles());
+        String fullPath = fileSet instanceof ZipFileSet ? ((ZipFileSet) fileSet).getFullPath() : null;
+        if (fullPath != null && fullPath.length() > 0) {
+            if (paths.size() > 1) {
+                throw new InvalidUserDataException(String.format(
+                        "The fullPath %s may only be used with a fileset which contains a single file.", fullPath));
+            }
+            for (String path : paths) {
+                entries.add(new TarSource(fullPath, new File(dir, path), fileMode, tarFileSet));
+                fileCount++;
+            }
+            return;
+        }
+        for (String path : paths) {
+            entries.add(new TarSource(entryPrefix + path, new File(dir, path), fileMode, tarFileSet));
+            fileCount++;
+        }
+    }
+
+    /**
+     * Writes the archive. The archive is written to a temporary file first, which replaces the archive once it is
+     * complete.
+     *
+     * @return false, if the archive has not been written as no files would go into it and createIfEmpty is false.
+     */
+    public boolean write(File archive) {
+        if (fileCount == 0 && !createIfEmpty) {
+            logger.info("Skipping {} as no files would go into it.", archive);
+            return false;
+        }
+        File tmpArchive = new File(archive.getPath() + ".tmp");
+        TarOutputStream tarStream = null;
+        boolean written = false;
+        try {
+            tarStream = new TarOutputStream(compress(new BufferedOutputStream(new FileOutputStream(tmpArchive))));
+            tarStream.setLongFileMode(longFileMode());
+            for (TarSource entry : entries) {
+                writeEntry(tarStream, entry, archive);
+            }
+            tarStream.close();
+            written = true;
+        } catch (IOException e) {
+            throw new GradleException(String.format("Could not write archive %s.", archive), e);
+        } finally {
+            if (!written) {
+                IOUtils.closeQuietly(tarStream);
+                tmpArchive.delete();
+            }
+        }
+        archive.delete();
+        if (!tmpArchive.renameTo(archive)) {
+            throw new GradleException(String.format("Could not rename %s to %s.", tmpArchive, archive));
+        }
+        logger.debug("Wrote {} entries to {}.", entries.size(), archive);
+        return true;
+    }
+
+    private OutputStream compress(OutputStream outputStream) throws IOException {
+        if (compression == Compression.GZIP && parallelGzip) {
+            return new ParallelGzipOutputStream(outputStream, ParallelGzipOutputStream.BLOCK_SIZE, threadCount);
+        }
+        if (compression == Compression.GZIP) {
+            return new GZIPOutputStream(outputStream);
+        }
+        if (compression == Compression.BZIP2) {
+            // The bzip2 stream expects the magic bytes to be written by its caller, as the Ant Tar task does
+            outputStream.write('B');
+            outputStream.write('Z');
+            return new CBZip2OutputStream(outputStream);
+        }
+        return outputStream;
+    }
+
+    private int longFileMode() {
+        if (longFile == LongFile.TRUNCATE) {
+            return TarOutputStream.LONGFILE_TRUNCATE;
+        }
+        if (longFile == LongFile.FAIL || longFile == LongFile.OMIT) {
+            return TarOutputStream.LONGFILE_ERROR;
+        }
+        return TarOutputStream.LONGFILE_GNU;
+    }
+
+    private void writeEntry(TarOutputStream tarStream, TarSource entry, File archive) throws IOException {
+        if (entry.file.getAbsoluteFile().equals(archive.getAbsoluteFile())) {
+            logger.debug("Skipping {} as it is the archive itself.", entry);
+            return;
+        }
+        if (entry.name.length() >= TarConstants.NAMELEN) {
+            if (longFile == LongFile.OMIT) {
+                logger.info("Omitting: {}", entry);
+                return;
+            }
+            if (longFile == LongFile.FAIL) {
+                throw new GradleException(String.format("Entry: %s longer than %d characters.", entry,
+                        TarConstants.NAMELEN));
+            }
+            if (longFile == LongFile.WARN) {
+                logger.warn("Entry: {} longer than {} characters.", entry, TarConstants.NAMELEN);
+                if (!longFileWarningGiven) {
+                    logger.warn("Resulting tar file can only be processed successfully by GNU compatible tar commands");
+                    longFileWarningGiven = true;
+                }
+            }
+        }
+        TarEntry tarEntry = new TarEntry(entry.name);
+        tarEntry.setModTime(entry.file.lastModified());
+        tarEntry.setUserName(entry.userName);
+        tarEntry.setGroupName(entry.group);
+        tarEntry.setUserId(entry.uid);
+        tarEntry.setGroupId(entry.gid);
+        if (entry.isDirectory()) {
+            tarEntry.setMode(UnixStat.DIR_FLAG | entry.mode);
+            tarStream.putNextEntry(tarEntry);
+        } else {
+            tarEntry.setMode(UnixStat.FILE_FLAG | entry.mode);
+            tarEntry.setSize(entry.file.length());
+            tarStream.putNextEntry(tarEntry);
+            InputStream inputStream = new FileInputStream(entry.file);
+            try {
+                IOUtils.copy(inputStream, tarStream);
+            } finally {
+                inputStream.close();
+            }
+        }
+        tarStream.closeEntry();
+    }
+
+    private static class TarSource {
+        private final String name;
+        private final File file;
+        private final int mode;
+        private final String userName;
+        private final String group;
+        private final int uid;
+        private final int gid;
+
+        private TarSource(String name, File file, int mode, TarFileSet tarFileSet) {
+            this.name = name;
+            this.file = file;
+            this.mode = mode;
+            // The same defaults as those of the Ant Tar task
+            this.userName = tarFileSet != null && tarFileSet.getUserName() != null ? tarFileSet.getUserName() : "";
+            this.group = tarFileSet != null && tarFileSet.getGroup() != null ? tarFileSet.getGroup() : "";
+            this.uid = id(tarFileSet != null ? tarFileSet.getUid() : null);
+            this.gid = id(tarFileSet != null ? tarFileSet.getGid() : null);
+        }
+
+        private static int id(String id) {
+            return id == null || id.length() == 0 ? 0 : Integer.parseInt(id);
+        }
+
+        private boolean isDirectory() {
+            return name.endsWith("/");
+        }
+
+        public String toString() {
+            return name;
+        }
+    }
+}
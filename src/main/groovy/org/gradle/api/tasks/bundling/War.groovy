@@ -63,6 +63,31 @@ class War extends Jar {
         }
     }
 
+    protected boolean addToZipArchiver(ZipArchiver archiver) {
+        if (![getClassesFileSets(), getAdditionalLibFileSets(), getWebInfFileSets()].every { ZipArchiver.canArchive(it) }) {
+            return false
+        }
+        if (!super.addToZipArchiver(archiver)) {
+            return false
+        }
+        archiver.addResourceCollections(getClassesFileSets(), 'WEB-INF/classes/')
+        dependencies(true, true).each { File file ->
+            archiver.addFile(file, "WEB-INF/lib/$file.name")
+        }
+        archiver.addResourceCollections(getAdditionalLibFileSets(), 'WEB-INF/lib/')
+        archiver.addResourceCollections(getWebInfFileSets(), 'WEB-INF/')
+        true
+    }
+
+    /**
+     * Adds the web.xml, so that it wins over a WEB-INF/web.xml of the webapp resources, as with Ant.
+     */
+    protected void addPrecedingEntries(ZipArchiver archiver) {
+        if (getWebXml()) {
+            archiver.addFile(getWebXml(), 'WEB-INF/web.xml')
+        }
+    }
+
     public List dependencies(boolean failForMissingDependencies, boolean includeProjectDependencies) {
         List files = []
         Closure resolveInstructionClosure = {
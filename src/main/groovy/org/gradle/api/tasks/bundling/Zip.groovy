@@ -18,6 +18,8 @@ package org.gradle.api.tasks.bundling
 
 import org.gradle.api.Project
 import org.gradle.api.tasks.util.ZipFileSet
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
 
 /**
  * @author Hans Dockter
@@ -25,6 +27,8 @@ import org.gradle.api.tasks.util.ZipFileSet
 public class Zip extends AbstractArchiveTask {
     public static final String ZIP_EXTENSION = 'zip'
 
+    private static Logger logger = LoggerFactory.getLogger(Zip)
+
     AntZip antZip = new AntZip()
 
     Zip(Project project, String name) {
@@ -37,6 +41,28 @@ public class Zip extends AbstractArchiveTask {
                 getDestinationDir(), getArchiveName(), project.ant)) }
     }
 
+    protected ZipArchiver createZipArchiver() {
+        ZipArchiver archiver = new ZipArchiver()
+        archiver.createIfEmpty = getCreateIfEmpty()
+        addToZipArchiver(archiver) ? archiver : null
+    }
+
+    /**
+     * Adds the content of this archive to the given archiver.
+     *
+     * @return false, if the content can only be archived by Ant.
+     */
+    protected boolean addToZipArchiver(ZipArchiver archiver) {
+        if (!ZipArchiver.canArchive(getResourceCollections()) || !ZipArchiver.canMerge(getMergeFileSets())) {
+            logger.debug("Creating the archive with Ant, as its content can't be handled by the native archiver.")
+            return false
+        }
+        archiver.addResourceCollections(getResourceCollections(), '')
+        archiver.addMergeGroupFileSets(getMergeGroupFileSets())
+        archiver.addMergeFileSets(getMergeFileSets())
+        true
+    }
+
     ZipFileSet zipFileSet(Closure configureClosure) {
         zipFileSet([:], configureClosure)
     }
@@ -0,0 +1,917 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.bundling;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.tools.ant.DirectoryScanner;
+import org.apache.tools.ant.types.selectors.SelectorUtils;
+import org.gradle.api.GradleException;
+import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.tasks.util.FileCollection;
+import org.gradle.api.tasks.util.FileSet;
+import org.gradle.api.tasks.util.TarFileSet;
+import org.gradle.api.tasks.util.ZipFileSet;
+import org.gradle.util.GUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.jar.Manifest;
+import java.util.zip.*;
+
+/**
+ * <p>Creates zip archives without Ant. The entries are deflated concurrently by a pool of threads and written in a
+ * deterministic order: the order in which the content has been added, with the files of a fileset sorted by their
+ * path. The parent dirs of each entry are added as well, as Ant does.</p>
+ *
+ * <p>The entries of merged zip files are copied without inflating and deflating them again, so merging is mostly
+ * I/O. Files which are compressed already, like jars, are stored instead of deflated.</p>
+ *
+ * <p>If several entries have the same name, the first one is added. If a manifest is set, it is the first entry of the
+ * archive and the manifests of the added content are skipped.</p>
+ *
+ * <p>If an index file is passed, the archive is updated incrementally. The index records the source of each entry of
+ * the archive written last, e.g. the path, size and modification time of a file. Entries whose source has not changed
+ * are copied raw from the previous archive, only the other entries are deflated. If no entry has changed, the archive
+ * is not written at all.</p>
+ */
+public class ZipArchiver {
+    private static Logger logger = LoggerFactory.getLogger(ZipArchiver.class);
+
+    public static final String MANIFEST_NAME = "META-INF/MANIFEST.MF";
+
+    private static final int DEFAULT_FILE_MODE = 0644;
+    private static final int DEFAULT_DIR_MODE = 0755;
+    private static final int BUFFER_SIZE = 8192;
+    private static final long MAX_PENDING_BYTES = 16 * 1024 * 1024;
+    private static final Set<String> COMPRESSED_EXTENSIONS = new HashSet<String>(Arrays.asList("jar", "war", "ear",
+            "zip", "gz", "tgz", "bz2", "png", "gif", "jpg", "jpeg"));
+    private static final String INDEX_ARCHIVE_KEY = "archive";
+    private static final String INDEX_ENTRY_PREFIX = "entry.";
+
+    private final int threadCount;
+
+    private boolean createIfEmpty;
+
+    private boolean manifestSet;
+
+    private final Map<String, ArchiveEntry> entries = new LinkedHashMap<String, ArchiveEntry>();
+
+    private int fileCount;
+
+    public ZipArchiver() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ZipArchiver(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    public void setCreateIfEmpty(boolean createIfEmpty) {
+        this.createIfEmpty = createIfEmpty;
+    }
+
+    /**
+     * Sets the manifest of the archive. It has to be set before any content is added.
+     */
+    public void setManifest(Manifest manifest) {
+        if (!entries.isEmpty()) {
+            throw new IllegalStateException("The manifest has to be set before any content is added.");
+        }
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try {
+            manifest.write(content);
+        } catch (IOException e) {
+            throw new GradleException("Could not write the manifest.", e);
+        }
+        addEntry(new BytesEntry(MANIFEST_NAME, content.toByteArray(), System.currentTimeMillis()));
+        manifestSet = true;
+    }
+
+    /**
+     * Returns whether the given resource collections can be added to an archiver. An {@link
+     * org.gradle.api.tasks.util.AntDirective} for example can only be handled by Ant.
+     */
+    public static boolean canArchive(List<?> resourceCollections) {
+        if (resourceCollections == null) {
+            return true;
+        }
+        for (Object resourceCollection : resourceCollections) {
+            if (!(resourceCollection instanceof FileSet) && !(resourceCollection instanceof FileCollection)) {
+                return false;
+            }
+            if (resourceCollection instanceof TarFileSet && isArchive((FileSet) resourceCollection)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the archives of the given merge filesets can be merged by an archiver. Only zip archives can be
+     * merged.
+     */
+    public static boolean canMerge(List<?> mergeFileSets) {
+        for (Object mergeFileSet : mergeFileSets) {
+            if (mergeFileSet instanceof TarFileSet) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds the files of the given resource collections. Filesets whose dir does not exist are skipped.
+     *
+     * @param resourceCollections The resource collections. Must be accepted by {@link #canArchive(java.util.List)}.
+     * @param prefix The path in the archive to add the files to. Either empty or ending with a <code>/</code>.
+     */
+    public void addResourceCollections(List<?> resourceCollections, String prefix) {
+        if (!canArchive(resourceCollections)) {
+            throw new InvalidUserDataException("The resource collections can't be archived without Ant.");
+        }
+        if (resourceCollections == null) {
+            return;
+        }
+        for (Object resourceCollection : resourceCollections) {
+            if (resourceCollection instanceof FileCollection) {
+                for (Object file : ((FileCollection) resourceCollection).getFiles()) {
+                    addFile((File) file, prefix + ((File) file).getName());
+                }
+            } else if (isArchive((FileSet) resourceCollection)) {
+                addZip((FileSet) resourceCollection, prefix);
+            } else {
+                addFileSet((FileSet) resourceCollection, prefix);
+            }
+        }
+    }
+
+    /**
+     * Adds the entries of zip files. The dir of each fileset denotes the zip file, its patterns select the entries.
+     */
+    public void addMergeFileSets(List<? extends FileSet> mergeFileSets) {
+        for (FileSet mergeFileSet : mergeFileSets) {
+            addZip(mergeFileSet, "");
+        }
+    }
+
+    /**
+     * Adds all entries of the zip files selected by the given filesets.
+     */
+    public void addMergeGroupFileSets(List<? extends FileSet> mergeGroupFileSets) {
+        for (FileSet mergeGroupFileSet : mergeGroupFileSets) {
+            for (String path : sortedPaths(scan(mergeGroupFileSet).getIncludedFiles())) {
+                addZip(new FileSet(new File(mergeGroupFileSet.getDir(), path)), "");
+            }
+        }
+    }
+
+    public void addFile(File file, String entryName) {
+        addEntry(new FileEntry(entryName, file, DEFAULT_FILE_MODE));
+    }
+
+    static boolean isArchive(FileSet fileSet) {
+        return fileSet instanceof ZipFileSet && fileSet.getDir() != null && fileSet.getDir().isFile();
+    }
+
+    private void addFileSet(FileSet fileSet, String prefix) {
+        File dir = fileSet.getDir();
+        if (dir == null || !dir.isDirectory()) {
+            logger.debug("Skipping fileset as its dir does not exist: {}", dir);
+            return;
+        }
+        String entryPrefix = prefix + zipPrefix(fileSet);
+        int fileMode = mode(fileSet, true);
+        int dirMode = mode(fileSet, false);
+        DirectoryScanner scanner = scan(fileSet);
+        for (String path : sortedPaths(scanner.getIncludedDirectories())) {
+            addEntry(new DirEntry(entryPrefix + path + "/", new File(dir, path).lastModified(), dirMode));
+        }
+        List<String> paths = sortedPaths(scanner.getIncludedFiles());
+        String fullPath = fileSet instanceof ZipFileSet ? ((ZipFileSet) fileSet).getFullPath() : null;
+        if (fullPath != null && fullPath.length() > 0) {
+            if (paths.size() > 1) {
+                throw new InvalidUserDataException(String.format(
+                        "The fullPath %s may only be used with a fileset which contains a single file.", fullPath));
+            }
+            for (String path : paths) {
+                addEntry(new FileEntry(fullPath, new File(dir, path), fileMode));
+            }
+            return;
+        }
+        for (String path : paths) {
+            addEntry(new FileEntry(entryPrefix + path, new File(dir, path), fileMode));
+        }
+    }
+
+    static DirectoryScanner scan(FileSet fileSet) {
+        DirectoryScanner scanner = new DirectoryScanner();
+        scanner.setBasedir(fileSet.getDir());
+        scanner.setIncludes(toArray(fileSet.getIncludes()));
+        scanner.setExcludes(toArray(fileSet.getExcludes()));
+        scanner.addDefaultExcludes();
+        scanner.scan();
+        return scanner;
+    }
+
+    static List<String> sortedPaths(String[] scannedPaths) {
+        List<String> paths = new ArrayList<String>();
+        for (String path : scannedPaths) {
+            if (path.length() > 0) {
+                paths.add(path.replace(File.separatorChar, '/'));
+            }
+        }
+        Collections.sort(paths);
+        return paths;
+    }
+
+    private static String[] toArray(Set<?> patterns) {
+        if (patterns == null || patterns.isEmpty()) {
+            return null;
+        }
+        String[] result = new String[patterns.size()];
+        int i = 0;
+        for (Object pattern : patterns) {
+            result[i++] = pattern.toString();
+        }
+        return result;
+    }
+
+    /**
+     * Adds the selected entries of a zip file. Their compressed data is copied as it is, without inflating and
+     * deflating it again. Only if the zip file can't be read raw, its entries are inflated.
+     */
+    private void addZip(FileSet fileSet, String prefix) {
+        File zip = fileSet.getDir();
+        List<RawZipEntry> zipEntries;
+        try {
+            zipEntries = RawZipFile.readEntries(zip);
+        } catch (ZipException e) {
+            logger.debug("Inflating the entries of {}, as they can't be copied raw: {}", zip, e.getMessage());
+            addZipInflating(fileSet, prefix);
+            return;
+        } catch (IOException e) {
+            throw new GradleException(String.format("Could not read archive %s.", zip), e);
+        }
+        String entryPrefix = prefix + zipPrefix(fileSet);
+        for (RawZipEntry zipEntry : zipEntries) {
+            if (!isIncluded(zipEntry.name, fileSet)) {
+                continue;
+            }
+            if (zipEntry.isDirectory()) {
+                addEntry(new DirEntry(entryPrefix + zipEntry.name, javaTime(zipEntry.dosTime), mode(fileSet, false)));
+            } else {
+                addEntry(new RawSourceEntry(entryPrefix + zipEntry.name, zip, zipEntry, fileMode(fileSet)));
+            }
+        }
+    }
+
+    private void addZipInflating(FileSet fileSet, String prefix) {
+        File zip = fileSet.getDir();
+        String entryPrefix = prefix + zipPrefix(fileSet);
+        ZipFile zipFile;
+        try {
+            zipFile = new ZipFile(zip);
+        } catch (IOException e) {
+            throw new GradleException(String.format("Could not open archive %s.", zip), e);
+        }
+        try {
+            Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+            while (zipEntries.hasMoreElements()) {
+                ZipEntry zipEntry = zipEntries.nextElement();
+                if (!isIncluded(zipEntry.getName(), fileSet)) {
+                    continue;
+                }
+                if (zipEntry.isDirectory()) {
+                    addEntry(new DirEntry(entryPrefix + zipEntry.getName(), zipEntry.getTime(), mode(fileSet, false)));
+                } else {
+                    addEntry(new ZipSourceEntry(entryPrefix + zipEntry.getName(), zip, zipEntry.getName(),
+                            zipEntry.getTime(), zipEntry.getSize(), mode(fileSet, true)));
+                }
+            }
+        } finally {
+            try {
+                zipFile.close();
+            } catch (IOException e) {
+                logger.debug("Could not close archive " + zip, e);
+            }
+        }
+    }
+
+    private static long javaTime(long dosTime) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set((int) ((dosTime >> 25) & 0x7f) + 1980, (int) ((dosTime >> 21) & 0x0f) - 1,
+                (int) ((dosTime >> 16) & 0x1f), (int) ((dosTime >> 11) & 0x1f), (int) ((dosTime >> 5) & 0x3f),
+                (int) ((dosTime << 1) & 0x3e));
+        return calendar.getTimeInMillis();
+    }
+
+    private static boolean isIncluded(String name, FileSet fileSet) {
+        String path = RawZipEntry.isDirectory(name) ? name.substring(0, name.length() - 1) : name;
+        Set<?> includes = fileSet.getIncludes();
+        if (includes != null && !includes.isEmpty() && !matches(path, includes)) {
+            return false;
+        }
+        return !matches(path, fileSet.getExcludes());
+    }
+
+    private static boolean matches(String path, Set<?> patterns) {
+        if (patterns == null) {
+            return false;
+        }
+        for (Object pattern : patterns) {
+            String normalizedPattern = pattern.toString().replace('\\', '/');
+            // As with the Ant DirectoryScanner, a trailing slash matches everything below the dir
+            if (normalizedPattern.endsWith("/")) {
+                normalizedPattern += "**";
+            }
+            if (SelectorUtils.matchPath(normalizedPattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String zipPrefix(FileSet fileSet) {
+        String prefix = fileSet instanceof ZipFileSet ? ((ZipFileSet) fileSet).getPrefix() : null;
+        if (prefix == null || prefix.length() == 0) {
+            return "";
+        }
+        prefix = prefix.replace('\\', '/');
+        return prefix.endsWith("/") ? prefix : prefix + "/";
+    }
+
+    /**
+     * Returns the file mode of the fileset, or -1 if it has none and the modes of the merged entries are kept.
+     */
+    private static int fileMode(FileSet fileSet) {
+        String mode = fileSet instanceof ZipFileSet ? ((ZipFileSet) fileSet).getFileMode() : null;
+        return mode == null || mode.length() == 0 ? -1 : Integer.parseInt(mode, 8);
+    }
+
+    static int mode(FileSet fileSet, boolean file) {
+        String mode = null;
+        if (fileSet instanceof ZipFileSet) {
+            mode = file ? ((ZipFileSet) fileSet).getFileMode() : ((ZipFileSet) fileSet).getDirMode();
+        }
+        if (mode == null || mode.length() == 0) {
+            return file ? DEFAULT_FILE_MODE : DEFAULT_DIR_MODE;
+        }
+        return Integer.parseInt(mode, 8);
+    }
+
+    private void addEntry(ArchiveEntry entry) {
+        if (manifestSet && entry.name.equalsIgnoreCase(MANIFEST_NAME)) {
+            logger.debug("Skipping {} as the archive has its own manifest.", entry);
+            return;
+        }
+        if (entries.containsKey(entry.name)) {
+            logger.debug("Skipping duplicate entry {}.", entry);
+            return;
+        }
+        for (int i = entry.name.indexOf('/'); i >= 0 && i < entry.name.length() - 1; i = entry.name.indexOf('/', i + 1)) {
+            String parentDir = entry.name.substring(0, i + 1);
+            if (!entries.containsKey(parentDir)) {
+                entries.put(parentDir, new DirEntry(parentDir, entry.time, DEFAULT_DIR_MODE));
+            }
+        }
+        entries.put(entry.name, entry);
+        if (!(entry instanceof DirEntry) && !(entry instanceof BytesEntry)) {
+            fileCount++;
+        }
+    }
+
+    /**
+     * Returns the names of the entries of the archive, in the order they are written.
+     */
+    public List<String> getEntryNames() {
+        return new ArrayList<String>(entries.keySet());
+    }
+
+    /**
+     * Writes the archive. The archive is written to a temporary file first, which replaces the archive once it is
+     * complete.
+     *
+     * @return false, if the archive has not been written as no files would go into it and createIfEmpty is false.
+     */
+    public boolean write(File archive) {
+        return write(archive, null);
+    }
+
+    /**
+     * Writes the archive incrementally, using the given index of the archive written last. The index is only used if
+     * the archive has not been changed since, otherwise the archive is written from scratch. The index file should not
+     * be located in any of the dirs which go into the archive.
+     *
+     * @param indexFile The index of the archive written last. If <code>null</code>, the archive is written from
+     * scratch.
+     * @return false, if no archive has been created as no files would go into it and createIfEmpty is false.
+     */
+    public boolean write(File archive, File indexFile) {
+        if (fileCount == 0 && !createIfEmpty) {
+            logger.info("Skipping {} as no files would go into it.", archive);
+            return false;
+        }
+        List<ArchiveEntry> entriesToWrite = new ArrayList<ArchiveEntry>(entries.values());
+        Properties index = null;
+        if (indexFile != null) {
+            index = createIndex();
+            Properties previousIndex = loadIndex(archive, indexFile);
+            if (index.equals(previousIndex)) {
+                logger.info("Skipping {} as it is up-to-date.", archive);
+                return true;
+            }
+            if (previousIndex != null) {
+                reuseUnchangedEntries(archive, entriesToWrite, index, previousIndex);
+            }
+        }
+        writeArchive(archive, entriesToWrite);
+        if (index != null) {
+            index.setProperty(INDEX_ARCHIVE_KEY, archiveState(archive));
+            indexFile.getParentFile().mkdirs();
+            GUtil.saveProperties(index, indexFile);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the index of the entries of this archiver. The value of each entry is its position in the archive and
+     * the state of its source.
+     */
+    private Properties createIndex() {
+        Properties index = new Properties();
+        int position = 0;
+        for (ArchiveEntry entry : entries.values()) {
+            index.setProperty(INDEX_ENTRY_PREFIX + entry.name, position++ + "," + entry.state());
+        }
+        return index;
+    }
+
+    /**
+     * Returns the entries of the previous index, or null if there is no previous index or it does not describe the
+     * archive as it is now.
+     */
+    private static Properties loadIndex(File archive, File indexFile) {
+        if (!indexFile.isFile() || !archive.isFile()) {
+            return null;
+        }
+        Properties previousIndex = GUtil.loadProperties(indexFile);
+        Object archiveState = previousIndex.remove(INDEX_ARCHIVE_KEY);
+        if (!archiveState(archive).equals(archiveState)) {
+            logger.debug("Ignoring the index of {}, as the archive has been changed since.", archive);
+            return null;
+        }
+        return previousIndex;
+    }
+
+    private static String archiveState(File archive) {
+        return archive.length() + "," + archive.lastModified();
+    }
+
+    /**
+     * Replaces the entries whose source has not changed by the corresponding entries of the previous archive.
+     */
+    private static void reuseUnchangedEntries(File archive, List<ArchiveEntry> entriesToWrite, Properties index,
+                                              Properties previousIndex) {
+        Map<String, RawZipEntry> previousEntries = new HashMap<String, RawZipEntry>();
+        try {
+            for (RawZipEntry previousEntry : RawZipFile.readEntries(archive)) {
+                previousEntries.put(previousEntry.name, previousEntry);
+            }
+        } catch (IOException e) {
+            logger.debug("Writing " + archive + " from scratch, as its entries can't be read.", e);
+            return;
+        }
+        int reusedCount = 0;
+        for (ListIterator<ArchiveEntry> iterator = entriesToWrite.listIterator(); iterator.hasNext();) {
+            ArchiveEntry entry = iterator.next();
+            String key = INDEX_ENTRY_PREFIX + entry.name;
+            RawZipEntry previousEntry = previousEntries.get(entry.name);
+            if (previousEntry != null && previousIndex.containsKey(key)
+                    && sourceState(previousIndex.getProperty(key)).equals(sourceState(index.getProperty(key)))) {
+                iterator.set(new RawSourceEntry(entry.name, archive, previousEntry, -1));
+                reusedCount++;
+            }
+        }
+        logger.debug("Copying {} unchanged entries of {}.", reusedCount, archive);
+    }
+
+    private static String sourceState(String indexValue) {
+        return indexValue.substring(indexValue.indexOf(',') + 1);
+    }
+
+    private void writeArchive(File archive, List<ArchiveEntry> entriesToWrite) {
+        File tmpArchive = new File(archive.getPath() + ".tmp");
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threadCount), new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "Compress archive entries");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        SourceZips sourceZips = new SourceZips();
+        boolean written = false;
+        try {
+            ZipWriter writer = new ZipWriter(new BufferedOutputStream(new FileOutputStream(tmpArchive)));
+            try {
+                writeEntries(writer, entriesToWrite, sourceZips, executor);
+                writer.finish();
+            } finally {
+                writer.close();
+            }
+            written = true;
+        } catch (IOException e) {
+            throw new GradleException(String.format("Could not write archive %s.", archive), e);
+        } finally {
+            executor.shutdownNow();
+            sourceZips.close();
+            if (!written) {
+                tmpArchive.delete();
+            }
+        }
+        archive.delete();
+        if (!tmpArchive.renameTo(archive)) {
+            throw new GradleException(String.format("Could not rename %s to %s.", tmpArchive, archive));
+        }
+        logger.debug("Wrote {} entries to {}.", entriesToWrite.size(), archive);
+    }
+
+    /**
+     * Compresses the entries concurrently, but only as far ahead of the writer as the compressed data held in memory
+     * stays below {@link #MAX_PENDING_BYTES}. A single larger entry is compressed on its own.
+     */
+    private void writeEntries(ZipWriter writer, List<ArchiveEntry> entriesToWrite, final SourceZips sourceZips,
+                              ExecutorService executor) throws IOException {
+        LinkedList<ArchiveEntry> pendingEntries = new LinkedList<ArchiveEntry>();
+        LinkedList<Future<CompressedEntry>> pendingCompressions = new LinkedList<Future<CompressedEntry>>();
+        long pendingBytes = 0;
+        int next = 0;
+        while (next < entriesToWrite.size() || !pendingEntries.isEmpty()) {
+            while (next < entriesToWrite.size() && (pendingEntries.isEmpty()
+                    || pendingBytes + entriesToWrite.get(next).bufferedSize() <= MAX_PENDING_BYTES)) {
+                final ArchiveEntry entry = entriesToWrite.get(next++);
+                pendingEntries.add(entry);
+                pendingBytes += entry.bufferedSize();
+                pendingCompressions.add(executor.submit(new Callable<CompressedEntry>() {
+                    public CompressedEntry call() throws IOException {
+                        return entry.compress(sourceZips);
+                    }
+                }));
+            }
+            ArchiveEntry entry = pendingEntries.removeFirst();
+            pendingBytes -= entry.bufferedSize();
+            CompressedEntry compressedEntry;
+            try {
+                compressedEntry = pendingCompressions.removeFirst().get();
+            } catch (ExecutionException e) {
+                throw new GradleException(String.format("Could not add %s to the archive.", entry), e.getCause());
+            } catch (InterruptedException e) {
+                throw new GradleException(e);
+            }
+            writer.putEntry(compressedEntry.entry);
+            compressedEntry.writeDataTo(writer);
+        }
+    }
+
+    private abstract static class CompressedEntry {
+        protected final RawZipEntry entry;
+
+        protected CompressedEntry(RawZipEntry entry) {
+            this.entry = entry;
+        }
+
+        protected abstract void writeDataTo(ZipWriter writer) throws IOException;
+    }
+
+    private static class DeflatedEntry extends CompressedEntry {
+        private final ZipWriter.Buffer data;
+
+        private DeflatedEntry(RawZipEntry entry, ZipWriter.Buffer data) {
+            super(entry);
+            this.data = data;
+        }
+
+        protected void writeDataTo(ZipWriter writer) throws IOException {
+            data.writeTo(writer);
+        }
+    }
+
+    /**
+     * An entry which is stored uncompressed, with its data transferred from the source file by the writer.
+     */
+    private static class StoredFileEntry extends CompressedEntry {
+        private final File file;
+
+        private StoredFileEntry(RawZipEntry entry, File file) {
+            super(entry);
+            this.file = file;
+        }
+
+        protected void writeDataTo(ZipWriter writer) throws IOException {
+            FileInputStream inputStream = new FileInputStream(file);
+            try {
+                FileChannel channel = inputStream.getChannel();
+                if (channel.size() != entry.size) {
+                    throw new IOException(String.format("%s has changed while it was archived.", file));
+                }
+                writer.transfer(channel, 0, entry.size);
+            } finally {
+                IOUtils.closeQuietly(inputStream);
+            }
+        }
+    }
+
+    /**
+     * An entry whose compressed data is transferred from another zip file by the writer.
+     */
+    private static class CopiedEntry extends CompressedEntry {
+        private final FileChannel source;
+        private final long dataOffset;
+
+        private CopiedEntry(RawZipEntry entry, FileChannel source, long dataOffset) {
+            super(entry);
+            this.source = source;
+            this.dataOffset = dataOffset;
+        }
+
+        protected void writeDataTo(ZipWriter writer) throws IOException {
+            writer.transfer(source, dataOffset, entry.compressedSize);
+        }
+    }
+
+    /**
+     * The zip files entries are read from. Each zip file is opened once and shared by all threads.
+     */
+    private static class SourceZips {
+        private final Map<File, ZipFile> zipFiles = new HashMap<File, ZipFile>();
+        private final Map<File, RandomAccessFile> rawZipFiles = new HashMap<File, RandomAccessFile>();
+
+        private synchronized ZipFile get(File zip) throws IOException {
+            ZipFile zipFile = zipFiles.get(zip);
+            if (zipFile == null) {
+                zipFile = new ZipFile(zip);
+                zipFiles.put(zip, zipFile);
+            }
+            return zipFile;
+        }
+
+        /**
+         * Returns a channel of the given zip file. As the channel is shared, it may only be read from by positional
+         * reads.
+         */
+        private synchronized FileChannel getChannel(File zip) throws IOException {
+            RandomAccessFile rawZipFile = rawZipFiles.get(zip);
+            if (rawZipFile == null) {
+                rawZipFile = new RandomAccessFile(zip, "r");
+                rawZipFiles.put(zip, rawZipFile);
+            }
+            return rawZipFile.getChannel();
+        }
+
+        private synchronized void close() {
+            for (ZipFile zipFile : zipFiles.values()) {
+                try {
+                    zipFile.close();
+                } catch (IOException e) {
+                    logger.debug("Could not close archive " + zipFile.getName(), e);
+                }
+            }
+            zipFiles.clear();
+            for (RandomAccessFile rawZipFile : rawZipFiles.values()) {
+                IOUtils.closeQuietly(rawZipFile);
+            }
+            rawZipFiles.clear();
+        }
+    }
+
+    private abstract static class ArchiveEntry {
+        protected final String name;
+        protected final long time;
+        protected final int mode;
+
+        protected ArchiveEntry(String name, long time, int mode) {
+            this.name = name;
+            this.time = time;
+            this.mode = mode;
+        }
+
+        protected abstract CompressedEntry compress(SourceZips sourceZips) throws IOException;
+
+        /**
+         * Returns the state of the source of this entry. If the state is the same as when the archive has been written
+         * last, the entry is the same as well.
+         */
+        protected abstract String state();
+
+        /**
+         * Returns about how many bytes of compressed data are held in memory from compressing this entry until it is
+         * written.
+         */
+        protected long bufferedSize() {
+            return 0;
+        }
+
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * An entry with content, which is deflated into memory.
+     */
+    private abstract static class ContentEntry extends ArchiveEntry {
+        protected ContentEntry(String name, long time, int mode) {
+            super(name, time, mode);
+        }
+
+        protected abstract InputStream open(SourceZips sourceZips) throws IOException;
+
+        protected CompressedEntry compress(SourceZips sourceZips) throws IOException {
+            InputStream inputStream = open(sourceZips);
+            try {
+                CRC32 crc = new CRC32();
+                ZipWriter.Buffer data = new ZipWriter.Buffer(BUFFER_SIZE);
+                Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+                try {
+                    DeflaterOutputStream deflaterStream = new DeflaterOutputStream(data, deflater, BUFFER_SIZE);
+                    byte[] buffer = new byte[BUFFER_SIZE];
+                    long size = 0;
+                    int count;
+                    while ((count = inputStream.read(buffer)) != -1) {
+                        crc.update(buffer, 0, count);
+                        deflaterStream.write(buffer, 0, count);
+                        size += count;
+                    }
+                    deflaterStream.finish();
+                    return new DeflatedEntry(RawZipEntry.create(name, RawZipEntry.DEFLATED, crc.getValue(),
+                            data.size(), size, time, mode), data);
+                } finally {
+                    deflater.end();
+                }
+            } finally {
+                IOUtils.closeQuietly(inputStream);
+            }
+        }
+    }
+
+    private static class DirEntry extends ArchiveEntry {
+        private DirEntry(String name, long time, int mode) {
+            super(name, time, mode);
+        }
+
+        protected CompressedEntry compress(SourceZips sourceZips) {
+            return new DeflatedEntry(RawZipEntry.create(name, RawZipEntry.STORED, 0, 0, 0, time, mode),
+                    new ZipWriter.Buffer(0));
+        }
+
+        protected String state() {
+            // The time is left out, as it changes with the content of the dir, which has entries of its own
+            return "dir," + mode;
+        }
+    }
+
+    private static class FileEntry extends ContentEntry {
+        private final File file;
+
+        private FileEntry(String name, File file, int mode) {
+            super(name, file.lastModified(), mode);
+            this.file = file;
+        }
+
+        protected InputStream open(SourceZips sourceZips) throws IOException {
+            return new FileInputStream(file);
+        }
+
+        /**
+         * Stores files which are compressed already, as deflating them again gains next to nothing.
+         */
+        protected CompressedEntry compress(SourceZips sourceZips) throws IOException {
+            if (!isCompressed()) {
+                return super.compress(sourceZips);
+            }
+            InputStream inputStream = open(sourceZips);
+            try {
+                CRC32 crc = new CRC32();
+                byte[] buffer = new byte[BUFFER_SIZE];
+                long size = 0;
+                int count;
+                while ((count = inputStream.read(buffer)) != -1) {
+                    crc.update(buffer, 0, count);
+                    size += count;
+                }
+                return new StoredFileEntry(RawZipEntry.create(name, RawZipEntry.STORED, crc.getValue(), size, size,
+                        time, mode), file);
+            } finally {
+                IOUtils.closeQuietly(inputStream);
+            }
+        }
+
+        private boolean isCompressed() {
+            String extension = name.substring(name.lastIndexOf('.') + 1).toLowerCase();
+            return COMPRESSED_EXTENSIONS.contains(extension);
+        }
+
+        protected long bufferedSize() {
+            return isCompressed() ? 0 : file.length();
+        }
+
+        protected String state() {
+            return "file," + file.getAbsolutePath() + "," + file.length() + "," + time + "," + mode;
+        }
+    }
+
+    private static class BytesEntry extends ContentEntry {
+        private final byte[] content;
+
+        private BytesEntry(String name, byte[] content, long time) {
+            super(name, time, DEFAULT_FILE_MODE);
+            this.content = content;
+        }
+
+        protected InputStream open(SourceZips sourceZips) {
+            return new ByteArrayInputStream(content);
+        }
+
+        protected long bufferedSize() {
+            return content.length;
+        }
+
+        protected String state() {
+            // The time is left out, as the content is created anew for each archive, e.g. the manifest
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            return "bytes," + content.length + "," + Long.toHexString(crc.getValue()) + "," + mode;
+        }
+    }
+
+    /**
+     * An entry whose compressed data is copied from another zip file as it is.
+     */
+    private static class RawSourceEntry extends ArchiveEntry {
+        private final File zip;
+        private final RawZipEntry zipEntry;
+
+        private RawSourceEntry(String name, File zip, RawZipEntry zipEntry, int mode) {
+            super(name, javaTime(zipEntry.dosTime), mode);
+            this.zip = zip;
+            this.zipEntry = zipEntry;
+        }
+
+        protected CompressedEntry compress(SourceZips sourceZips) throws IOException {
+            FileChannel channel = sourceZips.getChannel(zip);
+            RawZipEntry entry = mode < 0 ? zipEntry.rename(name) : RawZipEntry.create(name, zipEntry.flags,
+                    zipEntry.versionNeeded, zipEntry.method, zipEntry.crc, zipEntry.compressedSize, zipEntry.size,
+                    zipEntry.dosTime, mode);
+            return new CopiedEntry(entry, channel, RawZipFile.dataOffset(channel, zipEntry));
+        }
+
+        protected String state() {
+            return "zip," + zip.getAbsolutePath() + "!" + zipEntry.name + "," + zipEntry.compressedSize + ","
+                    + Long.toHexString(zipEntry.crc) + "," + zipEntry.dosTime + "," + mode;
+        }
+    }
+
+    private static class ZipSourceEntry extends ContentEntry {
+        private final File zip;
+        private final String zipEntryName;
+        private final long size;
+
+        private ZipSourceEntry(String name, File zip, String zipEntryName, long time, long size, int mode) {
+            super(name, time, mode);
+            this.zip = zip;
+            this.zipEntryName = zipEntryName;
+            this.size = size;
+        }
+
+        protected long bufferedSize() {
+            return Math.max(0, size);
+        }
+
+        protected InputStream open(SourceZips sourceZips) throws IOException {
+            ZipFile zipFile = sourceZips.get(zip);
+            return zipFile.getInputStream(zipFile.getEntry(zipEntryName));
+        }
+
+        protected String state() {
+            return "zip," + zip.getAbsolutePath() + "!" + zipEntryName + "," + zip.length() + "," + zip.lastModified()
+                    + "," + mode;
+        }
+    }
+}
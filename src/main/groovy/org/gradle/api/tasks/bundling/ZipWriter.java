@@ -0,0 +1,174 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.bundling;
+
+import org.gradle.api.GradleException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes a zip file from entries whose data is already compressed. In contrast to the
+ * {@link java.util.zip.ZipOutputStream}, the data of an entry is not compressed by the writer, so entries can be
+ * compressed concurrently or copied from other zip files without decompressing them. Zip64 is not supported.
+ */
+class ZipWriter {
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int UTF8_FLAG = 1 << 11;
+    private static final int DATA_DESCRIPTOR_FLAG = 1 << 3;
+    private static final long MAX_SIZE = 0xffffffffL;
+    private static final int MAX_ENTRIES = 0xffff;
+    private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+
+    private final OutputStream outputStream;
+    private final List<RawZipEntry> entries = new ArrayList<RawZipEntry>();
+    private final List<Long> offsets = new ArrayList<Long>();
+    private long position;
+
+    ZipWriter(OutputStream outputStream) {
+        this.outputStream = outputStream;
+    }
+
+    /**
+     * Writes the local header of the given entry. It has to be followed by the compressed data of the entry.
+     */
+    void putEntry(RawZipEntry entry) throws IOException {
+        if (entries.size() == MAX_ENTRIES || position > MAX_SIZE || entry.compressedSize > MAX_SIZE
+                || entry.size > MAX_SIZE) {
+            throw new GradleException(String.format("Could not add %s, as the archive would need Zip64 extensions.",
+                    entry.name));
+        }
+        byte[] name = entry.name.getBytes("UTF-8");
+        entries.add(entry);
+        offsets.add(position);
+        writeInt(LOCAL_HEADER_SIGNATURE);
+        writeShort(entry.versionNeeded);
+        writeShort(flags(entry));
+        writeShort(entry.method);
+        writeInt(entry.dosTime);
+        writeInt(entry.crc);
+        writeInt(entry.compressedSize);
+        writeInt(entry.size);
+        writeShort(name.length);
+        writeShort(0);
+        write(name, 0, name.length);
+    }
+
+    void write(byte[] data, int offset, int length) throws IOException {
+        outputStream.write(data, offset, length);
+        position += length;
+    }
+
+    /**
+     * Copies data from the given channel, using positional reads only.
+     */
+    void transfer(FileChannel source, long position, long length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(length, TRANSFER_BUFFER_SIZE));
+        long transferred = 0;
+        while (transferred < length) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), length - transferred));
+            int count = source.read(buffer, position + transferred);
+            if (count < 0) {
+                throw new EOFException("Unexpected end of the source of the entry data.");
+            }
+            write(buffer.array(), 0, count);
+            transferred += count;
+        }
+    }
+
+    /**
+     * Writes the central directory. No entries can be written afterwards.
+     */
+    void finish() throws IOException {
+        long centralDirectoryOffset = position;
+        for (int i = 0; i < entries.size(); i++) {
+            RawZipEntry entry = entries.get(i);
+            byte[] name = entry.name.getBytes("UTF-8");
+            writeInt(CENTRAL_HEADER_SIGNATURE);
+            writeShort(entry.versionMadeBy);
+            writeShort(entry.versionNeeded);
+            writeShort(flags(entry));
+            writeShort(entry.method);
+            writeInt(entry.dosTime);
+            writeInt(entry.crc);
+            writeInt(entry.compressedSize);
+            writeInt(entry.size);
+            writeShort(name.length);
+            writeShort(0);
+            writeShort(0);
+            writeShort(0);
+            writeShort(0);
+            writeInt(entry.externalAttributes);
+            writeInt(offsets.get(i));
+            write(name, 0, name.length);
+        }
+        if (position > MAX_SIZE) {
+            throw new GradleException("Could not write the central directory, as the archive would need Zip64 extensions.");
+        }
+        long centralDirectorySize = position - centralDirectoryOffset;
+        writeInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+        writeShort(0);
+        writeShort(0);
+        writeShort(entries.size());
+        writeShort(entries.size());
+        writeInt(centralDirectorySize);
+        writeInt(centralDirectoryOffset);
+        writeShort(0);
+        outputStream.flush();
+    }
+
+    void close() throws IOException {
+        outputStream.close();
+    }
+
+    private int flags(RawZipEntry entry) {
+        // The sizes are always known in advance, so there is never a data descriptor
+        return (entry.flags & ~DATA_DESCRIPTOR_FLAG) | UTF8_FLAG;
+    }
+
+    private void writeShort(int value) throws IOException {
+        outputStream.write(value & 0xff);
+        outputStream.write((value >>> 8) & 0xff);
+        position += 2;
+    }
+
+    private void writeInt(long value) throws IOException {
+        writeShort((int) (value & 0xffff));
+        writeShort((int) ((value >>> 16) & 0xffff));
+    }
+
+    /**
+     * A buffer whose content can be written without copying it first.
+     */
+    static class Buffer extends ByteArrayOutputStream {
+        Buffer(int size) {
+            super(size);
+        }
+
+        void writeTo(ZipWriter writer) throws IOException {
+            writer.write(buf, 0, count);
+        }
+    }
+}
@@ -20,6 +20,7 @@ import org.gradle.util.GradleUtil
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
 import org.gradle.util.BootstrapUtil
+import org.gradle.util.ClasspathUtil
 
 /**
  * Please not: includeAntRuntime=false is ignored if groovyc is used in non fork mode. In this case the runtime classpath is
@@ -36,15 +37,64 @@ class AntGroovyc {
     public void execute(antNode, List sourceDirs, List groovyIncludes, List groovyExcludes, List groovyJavaIncludes,
                         List groovyJavaExcludes, File targetDir, List classpath, String sourceCompatibility,
                         String targetCompatibility, GroovyCompileOptions groovyOptions, CompileOptions compileOptions, List taskClasspath) {
+        String groovyc = createScript(sourceDirs, groovyIncludes, groovyExcludes, groovyJavaIncludes, groovyJavaExcludes,
+                targetDir, classpath, sourceCompatibility, targetCompatibility, groovyOptions.optionMap(), compileOptions)
+        GradleUtil.executeIsolatedAntScript(taskClasspath, groovyc)
+    }
+
+    /**
+     * Compiles with the Ant groovyc task in a compiler daemon, see {@link CompilerDaemonClient}. The compiler runs in
+     * the daemon itself, so the memory settings of the fork options are used for the daemon.
+     */
+    public void executeInDaemon(List sourceDirs, List groovyIncludes, List groovyExcludes, List groovyJavaIncludes,
+                                List groovyJavaExcludes, File targetDir, List classpath, String sourceCompatibility,
+                                String targetCompatibility, GroovyCompileOptions groovyOptions, CompileOptions compileOptions,
+                                List taskClasspath, File daemonRegistryDir) {
+        Map forkArgs = groovyOptions.forkOptions.optionMap()
+        Map options = groovyOptions.optionMap().findAll {key, value -> !forkArgs.containsKey(key)} + [fork: 'false']
+        DaemonTask groovyc = new DaemonTask('groovyc', [
+                includeAntRuntime: false,
+                srcdir: sourceDirs.join(File.pathSeparator),
+                destdir: targetDir,
+                classpath: (classpath + BootstrapUtil.antJarFiles).join(File.pathSeparator)] + options)
+        groovyIncludes.each {groovyc.add('include', [name: it])}
+        groovyExcludes.each {groovyc.add('exclude', [name: it])}
+        DaemonTask javac = groovyc.add('javac', [source: sourceCompatibility, target: targetCompatibility]
+                + filterNonGroovycOptions(compileOptions))
+        groovyJavaIncludes.each {javac.add('include', [name: it])}
+        groovyJavaExcludes.each {javac.add('exclude', [name: it])}
+        List tasks = [
+                new DaemonTask('taskdef', [name: 'groovyc', classname: 'org.codehaus.groovy.ant.Groovyc']),
+                new DaemonTask('mkdir', [dir: targetDir.absolutePath]),
+                groovyc
+        ]
+        List jvmArgs = []
+        if (groovyOptions.forkOptions.memoryInitialSize) {
+            jvmArgs << "-Xms${groovyOptions.forkOptions.memoryInitialSize}".toString()
+        }
+        if (groovyOptions.forkOptions.memoryMaximumSize) {
+            jvmArgs << "-Xmx${groovyOptions.forkOptions.memoryMaximumSize}".toString()
+        }
+        // The same classpath as for the isolated Ant script
+        List daemonClasspath = taskClasspath + BootstrapUtil.nonLoggingJars
+        File toolsJar = ClasspathUtil.toolsJar
+        if (toolsJar) {
+            daemonClasspath << toolsJar
+        }
+        CompilerDaemonClient.execute(daemonClasspath, jvmArgs, groovyOptions.daemonOptions, daemonRegistryDir, tasks)
+    }
 
-        String groovyc = """taskdef(name: 'groovyc', classname: 'org.codehaus.groovy.ant.Groovyc')
+    private String createScript(List sourceDirs, List groovyIncludes, List groovyExcludes, List groovyJavaIncludes,
+                                List groovyJavaExcludes, File targetDir, List classpath, String sourceCompatibility,
+                                String targetCompatibility, Map groovycOptions, CompileOptions compileOptions) {
+        """taskdef(name: 'groovyc', classname: 'org.codehaus.groovy.ant.Groovyc')
     mkdir(dir: '${GradleUtil.unbackslash(targetDir.absolutePath)}')
     groovyc(
         [includeAntRuntime: false,
         srcdir: '${sourceDirs.collect {GradleUtil.unbackslash(it)}.join(':')}',
         destdir: '${GradleUtil.unbackslash(targetDir)}',
         classpath: '${(classpath + BootstrapUtil.antJarFiles).collect {GradleUtil.unbackslash(it)}.join(':')}'] +
-        ${groovyOptions.optionMap()}) {
+        ${groovycOptions}) {
         ${groovyIncludes.collect {'include(name: \'' + it + '\')'}.join('\n')}
         ${groovyExcludes.collect {'exclude(name: \'' + it + '\')'}.join('\n')}
         javac([source: '${sourceCompatibility}', target: '${targetCompatibility}'] + ${filterNonGroovycOptions(compileOptions)}) {
@@ -53,7 +103,6 @@ class AntGroovyc {
         }
     }
 """
-        GradleUtil.executeIsolatedAntScript(taskClasspath, groovyc)
     }
 
     private Map filterNonGroovycOptions(CompileOptions options) {
@@ -16,6 +16,8 @@
 
 package org.gradle.api.tasks.compile
 
+import org.gradle.util.BootstrapUtil
+import org.gradle.util.ClasspathUtil
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
 
@@ -54,6 +56,53 @@ class AntJavac {
         }
     }
 
+    /**
+     * Compiles with the Ant javac task in a compiler daemon, see {@link CompilerDaemonClient}. The compiler runs in the
+     * daemon itself, so the memory settings and JVM args of the fork options are used for the daemon.
+     */
+    void executeInDaemon(List sourceDirs, List includes, List excludes, File targetDir, List classpath, String sourceCompatibility,
+                         String targetCompatibility, CompileOptions compileOptions, File daemonRegistryDir) {
+        Map otherArgs = [
+                includeAntRuntime: false,
+                srcdir: sourceDirs.join(File.pathSeparator),
+                destdir: targetDir,
+                classpath: classpath.join(File.pathSeparator),
+                target: targetCompatibility,
+                source: sourceCompatibility
+        ]
+        Map forkArgs = compileOptions.forkOptions.optionMap()
+        Map options = compileOptions.optionMap().findAll {key, value -> !forkArgs.containsKey(key)} + [fork: false]
+        DaemonTask javac = new DaemonTask('javac', otherArgs + options)
+        includes.each {javac.add('include', [name: it])}
+        excludes.each {javac.add('exclude', [name: it])}
+        (compileOptions.compilerArgs ?: []).each {javac.add('compilerarg', it)}
+        CompilerDaemonClient.execute(daemonClasspath(), daemonJvmArgs(compileOptions.forkOptions),
+                compileOptions.daemonOptions, daemonRegistryDir, [new DaemonTask('mkdir', [dir: targetDir]), javac])
+    }
+
+    private List daemonClasspath() {
+        List daemonClasspath = BootstrapUtil.antJarFiles + BootstrapUtil.groovyFiles
+        File toolsJar = ClasspathUtil.toolsJar
+        if (toolsJar != null) {
+            daemonClasspath << toolsJar
+        }
+        daemonClasspath
+    }
+
+    private List daemonJvmArgs(ForkOptions forkOptions) {
+        List jvmArgs = []
+        if (forkOptions.memoryInitialSize) {
+            jvmArgs << "-Xms${forkOptions.memoryInitialSize}".toString()
+        }
+        if (forkOptions.memoryMaximumSize) {
+            jvmArgs << "-Xmx${forkOptions.memoryMaximumSize}".toString()
+        }
+        if (forkOptions.jvmArgs) {
+            jvmArgs.addAll(forkOptions.jvmArgs.collect {it.toString()})
+        }
+        jvmArgs
+    }
+
     private void createAntClassPath(AntBuilder ant, List classpath) {
         ant.path(id: CLASSPATH_ID) {
             classpath.each {
@@ -0,0 +1,296 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.compile;
+
+import java.io.*;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The types a class file refers to, read from its constant pool. Besides the class entries, the descriptors and
+ * signatures are searched for types, so that types which are only used in signatures are found as well. References to
+ * compile-time constants are inlined by the compiler and can't be found, so the analysis records whether a class
+ * declares such constants.
+ */
+class ClassAnalysis {
+    private static final int ACC_PRIVATE = 0x0002;
+
+    private final String className;
+    private final Set<String> referencedClasses;
+    private final boolean declaresConstants;
+
+    ClassAnalysis(String className, Set<String> referencedClasses, boolean declaresConstants) {
+        this.className = className;
+        this.referencedClasses = referencedClasses;
+        this.declaresConstants = declaresConstants;
+    }
+
+    /**
+     * Returns the internal name of the class, e.g. <code>org/gradle/Outer$Inner</code>.
+     */
+    String getClassName() {
+        return className;
+    }
+
+    /**
+     * Returns the internal names of the classes this class refers to, without the class itself.
+     */
+    Set<String> getReferencedClasses() {
+        return referencedClasses;
+    }
+
+    boolean declaresConstants() {
+        return declaresConstants;
+    }
+
+    static ClassAnalysis analyze(File classFile) throws IOException {
+        DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(classFile)));
+        try {
+            return analyze(inputStream);
+        } catch (IOException e) {
+            throw new IOException(String.format("Could not analyze class file %s: %s", classFile, e.getMessage()));
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private static ClassAnalysis analyze(DataInputStream inputStream) throws IOException {
+        ConstantPool constantPool = ConstantPool.read(inputStream);
+        inputStream.readUnsignedShort();
+        String className = constantPool.getClassName(inputStream.readUnsignedShort());
+        inputStream.readUnsignedShort();
+        ConstantPool.skip(inputStream, 2 * inputStream.readUnsignedShort());
+
+        boolean declaresConstants = false;
+        int fieldCount = inputStream.readUnsignedShort();
+        for (int i = 0; i < fieldCount; i++) {
+            int accessFlags = inputStream.readUnsignedShort();
+            inputStream.readUnsignedShort();
+            inputStream.readUnsignedShort();
+            int attributeCount = inputStream.readUnsignedShort();
+            for (int j = 0; j < attributeCount; j++) {
+                String attributeName = constantPool.getUtf8(inputStream.readUnsignedShort());
+                ConstantPool.skip(inputStream, inputStream.readInt());
+                // Private constants can only be inlined by the class itself
+                if ("ConstantValue".equals(attributeName) && (accessFlags & ACC_PRIVATE) == 0) {
+                    declaresConstants = true;
+                }
+            }
+        }
+
+        Set<String> referencedClasses = new TreeSet<String>();
+        for (int i = 1; i < constantPool.size(); i++) {
+            addClassName(constantPool.getClassName(i), referencedClasses);
+            if (constantPool.getUtf8(i) != null) {
+                addTypesOfDescriptor(constantPool.getUtf8(i), referencedClasses);
+            }
+        }
+        referencedClasses.remove(className);
+        return new ClassAnalysis(className, referencedClasses, declaresConstants);
+    }
+
+    private static void addClassName(String name, Set<String> classNames) {
+        if (name == null) {
+            return;
+        }
+        if (name.startsWith("[")) {
+            addTypesOfDescriptor(name, classNames);
+        } else {
+            classNames.add(name);
+        }
+    }
+
+    /**
+     * Adds the types of a descriptor or signature, e.g. <code>(ILjava/util/List&lt;Lorg/gradle/A;&gt;;)V</code>. The
+     * descriptor is parsed as defined by the class file format, so that no types are added for constants which are no
+     * descriptors. Constants which happen to be valid descriptors, e.g. <code>"Lfoo;"</code>, add a type, but a wrong
+     * type only causes an unnecessary recompile.
+     */
+    static void addTypesOfDescriptor(String descriptor, Set<String> classNames) {
+        SignatureParser parser = new SignatureParser(descriptor);
+        if (parser.parse()) {
+            classNames.addAll(parser.classNames);
+        }
+    }
+
+    /**
+     * Parses a field or method descriptor, or a class, field or method signature.
+     */
+    private static class SignatureParser {
+        private final String signature;
+        private final Set<String> classNames = new TreeSet<String>();
+        private int pos;
+
+        private SignatureParser(String signature) {
+            this.signature = signature;
+        }
+
+        private boolean parse() {
+            if (peek('<') && !typeParameters()) {
+                return false;
+            }
+            if (peek('(')) {
+                pos++;
+                while (!peek(')')) {
+                    if (!javaType()) {
+                        return false;
+                    }
+                }
+                pos++;
+                if (peek('V')) {
+                    pos++;
+                } else if (!javaType()) {
+                    return false;
+                }
+                while (peek('^')) {
+                    pos++;
+                    if (!referenceType()) {
+                        return false;
+                    }
+                }
+            } else {
+                // A class signature has the superclass followed by the interfaces
+                if (!javaType()) {
+                    return false;
+                }
+                while (peek('L')) {
+                    if (!classType()) {
+                        return false;
+                    }
+                }
+            }
+            return pos == signature.length();
+        }
+
+        private boolean javaType() {
+            if (pos < signature.length() && "BCDFIJSZ".indexOf(signature.charAt(pos)) >= 0) {
+                pos++;
+                return true;
+            }
+            return referenceType();
+        }
+
+        private boolean referenceType() {
+            if (peek('L')) {
+                return classType();
+            }
+            if (peek('T')) {
+                pos++;
+                return identifier(false) != null && expect(';');
+            }
+            if (peek('[')) {
+                pos++;
+                return javaType();
+            }
+            return false;
+        }
+
+        private boolean classType() {
+            pos++;
+            String className = identifier(true);
+            if (className == null) {
+                return false;
+            }
+            while (true) {
+                if (peek('<') && !typeArguments()) {
+                    return false;
+                }
+                classNames.add(className);
+                if (peek(';')) {
+                    pos++;
+                    return true;
+                }
+                if (!expect('.')) {
+                    return false;
+                }
+                String innerName = identifier(false);
+                if (innerName == null) {
+                    return false;
+                }
+                className = className + '$' + innerName;
+            }
+        }
+
+        private boolean typeArguments() {
+            pos++;
+            if (peek('>')) {
+                return false;
+            }
+            while (!peek('>')) {
+                if (peek('*')) {
+                    pos++;
+                    continue;
+                }
+                if (peek('+') || peek('-')) {
+                    pos++;
+                }
+                if (!referenceType()) {
+                    return false;
+                }
+            }
+            pos++;
+            return true;
+        }
+
+        private boolean typeParameters() {
+            pos++;
+            if (peek('>')) {
+                return false;
+            }
+            while (!peek('>')) {
+                if (identifier(false) == null || !expect(':')) {
+                    return false;
+                }
+                // The class bound may be left out, if there are interface bounds
+                if ((peek('L') || peek('T') || peek('[')) && !referenceType()) {
+                    return false;
+                }
+                while (peek(':')) {
+                    pos++;
+                    if (!referenceType()) {
+                        return false;
+                    }
+                }
+            }
+            pos++;
+            return true;
+        }
+
+        /**
+         * Reads an identifier, or a class name with its package if <code>qualified</code> is true.
+         */
+        private String identifier(boolean qualified) {
+            int start = pos;
+            while (pos < signature.length() && ".;[<>:".indexOf(signature.charAt(pos)) < 0
+                    && (qualified || signature.charAt(pos) != '/')) {
+                pos++;
+            }
+            return pos == start || pos == signature.length() ? null : signature.substring(start, pos);
+        }
+
+        private boolean expect(char c) {
+            if (!peek(c)) {
+                return false;
+            }
+            pos++;
+            return true;
+        }
+
+        private boolean peek(char c) {
+            return pos < signature.length() && signature.charAt(pos) == c;
+        }
+    }
+}
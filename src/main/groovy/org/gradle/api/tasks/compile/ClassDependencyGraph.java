@@ -0,0 +1,227 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.compile;
+
+import org.gradle.util.GUtil;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * The dependency graph of an incremental compile: the state of each source, the classes compiled from it and the
+ * classes each of these classes refers to. The graph is kept in a properties file between builds, together with the
+ * state of the classpath and of the compiler options it has been created with, and the entries of the snapshot of the
+ * classpath, see {@link ClasspathSnapshot}.
+ */
+class ClassDependencyGraph {
+    private static final String CLASSPATH_KEY = "classpath";
+    private static final String OPTIONS_KEY = "options";
+    private static final String CONSTANTS_KEY = "constants";
+    private static final String SOURCE_PREFIX = "source.";
+    private static final String CLASS_PREFIX = "class.";
+    private static final String CLASSPATH_PREFIX = "classpath.";
+
+    private final String classpathState;
+    private final String optionsState;
+    private final Map<String, String> sourceStates = new HashMap<String, String>();
+    private final Map<String, Set<String>> sourceClasses = new HashMap<String, Set<String>>();
+    private final Map<String, Set<String>> classReferences = new HashMap<String, Set<String>>();
+    private final Set<String> constantClasses = new HashSet<String>();
+    private Map<String, String> classpathEntries = new LinkedHashMap<String, String>();
+
+    ClassDependencyGraph(String classpathState, String optionsState) {
+        this.classpathState = classpathState;
+        this.optionsState = optionsState;
+    }
+
+    String getClasspathState() {
+        return classpathState;
+    }
+
+    String getOptionsState() {
+        return optionsState;
+    }
+
+    Map<String, String> getClasspathEntries() {
+        return classpathEntries;
+    }
+
+    void setClasspathEntries(Map<String, String> classpathEntries) {
+        this.classpathEntries = classpathEntries;
+    }
+
+    Set<String> getSources() {
+        return sourceStates.keySet();
+    }
+
+    String getSourceState(String source) {
+        return sourceStates.get(source);
+    }
+
+    Set<String> getClasses(String source) {
+        Set<String> classes = sourceClasses.get(source);
+        return classes == null ? Collections.<String>emptySet() : classes;
+    }
+
+    /**
+     * Adds a compiled source, replacing the classes it has been added with before.
+     */
+    void addSource(String source, String state, Collection<ClassAnalysis> classes) {
+        removeSource(source);
+        Set<String> classNames = new TreeSet<String>();
+        for (ClassAnalysis classAnalysis : classes) {
+            classNames.add(classAnalysis.getClassName());
+            classReferences.put(classAnalysis.getClassName(), classAnalysis.getReferencedClasses());
+            if (classAnalysis.declaresConstants()) {
+                constantClasses.add(classAnalysis.getClassName());
+            }
+        }
+        sourceStates.put(source, state);
+        sourceClasses.put(source, classNames);
+    }
+
+    void removeSource(String source) {
+        for (String className : getClasses(source)) {
+            classReferences.remove(className);
+            constantClasses.remove(className);
+        }
+        sourceStates.remove(source);
+        sourceClasses.remove(source);
+    }
+
+    /**
+     * Returns whether one of the classes of the given sources declares compile-time constants. Classes using these
+     * constants can't be found, as the compiler has inlined them.
+     */
+    boolean declaresConstants(Collection<String> sources) {
+        for (String source : sources) {
+            for (String className : getClasses(source)) {
+                if (constantClasses.contains(className)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the sources to recompile, if the given sources are changed or removed: the given sources plus the sources
+     * of all classes which refer to one of their classes, directly or through other classes of this graph.
+     */
+    Set<String> getDependentSources(Collection<String> changedSources) {
+        Map<String, String> classSources = new HashMap<String, String>();
+        for (Map.Entry<String, Set<String>> entry : sourceClasses.entrySet()) {
+            for (String className : entry.getValue()) {
+                classSources.put(className, entry.getKey());
+            }
+        }
+        Map<String, Set<String>> referringClasses = new HashMap<String, Set<String>>();
+        for (Map.Entry<String, Set<String>> entry : classReferences.entrySet()) {
+            for (String referencedClass : entry.getValue()) {
+                Set<String> referring = referringClasses.get(referencedClass);
+                if (referring == null) {
+                    referring = new HashSet<String>();
+                    referringClasses.put(referencedClass, referring);
+                }
+                referring.add(entry.getKey());
+            }
+        }
+
+        Set<String> dependentSources = new TreeSet<String>(changedSources);
+        LinkedList<String> queue = new LinkedList<String>(changedSources);
+        while (!queue.isEmpty()) {
+            for (String className : getClasses(queue.removeFirst())) {
+                Set<String> referring = referringClasses.get(className);
+                if (referring == null) {
+                    continue;
+                }
+                for (String referringClass : referring) {
+                    String source = classSources.get(referringClass);
+                    if (dependentSources.add(source)) {
+                        queue.add(source);
+                    }
+                }
+            }
+        }
+        return dependentSources;
+    }
+
+    /**
+     * Returns the graph kept in the given file, or null if there is none.
+     */
+    static ClassDependencyGraph load(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        Properties properties = GUtil.loadProperties(file);
+        ClassDependencyGraph graph = new ClassDependencyGraph(properties.getProperty(CLASSPATH_KEY),
+                properties.getProperty(OPTIONS_KEY));
+        graph.constantClasses.addAll(split(properties.getProperty(CONSTANTS_KEY, "")));
+        for (Map.Entry<Object, Object> entry : properties.entrySet()) {
+            String key = entry.getKey().toString();
+            String value = entry.getValue().toString();
+            if (key.startsWith(SOURCE_PREFIX)) {
+                String source = key.substring(SOURCE_PREFIX.length());
+                int separator = value.indexOf(';');
+                graph.sourceStates.put(source, value.substring(0, separator));
+                graph.sourceClasses.put(source, split(value.substring(separator + 1)));
+            } else if (key.startsWith(CLASS_PREFIX)) {
+                graph.classReferences.put(key.substring(CLASS_PREFIX.length()), split(value));
+            } else if (key.startsWith(CLASSPATH_PREFIX)) {
+                graph.classpathEntries.put(key.substring(CLASSPATH_PREFIX.length()), value);
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Saves this graph to the given file. References to classes which are not part of this graph are left out, as
+     * classes of the classpath are covered by the classpath state.
+     */
+    void save(File file) {
+        Set<String> allClasses = new HashSet<String>();
+        Properties properties = new Properties();
+        for (Map.Entry<String, Set<String>> entry : sourceClasses.entrySet()) {
+            properties.setProperty(SOURCE_PREFIX + entry.getKey(),
+                    sourceStates.get(entry.getKey()) + ";" + GUtil.join(entry.getValue(), ","));
+            allClasses.addAll(entry.getValue());
+        }
+        for (Map.Entry<String, Set<String>> entry : classReferences.entrySet()) {
+            Set<String> references = new TreeSet<String>(entry.getValue());
+            references.retainAll(allClasses);
+            entry.setValue(references);
+            properties.setProperty(CLASS_PREFIX + entry.getKey(), GUtil.join(references, ","));
+        }
+        for (Map.Entry<String, String> entry : classpathEntries.entrySet()) {
+            properties.setProperty(CLASSPATH_PREFIX + entry.getKey(), entry.getValue());
+        }
+        properties.setProperty(CLASSPATH_KEY, classpathState);
+        properties.setProperty(OPTIONS_KEY, optionsState);
+        properties.setProperty(CONSTANTS_KEY, GUtil.join(new TreeSet<String>(constantClasses), ","));
+        file.getParentFile().mkdirs();
+        GUtil.saveProperties(properties, file);
+    }
+
+    private static Set<String> split(String value) {
+        Set<String> values = new TreeSet<String>();
+        for (String element : value.split(",")) {
+            if (element.length() > 0) {
+                values.add(element);
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,357 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.compile;
+
+import org.gradle.api.UncheckedIOException;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * <p>Fingerprints the elements of a compile classpath by their ABI: the signatures and annotations of the classes
+ * and of their non-private members, the values of their constants and the defaults of annotation elements. Method
+ * bodies, private members and private, anonymous and
+ * local classes are left out. So the fingerprint of a jar does not change, if it is rebuilt after a change which does
+ * not affect the classes compiled against it.</p>
+ *
+ * <p>Reading all classes of a jar takes time, so the fingerprints of the last compile are reused for the elements
+ * which have the same length and modification time as then.</p>
+ */
+class ClasspathSnapshot {
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_SUPER = 0x0020;
+    private static final int ACC_SYNCHRONIZED = 0x0020;
+    private static final int ACC_NATIVE = 0x0100;
+    private static final int ACC_STRICT = 0x0800;
+    private static final int ACC_SYNTHETIC = 0x1000;
+
+    private static final Set<String> ANNOTATION_ATTRIBUTES = new HashSet<String>(Arrays.asList(
+            "RuntimeVisibleAnnotations", "RuntimeInvisibleAnnotations", "RuntimeVisibleParameterAnnotations",
+            "RuntimeInvisibleParameterAnnotations", "AnnotationDefault"));
+
+    private final Map<String, String> previousEntries;
+    private final Map<String, String> entries = new LinkedHashMap<String, String>();
+
+    /**
+     * @param previousEntries The entries of the snapshot of the last compile, see {@link #getEntries()}.
+     */
+    ClasspathSnapshot(Map<String, String> previousEntries) {
+        this.previousEntries = previousEntries;
+    }
+
+    /**
+     * Returns the entries of this snapshot. Each entry maps the path of a classpath element to its file state and its
+     * fingerprint, separated by a semicolon.
+     */
+    Map<String, String> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Returns the fingerprint of the given classpath, which includes the paths and the fingerprints of its elements.
+     */
+    String fingerprint(List<File> classpath) {
+        MessageDigest digest = createDigest();
+        for (File element : classpath) {
+            String path = element.getAbsolutePath();
+            String state = fileState(element);
+            String previousEntry = previousEntries.get(path);
+            String fingerprint;
+            if (previousEntry != null && previousEntry.startsWith(state + ";")) {
+                fingerprint = previousEntry.substring(state.length() + 1);
+            } else {
+                fingerprint = fingerprintElement(element);
+            }
+            entries.put(path, state + ";" + fingerprint);
+            update(digest, path + "=" + fingerprint + "\n");
+        }
+        return toHex(digest);
+    }
+
+    private static String fileState(File element) {
+        if (element.isFile()) {
+            return element.length() + "," + element.lastModified();
+        }
+        if (!element.isDirectory()) {
+            return "missing";
+        }
+        MessageDigest digest = createDigest();
+        for (Map.Entry<String, File> entry : findClassFiles(element).entrySet()) {
+            update(digest, entry.getKey() + "," + entry.getValue().length() + "," + entry.getValue().lastModified() + "\n");
+        }
+        return toHex(digest);
+    }
+
+    private static String fingerprintElement(File element) {
+        MessageDigest digest = createDigest();
+        try {
+            if (element.isFile()) {
+                ZipFile zipFile = new ZipFile(element);
+                try {
+                    List<String> names = new ArrayList<String>();
+                    for (Enumeration<? extends ZipEntry> zipEntries = zipFile.entries(); zipEntries.hasMoreElements();) {
+                        String name = zipEntries.nextElement().getName();
+                        if (name.endsWith(".class")) {
+                            names.add(name);
+                        }
+                    }
+                    Collections.sort(names);
+                    for (String name : names) {
+                        addAbi(digest, zipFile.getInputStream(zipFile.getEntry(name)));
+                    }
+                } finally {
+                    zipFile.close();
+                }
+            } else if (element.isDirectory()) {
+                for (File classFile : findClassFiles(element).values()) {
+                    addAbi(digest, new FileInputStream(classFile));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return toHex(digest);
+    }
+
+    private static void addAbi(MessageDigest digest, InputStream inputStream) throws IOException {
+        try {
+            String abi = abi(new DataInputStream(new BufferedInputStream(inputStream)));
+            if (abi != null) {
+                update(digest, abi);
+            }
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Returns the class files below the given dir, sorted by their relative path.
+     */
+    private static SortedMap<String, File> findClassFiles(File dir) {
+        SortedMap<String, File> classFiles = new TreeMap<String, File>();
+        findClassFiles(dir, "", classFiles);
+        return classFiles;
+    }
+
+    private static void findClassFiles(File dir, String path, SortedMap<String, File> classFiles) {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            String childPath = path + child.getName();
+            if (child.isDirectory()) {
+                findClassFiles(child, childPath + '/', classFiles);
+            } else if (child.getName().endsWith(".class")) {
+                classFiles.put(childPath, child);
+            }
+        }
+    }
+
+    /**
+     * Returns the ABI of a class file as text, or null if the class is not visible to other classes.
+     */
+    static String abi(DataInputStream inputStream) throws IOException {
+        ConstantPool constantPool = ConstantPool.read(inputStream);
+        int accessFlags = inputStream.readUnsignedShort() & ~ACC_SUPER;
+        String className = constantPool.getClassName(inputStream.readUnsignedShort());
+        StringBuilder abi = new StringBuilder();
+        abi.append("class ").append(className).append(" extends ");
+        abi.append(constantPool.getClassName(inputStream.readUnsignedShort()));
+        Set<String> interfaces = new TreeSet<String>();
+        int interfaceCount = inputStream.readUnsignedShort();
+        for (int i = 0; i < interfaceCount; i++) {
+            interfaces.add(constantPool.getClassName(inputStream.readUnsignedShort()));
+        }
+        abi.append(" implements ").append(interfaces);
+
+        Set<String> members = new TreeSet<String>();
+        readMembers(inputStream, constantPool, "field", 0, members);
+        readMembers(inputStream, constantPool, "method", ACC_SYNCHRONIZED | ACC_NATIVE | ACC_STRICT, members);
+
+        int attributeCount = inputStream.readUnsignedShort();
+        for (int i = 0; i < attributeCount; i++) {
+            String attributeName = constantPool.getUtf8(inputStream.readUnsignedShort());
+            int length = inputStream.readInt();
+            if ("Signature".equals(attributeName)) {
+                abi.append(" signature ").append(constantPool.getUtf8(inputStream.readUnsignedShort()));
+            } else if (ANNOTATION_ATTRIBUTES.contains(attributeName)) {
+                abi.append(' ').append(readAnnotationAttribute(attributeName, inputStream, constantPool));
+            } else if ("InnerClasses".equals(attributeName)) {
+                int classCount = inputStream.readUnsignedShort();
+                for (int j = 0; j < classCount; j++) {
+                    String innerClassName = constantPool.getClassName(inputStream.readUnsignedShort());
+                    inputStream.readUnsignedShort();
+                    int innerNameIndex = inputStream.readUnsignedShort();
+                    int innerAccessFlags = inputStream.readUnsignedShort();
+                    if (className.equals(innerClassName)) {
+                        // Anonymous and local classes have no inner name
+                        if (innerNameIndex == 0 || (innerAccessFlags & ACC_PRIVATE) != 0) {
+                            return null;
+                        }
+                        accessFlags = innerAccessFlags;
+                    }
+                }
+            } else {
+                ConstantPool.skip(inputStream, length);
+            }
+        }
+        if ((accessFlags & ACC_SYNTHETIC) != 0) {
+            return null;
+        }
+        abi.append(" access ").append(accessFlags).append('\n');
+        for (String member : members) {
+            abi.append(member).append('\n');
+        }
+        return abi.toString();
+    }
+
+    private static void readMembers(DataInputStream inputStream, ConstantPool constantPool, String kind,
+                                    int ignoredAccessFlags, Set<String> members) throws IOException {
+        int memberCount = inputStream.readUnsignedShort();
+        for (int i = 0; i < memberCount; i++) {
+            int accessFlags = inputStream.readUnsignedShort();
+            StringBuilder member = new StringBuilder(kind);
+            member.append(' ').append(constantPool.getUtf8(inputStream.readUnsignedShort()));
+            member.append(' ').append(constantPool.getUtf8(inputStream.readUnsignedShort()));
+            member.append(" access ").append(accessFlags & ~ignoredAccessFlags);
+            int attributeCount = inputStream.readUnsignedShort();
+            for (int j = 0; j < attributeCount; j++) {
+                String attributeName = constantPool.getUtf8(inputStream.readUnsignedShort());
+                int length = inputStream.readInt();
+                if ("Signature".equals(attributeName)) {
+                    member.append(" signature ").append(constantPool.getUtf8(inputStream.readUnsignedShort()));
+                } else if ("ConstantValue".equals(attributeName)) {
+                    member.append(" value ").append(constantPool.getConstantValue(inputStream.readUnsignedShort()));
+                } else if ("Exceptions".equals(attributeName)) {
+                    Set<String> exceptions = new TreeSet<String>();
+                    int exceptionCount = inputStream.readUnsignedShort();
+                    for (int k = 0; k < exceptionCount; k++) {
+                        exceptions.add(constantPool.getClassName(inputStream.readUnsignedShort()));
+                    }
+                    member.append(" throws ").append(exceptions);
+                } else if (ANNOTATION_ATTRIBUTES.contains(attributeName)) {
+                    member.append(' ').append(readAnnotationAttribute(attributeName, inputStream, constantPool));
+                } else {
+                    ConstantPool.skip(inputStream, length);
+                }
+            }
+            if ((accessFlags & (ACC_PRIVATE | ACC_SYNTHETIC)) == 0) {
+                members.add(member.toString());
+            }
+        }
+    }
+
+    /**
+     * Reads an attribute with annotations or the default of an annotation element as text. The constants the
+     * annotations use are resolved, as their indexes into the constant pool change with unrelated changes of the class.
+     */
+    private static String readAnnotationAttribute(String attributeName, DataInputStream inputStream,
+                                                  ConstantPool constantPool) throws IOException {
+        StringBuilder text = new StringBuilder(attributeName).append(' ');
+        if ("AnnotationDefault".equals(attributeName)) {
+            readElementValue(inputStream, constantPool, text);
+        } else if (attributeName.endsWith("ParameterAnnotations")) {
+            int parameterCount = inputStream.readUnsignedByte();
+            for (int i = 0; i < parameterCount; i++) {
+                text.append('(');
+                readAnnotations(inputStream, constantPool, text);
+                text.append(')');
+            }
+        } else {
+            readAnnotations(inputStream, constantPool, text);
+        }
+        return text.toString();
+    }
+
+    private static void readAnnotations(DataInputStream inputStream, ConstantPool constantPool, StringBuilder text)
+            throws IOException {
+        int annotationCount = inputStream.readUnsignedShort();
+        for (int i = 0; i < annotationCount; i++) {
+            readAnnotation(inputStream, constantPool, text);
+        }
+    }
+
+    private static void readAnnotation(DataInputStream inputStream, ConstantPool constantPool, StringBuilder text)
+            throws IOException {
+        text.append('@').append(constantPool.getUtf8(inputStream.readUnsignedShort())).append('(');
+        int elementCount = inputStream.readUnsignedShort();
+        for (int i = 0; i < elementCount; i++) {
+            text.append(i == 0 ? "" : ",").append(constantPool.getUtf8(inputStream.readUnsignedShort())).append('=');
+            readElementValue(inputStream, constantPool, text);
+        }
+        text.append(')');
+    }
+
+    private static void readElementValue(DataInputStream inputStream, ConstantPool constantPool, StringBuilder text)
+            throws IOException {
+        char tag = (char) inputStream.readUnsignedByte();
+        text.append(tag);
+        switch (tag) {
+            case 'e':
+                text.append(constantPool.getUtf8(inputStream.readUnsignedShort())).append('.');
+                text.append(constantPool.getUtf8(inputStream.readUnsignedShort()));
+                break;
+            case 'c':
+                text.append(constantPool.getUtf8(inputStream.readUnsignedShort()));
+                break;
+            case 's':
+                // Strings are prefixed with their length, so that they can't be confused with the text around them
+                String value = constantPool.getUtf8(inputStream.readUnsignedShort());
+                text.append(value.length()).append(':').append(value);
+                break;
+            case '@':
+                readAnnotation(inputStream, constantPool, text);
+                break;
+            case '[':
+                int valueCount = inputStream.readUnsignedShort();
+                text.append('{');
+                for (int i = 0; i < valueCount; i++) {
+                    text.append(i == 0 ? "" : ",");
+                    readElementValue(inputStream, constantPool, text);
+                }
+                text.append('}');
+                break;
+            default:
+                text.append(constantPool.getConstantValue(inputStream.readUnsignedShort()));
+        }
+    }
+
+    static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static void update(MessageDigest digest, String text) {
+        try {
+            digest.update(text.getBytes("UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static String toHex(MessageDigest digest) {
+        return new BigInteger(1, digest.digest()).toString(16);
+    }
+}
@@ -16,11 +16,16 @@
 
 package org.gradle.api.tasks.compile;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.tools.ant.DirectoryScanner;
 import org.gradle.api.*;
 import org.gradle.api.artifacts.ConfigurationResolveInstructionModifier;
 import org.gradle.api.internal.ConventionTask;
+import org.gradle.api.internal.tasks.ResolvingTask;
 import org.gradle.api.tasks.util.ExistingDirsFilter;
 import org.gradle.util.GUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -30,7 +35,15 @@ import java.util.List;
 /**
 * @author Hans Dockter
 */
-public class Compile extends ConventionTask {
+public class Compile extends ConventionTask implements ResolvingTask {
+    private static Logger logger = LoggerFactory.getLogger(Compile.class);
+
+    public static final String DEPENDENCY_GRAPH_DIR_NAME = Project.TMP_DIR_NAME + "/compile";
+
+    /**
+     * The dir below the Gradle user home where compiler daemons which are reused across builds are registered.
+     */
+    public static final String DAEMON_REGISTRY_DIR_NAME = "compiler-daemons";
 
     /**
      * The directories with the sources to compile
@@ -52,6 +65,12 @@ public class Compile extends ConventionTask {
      */
     private String targetCompatibility;
 
+    /**
+     * The file to keep the dependency graph of the compiled classes in, which is used to compile incrementally with
+     * the in-process compiler. Defaults to a file below the build dir.
+     */
+    private File dependencyGraphFile;
+
     private ConfigurationResolveInstructionModifier resolveInstructionModifier;
 
     /**
@@ -63,8 +82,8 @@ public class Compile extends ConventionTask {
     private List unmanagedClasspath = null;
 
     /**
-     * Options for the compiler. The compile is delegated to the ant javac task. This property contains almost
-     * all of the properties available for the ant javac task.
+     * Options for the compiler. By default the compile is delegated to the ant javac task. This property contains
+     * almost all of the properties available for the ant javac task.
      */
     private CompileOptions options = new CompileOptions();
 
@@ -84,8 +103,17 @@ public class Compile extends ConventionTask {
 
     protected AntJavac antCompile = new AntJavac();
 
+    /**
+     * Created on first use only, as the compiler API is not available on Java 5.
+     */
+    protected JdkJavac jdkCompile;
+
+    private static volatile boolean jdkCompileUsed;
+
     protected ClasspathConverter classpathConverter = new ClasspathConverter();
 
+    private CompileMetrics metrics;
+
     public Compile(Project project, String name) {
         super(project, name);
         doFirst(new TaskAction() {
@@ -107,8 +135,151 @@ public class Compile extends ConventionTask {
             throw new InvalidUserDataException("The sourceCompatibility and targetCompatibility must be set!");
         }
 
-        antCompile.execute(existingSourceDirs, includes, excludes, getDestinationDir(), getClasspath(), getSourceCompatibility(),
-                getTargetCompatibility(), options, getProject().getAnt());
+        CompileMetrics metrics = startMetrics();
+        List classpath = resolveClasspath(metrics);
+        long compileStart = System.currentTimeMillis();
+        boolean inProcess = false;
+        try {
+            if (options.getDaemon()) {
+                // The classes compiled in the daemon are not in the dependency graph
+                getDependencyGraphFile().delete();
+                antCompile.executeInDaemon(existingSourceDirs, includes, excludes, getDestinationDir(), classpath,
+                        getSourceCompatibility(), getTargetCompatibility(), options, getDaemonRegistryDir());
+            } else if (options.getUseAnt() || options.getFork()) {
+                // The classes compiled by Ant are not in the dependency graph
+                getDependencyGraphFile().delete();
+                antCompile.execute(existingSourceDirs, includes, excludes, getDestinationDir(), classpath, getSourceCompatibility(),
+                        getTargetCompatibility(), options, getProject().getAnt());
+            } else {
+                if (jdkCompile == null) {
+                    jdkCompile = new JdkJavac();
+                    jdkCompileUsed = true;
+                }
+                inProcess = true;
+                jdkCompile.execute(existingSourceDirs, includes, excludes, getDestinationDir(), classpath,
+                        getSourceCompatibility(), getTargetCompatibility(), options, getDependencyGraphFile());
+            }
+        } finally {
+            // A failed compile is costly as well
+            metrics.setCompileTime(System.currentTimeMillis() - compileStart);
+            if (inProcess) {
+                metrics.setSourceCount(jdkCompile.getSourceCount());
+                metrics.setCompiledClassCount(jdkCompile.getCompiledClassCount());
+            } else if (isCountingFiles()) {
+                metrics.setSourceCount(countSources(existingSourceDirs, includes, excludes, ".java"));
+                metrics.setCompiledClassCount(countClassesWrittenSince(compileStart));
+            }
+            finishMetrics(metrics);
+        }
+    }
+
+    /**
+     * Closes the file manager which the in-process compiles of the build share, and with it the jars it has opened.
+     * The compiler API is not touched if no compile has been in-process, so this can be called on Java 5.
+     */
+    public static void closeFileManager() {
+        if (jdkCompileUsed) {
+            JdkJavac.closeFileManager();
+        }
+    }
+
+    /**
+     * Discards the metrics of the last execution and returns the metrics for this one.
+     */
+    protected CompileMetrics startMetrics() {
+        metrics = null;
+        return new CompileMetrics(getPath());
+    }
+
+    /**
+     * Returns the classpath and records its resolve in the given metrics.
+     */
+    protected List resolveClasspath(CompileMetrics metrics) {
+        long start = System.currentTimeMillis();
+        List classpath = getClasspath();
+        metrics.classpathResolved(classpath, System.currentTimeMillis() - start);
+        return classpath;
+    }
+
+    /**
+     * Returns whether the sources and the compiled classes are counted by a scan of the source and destination dirs,
+     * for the compilers which don't report them. The metrics are only logged with info logging, so the scans are
+     * skipped otherwise.
+     */
+    protected boolean isCountingFiles() {
+        return logger.isInfoEnabled();
+    }
+
+    /**
+     * Returns the number of class files in the destination dir which have been modified since the given time. As the
+     * modification time of a file may only have a precision of seconds, classes written by another task in the same
+     * second are counted as well.
+     */
+    protected int countClassesWrittenSince(long time) {
+        if (!getDestinationDir().isDirectory()) {
+            return 0;
+        }
+        long since = time - time % 1000;
+        int count = 0;
+        for (Object classFile : FileUtils.listFiles(getDestinationDir(), new String[]{"class"}, true)) {
+            if (((File) classFile).lastModified() >= since) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of sources with one of the given extensions in the source dirs, which match the patterns.
+     */
+    protected int countSources(List sourceDirs, List includes, List excludes, String... extensions) {
+        int count = 0;
+        for (Object sourceDir : sourceDirs) {
+            if (!((File) sourceDir).isDirectory()) {
+                continue;
+            }
+            DirectoryScanner scanner = new DirectoryScanner();
+            scanner.setBasedir((File) sourceDir);
+            scanner.setIncludes(toPatterns(includes));
+            scanner.setExcludes(toPatterns(excludes));
+            scanner.addDefaultExcludes();
+            scanner.scan();
+            for (String path : scanner.getIncludedFiles()) {
+                for (String extension : extensions) {
+                    if (path.endsWith(extension)) {
+                        count++;
+                        break;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private static String[] toPatterns(List patterns) {
+        if (patterns == null || patterns.isEmpty()) {
+            return null;
+        }
+        String[] result = new String[patterns.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = patterns.get(i).toString();
+        }
+        return result;
+    }
+
+    /**
+     * Makes the metrics available from {@link #getMetrics()}.
+     */
+    protected void finishMetrics(CompileMetrics metrics) {
+        logger.debug("Compile metrics of {}", metrics);
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the metrics of the last execution of this task, or null if it has not compiled anything yet.
+     */
+    public CompileMetrics getMetrics() {
+        return metrics;
     }
 
     public List getClasspath() {
@@ -175,6 +346,24 @@ public class Compile extends ConventionTask {
         this.targetCompatibility = targetCompatibility;
     }
 
+    public File getDependencyGraphFile() {
+        if (dependencyGraphFile == null) {
+            return new File(getProject().getBuildDir(), DEPENDENCY_GRAPH_DIR_NAME + "/" + getName() + ".properties");
+        }
+        return dependencyGraphFile;
+    }
+
+    public void setDependencyGraphFile(File dependencyGraphFile) {
+        this.dependencyGraphFile = dependencyGraphFile;
+    }
+
+    /**
+     * Returns the dir where compiler daemons which are reused across builds are registered.
+     */
+    public File getDaemonRegistryDir() {
+        return new File(getProject().getBuild().getGradleUserHomeDir(), DAEMON_REGISTRY_DIR_NAME);
+    }
+
     public List getUnmanagedClasspath() {
         return (List) conv(unmanagedClasspath, "unmanagedClasspath");
     }
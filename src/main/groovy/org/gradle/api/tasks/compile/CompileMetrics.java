@@ -0,0 +1,147 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.compile;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>The metrics of one execution of a {@link Compile} task: the size of its input, the time it took to resolve its
+ * classpath and to run the compiler, and the number of classes the compiler has written. The metrics of the last
+ * execution of a task are available from {@link Compile#getMetrics()}, e.g. for a {@link
+ * org.gradle.api.execution.TaskExecutionListener}. They are recorded for failed compiles as well.</p>
+ *
+ * <p>The size of the classpath is only measured when it is asked for, as this walks the dirs of the classpath.</p>
+ */
+public class CompileMetrics {
+    private final String taskPath;
+
+    private int sourceCount = -1;
+
+    private int classpathEntryCount;
+
+    private List<File> classpath = Collections.emptyList();
+
+    private Long classpathSize;
+
+    private long classpathResolveTime;
+
+    private long compileTime;
+
+    private int compiledClassCount = -1;
+
+    public CompileMetrics(String taskPath) {
+        this.taskPath = taskPath;
+    }
+
+    /**
+     * Records the resolved classpath and the time in milliseconds it took to resolve it.
+     */
+    public synchronized void classpathResolved(List classpath, long resolveTimeMillis) {
+        classpathResolveTime += resolveTimeMillis;
+        classpathEntryCount = classpath.size();
+        this.classpath = new ArrayList<File>();
+        for (Object element : classpath) {
+            this.classpath.add(new File(element.toString()));
+        }
+        classpathSize = null;
+    }
+
+    public String getTaskPath() {
+        return taskPath;
+    }
+
+    /**
+     * Returns the number of sources in the source dirs of the compile, or -1 if they have not been counted.
+     */
+    public int getSourceCount() {
+        return sourceCount;
+    }
+
+    public void setSourceCount(int sourceCount) {
+        this.sourceCount = sourceCount;
+    }
+
+    public int getClasspathEntryCount() {
+        return classpathEntryCount;
+    }
+
+    /**
+     * Returns the size of the classpath in bytes: the size of its jars plus the size of the files in its dirs. It is
+     * measured on the first call.
+     */
+    public synchronized long getClasspathSize() {
+        if (classpathSize == null) {
+            long size = 0;
+            for (File element : classpath) {
+                if (element.isDirectory()) {
+                    size += FileUtils.sizeOfDirectory(element);
+                } else if (element.isFile()) {
+                    size += element.length();
+                }
+            }
+            classpathSize = size;
+        }
+        return classpathSize;
+    }
+
+    /**
+     * Returns the time in milliseconds it took to resolve the classpath.
+     */
+    public long getClasspathResolveTime() {
+        return classpathResolveTime;
+    }
+
+    /**
+     * Returns the wall time in milliseconds of the compiler, from its start until all sources are compiled.
+     */
+    public long getCompileTime() {
+        return compileTime;
+    }
+
+    public void setCompileTime(long compileTime) {
+        this.compileTime = compileTime;
+    }
+
+    /**
+     * Returns the number of classes written by the compiler, or -1 if they have not been counted. An incremental
+     * compile only writes the classes of the sources it has compiled.
+     */
+    public int getCompiledClassCount() {
+        return compiledClassCount;
+    }
+
+    public void setCompiledClassCount(int compiledClassCount) {
+        this.compiledClassCount = compiledClassCount;
+    }
+
+    /**
+     * Returns the cost of the compile in milliseconds: the time to resolve the classpath plus the compiler time.
+     */
+    public long getTotalTime() {
+        return classpathResolveTime + compileTime;
+    }
+
+    public String toString() {
+        return String.format("%s: %s ms (classpath resolve %s ms, compiler %s ms), %s sources, %s classpath entries "
+                + "with %s bytes, %s classes compiled", taskPath, getTotalTime(), classpathResolveTime, compileTime,
+                sourceCount, classpathEntryCount, getClasspathSize(), compiledClassCount);
+    }
+}
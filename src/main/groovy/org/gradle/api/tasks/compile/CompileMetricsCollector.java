@@ -0,0 +1,56 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.compile;
+
+import org.gradle.api.Task;
+import org.gradle.api.execution.TaskExecutionListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A {@link TaskExecutionListener} which collects the metrics of the {@link Compile} tasks of a build, so they can be
+ * reported at the end of the build.
+ */
+public class CompileMetricsCollector implements TaskExecutionListener {
+    private final List<CompileMetrics> metrics = new ArrayList<CompileMetrics>();
+
+    public void beforeExecute(Task task) {
+    }
+
+    public synchronized void afterExecute(Task task, Throwable failure) {
+        if (task instanceof Compile && ((Compile) task).getMetrics() != null) {
+            metrics.add(((Compile) task).getMetrics());
+        }
+    }
+
+    /**
+     * Returns the metrics of the executed compile tasks, the most costly compile first.
+     */
+    public synchronized List<CompileMetrics> getMetrics() {
+        List<CompileMetrics> sortedMetrics = new ArrayList<CompileMetrics>(metrics);
+        Collections.sort(sortedMetrics, new Comparator<CompileMetrics>() {
+            public int compare(CompileMetrics metrics1, CompileMetrics metrics2) {
+                long time1 = metrics1.getTotalTime();
+                long time2 = metrics2.getTotalTime();
+                return time1 > time2 ? -1 : (time1 == time2 ? 0 : 1);
+            }
+        });
+        return sortedMetrics;
+    }
+}
@@ -41,12 +41,38 @@ class CompileOptions extends AbstractOptions {
 
     List compilerArgs
 
+    /**
+     * Controls if the sources are compiled by the Ant javac task. If false, sources which are not compiled in a forked
+     * JVM are compiled in-process with the compiler API of the JDK.
+     */
+    boolean useAnt = true
+
+    /**
+     * Controls if the sources are compiled by the Ant javac task in a compiler daemon, instead of in the build JVM or
+     * in a new JVM per compile. The daemon is started with the memory settings and JVM args of the fork options.
+     */
+    boolean daemon = false
+    DaemonOptions daemonOptions = new DaemonOptions()
+
+    /**
+     * Controls if the sources are partitioned into groups which don't depend on each other, which are compiled in
+     * parallel. Only used if the sources are compiled in-process without Ant, and if annotation processing is disabled
+     * or there are no annotation processors.
+     */
+    boolean parallel = false
+
     CompileOptions fork(Map forkArgs) {
         fork = true
         forkOptions.define(forkArgs)
         this
     }
 
+    CompileOptions daemon(Map daemonArgs) {
+        daemon = true
+        daemonOptions.define(daemonArgs)
+        this
+    }
+
     CompileOptions debug(Map debugArgs) {
         debug = true
         debugOptions.define(debugArgs)
@@ -54,7 +80,7 @@ class CompileOptions extends AbstractOptions {
     }
 
     List excludedFieldsFromOptionMap() {
-        ['debugOptions', 'forkOptions', 'compilerArgs']
+        ['debugOptions', 'forkOptions', 'compilerArgs', 'useAnt', 'daemon', 'daemonOptions', 'parallel']
     }
 
     Map fieldName2AntMap() {
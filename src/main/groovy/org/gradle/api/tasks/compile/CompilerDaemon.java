@@ -0,0 +1,213 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.compile;
+
+import org.apache.tools.ant.*;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>The main class of a compiler daemon: a JVM which runs the Ant tasks of compiles sent to it over a local socket,
+ * so the compiler is loaded and warmed up once for many compiles. The tasks are sent as data, see {@link DaemonTask},
+ * and the compiles are run one after the other. See {@link
+ * CompilerDaemonClient} for the other side.</p>
+ *
+ * <p>The daemon reads a secret from its standard input, which each request has to start with, and prints the port it
+ * listens on to its standard output. Afterwards it does not use the streams of its process anymore, as the build which
+ * has started it may have ended. The daemon stops when it receives a stop request, when it has not received a request
+ * for the idle timeout, when a compile fails with an error, and, unless it is reused across builds, when its standard
+ * input is closed.</p>
+ */
+public class CompilerDaemon {
+    static final String PORT_PREFIX = "Compiler daemon listening on port ";
+    static final String COMPILE = "compile";
+    static final String STOP = "stop";
+
+    private final String secret;
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private final PrintStream outputStream = new PrintStream(output, true);
+
+    CompilerDaemon(String secret) {
+        this.secret = secret;
+    }
+
+    /**
+     * @param args The idle timeout in seconds and whether the daemon is reused across builds.
+     */
+    public static void main(String[] args) throws IOException {
+        int idleTimeout = Integer.parseInt(args[0]);
+        boolean reuseAcrossBuilds = Boolean.valueOf(args[1]);
+        final BufferedReader stdin = new BufferedReader(new InputStreamReader(System.in));
+        String secret = stdin.readLine();
+        if (secret == null) {
+            return;
+        }
+        ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getByName(null));
+        serverSocket.setSoTimeout(idleTimeout * 1000);
+        System.out.println(PORT_PREFIX + serverSocket.getLocalPort());
+        System.out.flush();
+
+        CompilerDaemon daemon = new CompilerDaemon(secret);
+        System.setOut(daemon.outputStream);
+        System.setErr(daemon.outputStream);
+        if (!reuseAcrossBuilds) {
+            Thread watcher = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        while (stdin.readLine() != null) {
+                        }
+                    } catch (IOException e) {
+                        // The build has ended as well
+                    }
+                    System.exit(0);
+                }
+            });
+            watcher.setDaemon(true);
+            watcher.start();
+        }
+        try {
+            daemon.run(serverSocket);
+        } catch (Error e) {
+            // The daemon may be broken, e.g. out of memory. The client starts a new one.
+            System.exit(1);
+        }
+        // Threads left behind by a compiler must not keep the daemon alive
+        System.exit(0);
+    }
+
+    void run(ServerSocket serverSocket) throws IOException {
+        try {
+            while (true) {
+                Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                } catch (SocketTimeoutException e) {
+                    return;
+                }
+                if (!handle(socket)) {
+                    return;
+                }
+            }
+        } finally {
+            serverSocket.close();
+        }
+    }
+
+    /**
+     * Handles a request and returns false if it is a stop request.
+     */
+    private boolean handle(Socket socket) throws IOException {
+        try {
+            DataInputStream inputStream = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            if (!secret.equals(inputStream.readUTF())) {
+                return true;
+            }
+            if (STOP.equals(inputStream.readUTF())) {
+                return false;
+            }
+            List<DaemonTask> tasks = new ArrayList<DaemonTask>();
+            int taskCount = inputStream.readInt();
+            for (int i = 0; i < taskCount; i++) {
+                tasks.add(DaemonTask.read(inputStream));
+            }
+            output.reset();
+            String failure = compile(tasks);
+            DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            outputStream.writeBoolean(failure == null);
+            writeText(outputStream, output.toString());
+            writeText(outputStream, failure == null ? "" : failure);
+            outputStream.flush();
+            return true;
+        } catch (EOFException e) {
+            return true;
+        } finally {
+            socket.close();
+        }
+    }
+
+    /**
+     * Runs the Ant tasks of a compile and returns the failure message, or null if the compile succeeded. A new Ant
+     * project is used for each compile, so the compiles don't share any state. An error, e.g. an {@link
+     * OutOfMemoryError}, also as the cause of an exception of Ant, is not answered but ends the daemon, as the client
+     * starts a new daemon if it gets no answer.
+     */
+    private String compile(List<DaemonTask> tasks) {
+        try {
+            Project project = new Project();
+            DefaultLogger logger = new DefaultLogger();
+            logger.setMessageOutputLevel(Project.MSG_WARN);
+            logger.setOutputPrintStream(outputStream);
+            logger.setErrorPrintStream(outputStream);
+            project.addBuildListener(logger);
+            project.init();
+            Target target = new Target();
+            target.setProject(project);
+            for (DaemonTask task : tasks) {
+                createElement(task, project, target).perform();
+            }
+            return null;
+        } catch (Exception e) {
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+            }
+            return e.getMessage() != null ? e.getMessage() : e.toString();
+        }
+    }
+
+    /**
+     * Creates the task with its nested elements, as the Ant project helper does for the elements of a build file.
+     */
+    private static UnknownElement createElement(DaemonTask task, Project project, Target target) {
+        UnknownElement element = new UnknownElement(task.getName());
+        element.setProject(project);
+        element.setNamespace("");
+        element.setQName(task.getName());
+        element.setTaskType(task.getName());
+        element.setTaskName(task.getName());
+        element.setOwningTarget(target);
+        RuntimeConfigurable wrapper = new RuntimeConfigurable(element, task.getName());
+        for (Map.Entry<String, String> attribute : task.getAttributes().entrySet()) {
+            wrapper.setAttribute(attribute.getKey(), attribute.getValue());
+        }
+        for (DaemonTask child : task.getChildren()) {
+            UnknownElement childElement = createElement(child, project, target);
+            element.addChild(childElement);
+            wrapper.addChild(childElement.getRuntimeConfigurableWrapper());
+        }
+        return element;
+    }
+
+    static void writeText(DataOutputStream outputStream, String text) throws IOException {
+        byte[] bytes = text.getBytes("UTF-8");
+        outputStream.writeInt(bytes.length);
+        outputStream.write(bytes);
+    }
+
+    static String readText(DataInputStream inputStream) throws IOException {
+        byte[] bytes = new byte[inputStream.readInt()];
+        inputStream.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+}
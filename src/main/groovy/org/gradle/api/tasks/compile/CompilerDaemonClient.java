@@ -0,0 +1,290 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.compile;
+
+import org.gradle.api.GradleException;
+import org.gradle.util.GUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.lang.reflect.Method;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URISyntaxException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.*;
+
+/**
+ * <p>Runs the Ant tasks of compiles in compiler daemons, see {@link CompilerDaemon}. A daemon is started for each
+ * combination of Java installation, compiler classpath and JVM options, and is used by all compiles of the build with
+ * this combination. A jar of the classpath which has changed since, e.g. as it has been rebuilt, causes a new daemon.
+ * The daemons are stopped by {@link #stopDaemons()} at the end of the build.</p>
+ *
+ * <p>A daemon which is reused across builds is not stopped at the end of the build, but is registered with its port
+ * and secret in the registry dir instead, where later builds find it. It stops after its idle timeout. The registry
+ * file is readable by the current user only, as its secret allows to run Ant tasks in the daemon. If the file
+ * permissions can't be restricted, e.g. on Java 5, the daemon is not reused across builds.</p>
+ */
+public class CompilerDaemonClient {
+    private static Logger logger = LoggerFactory.getLogger(CompilerDaemonClient.class);
+
+    private static final Map<String, Daemon> daemons = new HashMap<String, Daemon>();
+
+    /**
+     * Runs Ant tasks in the daemon for the given classpath and JVM options, which is started if necessary.
+     *
+     * @param classpath The classpath of the compiler, which must contain Ant.
+     * @param jvmArgs The JVM options of the daemon.
+     * @param options The options for the daemon.
+     * @param registryDir The dir to register daemons in which are reused across builds.
+     * @param tasks The Ant tasks to run one after the other.
+     */
+    public static void execute(List<File> classpath, List<String> jvmArgs, DaemonOptions options, File registryDir,
+                               List<DaemonTask> tasks) {
+        String key = key(classpath, jvmArgs);
+        Daemon daemon = getDaemon(key, classpath, jvmArgs, options, registryDir);
+        try {
+            daemon.execute(tasks);
+        } catch (IOException e) {
+            // The daemon may have stopped after its idle timeout in the meantime
+            logger.debug("Could not connect to compiler daemon, starting a new one.", e);
+            forgetDaemon(key, daemon, registryDir);
+            daemon = getDaemon(key, classpath, jvmArgs, options, registryDir);
+            try {
+                daemon.execute(tasks);
+            } catch (IOException e1) {
+                forgetDaemon(key, daemon, registryDir);
+                throw new GradleException("Could not run the compile in the compiler daemon.", e1);
+            }
+        }
+    }
+
+    /**
+     * Stops the daemons started by this build, unless they are reused across builds.
+     */
+    public static synchronized void stopDaemons() {
+        for (Iterator<Daemon> iterator = daemons.values().iterator(); iterator.hasNext();) {
+            Daemon daemon = iterator.next();
+            if (daemon.process != null) {
+                daemon.stop();
+                iterator.remove();
+            }
+        }
+    }
+
+    private static synchronized Daemon getDaemon(String key, List<File> classpath, List<String> jvmArgs,
+                                                 DaemonOptions options, File registryDir) {
+        Daemon daemon = daemons.get(key);
+        if (daemon == null && options.getReuseAcrossBuilds()) {
+            File registryFile = new File(registryDir, key + ".properties");
+            if (registryFile.isFile()) {
+                Properties properties = GUtil.loadProperties(registryFile);
+                daemon = new Daemon(Integer.parseInt(properties.getProperty("port")), properties.getProperty("secret"),
+                        null);
+                logger.debug("Using compiler daemon {} from an earlier build.", key);
+            }
+        }
+        if (daemon == null) {
+            daemon = startDaemon(classpath, jvmArgs, options);
+            if (options.getReuseAcrossBuilds() && register(daemon, new File(registryDir, key + ".properties"))) {
+                // The daemon is not stopped at the end of the build
+                daemon = new Daemon(daemon.port, daemon.secret, null);
+            }
+        }
+        daemons.put(key, daemon);
+        return daemon;
+    }
+
+    /**
+     * Writes the port and the secret of the daemon to the registry file, after making the file readable and writable
+     * by the current user only. Returns false if the permissions can't be restricted, so the daemon is not registered.
+     */
+    private static boolean register(Daemon daemon, File registryFile) {
+        registryFile.getParentFile().mkdirs();
+        registryFile.delete();
+        try {
+            if (!registryFile.createNewFile() || !restrictToOwner(registryFile)) {
+                registryFile.delete();
+                logger.warn("Not reusing the compiler daemon across builds, as the permissions of {} can't be "
+                        + "restricted to the current user.", registryFile);
+                return false;
+            }
+        } catch (IOException e) {
+            throw new GradleException(String.format("Could not create %s.", registryFile), e);
+        }
+        Properties properties = new Properties();
+        properties.setProperty("port", String.valueOf(daemon.port));
+        properties.setProperty("secret", daemon.secret);
+        GUtil.saveProperties(properties, registryFile);
+        return true;
+    }
+
+    /**
+     * Makes the file readable and writable by its owner only. The file permission methods exist since Java 6, so
+     * they are called reflectively.
+     */
+    private static boolean restrictToOwner(File file) {
+        try {
+            Method setReadable = File.class.getMethod("setReadable", boolean.class, boolean.class);
+            Method setWritable = File.class.getMethod("setWritable", boolean.class, boolean.class);
+            return (Boolean) setReadable.invoke(file, false, false) && (Boolean) setReadable.invoke(file, true, true)
+                    && (Boolean) setWritable.invoke(file, false, false) && (Boolean) setWritable.invoke(file, true, true);
+        } catch (NoSuchMethodException e) {
+            return false;
+        } catch (Exception e) {
+            logger.debug("Could not restrict the permissions of " + file, e);
+            return false;
+        }
+    }
+
+    private static synchronized void forgetDaemon(String key, Daemon daemon, File registryDir) {
+        if (daemons.get(key) == daemon) {
+            daemons.remove(key);
+        }
+        new File(registryDir, key + ".properties").delete();
+    }
+
+    private static Daemon startDaemon(List<File> classpath, List<String> jvmArgs, DaemonOptions options) {
+        List<File> daemonClasspath = new ArrayList<File>(classpath);
+        daemonClasspath.add(getCodeSource());
+        List<String> command = new ArrayList<String>();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(GUtil.join(daemonClasspath, File.pathSeparator));
+        command.add(CompilerDaemon.class.getName());
+        command.add(String.valueOf(options.getIdleTimeout()));
+        command.add(String.valueOf(options.getReuseAcrossBuilds()));
+        logger.info("Starting compiler daemon.");
+        logger.debug("Starting compiler daemon with the command {}", command);
+        try {
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            String secret = new BigInteger(130, new SecureRandom()).toString(32);
+            Writer stdin = new OutputStreamWriter(process.getOutputStream());
+            stdin.write(secret + "\n");
+            stdin.flush();
+            BufferedReader stdout = new BufferedReader(new InputStreamReader(process.getInputStream()));
+            String line;
+            while ((line = stdout.readLine()) != null && !line.startsWith(CompilerDaemon.PORT_PREFIX)) {
+                logger.warn(line);
+            }
+            if (line == null) {
+                throw new GradleException("Could not start the compiler daemon.");
+            }
+            int port = Integer.parseInt(line.substring(CompilerDaemon.PORT_PREFIX.length()).trim());
+            if (options.getReuseAcrossBuilds()) {
+                stdin.close();
+            }
+            return new Daemon(port, secret, process);
+        } catch (IOException e) {
+            throw new GradleException("Could not start the compiler daemon.", e);
+        }
+    }
+
+    private static File getCodeSource() {
+        try {
+            return new File(CompilerDaemon.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException e) {
+            throw new GradleException(e);
+        }
+    }
+
+    /**
+     * Returns the key of the daemon for the given classpath and JVM options. Besides these, the key contains the Java
+     * installation and the length and modification time of each jar, including the jar of the daemon itself.
+     */
+    static String key(List<File> classpath, List<String> jvmArgs) {
+        MessageDigest digest = ClasspathSnapshot.createDigest();
+        ClasspathSnapshot.update(digest, System.getProperty("java.home") + "\n");
+        List<File> daemonClasspath = new ArrayList<File>(classpath);
+        daemonClasspath.add(getCodeSource());
+        for (File element : daemonClasspath) {
+            String state = element.isFile() ? element.length() + "," + element.lastModified() : "";
+            ClasspathSnapshot.update(digest, element.getAbsolutePath() + "," + state + "\n");
+        }
+        for (String jvmArg : jvmArgs) {
+            ClasspathSnapshot.update(digest, jvmArg + "\n");
+        }
+        return ClasspathSnapshot.toHex(digest);
+    }
+
+    static class Daemon {
+        private final int port;
+        private final String secret;
+        /**
+         * The process of the daemon, if it has been started by this build and is stopped at its end.
+         */
+        private final Process process;
+
+        Daemon(int port, String secret, Process process) {
+            this.port = port;
+            this.secret = secret;
+            this.process = process;
+        }
+
+        void execute(List<DaemonTask> tasks) throws IOException {
+            Socket socket = new Socket(InetAddress.getByName(null), port);
+            try {
+                DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                outputStream.writeUTF(secret);
+                outputStream.writeUTF(CompilerDaemon.COMPILE);
+                outputStream.writeInt(tasks.size());
+                for (DaemonTask task : tasks) {
+                    task.writeTo(outputStream);
+                }
+                outputStream.flush();
+                DataInputStream inputStream = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                boolean success = inputStream.readBoolean();
+                String output = CompilerDaemon.readText(inputStream);
+                String failure = CompilerDaemon.readText(inputStream);
+                if (output.trim().length() > 0) {
+                    if (success) {
+                        logger.warn(output.trim());
+                    } else {
+                        logger.error(output.trim());
+                    }
+                }
+                if (!success) {
+                    throw new GradleException(failure);
+                }
+            } finally {
+                socket.close();
+            }
+        }
+
+        void stop() {
+            try {
+                Socket socket = new Socket(InetAddress.getByName(null), port);
+                try {
+                    DataOutputStream outputStream = new DataOutputStream(socket.getOutputStream());
+                    outputStream.writeUTF(secret);
+                    outputStream.writeUTF(CompilerDaemon.STOP);
+                    outputStream.flush();
+                } finally {
+                    socket.close();
+                }
+            } catch (IOException e) {
+                logger.debug("Could not stop compiler daemon, it has probably stopped already.", e);
+            }
+            if (process != null) {
+                process.destroy();
+            }
+        }
+    }
+}
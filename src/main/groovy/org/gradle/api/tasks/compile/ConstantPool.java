@@ -0,0 +1,154 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.compile;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * The constant pool of a class file, read after the magic number and the version of the class file.
+ */
+class ConstantPool {
+    static final int MAGIC = 0xcafebabe;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELD_REF = 9;
+    private static final int CONSTANT_METHOD_REF = 10;
+    private static final int CONSTANT_INTERFACE_METHOD_REF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private final String[] utf8Constants;
+    private final int[] classNameIndexes;
+    private final int[] stringIndexes;
+    private final Object[] numbers;
+
+    private ConstantPool(int size) {
+        utf8Constants = new String[size];
+        classNameIndexes = new int[size];
+        stringIndexes = new int[size];
+        numbers = new Object[size];
+    }
+
+    /**
+     * Reads the constant pool of a class file, after checking the magic number and skipping the version.
+     */
+    static ConstantPool read(DataInputStream inputStream) throws IOException {
+        if (inputStream.readInt() != MAGIC) {
+            throw new IOException("Not a class file.");
+        }
+        inputStream.readUnsignedShort();
+        inputStream.readUnsignedShort();
+        ConstantPool constantPool = new ConstantPool(inputStream.readUnsignedShort());
+        for (int i = 1; i < constantPool.size(); i++) {
+            int tag = inputStream.readUnsignedByte();
+            switch (tag) {
+                case CONSTANT_UTF8:
+                    constantPool.utf8Constants[i] = inputStream.readUTF();
+                    break;
+                case CONSTANT_CLASS:
+                    constantPool.classNameIndexes[i] = inputStream.readUnsignedShort();
+                    break;
+                case CONSTANT_STRING:
+                    constantPool.stringIndexes[i] = inputStream.readUnsignedShort();
+                    break;
+                case CONSTANT_INTEGER:
+                    constantPool.numbers[i] = inputStream.readInt();
+                    break;
+                case CONSTANT_FLOAT:
+                    constantPool.numbers[i] = inputStream.readFloat();
+                    break;
+                case CONSTANT_LONG:
+                    constantPool.numbers[i] = inputStream.readLong();
+                    // Long and double constants take two entries of the constant pool
+                    i++;
+                    break;
+                case CONSTANT_DOUBLE:
+                    constantPool.numbers[i] = inputStream.readDouble();
+                    i++;
+                    break;
+                case CONSTANT_METHOD_TYPE:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    inputStream.readUnsignedShort();
+                    break;
+                case CONSTANT_METHOD_HANDLE:
+                    inputStream.readUnsignedByte();
+                    inputStream.readUnsignedShort();
+                    break;
+                case CONSTANT_FIELD_REF:
+                case CONSTANT_METHOD_REF:
+                case CONSTANT_INTERFACE_METHOD_REF:
+                case CONSTANT_NAME_AND_TYPE:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKE_DYNAMIC:
+                    inputStream.readInt();
+                    break;
+                default:
+                    throw new IOException(String.format("Unknown constant pool tag %d.", tag));
+            }
+        }
+        return constantPool;
+    }
+
+    int size() {
+        return utf8Constants.length;
+    }
+
+    /**
+     * Returns the string of a UTF8 entry, or null if the entry is no UTF8 entry.
+     */
+    String getUtf8(int index) {
+        return utf8Constants[index];
+    }
+
+    /**
+     * Returns the internal name of a class entry, or null if the entry is no class entry.
+     */
+    String getClassName(int index) {
+        return classNameIndexes[index] == 0 ? null : utf8Constants[classNameIndexes[index]];
+    }
+
+    /**
+     * Returns the value of a number or string entry, as used for the initial value of constant fields.
+     */
+    Object getConstantValue(int index) {
+        return stringIndexes[index] == 0 ? numbers[index] : utf8Constants[stringIndexes[index]];
+    }
+
+    static void skip(DataInputStream inputStream, int count) throws IOException {
+        int skipped = 0;
+        while (skipped < count) {
+            int n = inputStream.skipBytes(count - skipped);
+            if (n <= 0) {
+                throw new EOFException();
+            }
+            skipped += n;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.compile
+
+/**
+ * Options for the compiler daemon, a long-lived JVM which runs the compiles of all tasks using the same compiler
+ * classpath and JVM options.
+ */
+class DaemonOptions extends AbstractOptions {
+    /**
+     * The number of seconds the daemon waits for a compile, before it stops.
+     */
+    int idleTimeout = 180
+
+    /**
+     * Controls if the daemon keeps running when the build has finished, so later builds can use it until it stops
+     * after its idle timeout.
+     */
+    boolean reuseAcrossBuilds = false
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.compile;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * An Ant task to run in a compiler daemon, with its attributes and nested elements. The task is sent to the daemon as
+ * data, so a daemon only ever runs Ant tasks and never evaluates code it has received.
+ */
+public class DaemonTask {
+    private final String name;
+    private final Map<String, String> attributes = new LinkedHashMap<String, String>();
+    private final List<DaemonTask> children = new ArrayList<DaemonTask>();
+
+    /**
+     * @param name The name of the task or nested element, e.g. <code>javac</code> or <code>include</code>.
+     * @param attributes The attributes, whose values are converted to strings. Null values are left out.
+     */
+    public DaemonTask(String name, Map<?, ?> attributes) {
+        this.name = name;
+        for (Map.Entry<?, ?> entry : attributes.entrySet()) {
+            if (entry.getValue() != null) {
+                this.attributes.put(entry.getKey().toString(), entry.getValue().toString());
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Map<String, String> getAttributes() {
+        return attributes;
+    }
+
+    public List<DaemonTask> getChildren() {
+        return children;
+    }
+
+    /**
+     * Adds a nested element and returns it.
+     */
+    public DaemonTask add(String name, Map<?, ?> attributes) {
+        DaemonTask child = new DaemonTask(name, attributes);
+        children.add(child);
+        return child;
+    }
+
+    void writeTo(DataOutputStream outputStream) throws IOException {
+        outputStream.writeUTF(name);
+        outputStream.writeInt(attributes.size());
+        for (Map.Entry<String, String> entry : attributes.entrySet()) {
+            outputStream.writeUTF(entry.getKey());
+            CompilerDaemon.writeText(outputStream, entry.getValue());
+        }
+        outputStream.writeInt(children.size());
+        for (DaemonTask child : children) {
+            child.writeTo(outputStream);
+        }
+    }
+
+    static DaemonTask read(DataInputStream inputStream) throws IOException {
+        String name = inputStream.readUTF();
+        Map<String, String> attributes = new LinkedHashMap<String, String>();
+        int attributeCount = inputStream.readInt();
+        for (int i = 0; i < attributeCount; i++) {
+            String key = inputStream.readUTF();
+            attributes.put(key, CompilerDaemon.readText(inputStream));
+        }
+        DaemonTask task = new DaemonTask(name, attributes);
+        int childCount = inputStream.readInt();
+        for (int i = 0; i < childCount; i++) {
+            task.children.add(read(inputStream));
+        }
+        return task;
+    }
+
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        DaemonTask other = (DaemonTask) o;
+        return name.equals(other.name) && attributes.equals(other.attributes) && children.equals(other.children);
+    }
+
+    public int hashCode() {
+        return 31 * (31 * name.hashCode() + attributes.hashCode()) + children.hashCode();
+    }
+
+    public String toString() {
+        return name + attributes + (children.isEmpty() ? "" : children.toString());
+    }
+}
@@ -20,7 +20,6 @@ import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.Project;
 import org.gradle.api.Task;
 import org.gradle.api.TaskAction;
-import org.gradle.util.GUtil;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -61,34 +60,73 @@ public class GroovyCompile extends Compile {
         if (getAntGroovyCompile() == null) throw new InvalidUserDataException("The ant groovy compile command must be set!");
         if (getDestinationDir() == null) throw new InvalidUserDataException("The target dir is not set, compile can't be triggered!");
 
-        List existingSourceDirs = existentDirsFilter.findExistingDirs(getSrcDirs());
+        CompileMetrics metrics = startMetrics();
+        long start = System.currentTimeMillis();
+        long compileTime = 0;
+        int sourceCount = 0;
         List classpath = null;
-        if (existingSourceDirs.size() > 0) {
-            if (getSourceCompatibility() == null || getTargetCompatibility() == null) {
-                throw new InvalidUserDataException("The sourceCompatibility and targetCompatibility must be set!");
+        try {
+            List existingSourceDirs = existentDirsFilter.findExistingDirs(getSrcDirs());
+            if (existingSourceDirs.size() > 0) {
+                if (getSourceCompatibility() == null || getTargetCompatibility() == null) {
+                    throw new InvalidUserDataException("The sourceCompatibility and targetCompatibility must be set!");
+                }
+                classpath = resolveClasspath(metrics);
+                if (isCountingFiles()) {
+                    sourceCount += countSources(existingSourceDirs, getIncludes(), getExcludes(), ".java");
+                }
+                long compileStart = System.currentTimeMillis();
+                try {
+                    if (getOptions().getDaemon()) {
+                        antCompile.executeInDaemon(existingSourceDirs, getIncludes(), getExcludes(), getDestinationDir(), classpath,
+                                getSourceCompatibility(), getTargetCompatibility(), getOptions(), getDaemonRegistryDir());
+                    } else {
+                        antCompile.execute(existingSourceDirs, getIncludes(), getExcludes(), getDestinationDir(), classpath, getSourceCompatibility(),
+                                getTargetCompatibility(), getOptions(), getProject().getAnt());
+                    }
+                } finally {
+                    compileTime += System.currentTimeMillis() - compileStart;
+                }
             }
-            classpath = createClasspath();
-            antCompile.execute(existingSourceDirs, getIncludes(), getExcludes(), getDestinationDir(), classpath, getSourceCompatibility(),
-                    getTargetCompatibility(), getOptions(), getProject().getAnt());
-        }
-        List existingGroovySourceDirs = existentDirsFilter.findExistingDirs(getGroovySourceDirs());
-        if (existingGroovySourceDirs.size() > 0) {
-            if (classpath == null) {
-                classpath = createClasspath();
+            List existingGroovySourceDirs = existentDirsFilter.findExistingDirs(getGroovySourceDirs());
+            if (existingGroovySourceDirs.size() > 0) {
+                if (classpath == null) {
+                    classpath = resolveClasspath(metrics);
+                }
+                if (isCountingFiles()) {
+                    sourceCount += countSources(existingGroovySourceDirs, getGroovyIncludes(), getGroovyExcludes(),
+                            ".groovy", ".java");
+                }
+                long compileStart = System.currentTimeMillis();
+                try {
+                    // todo We need to understand why it is not good enough to put groovy and ant in the task classpath but also Junit. As we don't understand we put the whole testCompile in it right now. It doesn't hurt, but understanding is better :)
+                    List taskClasspath = getGroovyClasspath();
+                    if (getGroovyOptions().getDaemon()) {
+                        antGroovyCompile.executeInDaemon(existingGroovySourceDirs, getGroovyIncludes(), getGroovyExcludes(),
+                                getGroovyJavaIncludes(), getGroovyExcludes(), getDestinationDir(), classpath, getSourceCompatibility(),
+                                getTargetCompatibility(), getGroovyOptions(), getOptions(), taskClasspath, getDaemonRegistryDir());
+                    } else {
+                        antGroovyCompile.execute(getProject().getAnt(), existingGroovySourceDirs, getGroovyIncludes(), getGroovyExcludes(),
+                                getGroovyJavaIncludes(), getGroovyExcludes(), getDestinationDir(), classpath, getSourceCompatibility(),
+                                getTargetCompatibility(), getGroovyOptions(), getOptions(), taskClasspath);
+                    }
+                } finally {
+                    compileTime += System.currentTimeMillis() - compileStart;
+                }
+            }
+        } finally {
+            // A failed compile is costly as well. Nothing was compiled if the classpath was not resolved.
+            if (classpath != null) {
+                metrics.setCompileTime(compileTime);
+                if (isCountingFiles()) {
+                    metrics.setSourceCount(sourceCount);
+                    metrics.setCompiledClassCount(countClassesWrittenSince(start));
+                }
+                finishMetrics(metrics);
             }
-            // todo We need to understand why it is not good enough to put groovy and ant in the task classpath but also Junit. As we don't understand we put the whole testCompile in it right now. It doesn't hurt, but understanding is better :)
-            List taskClasspath = getGroovyClasspath();
-            antGroovyCompile.execute(getProject().getAnt(), existingGroovySourceDirs, getGroovyIncludes(), getGroovyExcludes(),
-                    getGroovyJavaIncludes(), getGroovyExcludes(), getDestinationDir(), classpath, getSourceCompatibility(),
-                    getTargetCompatibility(), getGroovyOptions(), getOptions(), taskClasspath);
         }
     }
 
-    private List createClasspath() {
-        return GUtil.addLists(classpathConverter.createFileClasspath(getProject().getRootDir(), getUnmanagedClasspath()),
-                getDependencyManager().configuration(getResolveInstruction().getConfiguration()).resolve(getResolveInstruction()));
-    }
-
     /**
      * Gets the options for the groovyc compilation. To set specific options for the nested javac compilation,
      * use {@link #getOptions()}.
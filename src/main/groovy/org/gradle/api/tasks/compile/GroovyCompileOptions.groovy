@@ -29,14 +29,27 @@ public class GroovyCompileOptions extends AbstractOptions {
     boolean includeJavaRuntime = false
     boolean stacktrace
 
+    /**
+     * Controls if the sources are compiled by the Ant groovyc task in a compiler daemon, instead of in a new JVM per
+     * compile. The daemon is started with the memory settings of the fork options.
+     */
+    boolean daemon = false
+    DaemonOptions daemonOptions = new DaemonOptions()
+
     GroovyCompileOptions fork(Map forkArgs) {
         fork = true
         forkOptions.define(forkArgs)
         this
     }
 
+    GroovyCompileOptions daemon(Map daemonArgs) {
+        daemon = true
+        daemonOptions.define(daemonArgs)
+        this
+    }
+
     List excludedFieldsFromOptionMap() {
-        ['forkOptions']
+        ['forkOptions', 'daemon', 'daemonOptions']
     }
 
     Map fieldName2AntMap() {
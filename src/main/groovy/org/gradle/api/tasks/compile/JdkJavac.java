@@ -0,0 +1,628 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.compile;
+
+import org.apache.tools.ant.DirectoryScanner;
+import org.gradle.api.GradleException;
+import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.util.GUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.tools.*;
+import java.io.*;
+import java.net.URI;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.ZipFile;
+
+/**
+ * <p>Compiles Java sources in-process with the compiler API of the JDK, instead of running the Ant javac task. As with
+ * the Ant task, the destination dir is part of the classpath and the source dirs are the sourcepath.</p>
+ *
+ * <p>If a dependency graph file is given, the compile is incremental. The graph records the classes compiled from each
+ * source and the classes they refer to, as read from the class files. Only the added and changed sources are compiled,
+ * together with all sources whose classes depend on the classes of a changed or removed source. The classes of removed
+ * sources are deleted. All sources are compiled, if the API of the classpath or the compiler options have changed, or if
+ * a changed class declares compile-time constants, as these are inlined into the classes using them. A jar of the
+ * classpath which has been rebuilt after changes to method bodies only does not cause a compile. Without a graph, only
+ * sources which are newer than their class file are compiled, as with Ant.</p>
+ *
+ * <p>All instances share the file manager of the compiler, so the jars of a classpath are opened once per build and
+ * not once per compile. The file manager is created anew, if a jar it has opened has changed since, e.g. as it has
+ * been rebuilt. The shared file manager is closed by {@link #closeFileManager()} at the end of the build.</p>
+ *
+ * <p>As the file manager is not thread-safe, compiles with the shared file manager hold a single lock for the whole
+ * JVM. This only serializes compiles of builds which run concurrently in the same JVM, as the tasks of a build are
+ * executed one after another. A file manager per classpath would let these compiles run concurrently, but would keep
+ * the jars of each classpath open until the end of the build.</p>
+ *
+ * <p>If the compile is parallel, the sources to compile are partitioned into groups which don't use each other, see
+ * {@link SourcePartition}. The groups are packed into one batch per processor, but not more than
+ * {@link #MAX_BATCH_COUNT}, and the batches are compiled concurrently. As the file manager is not thread-safe, each
+ * batch is compiled with a file manager of its own then. The batches are compiled without sourcepath, so that the
+ * compile of one batch can't compile sources of another batch implicitly. The compile is serial if annotation
+ * processing is enabled, as processors may generate sources which any group uses, and may expect to see all sources of
+ * the compile. It is serial as well if a source uses a name declared by a source of the source dirs which is not
+ * compiled and has no up-to-date class, e.g. as it is excluded, as only the sourcepath would find it.</p>
+ */
+public class JdkJavac {
+    private static Logger logger = LoggerFactory.getLogger(JdkJavac.class);
+
+    private static StandardJavaFileManager sharedFileManager;
+
+    private static final Map<File, String> openedJars = new HashMap<File, String>();
+
+    private static final String PROCESSOR_SERVICE = "META-INF/services/javax.annotation.processing.Processor";
+
+    /**
+     * The maximum number of batches compiled concurrently, as each batch needs a file manager and a compiler of its own.
+     */
+    static final int MAX_BATCH_COUNT = 4;
+
+    private int sourceCount;
+
+    private int compiledClassCount;
+
+    public void execute(List sourceDirs, List includes, List excludes, File targetDir, List classpath,
+                        String sourceCompatibility, String targetCompatibility, CompileOptions compileOptions) {
+        execute(sourceDirs, includes, excludes, targetDir, classpath, sourceCompatibility, targetCompatibility,
+                compileOptions, null);
+    }
+
+    /**
+     * Compiles the sources, incrementally if a dependency graph file is given.
+     *
+     * @param dependencyGraphFile The file to keep the dependency graph of the compiled classes in. If <code>null</code>,
+     * the sources which are newer than their class file are compiled, as with Ant.
+     */
+    public void execute(List sourceDirs, List includes, List excludes, File targetDir, List classpath,
+                        String sourceCompatibility, String targetCompatibility, CompileOptions compileOptions,
+                        File dependencyGraphFile) {
+        sourceCount = 0;
+        compiledClassCount = 0;
+        List<File> compileClasspath = new ArrayList<File>();
+        compileClasspath.add(targetDir);
+        for (Object element : classpath) {
+            compileClasspath.add(new File(element.toString()));
+        }
+        List<String> options = createOptions(sourceDirs, targetDir, compileClasspath, sourceCompatibility,
+                targetCompatibility, compileOptions);
+        Map<File, String> sources = findSources(sourceDirs, includes, excludes);
+        sourceCount = sources.size();
+
+        if (dependencyGraphFile == null) {
+            List<File> sourceFiles = findStaleSources(sources, targetDir);
+            if (!sourceFiles.isEmpty()) {
+                compile(sourceFiles, sourceDirs, targetDir, compileClasspath, options, compileOptions, null);
+            } else {
+                logger.debug("Skipping compile to {} as all classes are up-to-date.", targetDir);
+            }
+            return;
+        }
+
+        Map<String, File> sourceFiles = new TreeMap<String, File>();
+        for (File sourceFile : sources.keySet()) {
+            sourceFiles.put(sourceFile.getAbsolutePath(), sourceFile);
+        }
+        ClassDependencyGraph graph = ClassDependencyGraph.load(dependencyGraphFile);
+        ClasspathSnapshot classpathSnapshot = new ClasspathSnapshot(graph == null
+                ? new HashMap<String, String>() : graph.getClasspathEntries());
+        String classpathState = classpathSnapshot.fingerprint(compileClasspath.subList(1, compileClasspath.size()));
+        String optionsState = optionsState(options);
+        Set<String> sourcesToCompile;
+        if (graph == null) {
+            logger.debug("Compiling all sources to {} as there is no dependency graph.", targetDir);
+            sourcesToCompile = null;
+        } else if (!classpathState.equals(graph.getClasspathState())
+                || !optionsState.equals(graph.getOptionsState())) {
+            logger.info("Compiling all sources to {} as the API of the classpath or the compiler options have changed.",
+                    targetDir);
+            sourcesToCompile = null;
+        } else {
+            Set<String> changedSources = findChangedSources(sourceFiles, targetDir, graph);
+            if (changedSources.isEmpty()) {
+                logger.debug("Skipping compile to {} as all classes are up-to-date.", targetDir);
+                if (!classpathSnapshot.getEntries().equals(graph.getClasspathEntries())) {
+                    graph.setClasspathEntries(classpathSnapshot.getEntries());
+                    graph.save(dependencyGraphFile);
+                }
+                return;
+            }
+            if (graph.declaresConstants(changedSources)) {
+                logger.debug("Compiling all sources to {} as a changed class declares constants.", targetDir);
+                sourcesToCompile = null;
+            } else {
+                sourcesToCompile = graph.getDependentSources(changedSources);
+            }
+        }
+
+        if (sourcesToCompile == null) {
+            if (graph != null) {
+                deleteClasses(graph, graph.getSources(), targetDir);
+            }
+            graph = new ClassDependencyGraph(classpathState, optionsState);
+            sourcesToCompile = new TreeSet<String>(sourceFiles.keySet());
+        } else {
+            deleteClasses(graph, sourcesToCompile, targetDir);
+        }
+        graph.setClasspathEntries(classpathSnapshot.getEntries());
+        List<File> filesToCompile = new ArrayList<File>();
+        for (String source : sourcesToCompile) {
+            graph.removeSource(source);
+            if (sourceFiles.containsKey(source)) {
+                filesToCompile.add(sourceFiles.get(source));
+            }
+        }
+        try {
+            if (!filesToCompile.isEmpty()) {
+                compile(filesToCompile, sourceDirs, targetDir, compileClasspath, options, compileOptions, graph);
+            }
+        } finally {
+            // Sources which failed to compile are left out of the graph, so they are compiled again next time
+            graph.save(dependencyGraphFile);
+        }
+    }
+
+    private void compile(List<File> sourceFiles, List sourceDirs, File targetDir, List<File> classpath,
+                         List<String> options, CompileOptions compileOptions, ClassDependencyGraph graph) {
+        logger.info("Compiling {} source file{} to {}", new Object[]{sourceFiles.size(),
+                sourceFiles.size() == 1 ? "" : "s", targetDir});
+        if (compileOptions.getListFiles()) {
+            for (File sourceFile : sourceFiles) {
+                logger.info("    {}", sourceFile);
+            }
+        }
+        targetDir.mkdirs();
+        logger.debug("Compiling in-process with the options {}", options);
+        Map<String, Set<String>> compiledClasses = new HashMap<String, Set<String>>();
+        List<List<File>> batches = Collections.singletonList(sourceFiles);
+        if (compileOptions.getParallel()) {
+            if (usesAnnotationProcessing(options, classpath)) {
+                logger.info("Compiling serially, as annotation processing is enabled.");
+            } else if (SourcePartition.usesNamesDeclaredBy(sourceFiles,
+                    findSourcesOnlyOnSourcepath(sourceDirs, sourceFiles, targetDir), compileOptions.getEncoding())) {
+                logger.info("Compiling serially, as the sources use sources which are not compiled and have no class.");
+            } else {
+                List<List<File>> groups = SourcePartition.partition(sourceFiles, compileOptions.getEncoding());
+                batches = SourcePartition.pack(groups, Math.min(Runtime.getRuntime().availableProcessors(),
+                        MAX_BATCH_COUNT));
+                logger.info("Compiling {} independent groups of sources in {} parallel batches.", groups.size(),
+                        batches.size());
+            }
+        }
+        boolean success;
+        if (batches.size() > 1) {
+            success = compileInParallel(batches, withoutSourcepath(options), compiledClasses);
+        } else {
+            success = compile(sourceFiles, classpath, options, compiledClasses);
+        }
+        for (Set<String> classes : compiledClasses.values()) {
+            compiledClassCount += classes.size();
+        }
+        if (!success) {
+            if (compileOptions.getFailOnError()) {
+                throw new GradleException("Compile failed; see the compiler error output for details.");
+            }
+            logger.warn("Compile failed; see the compiler error output for details.");
+            return;
+        }
+        if (graph != null) {
+            for (File sourceFile : sourceFiles) {
+                String source = sourceFile.getAbsolutePath();
+                graph.addSource(source, state(sourceFile), analyze(compiledClasses.get(source), targetDir));
+            }
+        }
+    }
+
+    /**
+     * Returns the number of sources in the source dirs of the last execution, including those which were up-to-date.
+     */
+    public int getSourceCount() {
+        return sourceCount;
+    }
+
+    /**
+     * Returns the number of classes written by the last execution.
+     */
+    public int getCompiledClassCount() {
+        return compiledClassCount;
+    }
+
+    /**
+     * Compiles the given sources with the shared file manager. The internal names of the classes compiled from each
+     * source are added to the given map, keyed by the absolute path of the source.
+     */
+    private static boolean compile(List<File> sourceFiles, List<File> classpath, List<String> options,
+                                   Map<String, Set<String>> compiledClasses) {
+        JavaCompiler compiler = getCompiler();
+        // The shared file manager is not thread-safe, see the class comment on why there is a single lock
+        synchronized (JdkJavac.class) {
+            return compile(compiler, getFileManager(compiler, classpath), sourceFiles, options, null, compiledClasses);
+        }
+    }
+
+    /**
+     * Returns true if the compile may run annotation processors, i.e. if it is not disabled by <code>-proc:none</code>
+     * and processors are given by the options or are found on the classpath, as javac finds them.
+     */
+    static boolean usesAnnotationProcessing(List<String> options, List<File> classpath) {
+        if (options.contains("-proc:none")) {
+            return false;
+        }
+        if (options.contains("-processor") || options.contains("-processorpath")) {
+            return true;
+        }
+        for (File element : classpath) {
+            if (element.isDirectory()) {
+                if (new File(element, PROCESSOR_SERVICE).isFile()) {
+                    return true;
+                }
+            } else if (element.isFile()) {
+                try {
+                    ZipFile jar = new ZipFile(element);
+                    try {
+                        if (jar.getEntry(PROCESSOR_SERVICE) != null) {
+                            return true;
+                        }
+                    } finally {
+                        jar.close();
+                    }
+                } catch (IOException e) {
+                    // The compiler can't find processors in it either
+                    logger.debug("Could not read " + element, e);
+                }
+            }
+        }
+        return false;
+    }
+
+    private static List<String> withoutSourcepath(List<String> options) {
+        List<String> result = new ArrayList<String>(options);
+        int index = result.indexOf("-sourcepath");
+        if (index >= 0) {
+            result.subList(index, index + 2).clear();
+        }
+        return result;
+    }
+
+    /**
+     * Compiles the batches of sources concurrently, each with a file manager of its own. The output of the compiler is
+     * written in the order of the batches, so the output of different batches is not mixed.
+     */
+    private static boolean compileInParallel(List<List<File>> batches, final List<String> options,
+                                             Map<String, Set<String>> compiledClasses) {
+        final JavaCompiler compiler = getCompiler();
+        ExecutorService executor = Executors.newFixedThreadPool(batches.size(), new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "Compile sources");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            List<Future<BatchResult>> results = new ArrayList<Future<BatchResult>>();
+            for (final List<File> batch : batches) {
+                results.add(executor.submit(new Callable<BatchResult>() {
+                    public BatchResult call() throws IOException {
+                        BatchResult result = new BatchResult();
+                        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+                        try {
+                            result.success = compile(compiler, fileManager, batch, options,
+                                    new PrintWriter(result.output), result.compiledClasses);
+                        } finally {
+                            fileManager.close();
+                        }
+                        return result;
+                    }
+                }));
+            }
+            boolean success = true;
+            for (Future<BatchResult> future : results) {
+                BatchResult result;
+                try {
+                    result = future.get();
+                } catch (ExecutionException e) {
+                    throw new GradleException("Could not compile sources.", e.getCause());
+                } catch (InterruptedException e) {
+                    throw new GradleException(e);
+                }
+                System.err.print(result.output);
+                System.err.flush();
+                compiledClasses.putAll(result.compiledClasses);
+                success &= result.success;
+            }
+            return success;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static JavaCompiler getCompiler() {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new GradleException(
+                    "Could not find the Java compiler. To compile in-process, Gradle has to run with a JDK, not a JRE.");
+        }
+        return compiler;
+    }
+
+    /**
+     * Compiles the given sources with the given file manager, and writes the output of the compiler to the given writer,
+     * or to System.err if it is null.
+     */
+    private static boolean compile(JavaCompiler compiler, StandardJavaFileManager fileManager, List<File> sourceFiles,
+                                   List<String> options, Writer output, final Map<String, Set<String>> compiledClasses) {
+        Iterable<? extends JavaFileObject> compilationUnits = fileManager.getJavaFileObjectsFromFiles(sourceFiles);
+        final Map<URI, String> sources = new HashMap<URI, String>();
+        for (JavaFileObject compilationUnit : compilationUnits) {
+            sources.put(compilationUnit.toUri(), new File(compilationUnit.toUri()).getAbsolutePath());
+        }
+        JavaFileManager recordingFileManager = new ForwardingJavaFileManager<StandardJavaFileManager>(fileManager) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                                                       FileObject sibling) throws IOException {
+                String source = sibling == null ? null : sources.get(sibling.toUri());
+                if (kind == JavaFileObject.Kind.CLASS && source != null) {
+                    Set<String> classes = compiledClasses.get(source);
+                    if (classes == null) {
+                        classes = new TreeSet<String>();
+                        compiledClasses.put(source, classes);
+                    }
+                    classes.add(className.replace('.', '/'));
+                }
+                return super.getJavaFileForOutput(location, className, kind, sibling);
+            }
+        };
+        return compiler.getTask(output, recordingFileManager, null, options, null, compilationUnits).call();
+    }
+
+    /**
+     * Returns the shared file manager, which has opened the jars of earlier compiles already. It is replaced, if one of
+     * the jars it has opened has changed since.
+     */
+    static synchronized StandardJavaFileManager getFileManager(JavaCompiler compiler, List<File> classpath) {
+        if (sharedFileManager != null) {
+            for (Map.Entry<File, String> entry : openedJars.entrySet()) {
+                if (!entry.getValue().equals(state(entry.getKey()))) {
+                    logger.debug("Creating a new file manager as {} has changed.", entry.getKey());
+                    closeFileManager();
+                    break;
+                }
+            }
+        }
+        if (sharedFileManager == null) {
+            sharedFileManager = compiler.getStandardFileManager(null, null, null);
+        }
+        for (File element : classpath) {
+            if (element.isFile() && !openedJars.containsKey(element)) {
+                openedJars.put(element, state(element));
+            }
+        }
+        return sharedFileManager;
+    }
+
+    /**
+     * Closes the shared file manager and the jars it has opened.
+     */
+    public static synchronized void closeFileManager() {
+        if (sharedFileManager == null) {
+            return;
+        }
+        try {
+            sharedFileManager.close();
+        } catch (IOException e) {
+            logger.debug("Could not close the file manager.", e);
+        }
+        sharedFileManager = null;
+        openedJars.clear();
+    }
+
+    private static String state(File file) {
+        return file.length() + "," + file.lastModified();
+    }
+
+    /**
+     * Returns the Java sources of the source dirs, mapped to their path relative to their source dir.
+     */
+    private Map<File, String> findSources(List sourceDirs, List includes, List excludes) {
+        Map<File, String> sources = new LinkedHashMap<File, String>();
+        for (Object sourceDir : sourceDirs) {
+            DirectoryScanner scanner = new DirectoryScanner();
+            scanner.setBasedir((File) sourceDir);
+            scanner.setIncludes(toArray(includes));
+            scanner.setExcludes(toArray(excludes));
+            scanner.addDefaultExcludes();
+            scanner.scan();
+            for (String path : scanner.getIncludedFiles()) {
+                if (path.endsWith(".java")) {
+                    sources.put(new File((File) sourceDir, path), path);
+                }
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * Returns the sources of the source dirs which are not to be compiled and have no up-to-date class in the target
+     * dir, so the compiler can only find them through the sourcepath.
+     */
+    private List<File> findSourcesOnlyOnSourcepath(List sourceDirs, List<File> sourceFiles, File targetDir) {
+        List<File> sources = findStaleSources(findSources(sourceDirs, null, null), targetDir);
+        sources.removeAll(new HashSet<File>(sourceFiles));
+        return sources;
+    }
+
+    private List<File> findStaleSources(Map<File, String> sources, File targetDir) {
+        List<File> staleSources = new ArrayList<File>();
+        for (Map.Entry<File, String> entry : sources.entrySet()) {
+            String path = entry.getValue();
+            File classFile = new File(targetDir, path.substring(0, path.length() - ".java".length()) + ".class");
+            if (!classFile.exists() || entry.getKey().lastModified() > classFile.lastModified()) {
+                staleSources.add(entry.getKey());
+            }
+        }
+        return staleSources;
+    }
+
+    /**
+     * Returns the sources which have been added, changed or removed since the graph has been saved, or of which a
+     * class file is missing.
+     */
+    private Set<String> findChangedSources(Map<String, File> sourceFiles, File targetDir, ClassDependencyGraph graph) {
+        Set<String> changedSources = new TreeSet<String>();
+        for (Map.Entry<String, File> entry : sourceFiles.entrySet()) {
+            if (!state(entry.getValue()).equals(graph.getSourceState(entry.getKey()))) {
+                changedSources.add(entry.getKey());
+                continue;
+            }
+            for (String className : graph.getClasses(entry.getKey())) {
+                if (!classFile(targetDir, className).isFile()) {
+                    changedSources.add(entry.getKey());
+                    break;
+                }
+            }
+        }
+        for (String source : graph.getSources()) {
+            if (!sourceFiles.containsKey(source)) {
+                changedSources.add(source);
+            }
+        }
+        return changedSources;
+    }
+
+    private static void deleteClasses(ClassDependencyGraph graph, Collection<String> sources, File targetDir) {
+        for (String source : sources) {
+            for (String className : graph.getClasses(source)) {
+                classFile(targetDir, className).delete();
+            }
+        }
+    }
+
+    private static List<ClassAnalysis> analyze(Set<String> classNames, File targetDir) {
+        List<ClassAnalysis> classes = new ArrayList<ClassAnalysis>();
+        if (classNames == null) {
+            return classes;
+        }
+        for (String className : classNames) {
+            try {
+                classes.add(ClassAnalysis.analyze(classFile(targetDir, className)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return classes;
+    }
+
+    private static File classFile(File targetDir, String className) {
+        return new File(targetDir, className + ".class");
+    }
+
+    private static String optionsState(List<String> options) {
+        MessageDigest digest = ClasspathSnapshot.createDigest();
+        ClasspathSnapshot.update(digest, GUtil.join(options, "\n"));
+        return ClasspathSnapshot.toHex(digest);
+    }
+
+    private static String[] toArray(List patterns) {
+        if (patterns == null || patterns.isEmpty()) {
+            return null;
+        }
+        String[] result = new String[patterns.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = patterns.get(i).toString();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the command line options of javac which correspond to the attributes of the Ant javac task.
+     */
+    List<String> createOptions(List sourceDirs, File targetDir, List<File> classpath, String sourceCompatibility,
+                               String targetCompatibility, CompileOptions compileOptions) {
+        List<String> options = new ArrayList<String>();
+        options.add("-d");
+        options.add(targetDir.getPath());
+        options.add("-classpath");
+        options.add(GUtil.join(classpath, File.pathSeparator));
+        options.add("-sourcepath");
+        options.add(GUtil.join(sourceDirs, File.pathSeparator));
+        options.add("-source");
+        options.add(sourceCompatibility);
+        options.add("-target");
+        options.add(targetCompatibility);
+        if (!compileOptions.getDebug()) {
+            options.add("-g:none");
+        } else if (compileOptions.getDebugOptions().getDebugLevel() != null) {
+            options.add("-g:" + compileOptions.getDebugOptions().getDebugLevel());
+        } else {
+            options.add("-g");
+        }
+        if (!compileOptions.getWarnings()) {
+            options.add("-nowarn");
+        }
+        if (compileOptions.getDeprecation()) {
+            options.add("-deprecation");
+        }
+        if (compileOptions.getVerbose()) {
+            options.add("-verbose");
+        }
+        if (compileOptions.getEncoding() != null) {
+            options.add("-encoding");
+            options.add(compileOptions.getEncoding());
+        }
+        if (compileOptions.getBootClasspath() != null) {
+            options.add("-bootclasspath");
+            options.add(compileOptions.getBootClasspath());
+        }
+        if (compileOptions.getExtensionDirs() != null) {
+            options.add("-extdirs");
+            options.add(compileOptions.getExtensionDirs());
+        }
+        if (compileOptions.getCompilerArgs() != null) {
+            for (Object compilerArg : compileOptions.getCompilerArgs()) {
+                addCompilerArg(options, (Map) compilerArg);
+            }
+        }
+        return options;
+    }
+
+    /**
+     * Adds a compiler arg, given as the attributes of an Ant compilerarg element.
+     */
+    private void addCompilerArg(List<String> options, Map compilerArg) {
+        for (Object key : compilerArg.keySet()) {
+            String value = compilerArg.get(key).toString();
+            if (key.equals("value")) {
+                options.add(value);
+            } else if (key.equals("line")) {
+                options.addAll(Arrays.asList(value.trim().split("\\s+")));
+            } else if (key.equals("file") || key.equals("path")) {
+                options.add(new File(value).getAbsolutePath());
+            } else {
+                throw new InvalidUserDataException(String.format("Unsupported compiler arg attribute: %s", key));
+            }
+        }
+    }
+
+    private static class BatchResult {
+        private boolean success;
+        private final StringWriter output = new StringWriter();
+        private final Map<String, Set<String>> compiledClasses = new HashMap<String, Set<String>>();
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.compile;
+
+import org.gradle.util.GFileUtils;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * <p>Partitions Java sources into groups which can be compiled independently of each other, by a scan of the names the
+ * sources declare and use. A source which uses a name declared by another source is put into the same group as it.</p>
+ *
+ * <p>The scan does not parse the sources, it only looks at the identifiers in them, comments and string literals
+ * included. So it may put sources into the same group which don't depend on each other, e.g. as they mention the same
+ * name in a comment, but it never separates sources which do.</p>
+ */
+class SourcePartition {
+    private static final Set<String> TYPE_KEYWORDS = new HashSet<String>(Arrays.asList("class", "interface", "enum"));
+
+    private final Map<File, File> parents = new HashMap<File, File>();
+
+    private SourcePartition(Collection<File> sources) {
+        for (File source : sources) {
+            parents.put(source, source);
+        }
+    }
+
+    /**
+     * Returns the independent groups of the given sources, in the order of their first source.
+     *
+     * @param encoding The encoding of the sources, or null for the platform encoding.
+     */
+    static List<List<File>> partition(Collection<File> sources, String encoding) {
+        SourcePartition partition = new SourcePartition(sources);
+        Map<File, Set<String>> usedNames = new HashMap<File, Set<String>>();
+        Map<String, File> declaringSources = new HashMap<String, File>();
+        for (File source : sources) {
+            Set<String> names = new HashSet<String>();
+            Set<String> declaredNames = new HashSet<String>();
+            scan(GFileUtils.readFileToString(source, encoding), names, declaredNames);
+            usedNames.put(source, names);
+            for (String declaredName : declaredNames) {
+                File declaringSource = declaringSources.get(declaredName);
+                if (declaringSource == null) {
+                    declaringSources.put(declaredName, source);
+                } else {
+                    // A name declared twice, e.g. in different packages, can't be told apart
+                    partition.union(declaringSource, source);
+                }
+            }
+        }
+        for (File source : sources) {
+            for (String name : usedNames.get(source)) {
+                File declaringSource = declaringSources.get(name);
+                if (declaringSource != null) {
+                    partition.union(declaringSource, source);
+                }
+            }
+        }
+
+        Map<File, List<File>> groups = new LinkedHashMap<File, List<File>>();
+        for (File source : sources) {
+            File root = partition.find(source);
+            List<File> group = groups.get(root);
+            if (group == null) {
+                group = new ArrayList<File>();
+                groups.put(root, group);
+            }
+            group.add(source);
+        }
+        return new ArrayList<List<File>>(groups.values());
+    }
+
+    /**
+     * Returns true if one of the given sources uses a name which is declared by one of the other sources, but not by the
+     * given sources themselves.
+     *
+     * @param encoding The encoding of the sources, or null for the platform encoding.
+     */
+    static boolean usesNamesDeclaredBy(Collection<File> sources, Collection<File> otherSources, String encoding) {
+        if (otherSources.isEmpty()) {
+            return false;
+        }
+        Set<String> otherNames = new HashSet<String>();
+        for (File otherSource : otherSources) {
+            scan(GFileUtils.readFileToString(otherSource, encoding), new HashSet<String>(), otherNames);
+        }
+        Set<String> usedNames = new HashSet<String>();
+        Set<String> declaredNames = new HashSet<String>();
+        for (File source : sources) {
+            scan(GFileUtils.readFileToString(source, encoding), usedNames, declaredNames);
+        }
+        otherNames.removeAll(declaredNames);
+        otherNames.retainAll(usedNames);
+        return !otherNames.isEmpty();
+    }
+
+    /**
+     * Packs the groups into at most the given number of batches with about the same number of sources, so that each
+     * thread compiles a single batch. The largest groups are packed first, each into the batch with the fewest sources
+     * so far.
+     */
+    static List<List<File>> pack(List<List<File>> groups, int batchCount) {
+        List<List<File>> sortedGroups = new ArrayList<List<File>>(groups);
+        Collections.sort(sortedGroups, new Comparator<List<File>>() {
+            public int compare(List<File> group1, List<File> group2) {
+                return group2.size() - group1.size();
+            }
+        });
+        List<List<File>> batches = new ArrayList<List<File>>();
+        for (List<File> group : sortedGroups) {
+            if (batches.size() < batchCount) {
+                batches.add(new ArrayList<File>(group));
+                continue;
+            }
+            List<File> smallestBatch = batches.get(0);
+            for (List<File> batch : batches) {
+                if (batch.size() < smallestBatch.size()) {
+                    smallestBatch = batch;
+                }
+            }
+            smallestBatch.addAll(group);
+        }
+        return batches;
+    }
+
+    /**
+     * Adds the identifiers of the given source text to the used names, and the names which follow one of the keywords
+     * declaring a type to the declared names.
+     */
+    static void scan(String text, Set<String> usedNames, Set<String> declaredNames) {
+        String previous = null;
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            if (!Character.isJavaIdentifierStart(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < length && Character.isJavaIdentifierPart(text.charAt(i))) {
+                i++;
+            }
+            String identifier = text.substring(start, i);
+            if (previous != null && TYPE_KEYWORDS.contains(previous)) {
+                declaredNames.add(identifier);
+            }
+            usedNames.add(identifier);
+            previous = identifier;
+        }
+    }
+
+    private File find(File source) {
+        File root = source;
+        while (!parents.get(root).equals(root)) {
+            root = parents.get(root);
+        }
+        // Path compression keeps the trees flat
+        File current = source;
+        while (!current.equals(root)) {
+            File parent = parents.get(current);
+            parents.put(current, root);
+            current = parent;
+        }
+        return root;
+    }
+
+    private void union(File source1, File source2) {
+        File root1 = find(source1);
+        File root2 = find(source2);
+        if (!root1.equals(root2)) {
+            parents.put(root2, root1);
+        }
+    }
+}
@@ -18,17 +18,23 @@ package org.gradle.api.tasks.diagnostics;
 import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.artifacts.report.IvyDependency;
 import org.gradle.api.artifacts.report.IvyDependencyGraph;
+import org.gradle.api.artifacts.report.IvyDependencyVisitor;
 import org.gradle.api.Project;
 
 import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
- * Simple dependency graph renderer that emits an ASCII tree.
+ * Simple dependency graph renderer that emits an ASCII tree. Below the root, the tree lists the direct dependencies of
+ * the configuration, and each transitive dependency below the modules depending on it. The dependencies of a module are
+ * only listed where the module occurs first. Later occurrences are marked with (*).
  *
  * @author Phil Messenger
  */
-public class AsciiReportRenderer extends TextProjectReportRenderer implements DependencyReportRenderer {
+public class AsciiReportRenderer extends TextProjectReportRenderer implements DependencyReportRenderer, IvyDependencyVisitor {
     private boolean hasConfigs;
+    private boolean hasOmittedDependencies;
 
     public AsciiReportRenderer() {
     }
@@ -53,28 +59,46 @@ public class AsciiReportRenderer extends TextProjectReportRenderer implements De
 
     public void startConfiguration(Configuration configuration) {
         hasConfigs = true;
+        hasOmittedDependencies = false;
         getFormatter().format("%s%n", configuration.getName());
     }
 
     public void completeConfiguration(Configuration configuration) {
+        if (hasOmittedDependencies) {
+            getFormatter().format("%n(*) - dependencies omitted (listed previously)%n");
+        }
     }
 
     public void render(IvyDependencyGraph graph) throws IOException
     {
-        render(graph.getRoot(), 1);
+        render(graph.getRoot(), 0, new HashSet<IvyDependency>());
     }
 
-    private void render(IvyDependency node, int depth) throws IOException
+    private void render(IvyDependency node, int depth, Set<IvyDependency> rendered) throws IOException
     {
-        getFormatter().format(getIndent(depth));
-		getFormatter().format("%s%n", node);
+        if (!rendered.add(node))
+        {
+            visitDependency(node, depth, !node.getDependencies().isEmpty());
+            return;
+        }
+        visitDependency(node, depth, false);
 
 		for(IvyDependency dep : node.getDependencies())
 		{
-			render(dep, depth + 1);
+			render(dep, depth + 1, rendered);
 		}
     }
 
+    public void visitDependency(IvyDependency dependency, int depth, boolean dependenciesOmitted) {
+        getFormatter().format(getIndent(depth + 1));
+        if (dependenciesOmitted) {
+            hasOmittedDependencies = true;
+            getFormatter().format("%s (*)%n", dependency);
+        } else {
+            getFormatter().format("%s%n", dependency);
+        }
+    }
+
 	private String getIndent(int depth)
 	{
 		StringBuilder buffer = new StringBuilder();
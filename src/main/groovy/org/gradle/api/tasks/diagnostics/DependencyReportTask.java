@@ -15,12 +15,14 @@
  */
 package org.gradle.api.tasks.diagnostics;
 
+import org.apache.ivy.core.report.ResolveReport;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.ConfigurationResolver;
 import org.gradle.api.artifacts.ResolveInstruction;
 import org.gradle.api.artifacts.ResolveInstructionModifier;
-import org.gradle.api.artifacts.report.IvyDependencyGraph;
 import org.gradle.api.artifacts.report.IvyDependencyGraphBuilder;
+import org.gradle.api.artifacts.report.IvyDependencyGraphWalker;
+import org.gradle.api.artifacts.report.IvyDependencyVisitor;
 
 import java.io.IOException;
 import java.util.Collections;
@@ -32,6 +34,9 @@ import java.util.List;
  * and to optionally output a graphviz compatible "dot" graph. This task is used when you execute the dependency list
  * command-line option.
  *
+ * <p>A renderer which is also an {@link IvyDependencyVisitor} is fed while the resolve report is walked, without
+ * building a dependency graph in memory first.</p>
+ *
  * @author Phil Messenger
  */
 public class DependencyReportTask extends AbstractReportTask {
@@ -62,18 +67,20 @@ public class DependencyReportTask extends AbstractReportTask {
                     }
                 });
         for (ConfigurationResolver configuration : sortedConfigurations) {
-            IvyDependencyGraphBuilder graphBuilder = new IvyDependencyGraphBuilder();
-
             // todo - move the following to Configuration, so that a IvyDependencyGraph can be obtained directly
             ResolveInstructionModifier resolveInstructionModifier = new ResolveInstructionModifier() {
                 public ResolveInstruction modify(ResolveInstruction resolveInstruction) {
                     return new ResolveInstruction(resolveInstruction).setFailOnResolveError(false);
                 }
             };
-            IvyDependencyGraph graph = graphBuilder.buildGraph(configuration.resolveAsReport(resolveInstructionModifier), configuration.getName());
+            ResolveReport report = configuration.resolveAsReport(resolveInstructionModifier);
 
             renderer.startConfiguration(configuration);
-            renderer.render(graph);
+            if (renderer instanceof IvyDependencyVisitor) {
+                new IvyDependencyGraphWalker().walk(report, configuration.getName(), (IvyDependencyVisitor) renderer);
+            } else {
+                renderer.render(new IvyDependencyGraphBuilder().buildGraph(report, configuration.getName()));
+            }
             renderer.completeConfiguration(configuration);
         }
     }
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.diagnostics;
+
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.report.IvyDependency;
+import org.gradle.api.artifacts.report.IvyDependencyGraph;
+import org.gradle.api.artifacts.report.IvyDependencyVisitor;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * <p>A dependency graph renderer which emits a JSON document, to be consumed by other tools. The document is an array
+ * with an entry for each project. A project has a list of configurations, and each configuration has a tree of
+ * dependencies.</p>
+ *
+ * <p>Each dependency carries the resolver which served it, whether it came from the cache, the size of its artifacts and
+ * the time spent resolving and downloading it. As with {@link AsciiReportRenderer}, the dependencies of a module are only
+ * listed where the module occurs first. Later occurrences are marked with {@code "dependenciesOmitted": true}.</p>
+ */
+public class JsonReportRenderer extends TextProjectReportRenderer implements DependencyReportRenderer, IvyDependencyVisitor {
+    private int projectCount;
+    private int configurationCount;
+    private int openDepth;
+
+    public JsonReportRenderer() {
+    }
+
+    public JsonReportRenderer(Appendable writer) {
+        super(writer);
+    }
+
+    @Override
+    public void startProject(Project project) {
+        getFormatter().format(projectCount++ == 0 ? "[%n" : ",%n");
+        getFormatter().format("  {\"project\": %s, \"configurations\": [", quote(project.getPath()));
+        configurationCount = 0;
+    }
+
+    @Override
+    public void completeProject(Project project) {
+        getFormatter().format(configurationCount == 0 ? "]}" : "%n  ]}");
+    }
+
+    @Override
+    public void complete() throws IOException {
+        getFormatter().format(projectCount == 0 ? "[]%n" : "%n]%n");
+        projectCount = 0;
+        super.complete();
+    }
+
+    public void startConfiguration(Configuration configuration) {
+        getFormatter().format(configurationCount++ == 0 ? "%n" : ",%n");
+        getFormatter().format("    {\"name\": %s, \"dependencies\": [", quote(configuration.getName()));
+        openDepth = 0;
+    }
+
+    public void completeConfiguration(Configuration configuration) {
+        boolean hasDependencies = openDepth > 0;
+        closeDependencies(1);
+        getFormatter().format(hasDependencies ? "%n    ]}" : "]}");
+    }
+
+    public void render(IvyDependencyGraph graph) throws IOException {
+        render(graph.getRoot(), 0, new HashSet<IvyDependency>());
+    }
+
+    private void render(IvyDependency node, int depth, Set<IvyDependency> rendered) throws IOException {
+        if (!rendered.add(node)) {
+            visitDependency(node, depth, !node.getDependencies().isEmpty());
+            return;
+        }
+        visitDependency(node, depth, false);
+        for (IvyDependency dependency : node.getDependencies()) {
+            render(dependency, depth + 1, rendered);
+        }
+    }
+
+    public void visitDependency(IvyDependency dependency, int depth, boolean dependenciesOmitted) {
+        if (depth == 0) {
+            // The root is the project itself
+            return;
+        }
+        // The dependencies of the previous module stay open until we know whether this module is one of them
+        boolean hasPreviousSibling = openDepth >= depth;
+        closeDependencies(depth);
+        getFormatter().format(hasPreviousSibling ? ",%n%s{" : "%n%s{", getIndent(depth));
+        getFormatter().format("\"group\": %s, \"name\": %s, \"version\": %s", quote(dependency.getOrganisation()),
+                quote(dependency.getName()), quote(dependency.getRev()));
+        if (dependenciesOmitted) {
+            getFormatter().format(", \"dependenciesOmitted\": true");
+        } else {
+            getFormatter().format(", \"resolver\": %s, \"fromCache\": %s, \"size\": %s, \"resolveTimeMillis\": %s, "
+                    + "\"downloadTimeMillis\": %s", quote(dependency.getResolver()), dependency.isFromCache(),
+                    dependency.getSize(), dependency.getResolveTimeMillis(), dependency.getDownloadTimeMillis());
+        }
+        getFormatter().format(", \"dependencies\": [");
+        openDepth = depth;
+    }
+
+    private void closeDependencies(int depth) {
+        for (; openDepth >= depth; openDepth--) {
+            getFormatter().format("]}");
+        }
+    }
+
+    private String getIndent(int depth) {
+        StringBuilder indent = new StringBuilder("    ");
+        for (int i = 0; i < depth; i++) {
+            indent.append("  ");
+        }
+        return indent.toString();
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder quoted = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    quoted.append("\\\"");
+                    break;
+                case '\\':
+                    quoted.append("\\\\");
+                    break;
+                case '\n':
+                    quoted.append("\\n");
+                    break;
+                case '\r':
+                    quoted.append("\\r");
+                    break;
+                case '\t':
+                    quoted.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -39,7 +39,7 @@ public class TextProjectReportRenderer implements ProjectReportRenderer {
 
     public void setOutputFile(File file) throws IOException {
         cleanupWriter();
-        setWriter(new FileWriter(file), true);
+        setWriter(new BufferedWriter(new FileWriter(file)), true);
     }
 
     public void startProject(Project project) {
@@ -20,6 +20,7 @@ import org.apache.tools.ant.BuildException;
 import org.gradle.api.*;
 import org.gradle.api.artifacts.ConfigurationResolveInstructionModifier;
 import org.gradle.api.internal.ConventionTask;
+import org.gradle.api.internal.tasks.ResolvingTask;
 import org.gradle.api.tasks.util.ExistingDirsFilter;
 import org.gradle.util.GUtil;
 
@@ -32,7 +33,7 @@ import java.util.List;
  *
  * @author Hans Dockter
  */
-public class Javadoc extends ConventionTask {
+public class Javadoc extends ConventionTask implements ResolvingTask {
     private List<File> srcDirs;
 
     private File destinationDir;
@@ -19,6 +19,7 @@ package org.gradle.api.tasks.testing;
 import org.gradle.api.*;
 import org.gradle.api.artifacts.ConfigurationResolveInstructionModifier;
 import org.gradle.api.internal.ConventionTask;
+import org.gradle.api.internal.tasks.ResolvingTask;
 import org.gradle.api.tasks.compile.ClasspathConverter;
 import org.gradle.api.tasks.util.ExistingDirsFilter;
 import org.gradle.api.tasks.testing.junit.JUnitTestFramework;
@@ -41,7 +42,7 @@ import groovy.lang.Closure;
  * 
  * @author Hans Dockter
  */
-public class Test extends ConventionTask {
+public class Test extends ConventionTask implements ResolvingTask {
     private static Logger logger = LoggerFactory.getLogger(Test.class);
 
     public static final String FAILURES_OR_ERRORS_PROPERTY = "org.gradle.api.tasks.testing.failuresOrErrors";
@@ -22,7 +22,8 @@ import org.gradle.api.InvalidUserDataException
  * @author Hans Dockter
  *
  * todo: Refactor to use FileSet
- * todo: Refactor to accept an existing ant instance
+ *
+ * The copy is executed by a {@link FileCopier}. The ant builder is no longer used for it.
  */
 class CopyInstruction {
     AntBuilder antBuilder
@@ -35,20 +36,6 @@ class CopyInstruction {
     void execute() {
         if (!sourceDir) {throw new InvalidUserDataException('Source dir must not be null!')}
         if (!targetDir) {throw new InvalidUserDataException('Target dir must not be null!')}
-        antBuilder.copy(todir: targetDir) {
-            fileset(dir: sourceDir) {
-                includes.each {String pattern ->
-                    include(name: pattern)
-                }
-                excludes.each {String pattern ->
-                    exclude(name: pattern)
-                }
-            }
-            filterset() {
-                this.filters.each {String token, String value ->
-                    filter(token: token, value: value)
-                }
-            }
-        }
+        new FileCopier().copy([this])
     }
 }
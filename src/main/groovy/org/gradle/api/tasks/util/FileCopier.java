@@ -0,0 +1,403 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.util;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.tools.ant.DirectoryScanner;
+import org.gradle.api.GradleException;
+import org.gradle.api.InvalidUserDataException;
+import org.gradle.util.GUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * <p>Executes {@link CopyInstruction}s without Ant. The source dirs are scanned concurrently, using the include and
+ * exclude patterns of their instruction and the default excludes of Ant. Files are then copied concurrently: files
+ * without filters by channel transfers, files with filters by replacing the <code>@token@</code>s while streaming their
+ * content.</p>
+ *
+ * <p>As with the Ant copy, a file is only copied if the target file does not exist or is older than the source file. If
+ * several source dirs contain the same file, the file of the first source dir is copied.</p>
+ *
+ * <p>If a snapshot file is passed, the copy is incremental instead. The snapshot records the state of each copied
+ * source file, its filters and the resulting target file. Only files whose snapshot differs are copied, and target
+ * files of the previous copy which no longer have a source file are deleted.</p>
+ */
+public class FileCopier {
+    private static Logger logger = LoggerFactory.getLogger(FileCopier.class);
+
+    private static final char TOKEN_DELIMITER = '@';
+
+    private int threadCount;
+
+    public FileCopier() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public FileCopier(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Executes the given copy instructions.
+     *
+     * @return The number of files which have been copied.
+     */
+    public int copy(List<CopyInstruction> copyInstructions) {
+        return copy(copyInstructions, null);
+    }
+
+    /**
+     * Executes the given copy instructions incrementally, using the given snapshot file to find the files which have
+     * changed since the last copy. The snapshot file should not be located in any of the target dirs.
+     *
+     * @param snapshotFile The snapshot of the last copy. If <code>null</code>, the copy is not incremental.
+     * @return The number of target files which have been copied or deleted. Zero if the target dirs are up-to-date.
+     */
+    public int copy(List<CopyInstruction> copyInstructions, File snapshotFile) {
+        for (CopyInstruction copyInstruction : copyInstructions) {
+            if (copyInstruction.getSourceDir() == null) {
+                throw new InvalidUserDataException("Source dir must not be null!");
+            }
+            if (copyInstruction.getTargetDir() == null) {
+                throw new InvalidUserDataException("Target dir must not be null!");
+            }
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threadCount), new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "Copy files");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            Map<File, FileCopy> fileCopies = new LinkedHashMap<File, FileCopy>();
+            for (ScannedDir scannedDir : scan(copyInstructions, executor)) {
+                scannedDir.addTo(fileCopies);
+            }
+            if (snapshotFile == null) {
+                return copy(fileCopies.values(), null, null, executor);
+            }
+            return copyIncremental(fileCopies, snapshotFile, executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private int copyIncremental(Map<File, FileCopy> fileCopies, File snapshotFile, ExecutorService executor) {
+        Properties previousSnapshot = snapshotFile.isFile() ? GUtil.loadProperties(snapshotFile) : new Properties();
+        Properties snapshot = new Properties();
+        // If a stale target cannot be deleted, the previous snapshot is kept, so the deletion is retried with the next copy
+        int changedCount = deleteStaleTargets(previousSnapshot, fileCopies.keySet());
+        try {
+            changedCount += copy(fileCopies.values(), previousSnapshot, snapshot, executor);
+        } finally {
+            // Failed copies are missing in the new snapshot, so they are retried with the next copy
+            if (changedCount > 0 || !snapshot.equals(previousSnapshot)) {
+                snapshotFile.getParentFile().mkdirs();
+                GUtil.saveProperties(snapshot, snapshotFile);
+            }
+        }
+        return changedCount;
+    }
+
+    private int deleteStaleTargets(Properties previousSnapshot, Set<File> targets) {
+        Set<String> targetPaths = new HashSet<String>();
+        for (File target : targets) {
+            targetPaths.add(target.getAbsolutePath());
+        }
+        int deletedCount = 0;
+        for (Object previousTargetPath : previousSnapshot.keySet()) {
+            if (targetPaths.contains(previousTargetPath)) {
+                continue;
+            }
+            File staleTarget = new File(previousTargetPath.toString());
+            if (staleTarget.isFile()) {
+                if (!staleTarget.delete()) {
+                    throw new GradleException(String.format("Could not delete stale file %s.", staleTarget));
+                }
+                deletedCount++;
+            }
+        }
+        logger.debug("Deleted {} stale files.", deletedCount);
+        return deletedCount;
+    }
+
+    private List<ScannedDir> scan(List<CopyInstruction> copyInstructions, ExecutorService executor) {
+        List<Future<ScannedDir>> scans = new ArrayList<Future<ScannedDir>>();
+        for (final CopyInstruction copyInstruction : copyInstructions) {
+            scans.add(executor.submit(new Callable<ScannedDir>() {
+                public ScannedDir call() {
+                    return new ScannedDir(copyInstruction);
+                }
+            }));
+        }
+        List<ScannedDir> scannedDirs = new ArrayList<ScannedDir>();
+        for (Future<ScannedDir> scan : scans) {
+            try {
+                scannedDirs.add(scan.get());
+            } catch (ExecutionException e) {
+                throw new GradleException("Could not scan source dir.", e.getCause());
+            } catch (InterruptedException e) {
+                throw new GradleException(e);
+            }
+        }
+        return scannedDirs;
+    }
+
+    private int copy(Collection<FileCopy> fileCopies, final Properties previousSnapshot, final Properties snapshot,
+                     ExecutorService executor) {
+        Map<FileCopy, Future<Boolean>> copies = new LinkedHashMap<FileCopy, Future<Boolean>>();
+        for (final FileCopy fileCopy : fileCopies) {
+            copies.put(fileCopy, executor.submit(new Callable<Boolean>() {
+                public Boolean call() throws IOException {
+                    return previousSnapshot == null ? fileCopy.execute() : fileCopy.execute(previousSnapshot, snapshot);
+                }
+            }));
+        }
+        int copiedCount = 0;
+        Map<FileCopy, Throwable> failures = new LinkedHashMap<FileCopy, Throwable>();
+        for (Map.Entry<FileCopy, Future<Boolean>> copy : copies.entrySet()) {
+            try {
+                if (copy.getValue().get()) {
+                    copiedCount++;
+                }
+            } catch (ExecutionException e) {
+                failures.put(copy.getKey(), e.getCause());
+            } catch (InterruptedException e) {
+                failures.put(copy.getKey(), e);
+            }
+        }
+        if (!failures.isEmpty()) {
+            StringBuilder message = new StringBuilder(String.format("Could not copy %s of %s files:", failures.size(),
+                    copies.size()));
+            for (Map.Entry<FileCopy, Throwable> failure : failures.entrySet()) {
+                message.append(String.format("%n  %s: %s", failure.getKey().source, failure.getValue().getMessage()));
+            }
+            throw new GradleException(message.toString(), failures.values().iterator().next());
+        }
+        logger.debug("Copied {} of {} files.", copiedCount, copies.size());
+        return copiedCount;
+    }
+
+    private static class ScannedDir {
+        private final CopyInstruction copyInstruction;
+        private final String[] files;
+        private final String[] dirs;
+
+        private ScannedDir(CopyInstruction copyInstruction) {
+            this.copyInstruction = copyInstruction;
+            DirectoryScanner scanner = new DirectoryScanner();
+            scanner.setBasedir(copyInstruction.getSourceDir());
+            scanner.setIncludes(toArray(copyInstruction.getIncludes()));
+            scanner.setExcludes(toArray(copyInstruction.getExcludes()));
+            scanner.addDefaultExcludes();
+            scanner.scan();
+            files = scanner.getIncludedFiles();
+            dirs = scanner.getIncludedDirectories();
+        }
+
+        private static String[] toArray(Set<?> patterns) {
+            if (patterns == null || patterns.isEmpty()) {
+                return null;
+            }
+            String[] result = new String[patterns.size()];
+            int i = 0;
+            for (Object pattern : patterns) {
+                result[i++] = pattern.toString();
+            }
+            return result;
+        }
+
+        private void addTo(Map<File, FileCopy> fileCopies) {
+            // Empty dirs are created as well, as Ant does
+            for (String dir : dirs) {
+                new File(copyInstruction.getTargetDir(), dir).mkdirs();
+            }
+            Map<String, String> filters = toStringMap(copyInstruction.getFilters());
+            String filtersHash = hash(filters);
+            for (String file : files) {
+                File target = new File(copyInstruction.getTargetDir(), file);
+                if (!fileCopies.containsKey(target)) {
+                    fileCopies.put(target, new FileCopy(new File(copyInstruction.getSourceDir(), file), target, filters,
+                            filtersHash));
+                }
+            }
+        }
+
+        private static String hash(Map<String, String> filters) {
+            MessageDigest messageDigest;
+            try {
+                messageDigest = MessageDigest.getInstance("SHA-1");
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException(e);
+            }
+            try {
+                // The lengths keep tokens and values containing separators apart
+                for (Map.Entry<String, String> filter : filters.entrySet()) {
+                    messageDigest.update(String.format("%s:%s%s:%s", filter.getKey().length(), filter.getKey(),
+                            filter.getValue().length(), filter.getValue()).getBytes("UTF-8"));
+                }
+            } catch (UnsupportedEncodingException e) {
+                throw new RuntimeException(e);
+            }
+            return new BigInteger(1, messageDigest.digest()).toString(16);
+        }
+
+        private static Map<String, String> toStringMap(Map<?, ?> filters) {
+            // Sorted, so that the hash of equal filters is the same with each copy
+            Map<String, String> result = new TreeMap<String, String>();
+            if (filters != null) {
+                for (Map.Entry<?, ?> filter : filters.entrySet()) {
+                    result.put(filter.getKey().toString(), String.valueOf(filter.getValue()));
+                }
+            }
+            return result;
+        }
+    }
+
+    private static class FileCopy {
+        private final File source;
+        private final File target;
+        private final Map<String, String> filters;
+        private final String filtersHash;
+
+        private FileCopy(File source, File target, Map<String, String> filters, String filtersHash) {
+            this.source = source;
+            this.target = target;
+            this.filters = filters;
+            this.filtersHash = filtersHash;
+        }
+
+        private boolean execute() throws IOException {
+            if (target.exists() && target.lastModified() >= source.lastModified()) {
+                return false;
+            }
+            doCopy();
+            return true;
+        }
+
+        private boolean execute(Properties previousSnapshot, Properties snapshot) throws IOException {
+            String key = target.getAbsolutePath();
+            String sourceState = String.format("%s,%s,%s,%s", source.getAbsolutePath(), source.length(),
+                    source.lastModified(), filtersHash);
+            String previousState = previousSnapshot.getProperty(key);
+            // The state of the target catches target files which have been changed or deleted since the last copy
+            if (previousState != null && previousState.equals(state(sourceState))) {
+                snapshot.setProperty(key, previousState);
+                return false;
+            }
+            doCopy();
+            snapshot.setProperty(key, state(sourceState));
+            return true;
+        }
+
+        private String state(String sourceState) {
+            return String.format("%s,%s,%s", sourceState, target.length(), target.lastModified());
+        }
+
+        private void doCopy() throws IOException {
+            target.getParentFile().mkdirs();
+            if (filters.isEmpty()) {
+                transfer();
+            } else {
+                copyFiltered();
+            }
+        }
+
+        private void transfer() throws IOException {
+            FileInputStream inputStream = new FileInputStream(source);
+            FileOutputStream outputStream = null;
+            try {
+                outputStream = new FileOutputStream(target);
+                FileChannel inputChannel = inputStream.getChannel();
+                FileChannel outputChannel = outputStream.getChannel();
+                long size = inputChannel.size();
+                long position = 0;
+                while (position < size) {
+                    position += inputChannel.transferTo(position, size - position, outputChannel);
+                }
+            } finally {
+                IOUtils.closeQuietly(inputStream);
+                IOUtils.closeQuietly(outputStream);
+            }
+        }
+
+        private void copyFiltered() throws IOException {
+            Reader reader = new BufferedReader(new FileReader(source));
+            Writer writer = null;
+            try {
+                writer = new BufferedWriter(new FileWriter(target));
+                replaceTokens(reader, writer);
+            } finally {
+                IOUtils.closeQuietly(reader);
+                IOUtils.closeQuietly(writer);
+            }
+        }
+
+        /**
+         * Replaces the <code>@token@</code>s for which there is a filter. Like the Ant filterset, a token does not span
+         * lines and unknown tokens are left untouched.
+         */
+        private void replaceTokens(Reader reader, Writer writer) throws IOException {
+            int maxTokenLength = 0;
+            for (String token : filters.keySet()) {
+                maxTokenLength = Math.max(maxTokenLength, token.length());
+            }
+            StringBuilder token = null;
+            int c;
+            while ((c = reader.read()) != -1) {
+                if (token == null) {
+                    if (c == TOKEN_DELIMITER) {
+                        token = new StringBuilder();
+                    } else {
+                        writer.write(c);
+                    }
+                } else if (c == TOKEN_DELIMITER) {
+                    String value = filters.get(token.toString());
+                    if (value != null) {
+                        writer.write(value);
+                        token = null;
+                    } else {
+                        // The closing delimiter might open the next token
+                        writer.write(TOKEN_DELIMITER);
+                        writer.write(token.toString());
+                        token.setLength(0);
+                    }
+                } else if (c == '\n' || c == '\r' || token.length() == maxTokenLength) {
+                    writer.write(TOKEN_DELIMITER);
+                    writer.write(token.toString());
+                    writer.write(c);
+                    token = null;
+                } else {
+                    token.append((char) c);
+                }
+            }
+            if (token != null) {
+                writer.write(TOKEN_DELIMITER);
+                writer.write(token.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.util;
+
+import org.gradle.api.GradleException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Deletes directory trees concurrently. The subdirs of a tree are listed and their files deleted by a pool of
+ * threads. The then empty dirs are deleted afterwards, deepest first. Symbolic links to dirs are deleted without
+ * deleting the content of the dir they point to.</p>
+ *
+ * <p>A tree can also be deleted in the background. It is renamed and the build can continue right away, while a
+ * background thread deletes the renamed tree. If the build exits before the background delete has finished, the
+ * rest of the tree is deleted with the next delete of the same dir.</p>
+ */
+public class FileDeleter {
+    private static Logger logger = LoggerFactory.getLogger(FileDeleter.class);
+
+    public static final String TRASH_DIR_INFIX = ".deleting";
+
+    private int threadCount;
+
+    public FileDeleter() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public FileDeleter(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Deletes the given dir with all its content. Leftovers of background deletes of this dir are deleted as well.
+     *
+     * @return The number of files and dirs which have been deleted.
+     */
+    public int delete(File dir) {
+        int deletedCount = 0;
+        for (File trashDir : findTrashDirs(dir)) {
+            deletedCount += deleteTree(trashDir);
+        }
+        return deletedCount + deleteTree(dir);
+    }
+
+    /**
+     * Renames the given dir and deletes it in a background thread. Leftovers of earlier background deletes of this dir
+     * are deleted by the background thread as well. If the dir can't be renamed, it is deleted right away.
+     */
+    public void deleteInBackground(File dir) {
+        File trashDir = new File(dir.getParentFile(), dir.getName() + TRASH_DIR_INFIX + System.currentTimeMillis());
+        if (!dir.renameTo(trashDir)) {
+            logger.debug("Could not rename {}. Deleting it in the foreground.", dir);
+            delete(dir);
+            return;
+        }
+        final List<File> trashDirs = findTrashDirs(dir);
+        // Not a daemon thread, so the delete is finished if the JVM is not exited explicitly
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                for (File trashDir : trashDirs) {
+                    try {
+                        deleteTree(trashDir);
+                    } catch (GradleException e) {
+                        logger.warn(String.format("Could not delete %s in the background.", trashDir), e);
+                    }
+                }
+            }
+        }, "Delete " + dir.getName());
+        thread.start();
+    }
+
+    private List<File> findTrashDirs(File dir) {
+        List<File> trashDirs = new ArrayList<File>();
+        File[] siblings = dir.getAbsoluteFile().getParentFile().listFiles();
+        if (siblings != null) {
+            for (File sibling : siblings) {
+                if (sibling.getName().startsWith(dir.getName() + TRASH_DIR_INFIX) && sibling.isDirectory()) {
+                    trashDirs.add(sibling);
+                }
+            }
+        }
+        return trashDirs;
+    }
+
+    private int deleteTree(File dir) {
+        if (!dir.exists()) {
+            return 0;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threadCount), new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "Delete files");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        TreeDelete treeDelete = new TreeDelete(executor);
+        try {
+            treeDelete.deleteFiles(dir);
+            treeDelete.awaitFilesDeleted();
+        } finally {
+            executor.shutdown();
+        }
+        treeDelete.deleteDirs();
+        return treeDelete.finish(dir);
+    }
+
+    /**
+     * Each dir of the tree is listed by its own job, which deletes the files of the dir and submits a job for each
+     * subdir. The dirs are deleted once all jobs are done.
+     */
+    private static class TreeDelete {
+        private final ExecutorService executor;
+        private final AtomicInteger pendingJobs = new AtomicInteger();
+        private final CountDownLatch filesDeleted = new CountDownLatch(1);
+        private final AtomicInteger deletedCount = new AtomicInteger();
+        private final Queue<File> dirs = new ConcurrentLinkedQueue<File>();
+        private final Map<File, String> failures = new ConcurrentHashMap<File, String>();
+
+        private TreeDelete(ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        private void deleteFiles(final File dir) {
+            pendingJobs.incrementAndGet();
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        deleteFilesOf(dir);
+                    } catch (Throwable e) {
+                        failures.put(dir, String.valueOf(e.getMessage()));
+                    } finally {
+                        if (pendingJobs.decrementAndGet() == 0) {
+                            filesDeleted.countDown();
+                        }
+                    }
+                }
+            });
+        }
+
+        private void deleteFilesOf(File dir) throws IOException {
+            dirs.add(dir);
+            if (isSymlink(dir)) {
+                return;
+            }
+            File[] children = dir.listFiles();
+            if (children == null) {
+                failures.put(dir, "Could not list dir.");
+                return;
+            }
+            for (File child : children) {
+                if (child.isDirectory()) {
+                    deleteFiles(child);
+                } else {
+                    delete(child);
+                }
+            }
+        }
+
+        private void delete(File file) {
+            if (file.delete()) {
+                deletedCount.incrementAndGet();
+            } else if (file.exists()) {
+                failures.put(file, "Could not delete.");
+            }
+        }
+
+        private static boolean isSymlink(File dir) throws IOException {
+            File parent = dir.getAbsoluteFile().getParentFile();
+            if (parent == null) {
+                return false;
+            }
+            File dirInCanonicalParent = new File(parent.getCanonicalFile(), dir.getName());
+            return !dirInCanonicalParent.getCanonicalFile().equals(dirInCanonicalParent.getAbsoluteFile());
+        }
+
+        private void awaitFilesDeleted() {
+            try {
+                filesDeleted.await();
+            } catch (InterruptedException e) {
+                throw new GradleException(e);
+            }
+        }
+
+        private void deleteDirs() {
+            List<File> sortedDirs = new ArrayList<File>(dirs);
+            // A dir has a longer path than its parent, so the subdirs are deleted first
+            Collections.sort(sortedDirs, new Comparator<File>() {
+                public int compare(File dir1, File dir2) {
+                    return dir2.getPath().length() - dir1.getPath().length();
+                }
+            });
+            for (File dir : sortedDirs) {
+                delete(dir);
+            }
+        }
+
+        private int finish(File rootDir) {
+            if (!failures.isEmpty()) {
+                StringBuilder message = new StringBuilder(String.format("Could not delete %s files of %s:",
+                        failures.size(), rootDir));
+                for (Map.Entry<File, String> failure : failures.entrySet()) {
+                    message.append(String.format("%n  %s: %s", failure.getKey(), failure.getValue()));
+                }
+                throw new GradleException(message.toString());
+            }
+            logger.debug("Deleted {} files and dirs of {}.", deletedCount.get(), rootDir);
+            return deletedCount.get();
+        }
+    }
+}
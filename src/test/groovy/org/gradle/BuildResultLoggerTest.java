@@ -23,6 +23,9 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.slf4j.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.api.artifacts.ResolutionMetrics;
+import org.gradle.api.tasks.compile.CompileMetrics;
+import org.gradle.util.WrapUtil;
 
 @RunWith(org.jmock.integration.junit4.JMock.class)
 public class BuildResultLoggerTest {
@@ -46,6 +49,20 @@ public class BuildResultLoggerTest {
         listener.buildFinished(new BuildResult(null, null));
     }
 
+    @Test
+    public void logsCompileMetrics() {
+        final CompileMetrics metrics = new CompileMetrics(":compile");
+        metrics.setCompileTime(100);
+        context.checking(new Expectations(){{
+            one(logger).info(Logging.LIFECYCLE, String.format("%nBUILD SUCCESSFUL%n"));
+            one(logger).info("Executed 1 compile tasks in 100 ms, most costly first:");
+            one(logger).info("  {}", metrics);
+            one(logger).info(with(equal(Logging.LIFECYCLE)), with(startsWith("Total time:")));
+        }});
+
+        listener.buildFinished(new BuildResult(null, null, new ResolutionMetrics(), WrapUtil.toList(metrics)));
+    }
+
     @Test
     public void logsBuildFailedAndTotalTime() {
         context.checking(new Expectations(){{
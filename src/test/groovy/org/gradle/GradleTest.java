@@ -23,7 +23,9 @@ import org.gradle.api.initialization.ProjectDescriptor;
 import org.gradle.api.initialization.Settings;
 import org.gradle.api.internal.SettingsInternal;
 import org.gradle.api.internal.BuildInternal;
+import org.gradle.api.internal.artifacts.ResolveAheadListener;
 import org.gradle.api.internal.project.DefaultProject;
+import org.gradle.api.tasks.compile.CompileMetricsCollector;
 import org.gradle.configuration.BuildConfigurer;
 import org.gradle.execution.TaskExecuter;
 import org.gradle.initialization.DefaultProjectDescriptor;
@@ -247,6 +249,8 @@ public class GradleTest {
                 will(returnValue(buildMock));
                 one(buildConfigurerMock).process(expectedRootProject);
                 one(taskExecuterMock).addTaskExecutionGraphListener(with(notNullValue(TaskExecutionGraphListener.class)));
+                one(taskExecuterMock).addTaskExecutionGraphListener(with(any(ResolveAheadListener.class)));
+                one(taskExecuterMock).addTaskExecutionListener(with(any(CompileMetricsCollector.class)));
                 one(taskExecuterMock).addTasks(expectedTasks.get(0));
                 one(taskExecuterMock).addTasks(expectedTasks.get(1));
                 one(taskExecuterMock).execute();
@@ -261,6 +265,8 @@ public class GradleTest {
                         testGradleProperties);
                 will(returnValue(buildMock));
                 one(taskExecuterMock).addTaskExecutionGraphListener(with(notNullValue(TaskExecutionGraphListener.class)));
+                one(taskExecuterMock).addTaskExecutionGraphListener(with(any(ResolveAheadListener.class)));
+                one(taskExecuterMock).addTaskExecutionListener(with(any(CompileMetricsCollector.class)));
                 one(buildConfigurerMock).process(expectedRootProject);
                 one(taskExecuterMock).addTasks(expectedTasks.get(0));
                 one(taskExecuterMock).addTasks(expectedTasks.get(1));
@@ -279,6 +285,8 @@ public class GradleTest {
                         testGradleProperties);
                 will(returnValue(buildMock));
                 one(taskExecuterMock).addTaskExecutionGraphListener(with(notNullValue(TaskExecutionGraphListener.class)));
+                one(taskExecuterMock).addTaskExecutionGraphListener(with(any(ResolveAheadListener.class)));
+                one(taskExecuterMock).addTaskExecutionListener(with(any(CompileMetricsCollector.class)));
                 one(settingsProcessorMock).process(settingsFinderMock, expectedStartParams, gradlePropertiesLoaderMock);
                 will(returnValue(settingsMock));
                 one(buildConfigurerMock).process(expectedRootProject);
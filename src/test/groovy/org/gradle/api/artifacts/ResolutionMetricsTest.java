@@ -0,0 +1,75 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.artifacts;
+
+import org.gradle.util.WrapUtil;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ResolutionMetricsTest {
+    private final ResolutionMetrics metrics = new ResolutionMetrics();
+
+    @Test
+    public void sumsValuesByKey() {
+        metrics.addConfigurationResolve("org:a:compile", 100);
+        metrics.addConfigurationResolve("org:b:compile", 50);
+        metrics.addConfigurationResolve("org:a:compile", 10);
+        metrics.addResolverTime("maven", 30);
+        metrics.addResolverTime("maven", 20);
+        metrics.addBytesDownloaded("maven", 1024);
+        metrics.addModulesResolved(3);
+        metrics.addModulesResolved(2);
+        metrics.addCacheHit();
+        metrics.addCacheMiss();
+        metrics.addCacheMiss();
+
+        assertEquals(WrapUtil.toList("org:a:compile", "org:b:compile"),
+                new ArrayList<String>(metrics.getConfigurationResolveTimes().keySet()));
+        assertEquals(Long.valueOf(110), metrics.getConfigurationResolveTimes().get("org:a:compile"));
+        assertEquals(160, metrics.getTotalResolveTime());
+        assertEquals(WrapUtil.toMap("maven", 50L), metrics.getResolverTimes());
+        assertEquals(WrapUtil.toMap("maven", 1024L), metrics.getBytesDownloaded());
+        assertEquals(5, metrics.getModulesResolved());
+        assertEquals(1, metrics.getCacheHits());
+        assertEquals(2, metrics.getCacheMisses());
+    }
+
+    @Test
+    public void collectsMetricsFromConcurrentResolves() throws InterruptedException {
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread() {
+                public void run() {
+                    for (int j = 0; j < 1000; j++) {
+                        metrics.addResolverTime("maven", 1);
+                        metrics.addCacheHit();
+                    }
+                }
+            };
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(Long.valueOf(4000), metrics.getResolverTimes().get("maven"));
+        assertEquals(4000, metrics.getCacheHits());
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.artifacts.report;
+
+import org.apache.ivy.core.module.descriptor.DefaultArtifact;
+import org.apache.ivy.core.module.descriptor.DefaultModuleDescriptor;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.report.ArtifactDownloadReport;
+import org.apache.ivy.core.report.ConfigurationResolveReport;
+import org.apache.ivy.core.report.DownloadStatus;
+import org.apache.ivy.core.report.MetadataArtifactDownloadReport;
+import org.apache.ivy.core.report.ResolveReport;
+import org.apache.ivy.core.resolve.IvyNode;
+import org.apache.ivy.core.resolve.IvyNodeCallers.Caller;
+import org.apache.ivy.core.resolve.ResolvedModuleRevision;
+import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.gradle.util.WrapUtil;
+import org.jmock.Expectations;
+import org.jmock.integration.junit4.JMock;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import org.jmock.lib.legacy.ClassImposteriser;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(JMock.class)
+public class IvyDependencyGraphWalkerTest {
+    private static final String CONF = "compile";
+
+    private final JUnit4Mockery context = new JUnit4Mockery() {{
+        setImposteriser(ClassImposteriser.INSTANCE);
+    }};
+    private final ModuleRevisionId rootId = ModuleRevisionId.newInstance("org", "root", "1.0");
+    private final List<String> visits = new ArrayList<String>();
+    private final List<IvyDependency> visitedDependencies = new ArrayList<IvyDependency>();
+    private final IvyDependencyVisitor visitor = new IvyDependencyVisitor() {
+        public void visitDependency(IvyDependency dependency, int depth, boolean dependenciesOmitted) {
+            visits.add(depth + " " + dependency.getName() + (dependenciesOmitted ? " (*)" : ""));
+            visitedDependencies.add(dependency);
+        }
+    };
+    private ConfigurationResolveReport configurationReport;
+
+    @Test
+    public void walksDependenciesOfSharedModuleOnlyOnce() throws Exception {
+        IvyNode leaf = node("leaf");
+        IvyNode shared = node("shared", leaf);
+        IvyNode a = node("a", shared);
+        IvyNode b = node("b", shared, leaf);
+        final ResolveReport report = resolveReport(direct(a), direct(b), shared, leaf);
+
+        new IvyDependencyGraphWalker().walk(report, CONF, visitor);
+
+        assertEquals(WrapUtil.toList("0 root", "1 a", "2 shared", "3 leaf", "1 b", "2 shared (*)", "2 leaf"), visits);
+    }
+
+    @Test
+    public void walksCycleOnlyOnce() throws Exception {
+        final IvyNode a = context.mock(IvyNode.class, "a");
+        final IvyNode b = node("b", a);
+        context.checking(new Expectations() {{
+            allowing(a).getResolvedId();
+            will(returnValue(ModuleRevisionId.newInstance("org", "a", "1.0")));
+            allowing(a).getModuleRevision();
+            will(returnValue(null));
+            allowing(a).getDependencies(CONF, new String[] {CONF});
+            will(returnValue(WrapUtil.toList(b)));
+        }});
+        final ResolveReport report = resolveReport(direct(a), b);
+
+        new IvyDependencyGraphWalker().walk(report, CONF, visitor);
+
+        assertEquals(WrapUtil.toList("0 root", "1 a", "2 b", "3 a (*)"), visits);
+    }
+
+    @Test
+    public void populatesResolutionDetailsFromDownloadReports() throws Exception {
+        final ModuleRevisionId id = ModuleRevisionId.newInstance("org", "a", "1.0");
+        final IvyNode a = context.mock(IvyNode.class, "a");
+        final ResolvedModuleRevision moduleRevision = context.mock(ResolvedModuleRevision.class);
+        final DependencyResolver resolver = context.mock(DependencyResolver.class);
+        final MetadataArtifactDownloadReport descriptorReport = new MetadataArtifactDownloadReport(
+                DefaultArtifact.newIvyArtifact(id, null));
+        descriptorReport.setDownloadStatus(DownloadStatus.NO);
+        descriptorReport.setDownloadTimeMillis(5);
+        configurationReport = context.mock(ConfigurationResolveReport.class);
+        context.checking(new Expectations() {{
+            allowing(a).getResolvedId();
+            will(returnValue(id));
+            allowing(a).getDependencies(CONF, new String[] {CONF});
+            will(returnValue(new ArrayList<IvyNode>()));
+            allowing(a).getModuleRevision();
+            will(returnValue(moduleRevision));
+            allowing(moduleRevision).getResolver();
+            will(returnValue(resolver));
+            allowing(moduleRevision).getReport();
+            will(returnValue(descriptorReport));
+            allowing(resolver).getName();
+            will(returnValue("someResolver"));
+            allowing(configurationReport).getDownloadReports(id);
+            will(returnValue(new ArtifactDownloadReport[] {downloadReport(id, "a", DownloadStatus.NO, 100, 0),
+                    downloadReport(id, "a-sources", DownloadStatus.SUCCESSFUL, 50, 20)}));
+        }});
+        final ResolveReport report = resolveReport(direct(a));
+
+        new IvyDependencyGraphWalker().walk(report, CONF, visitor);
+
+        IvyDependency dependency = visitedDependencies.get(1);
+        assertEquals("someResolver", dependency.getResolver());
+        assertFalse(dependency.isFromCache());
+        assertEquals(150, dependency.getSize());
+        assertEquals(5, dependency.getResolveTimeMillis());
+        assertEquals(20, dependency.getDownloadTimeMillis());
+    }
+
+    @Test
+    public void visitsLaterOccurrencesOfModuleWithResolutionDetailsOfFirstOccurrence() throws Exception {
+        final IvyNode shared = context.mock(IvyNode.class, "shared");
+        final ResolvedModuleRevision moduleRevision = context.mock(ResolvedModuleRevision.class);
+        final DependencyResolver resolver = context.mock(DependencyResolver.class);
+        context.checking(new Expectations() {{
+            allowing(shared).getResolvedId();
+            will(returnValue(ModuleRevisionId.newInstance("org", "shared", "1.0")));
+            allowing(shared).getDependencies(CONF, new String[] {CONF});
+            will(returnValue(new ArrayList<IvyNode>()));
+            one(shared).getModuleRevision();
+            will(returnValue(moduleRevision));
+            allowing(moduleRevision).getResolver();
+            will(returnValue(resolver));
+            allowing(moduleRevision).getReport();
+            will(returnValue(null));
+            allowing(resolver).getName();
+            will(returnValue("someResolver"));
+        }});
+        IvyNode a = node("a", shared);
+        IvyNode b = node("b", shared);
+        final ResolveReport report = resolveReport(direct(a), direct(b), shared);
+
+        new IvyDependencyGraphWalker().walk(report, CONF, visitor);
+
+        assertEquals(WrapUtil.toList("0 root", "1 a", "2 shared", "1 b", "2 shared"), visits);
+        assertEquals("someResolver", visitedDependencies.get(2).getResolver());
+        assertEquals("someResolver", visitedDependencies.get(4).getResolver());
+    }
+
+    @Test
+    public void walksLargeGraphWithSharedSubtreesInLinearTime() throws Exception {
+        // 20 layers of 20 modules, each depending on 3 modules of the next layer. Walking every path would never end.
+        int layers = 20;
+        int modulesPerLayer = 20;
+        List<IvyNode> nodes = new ArrayList<IvyNode>();
+        IvyNode[] nextLayer = new IvyNode[0];
+        for (int layer = layers - 1; layer >= 0; layer--) {
+            IvyNode[] currentLayer = new IvyNode[modulesPerLayer];
+            for (int module = 0; module < modulesPerLayer; module++) {
+                List<IvyNode> dependencies = new ArrayList<IvyNode>();
+                for (int i = 0; i < 3 && nextLayer.length > 0; i++) {
+                    dependencies.add(nextLayer[(module + i) % modulesPerLayer]);
+                }
+                currentLayer[module] = nodeWalkedOnce("module" + layer + "_" + module, dependencies);
+                nodes.add(layer == 0 ? direct(currentLayer[module]) : currentLayer[module]);
+            }
+            nextLayer = currentLayer;
+        }
+        final ResolveReport report = resolveReport(nodes.toArray(new IvyNode[nodes.size()]));
+
+        long start = System.currentTimeMillis();
+        new IvyDependencyGraphWalker().walk(report, CONF, visitor);
+        LoggerFactory.getLogger(IvyDependencyGraphWalkerTest.class).info("Walked {} dependencies in {} ms",
+                visits.size(), System.currentTimeMillis() - start);
+
+        int edges = modulesPerLayer + (layers - 1) * modulesPerLayer * 3;
+        assertEquals(edges + 1, visits.size());
+    }
+
+    private ArtifactDownloadReport downloadReport(ModuleRevisionId id, String name, DownloadStatus status, long size,
+                                                  long downloadTimeMillis) {
+        ArtifactDownloadReport downloadReport = new ArtifactDownloadReport(new DefaultArtifact(id, null, name, "jar",
+                "jar"));
+        downloadReport.setDownloadStatus(status);
+        downloadReport.setSize(size);
+        downloadReport.setDownloadTimeMillis(downloadTimeMillis);
+        return downloadReport;
+    }
+
+    private IvyNode node(final String name, final IvyNode... dependencies) {
+        final IvyNode node = context.mock(IvyNode.class, name);
+        context.checking(new Expectations() {{
+            allowing(node).getResolvedId();
+            will(returnValue(ModuleRevisionId.newInstance("org", name, "1.0")));
+            allowing(node).getModuleRevision();
+            will(returnValue(null));
+            allowing(node).getDependencies(CONF, new String[] {CONF});
+            will(returnValue(WrapUtil.toList(dependencies)));
+        }});
+        return node;
+    }
+
+    private IvyNode nodeWalkedOnce(final String name, final List<IvyNode> dependencies) {
+        final IvyNode node = context.mock(IvyNode.class, name);
+        context.checking(new Expectations() {{
+            allowing(node).getResolvedId();
+            will(returnValue(ModuleRevisionId.newInstance("org", name, "1.0")));
+            allowing(node).getModuleRevision();
+            will(returnValue(null));
+            one(node).getDependencies(CONF, new String[] {CONF});
+            will(returnValue(dependencies));
+        }});
+        return node;
+    }
+
+    private IvyNode direct(final IvyNode node) {
+        final Caller caller = context.mock(Caller.class, "callerOf" + node);
+        context.checking(new Expectations() {{
+            allowing(caller).getModuleRevisionId();
+            will(returnValue(rootId));
+            allowing(node).getCallers(CONF);
+            will(returnValue(new Caller[] {caller}));
+        }});
+        return node;
+    }
+
+    private ResolveReport resolveReport(final IvyNode... nodes) {
+        final ResolveReport report = context.mock(ResolveReport.class);
+        context.checking(new Expectations() {{
+            allowing(report).getModuleDescriptor();
+            will(returnValue(DefaultModuleDescriptor.newDefaultInstance(rootId)));
+            allowing(report).getDependencies();
+            will(returnValue(WrapUtil.toList(nodes)));
+            allowing(report).getConfigurationReport(CONF);
+            will(returnValue(configurationReport));
+        }});
+        for (final IvyNode node : nodes) {
+            context.checking(new Expectations() {{
+                allowing(node).getCallers(CONF);
+                will(returnValue(new Caller[0]));
+            }});
+        }
+        return report;
+    }
+}
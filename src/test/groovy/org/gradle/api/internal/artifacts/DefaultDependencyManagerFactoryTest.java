@@ -76,6 +76,7 @@ public class DefaultDependencyManagerFactoryTest {
         DefaultDependencyManager dependencyManager = (DefaultDependencyManager)
                 new DefaultDependencyManagerFactory(settingsFinderMock, CacheUsage.ON).createDependencyManager(expectedProject, testGradleUserHome);
         assertTrue(expectedBuildResolverDir.isDirectory());
+        assertFalse(dependencyManager.getIvyHandler().getSettingsConverter().isRefreshChangingModules());
         checkCommon(expectedProject, dependencyManager);
     }
 
@@ -83,6 +84,7 @@ public class DefaultDependencyManagerFactoryTest {
         DefaultDependencyManager dependencyManager = (DefaultDependencyManager)
                 new DefaultDependencyManagerFactory(settingsFinderMock, CacheUsage.OFF).createDependencyManager(expectedProject, testGradleUserHome);
         assertTrue(!expectedBuildResolverDir.isDirectory());
+        assertTrue(dependencyManager.getIvyHandler().getSettingsConverter().isRefreshChangingModules());
         checkCommon(expectedProject, dependencyManager);
     }
 
@@ -90,9 +92,32 @@ public class DefaultDependencyManagerFactoryTest {
         DefaultDependencyManager dependencyManager = (DefaultDependencyManager)
                 new DefaultDependencyManagerFactory(settingsFinderMock, CacheUsage.REBUILD).createDependencyManager(expectedProject, testGradleUserHome);
         assertTrue(!expectedBuildResolverDir.isDirectory());
+        assertTrue(dependencyManager.getIvyHandler().getSettingsConverter().isRefreshChangingModules());
         checkCommon(expectedProject, dependencyManager);
     }
 
+    @Test public void testDependencyManagersShareResolutionMetrics() {
+        DefaultDependencyManagerFactory dependencyManagerFactory = new DefaultDependencyManagerFactory(settingsFinderMock, CacheUsage.ON);
+        DefaultDependencyManager dependencyManager1 = (DefaultDependencyManager)
+                dependencyManagerFactory.createDependencyManager(expectedProject, testGradleUserHome);
+        DefaultDependencyManager dependencyManager2 = (DefaultDependencyManager)
+                dependencyManagerFactory.createDependencyManager(new DefaultProject("otherProject"), testGradleUserHome);
+        assertSame(dependencyManagerFactory.getResolutionMetrics(), dependencyManager1.getIvyHandler().getMetrics());
+        assertSame(dependencyManagerFactory.getResolutionMetrics(), dependencyManager2.getIvyHandler().getMetrics());
+    }
+
+    @Test public void testDependencyManagersShareChangingModuleCache() {
+        DefaultDependencyManagerFactory dependencyManagerFactory = new DefaultDependencyManagerFactory(settingsFinderMock, CacheUsage.ON);
+        DefaultDependencyManager dependencyManager1 = (DefaultDependencyManager)
+                dependencyManagerFactory.createDependencyManager(expectedProject, testGradleUserHome);
+        DefaultDependencyManager dependencyManager2 = (DefaultDependencyManager)
+                dependencyManagerFactory.createDependencyManager(new DefaultProject("otherProject"), testGradleUserHome);
+        ChangingModuleCache changingModuleCache = dependencyManager1.getIvyHandler().getSettingsConverter().getChangingModuleCache();
+        assertEquals(new File(new File(testGradleUserHome, DependencyManager.DEFAULT_CACHE_DIR_NAME), ChangingModuleCache.FILE_NAME),
+                changingModuleCache.getCacheFile());
+        assertSame(changingModuleCache, dependencyManager2.getIvyHandler().getSettingsConverter().getChangingModuleCache());
+    }
+
     private void checkCommon(Project expectedProject, DefaultDependencyManager dependencyManager) {
         assertEquals(new File(expectedProject.getBuildDir(), DependencyManager.TMP_CACHE_DIR_NAME) ,((DefaultResolverFactory) dependencyManager.getResolverFactory()).getTmpIvyCache());
         assertEquals(expectedBuildResolverDir, dependencyManager.getBuildResolverHandler().getBuildResolverDir());
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts;
+
+import org.gradle.api.DependencyManager;
+import org.gradle.api.Task;
+import org.gradle.api.artifacts.ConfigurationResolveInstructionModifier;
+import org.gradle.api.execution.TaskExecutionGraph;
+import org.gradle.api.internal.tasks.ResolvingTask;
+import org.jmock.Expectations;
+import org.jmock.integration.junit4.JMock;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import org.jmock.lib.legacy.ClassImposteriser;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@RunWith(JMock.class)
+public class ResolveAheadListenerTest {
+    private final JUnit4Mockery context = new JUnit4Mockery() {{
+        setImposteriser(ClassImposteriser.INSTANCE);
+    }};
+
+    private final TaskExecutionGraph graphMock = context.mock(TaskExecutionGraph.class);
+    private final List<Task> tasks = new ArrayList<Task>();
+    private final ResolveAheadListener listener = new ResolveAheadListener(2);
+
+    @After
+    public void tearDown() {
+        listener.stop();
+    }
+
+    @Test
+    public void resolvesConfigurationsOfDifferentDependencyManagersConcurrently() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(2);
+        final CountDownLatch bothStarted = new CountDownLatch(2);
+        Runnable resolve = new Runnable() {
+            public void run() {
+                started.countDown();
+                try {
+                    // Only returns if the other resolve runs at the same time
+                    if (started.await(10, TimeUnit.SECONDS)) {
+                        bothStarted.countDown();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        addResolvingTask("a", true, resolve);
+        addResolvingTask("b", true, resolve);
+
+        listener.graphPopulated(graphMock);
+
+        assertTrue(bothStarted.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void doesNotResolveConfigurationsOfDependencyManagersWithoutResolveAhead() {
+        addResolvingTask("a", false, null);
+
+        listener.graphPopulated(graphMock);
+    }
+
+    @Test
+    public void stopCancelsResolvesWhichHaveNotBeenStarted() throws InterruptedException {
+        final CountDownLatch running = new CountDownLatch(1);
+        final AtomicBoolean secondResolveRun = new AtomicBoolean();
+        ResolveAheadListener singleThreadListener = new ResolveAheadListener(1);
+        addResolvingTask("a", true, new Runnable() {
+            public void run() {
+                running.countDown();
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        addResolvingTask("b", true, new Runnable() {
+            public void run() {
+                secondResolveRun.set(true);
+            }
+        });
+        singleThreadListener.graphPopulated(graphMock);
+        assertTrue(running.await(10, TimeUnit.SECONDS));
+
+        singleThreadListener.stop();
+
+        assertFalse(secondResolveRun.get());
+    }
+
+    private void addResolvingTask(String name, final boolean resolveAhead, final Runnable resolve) {
+        final ResolvingTask task = context.mock(ResolvingTask.class, name);
+        final DependencyManager dependencyManager = context.mock(DependencyManager.class, name + "DependencyManager");
+        final DefaultConfigurationResolver configuration = context.mock(DefaultConfigurationResolver.class, name + "Configuration");
+        final ConfigurationResolveInstructionModifier resolveInstruction = new ConfigurationResolveInstructionModifier("compile");
+        tasks.add(task);
+        context.checking(new Expectations() {{
+            allowing(graphMock).getAllTasks();
+            will(returnValue(tasks));
+            allowing(task).getResolveInstruction();
+            will(returnValue(resolveInstruction));
+            allowing(task).getDependencyManager();
+            will(returnValue(dependencyManager));
+            allowing(dependencyManager).isResolveAhead();
+            will(returnValue(resolveAhead));
+            if (resolveAhead) {
+                allowing(dependencyManager).findConfiguration("compile");
+                will(returnValue(configuration));
+                one(configuration).resolveAhead(resolveInstruction);
+                will(returnValue(resolve));
+            }
+        }});
+    }
+}
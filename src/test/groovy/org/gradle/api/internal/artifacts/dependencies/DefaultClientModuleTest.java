@@ -20,6 +20,7 @@ import org.apache.ivy.core.module.descriptor.DefaultDependencyDescriptor;
 import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
 import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
 import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.artifacts.Dependency;
 import org.gradle.api.artifacts.DependencyArtifact;
 import org.gradle.api.internal.artifacts.dependencies.AbstractDependency;
 import org.gradle.api.internal.artifacts.dependencies.DefaultClientModule;
@@ -36,7 +37,9 @@ import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -153,6 +156,9 @@ public class DefaultClientModuleTest extends AbstractDependencyTest {
         context.checking(new Expectations() {{
             allowing(dependencyContainerMock).getClientModuleRegistry();
             will(returnValue(testModuleRegistry));
+
+            allowing(dependencyContainerMock).getDependencies();
+            will(returnValue(new ArrayList<Dependency>()));
             
             allowing(dependencyDescriptorFactoryMock).createFromClientModule(parentModuleDescriptorMock,
                     clientModule);
@@ -166,4 +172,47 @@ public class DefaultClientModuleTest extends AbstractDependencyTest {
         assertSame(expectedDependencyDescriptor, clientModule.createDependencyDescriptor(parentModuleDescriptorMock));
         assertThat((ModuleDescriptor) testModuleRegistry.get(TEST_MODULE_DESCRIPTOR_WITH_CLASSIFIER), Matchers.sameInstance(clientModuleDescriptorMock));
     }
+
+    @Test
+    public void testCreateDependencyDescriptorReusesModuleDescriptorUntilDependenciesChange() {
+        final DefaultClientModule clientModule = new DefaultClientModule(TEST_CONF_MAPPING, TEST_MODULE_DESCRIPTOR, dependencyContainerMock);
+        final ClientModuleDescriptorFactory clientModuleDescriptorFactoryMock = context.mock(ClientModuleDescriptorFactory.class);
+        clientModule.setClientModuleDescriptorFactory(clientModuleDescriptorFactoryMock);
+        clientModule.setDependencyDescriptorFactory(dependencyDescriptorFactoryMock);
+        final List<Dependency> dependencies = new ArrayList<Dependency>();
+
+        final ModuleDescriptor parentModuleDescriptorMock = context.mock(ModuleDescriptor.class, "parent");
+        final ModuleDescriptor clientModuleDescriptorMock = context.mock(ModuleDescriptor.class, "clientModule");
+        final ModuleDescriptor changedClientModuleDescriptorMock = context.mock(ModuleDescriptor.class, "changedClientModule");
+        context.checking(new Expectations() {{
+            allowing(dependencyContainerMock).getClientModuleRegistry();
+            will(returnValue(testModuleRegistry));
+
+            allowing(dependencyContainerMock).getDependencies();
+            will(returnValue(dependencies));
+
+            allowing(dependencyDescriptorFactoryMock).createFromClientModule(parentModuleDescriptorMock,
+                    clientModule);
+            will(returnValue(expectedDependencyDescriptor));
+
+            allowing(clientModuleDescriptorMock).getModuleRevisionId();
+            will(returnValue(expectedDependencyDescriptor.getDependencyRevisionId()));
+
+            one(clientModuleDescriptorFactoryMock).createModuleDescriptor(
+                    expectedDependencyDescriptor.getDependencyRevisionId(), dependencyContainerMock);
+            will(returnValue(clientModuleDescriptorMock));
+
+            one(clientModuleDescriptorFactoryMock).createModuleDescriptor(
+                    expectedDependencyDescriptor.getDependencyRevisionId(), dependencyContainerMock);
+            will(returnValue(changedClientModuleDescriptorMock));
+        }});
+
+        clientModule.createDependencyDescriptor(parentModuleDescriptorMock);
+        clientModule.createDependencyDescriptor(parentModuleDescriptorMock);
+        assertThat((ModuleDescriptor) testModuleRegistry.get(TEST_MODULE_DESCRIPTOR), Matchers.sameInstance(clientModuleDescriptorMock));
+
+        dependencies.add(context.mock(Dependency.class));
+        clientModule.createDependencyDescriptor(parentModuleDescriptorMock);
+        assertThat((ModuleDescriptor) testModuleRegistry.get(TEST_MODULE_DESCRIPTOR), Matchers.sameInstance(changedClientModuleDescriptorMock));
+    }
 }
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.dependencies;
+
+import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.Dependency;
+import org.gradle.api.artifacts.DependencyConfigurationMappingContainer;
+import static org.gradle.api.artifacts.specs.DependencySpecs.*;
+import org.gradle.api.artifacts.specs.Type;
+import org.gradle.api.internal.artifacts.configurations.DefaultConfigurationContainer;
+import org.gradle.api.internal.artifacts.configurations.DefaultDependencyConfigurationMappingContainer;
+import org.gradle.api.specs.Spec;
+import org.gradle.api.specs.Specs;
+import org.gradle.util.HelperUtil;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+
+public class DefaultDependencyContainerTest {
+    private static final int DEPENDENCY_COUNT = 3000;
+
+    private DefaultConfigurationContainer configurationContainer;
+    private DefaultDependencyContainer dependencyContainer;
+    private Project project;
+
+    @Before
+    public void setUp() {
+        project = HelperUtil.createRootProject(new File("root"));
+        Project dependencyProject = HelperUtil.createRootProject(new File("dependency"));
+        configurationContainer = new DefaultConfigurationContainer();
+        configurationContainer.add("compile");
+        configurationContainer.add("runtime").extendsFrom("compile");
+        configurationContainer.add("testCompile").extendsFrom("compile");
+        configurationContainer.add("testRuntime").extendsFrom("runtime", "testCompile");
+        dependencyContainer = new DefaultDependencyContainer(project, configurationContainer, null,
+                new DefaultExcludeRuleContainer(), new HashMap<String, ModuleDescriptor>());
+        String[] confs = {"compile", "runtime", "testCompile", "testRuntime"};
+        for (int i = 0; i < DEPENDENCY_COUNT; i++) {
+            if (i % 10 == 0) {
+                dependencyContainer.addDependencies(new DefaultProjectDependency(
+                        mapping(confs[i % confs.length]), dependencyProject, project));
+            } else if (i % 7 == 0) {
+                dependencyContainer.addDependencies(new DefaultModuleDependency(
+                        mapping(confs[i % confs.length], confs[(i + 1) % confs.length]), "org:module" + i + ":1.0"));
+            } else {
+                dependencyContainer.addDependencies(new DefaultModuleDependency(
+                        mapping(confs[i % confs.length]), "org:module" + i + ":1.0"));
+            }
+        }
+    }
+
+    private DependencyConfigurationMappingContainer mapping(String... masterConfs) {
+        DependencyConfigurationMappingContainer mappingContainer = new DefaultDependencyConfigurationMappingContainer();
+        for (String masterConf : masterConfs) {
+            mappingContainer.addMasters(configurationContainer.get(masterConf));
+        }
+        return mappingContainer;
+    }
+
+    @Test
+    public void indexedLookupOfLargeContainerReturnsSameResultAsFilteringAllDependencies() {
+        assertLookupAsFiltered(confs("compile"));
+        assertLookupAsFiltered(confs("testRuntime"));
+        assertLookupAsFiltered(confs("runtime", "testCompile"));
+        assertLookupAsFiltered(confsWithoutExtensions("compile"));
+        assertLookupAsFiltered(confsWithoutExtensions("runtime", "testRuntime"));
+        assertLookupAsFiltered(confs("unknown"));
+        assertLookupAsFiltered(type(Type.PROJECT));
+        assertLookupAsFiltered(type(Type.EXTERNAL));
+        assertLookupAsFiltered(Specs.and(confs("testRuntime"), type(Type.PROJECT)));
+        assertLookupAsFiltered(Specs.and(confsWithoutExtensions("runtime"), type(Type.EXTERNAL)));
+        assertLookupAsFiltered(Specs.<Dependency>satisfyAll());
+    }
+
+    @Test
+    public void lookupEvaluatesSpecOnlyForIndexedCandidates() {
+        final int[] evaluations = new int[1];
+        Spec countingSpec = new Spec() {
+            public boolean isSatisfiedBy(Object dependency) {
+                evaluations[0]++;
+                return true;
+            }
+        };
+        List<Dependency> testRuntimeDependencies = dependencyContainer.getDependencies(
+                Specs.and(countingSpec, confsWithoutExtensions("testRuntime")));
+        assertEquals(testRuntimeDependencies.size(), evaluations[0]);
+        assertTrue(evaluations[0] < DEPENDENCY_COUNT / 3);
+    }
+
+    @Test
+    public void repeatedLookupsReuseIndexUntilMasterConfigurationsChange() {
+        final int[] configurationQueries = new int[1];
+        Dependency dependency = new DefaultModuleDependency(mapping("compile"), "org:counted:1.0") {
+            public Set<Configuration> getConfigurations() {
+                configurationQueries[0]++;
+                return super.getConfigurations();
+            }
+        };
+        dependencyContainer.addDependencies(dependency);
+        configurationQueries[0] = 0;
+        dependencyContainer.getDependencies(type(Type.EXTERNAL));
+        assertEquals(1, configurationQueries[0]);
+
+        dependencyContainer.getDependencies(type(Type.EXTERNAL));
+        dependencyContainer.getDependencies(type(Type.PROJECT));
+        assertEquals(1, configurationQueries[0]);
+
+        dependency.addConfiguration(configurationContainer.get("testRuntime"));
+        configurationQueries[0] = 0;
+        dependencyContainer.getDependencies(type(Type.EXTERNAL));
+        assertEquals(1, configurationQueries[0]);
+    }
+
+    @Test
+    public void lookupSeesConfigurationsAddedDirectlyToMappingContainerOfDependency() {
+        DependencyConfigurationMappingContainer mappingContainer = mapping("compile");
+        Dependency dependency = new DefaultModuleDependency(mappingContainer, "org:new:1.0");
+        dependencyContainer.addDependencies(dependency);
+        assertFalse(dependencyContainer.getDependencies(confsWithoutExtensions("testRuntime")).contains(dependency));
+        mappingContainer.addMasters(configurationContainer.get("testRuntime"));
+        assertTrue(dependencyContainer.getDependencies(confsWithoutExtensions("testRuntime")).contains(dependency));
+    }
+
+    @Test
+    public void lookupSeesDependenciesAddedAfterPreviousLookup() {
+        List<Dependency> compileDependencies = dependencyContainer.getDependencies(confsWithoutExtensions("compile"));
+        Dependency newDependency = new DefaultModuleDependency(mapping("compile"), "org:new:1.0");
+        dependencyContainer.addDependencies(newDependency);
+        List<Dependency> newCompileDependencies = dependencyContainer.getDependencies(confsWithoutExtensions("compile"));
+        assertEquals(compileDependencies.size() + 1, newCompileDependencies.size());
+        assertSame(newDependency, newCompileDependencies.get(newCompileDependencies.size() - 1));
+    }
+
+    @Test
+    public void lookupSeesDependenciesAddedToDependencyList() {
+        dependencyContainer.getDependencies(type(Type.EXTERNAL));
+        Dependency newDependency = new DefaultModuleDependency(mapping("testRuntime"), "org:new:1.0");
+        ((List<Dependency>) dependencyContainer.getDependencies()).add(newDependency);
+        assertTrue(dependencyContainer.getDependencies(type(Type.EXTERNAL)).contains(newDependency));
+    }
+
+    @Test
+    public void lookupSeesConfigurationsAddedToDependencyAfterPreviousLookup() {
+        Dependency dependency = dependencyContainer.getDependencies().get(1);
+        assertFalse(dependencyContainer.getDependencies(confsWithoutExtensions("testRuntime")).contains(dependency));
+        dependency.addConfiguration(configurationContainer.get("testRuntime"));
+        assertTrue(dependencyContainer.getDependencies(confsWithoutExtensions("testRuntime")).contains(dependency));
+        assertLookupAsFiltered(confsWithoutExtensions("testRuntime"));
+    }
+
+    @Test
+    public void lookupSeesReplacedConfigurationMappingsOfDependency() {
+        Dependency dependency = dependencyContainer.getDependencies().get(1);
+        assertTrue(dependencyContainer.getDependencies(confsWithoutExtensions("runtime")).contains(dependency));
+        dependency.setDependencyConfigurationMappings(mapping("testCompile"));
+        assertFalse(dependencyContainer.getDependencies(confsWithoutExtensions("runtime")).contains(dependency));
+        assertTrue(dependencyContainer.getDependencies(confsWithoutExtensions("testCompile")).contains(dependency));
+    }
+
+    private void assertLookupAsFiltered(Spec spec) {
+        List<Dependency> expected = Specs.filterIterable((Iterable<Dependency>) dependencyContainer.getDependencies(), spec);
+        assertEquals(expected, dependencyContainer.getDependencies(spec));
+    }
+}
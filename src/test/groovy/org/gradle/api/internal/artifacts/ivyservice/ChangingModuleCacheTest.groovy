@@ -0,0 +1,90 @@
+/*
+ * Copyright 2007-2008 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice
+
+import org.apache.ivy.core.module.id.ModuleRevisionId
+import org.gradle.util.HelperUtil
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import static org.junit.Assert.*
+
+class ChangingModuleCacheTest {
+    static final ModuleRevisionId TEST_MODULE = ModuleRevisionId.newInstance('org', 'module', '1.0-SNAPSHOT')
+
+    File cacheDir
+
+    ChangingModuleCache cache
+
+    @Before public void setUp() {
+        cacheDir = HelperUtil.makeNewTestDir()
+        cache = new ChangingModuleCache(cacheDir)
+    }
+
+    @After public void tearDown() {
+        HelperUtil.deleteTestDir()
+    }
+
+    @Test public void testUncheckedModuleIsNotUpToDate() {
+        assertFalse(cache.isUpToDate(TEST_MODULE, 1000, 0))
+    }
+
+    @Test public void testCheckedModuleIsUpToDateWithinTtl() {
+        cache.checked(TEST_MODULE, 1000)
+        assertTrue(cache.isUpToDate(TEST_MODULE, 500, 1499))
+        assertFalse(cache.isUpToDate(TEST_MODULE, 500, 1500))
+    }
+
+    @Test public void testZeroTtlIsNeverUpToDate() {
+        cache.checked(TEST_MODULE, 1000)
+        assertFalse(cache.isUpToDate(TEST_MODULE, 0, 1000))
+    }
+
+    @Test public void testCheckedTimesArePersistedAndShared() {
+        cache.checked(TEST_MODULE, 1000)
+        assertTrue(new File(cacheDir, ChangingModuleCache.FILE_NAME).isFile())
+        ModuleRevisionId otherModule = ModuleRevisionId.newInstance('org', 'other', '2.0-SNAPSHOT')
+        ChangingModuleCache otherCache = new ChangingModuleCache(cacheDir)
+        assertTrue(otherCache.isUpToDate(TEST_MODULE, 500, 1200))
+        otherCache.checked(otherModule, 2000)
+        cache.checked(TEST_MODULE, 3000)
+
+        ChangingModuleCache newCache = new ChangingModuleCache(cacheDir)
+        assertTrue(newCache.isUpToDate(TEST_MODULE, 500, 3200))
+        assertTrue(newCache.isUpToDate(otherModule, 500, 2200))
+    }
+
+    @Test public void testFileIsReadOnlyOnce() {
+        cache.checked(TEST_MODULE, 1000)
+        new File(cacheDir, ChangingModuleCache.FILE_NAME).delete()
+        assertTrue(cache.isUpToDate(TEST_MODULE, 500, 1200))
+    }
+
+    @Test public void testUnparseableEntriesAreExpired() {
+        ModuleRevisionId otherModule = ModuleRevisionId.newInstance('org', 'other', '2.0-SNAPSHOT')
+        new File(cacheDir, ChangingModuleCache.FILE_NAME).withWriter { Writer writer ->
+            Properties properties = new Properties()
+            properties.setProperty(TEST_MODULE.toString(), 'not a time')
+            properties.setProperty(otherModule.toString(), '1000')
+            properties.store(writer, null)
+        }
+        assertFalse(cache.isUpToDate(TEST_MODULE, 500, 1200))
+        assertTrue(cache.isUpToDate(otherModule, 500, 1200))
+        cache.checked(TEST_MODULE, 2000)
+        assertTrue(new ChangingModuleCache(cacheDir).isUpToDate(TEST_MODULE, 500, 2200))
+    }
+}
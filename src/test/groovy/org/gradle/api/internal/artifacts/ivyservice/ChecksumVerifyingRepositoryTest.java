@@ -0,0 +1,169 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.ivy.core.module.descriptor.DefaultArtifact;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.settings.IvySettings;
+import org.apache.ivy.plugins.repository.Resource;
+import org.apache.ivy.plugins.repository.file.FileRepository;
+import org.apache.ivy.plugins.resolver.RepositoryResolver;
+import org.gradle.api.artifacts.ChecksumPolicy;
+import org.gradle.util.HelperUtil;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+public class ChecksumVerifyingRepositoryTest {
+    private static final String CONTENT = "some artifact content";
+
+    private File repositoryDir;
+    private File artifact;
+    private File destination;
+
+    @Before
+    public void setUp() throws IOException {
+        File testDir = HelperUtil.makeNewTestDir();
+        repositoryDir = new File(testDir, "repository");
+        repositoryDir.mkdirs();
+        artifact = new File(repositoryDir, "artifact-1.0.jar");
+        destination = new File(testDir, "cache/artifact-1.0.jar");
+        destination.getParentFile().mkdirs();
+        FileUtils.writeStringToFile(artifact, CONTENT);
+    }
+
+    @After
+    public void tearDown() {
+        HelperUtil.deleteTestDir();
+    }
+
+    private ChecksumVerifyingRepository createRepository(ChecksumPolicy checksumPolicy) {
+        return new ChecksumVerifyingRepository(new FileRepository(), new String[] {"sha1", "md5"}, checksumPolicy);
+    }
+
+    private void writeChecksum(String algorithm, String checksum) throws IOException {
+        FileUtils.writeStringToFile(new File(repositoryDir, artifact.getName() + "." + algorithm), checksum);
+    }
+
+    @Test
+    public void downloadsArtifactWithMatchingChecksum() throws IOException {
+        writeChecksum("sha1", computeChecksum("SHA-1", CONTENT));
+        createRepository(ChecksumPolicy.FAIL).get(artifact.getAbsolutePath(), destination);
+        assertEquals(CONTENT, FileUtils.readFileToString(destination));
+    }
+
+    @Test
+    public void acceptsChecksumFileWithFileName() throws IOException {
+        writeChecksum("sha1", computeChecksum("SHA-1", CONTENT).toUpperCase() + "  " + artifact.getName());
+        createRepository(ChecksumPolicy.FAIL).get(artifact.getAbsolutePath(), destination);
+        assertEquals(CONTENT, FileUtils.readFileToString(destination));
+    }
+
+    @Test
+    public void downloadsArtifactWithoutChecksum() throws IOException {
+        createRepository(ChecksumPolicy.FAIL).get(artifact.getAbsolutePath(), destination);
+        assertEquals(CONTENT, FileUtils.readFileToString(destination));
+    }
+
+    @Test
+    public void failsForCorruptedArtifactWithFailPolicy() throws IOException {
+        writeChecksum("sha1", computeChecksum("SHA-1", CONTENT));
+        FileUtils.writeStringToFile(artifact, CONTENT + "corrupted");
+        try {
+            createRepository(ChecksumPolicy.FAIL).get(artifact.getAbsolutePath(), destination);
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("sha1"));
+        }
+        assertFalse(destination.exists());
+    }
+
+    @Test
+    public void verifiesMd5IfNoSha1IsPublished() throws IOException {
+        writeChecksum("md5", computeChecksum("MD5", CONTENT));
+        FileUtils.writeStringToFile(artifact, CONTENT + "corrupted");
+        try {
+            createRepository(ChecksumPolicy.FAIL).get(artifact.getAbsolutePath(), destination);
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("md5"));
+        }
+    }
+
+    @Test
+    public void keepsCorruptedArtifactWithWarnPolicy() throws IOException {
+        writeChecksum("sha1", computeChecksum("SHA-1", CONTENT));
+        FileUtils.writeStringToFile(artifact, CONTENT + "corrupted");
+        createRepository(ChecksumPolicy.WARN).get(artifact.getAbsolutePath(), destination);
+        assertEquals(CONTENT + "corrupted", FileUtils.readFileToString(destination));
+    }
+
+    @Test
+    public void doesNotVerifyWithIgnorePolicy() throws IOException {
+        writeChecksum("sha1", "invalid");
+        createRepository(ChecksumPolicy.IGNORE).get(artifact.getAbsolutePath(), destination);
+        assertEquals(CONTENT, FileUtils.readFileToString(destination));
+    }
+
+    @Test
+    public void hidesChecksumsOfDownloadedFileFromResolver() throws IOException {
+        writeChecksum("sha1", computeChecksum("SHA-1", CONTENT));
+        writeChecksum("md5", computeChecksum("MD5", CONTENT));
+        ChecksumVerifyingRepository repository = createRepository(ChecksumPolicy.FAIL);
+        String source = artifact.getAbsolutePath();
+        assertTrue(repository.getResource(source).clone(source + ".sha1").exists());
+        repository.get(source, destination);
+        Resource resource = repository.getResource(source);
+        assertFalse(resource.clone(source + ".sha1").exists());
+        assertFalse(resource.clone(source + ".md5").exists());
+        assertTrue(resource.clone(source).exists());
+    }
+
+    @Test
+    public void publishingThroughResolverUploadsChecksums() throws IOException {
+        RepositoryResolver resolver = new RepositoryResolver();
+        resolver.setName("resolver");
+        resolver.setSettings(new IvySettings());
+        resolver.setChecksums("sha1,md5");
+        resolver.setRepository(new ChecksumVerifyingRepository(new FileRepository(), resolver.getChecksumAlgorithms(), ChecksumPolicy.FAIL));
+        resolver.addArtifactPattern(new File(repositoryDir, "published/[artifact]-[revision].[ext]").getAbsolutePath());
+        DefaultArtifact publishArtifact = new DefaultArtifact(ModuleRevisionId.newInstance("org", "artifact", "1.0"), null, "artifact", "jar", "jar");
+
+        resolver.publish(publishArtifact, artifact, true);
+
+        File published = new File(repositoryDir, "published/artifact-1.0.jar");
+        assertEquals(CONTENT, FileUtils.readFileToString(published));
+        assertEquals(computeChecksum("SHA-1", CONTENT), FileUtils.readFileToString(new File(published.getPath() + ".sha1")).trim());
+        assertEquals(computeChecksum("MD5", CONTENT), FileUtils.readFileToString(new File(published.getPath() + ".md5")).trim());
+    }
+
+    private String computeChecksum(String algorithm, String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance(algorithm).digest(content.getBytes());
+            return String.format("%0" + (digest.length * 2) + "x", new BigInteger(1, digest));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
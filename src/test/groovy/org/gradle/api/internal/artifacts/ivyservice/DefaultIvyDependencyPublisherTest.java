@@ -16,21 +16,30 @@
 package org.gradle.api.internal.artifacts.ivyservice;
 
 import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
 import org.apache.ivy.core.publish.PublishEngine;
 import org.apache.ivy.core.publish.PublishOptions;
 import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.apache.ivy.plugins.resolver.RepositoryResolver;
 import org.gradle.api.artifacts.PublishInstruction;
 import org.gradle.util.HelperUtil;
 import org.gradle.util.WrapUtil;
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
 import org.jmock.Expectations;
+import org.jmock.api.Invocation;
 import org.jmock.integration.junit4.JUnit4Mockery;
+import org.jmock.lib.action.CustomAction;
 import org.jmock.lib.legacy.ClassImposteriser;
+import static org.junit.Assert.*;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -109,4 +118,94 @@ public class DefaultIvyDependencyPublisherTest {
         ivyDependencyPublisher.publish(WrapUtil.toSet(expectedConf), publishInstruction, expectedResolverList, moduleDescriptorMock, publishEngineMock);
     }
 
+    @Test
+    public void testPublishWithParallelUploadsWrapsRepositoryResolvers() throws IOException {
+        final PublishInstruction publishInstruction = new PublishInstruction();
+        publishInstruction.getModuleDescriptor().setPublish(false);
+        publishInstruction.setMaxParallelUploads(4);
+        final RepositoryResolver repositoryResolver = new RepositoryResolver();
+        repositoryResolver.setName("repo");
+        final DependencyResolver otherResolver = expectedResolverList.get(0);
+        context.checking(new Expectations() {
+            {
+                allowing(publishOptionsFactoryMock).createPublishOptions(WrapUtil.toSet(expectedConf), publishInstruction, null);
+                will(returnValue(expectedPublishOptions));
+
+                one(publishEngineMock).publish(
+                        with(equal(moduleDescriptorMock)),
+                        with(equal(DefaultIvyDependencyPublisher.ARTIFACT_PATTERN)),
+                        with(parallelPublishResolverFor(repositoryResolver)),
+                        with(equal(expectedPublishOptions)));
+                one(publishEngineMock).publish(moduleDescriptorMock,
+                        DefaultIvyDependencyPublisher.ARTIFACT_PATTERN,
+                        otherResolver,
+                        expectedPublishOptions);
+            }
+        });
+
+        ivyDependencyPublisher.publish(WrapUtil.toSet(expectedConf), publishInstruction,
+                WrapUtil.<DependencyResolver>toList(repositoryResolver, otherResolver), moduleDescriptorMock, publishEngineMock);
+    }
+
+    @Test
+    public void testPublishCompletesUploadsToEarlierResolversIfPublishToLaterResolverFails() throws IOException {
+        final PublishInstruction publishInstruction = new PublishInstruction();
+        publishInstruction.getModuleDescriptor().setPublish(false);
+        publishInstruction.setMaxParallelUploads(4);
+        final List<String> committedResolvers = new ArrayList<String>();
+        final RepositoryResolver repositoryResolver = new RepositoryResolver() {
+            public void commitPublishTransaction() {
+                committedResolvers.add(getName());
+            }
+        };
+        repositoryResolver.setName("repo");
+        final DependencyResolver otherResolver = expectedResolverList.get(0);
+        final RuntimeException failure = new RuntimeException();
+        context.checking(new Expectations() {
+            {
+                allowing(publishOptionsFactoryMock).createPublishOptions(WrapUtil.toSet(expectedConf), publishInstruction, null);
+                will(returnValue(expectedPublishOptions));
+
+                one(publishEngineMock).publish(
+                        with(equal(moduleDescriptorMock)),
+                        with(equal(DefaultIvyDependencyPublisher.ARTIFACT_PATTERN)),
+                        with(parallelPublishResolverFor(repositoryResolver)),
+                        with(equal(expectedPublishOptions)));
+                will(new CustomAction("publish an empty transaction") {
+                    public Object invoke(Invocation invocation) throws Throwable {
+                        DependencyResolver resolver = (DependencyResolver) invocation.getParameter(2);
+                        resolver.beginPublishTransaction(ModuleRevisionId.newInstance("org", "module", "1.0"), true);
+                        resolver.commitPublishTransaction();
+                        return null;
+                    }
+                });
+                one(publishEngineMock).publish(moduleDescriptorMock,
+                        DefaultIvyDependencyPublisher.ARTIFACT_PATTERN,
+                        otherResolver,
+                        expectedPublishOptions);
+                will(throwException(failure));
+            }
+        });
+
+        try {
+            ivyDependencyPublisher.publish(WrapUtil.toSet(expectedConf), publishInstruction,
+                    WrapUtil.<DependencyResolver>toList(repositoryResolver, otherResolver), moduleDescriptorMock, publishEngineMock);
+            fail();
+        } catch (RuntimeException e) {
+            assertSame(failure, e);
+        }
+        assertEquals(WrapUtil.toList("repo"), committedResolvers);
+    }
+
+    private Matcher<DependencyResolver> parallelPublishResolverFor(final DependencyResolver resolver) {
+        return new BaseMatcher<DependencyResolver>() {
+            public boolean matches(Object actual) {
+                return actual instanceof ParallelPublishResolver && ((ParallelPublishResolver) actual).getResolver() == resolver;
+            }
+
+            public void describeTo(Description description) {
+                description.appendText("a parallel publish resolver for ").appendValue(resolver);
+            }
+        };
+    }
 }
@@ -185,6 +185,98 @@ public class DefaultIvyHandlerTest {
                 equalTo(testReport));
     }
 
+    @Test
+    public void testResolveAsReportReturnsReportOfResolveAhead() {
+        customizeMocksForResolve();
+        final ResolveReport resolveAheadReport = new ResolveReport(testModuleDescriptor);
+        context.checking(new Expectations() {{
+            one(ivyDependencyResolverMock).resolveAsReport(TEST_CONF, new ResolveInstruction(testResolveInstruction).setFailOnResolveError(false),
+                    ivyMock, testModuleDescriptor);
+            will(returnValue(resolveAheadReport));
+        }});
+        ivyHandler.resolveAhead(TEST_CONF, testConfigurations, dependencyContainerMock, testDependencyResolvers, testResolveInstruction, testGradleUserHome).run();
+        assertThat(ivyHandler.resolveAsReport(TEST_CONF, testConfigurations, dependencyContainerMock, testDependencyResolvers, testResolveInstruction, testGradleUserHome),
+                sameInstance(resolveAheadReport));
+    }
+
+    @Test
+    public void testResolveAsReportResolvesAgainIfResolveAheadHasFailed() {
+        customizeMocksForResolve();
+        context.checking(new Expectations() {{
+            one(ivyDependencyResolverMock).resolveAsReport(TEST_CONF, new ResolveInstruction(testResolveInstruction).setFailOnResolveError(false),
+                    ivyMock, testModuleDescriptor);
+            will(throwException(new RuntimeException()));
+        }});
+        ivyHandler.resolveAhead(TEST_CONF, testConfigurations, dependencyContainerMock, testDependencyResolvers, testResolveInstruction, testGradleUserHome).run();
+        assertThat(ivyHandler.resolveAsReport(TEST_CONF, testConfigurations, dependencyContainerMock, testDependencyResolvers, testResolveInstruction, testGradleUserHome),
+                sameInstance(testReport));
+    }
+
+    @Test
+    public void testResolveAsReportResolvesAgainIfConfigurationHasChangedSinceResolveAhead() {
+        final ModuleDescriptor changedModuleDescriptor = HelperUtil.getTestModuleDescriptor(WrapUtil.toSet(TEST_CONF, "changed"));
+        final ResolveReport changedReport = new ResolveReport(changedModuleDescriptor);
+        context.checking(new Expectations() {{
+            allowing(moduleDescriptorConverterMock).convert(WrapUtil.toMap(TEST_CONF, testResolveInstruction.isTransitive()), new DefaultConfigurationContainer(testConfigurations),
+                    Specs.SATISFIES_ALL, dependencyContainerMock, testResolveInstruction.getDependencySpec(), ArtifactContainer.EMPTY_CONTAINER, Specs.SATISFIES_ALL);
+            will(onConsecutiveCalls(returnValue(testModuleDescriptor), returnValue(changedModuleDescriptor)));
+
+            allowing(settingsConverterMock).convert(testDependencyResolvers, new ArrayList<DependencyResolver>(), testGradleUserHome,
+                    testBuildResolver, testClientModuleRegistry);
+            will(returnValue(testIvySettings));
+
+            one(ivyDependencyResolverMock).resolveAsReport(TEST_CONF, testResolveInstruction, ivyMock, changedModuleDescriptor);
+            will(returnValue(changedReport));
+        }});
+        Runnable resolveAhead = ivyHandler.resolveAhead(TEST_CONF, testConfigurations, dependencyContainerMock, testDependencyResolvers, testResolveInstruction, testGradleUserHome);
+        assertThat(ivyHandler.resolveAsReport(TEST_CONF, testConfigurations, dependencyContainerMock, testDependencyResolvers, testResolveInstruction, testGradleUserHome),
+                sameInstance(changedReport));
+        // The outdated resolve ahead has been cancelled
+        resolveAhead.run();
+    }
+
+    @Test
+    public void testResolveAsReportAddsMetricsOnlyForResolveWhoseResultIsUsed() {
+        customizeMocksForResolve();
+        final List<String> configurationResolves = recordConfigurationResolves();
+        context.checking(new Expectations() {{
+            one(ivyDependencyResolverMock).resolveAsReport(TEST_CONF, new ResolveInstruction(testResolveInstruction).setFailOnResolveError(false),
+                    ivyMock, testModuleDescriptor);
+            will(throwException(new RuntimeException()));
+        }});
+        ivyHandler.resolveAhead(TEST_CONF, testConfigurations, dependencyContainerMock, testDependencyResolvers, testResolveInstruction, testGradleUserHome).run();
+        ivyHandler.resolveAsReport(TEST_CONF, testConfigurations, dependencyContainerMock, testDependencyResolvers, testResolveInstruction, testGradleUserHome);
+        assertThat(configurationResolves.size(), equalTo(1));
+    }
+
+    @Test
+    public void testResolveAsReportAddsMetricsOfResolveAheadOnce() {
+        customizeMocksForResolve();
+        final List<String> configurationResolves = recordConfigurationResolves();
+        context.checking(new Expectations() {{
+            one(ivyDependencyResolverMock).resolveAsReport(TEST_CONF, new ResolveInstruction(testResolveInstruction).setFailOnResolveError(false),
+                    ivyMock, testModuleDescriptor);
+            will(returnValue(new ResolveReport(testModuleDescriptor)));
+        }});
+        Runnable resolveAhead = ivyHandler.resolveAhead(TEST_CONF, testConfigurations, dependencyContainerMock, testDependencyResolvers, testResolveInstruction, testGradleUserHome);
+        resolveAhead.run();
+        assertThat(configurationResolves.size(), equalTo(0));
+        ivyHandler.resolveAsReport(TEST_CONF, testConfigurations, dependencyContainerMock, testDependencyResolvers, testResolveInstruction, testGradleUserHome);
+        ivyHandler.resolveAsReport(TEST_CONF, testConfigurations, dependencyContainerMock, testDependencyResolvers, testResolveInstruction, testGradleUserHome);
+        assertThat(configurationResolves.size(), equalTo(1));
+    }
+
+    private List<String> recordConfigurationResolves() {
+        final List<String> configurationResolves = new ArrayList<String>();
+        ivyHandler.setMetrics(new ResolutionMetrics() {
+            @Override
+            public synchronized void addConfigurationResolve(String configuration, long timeMillis) {
+                configurationResolves.add(configuration);
+            }
+        });
+        return configurationResolves;
+    }
+
     private void customizeMocksForResolve() {
         customizeMocks(new DefaultConfigurationContainer(testConfigurations), Specs.SATISFIES_ALL,
                 testResolveInstruction.getDependencySpec(), testDependencyResolvers, new ArrayList<DependencyResolver>(), testClientModuleRegistry,
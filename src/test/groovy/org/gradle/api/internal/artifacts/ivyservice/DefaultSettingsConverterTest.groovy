@@ -23,6 +23,7 @@ import org.apache.ivy.plugins.resolver.ChainResolver
 import org.apache.ivy.plugins.resolver.IBiblioResolver
 import org.gradle.api.DependencyManager
 import org.gradle.api.Transformer
+import org.gradle.api.artifacts.ChecksumPolicy
 import org.gradle.api.internal.artifacts.ivyservice.ClientModuleResolver
 import org.gradle.api.internal.artifacts.ivyservice.DefaultSettingsConverter
 import org.gradle.util.HelperUtil
@@ -96,6 +97,28 @@ class DefaultSettingsConverterTest {
         assertEquals(settings.defaultCacheArtifactPattern, DependencyManager.DEFAULT_CACHE_ARTIFACT_PATTERN)
     }
 
+    @Test public void testChangingModulesSettings() {
+        converter.changingModuleTtl = 1000
+        converter.refreshChangingModules = true
+        IvySettings settings = converter.convert([TEST_RESOLVER], [TEST_UPLOAD_RESOLVER], testGradleUserHome,
+                TEST_BUILD_RESOLVER, clientModuleRegistry)
+        ChangingModuleChainResolver chainResolver = settings.getResolver(DefaultSettingsConverter.CHAIN_RESOLVER_NAME)
+        assertEquals(1000, chainResolver.changingModuleTtl)
+        assertTrue(chainResolver.refreshChangingModules)
+        assertEquals(new File(new File(testGradleUserHome, DependencyManager.DEFAULT_CACHE_DIR_NAME), ChangingModuleCache.FILE_NAME),
+                chainResolver.changingModuleCache.cacheFile)
+    }
+
+    @Test public void testChecksumSettings() {
+        converter.checksumPolicy = ChecksumPolicy.WARN
+        IvySettings settings = converter.convert([TEST_RESOLVER], [TEST_UPLOAD_RESOLVER], testGradleUserHome,
+                TEST_BUILD_RESOLVER, clientModuleRegistry)
+        ChecksumVerifyingRepository repository = settings.getResolver(TEST_RESOLVER.name).repository
+        assertEquals(ChecksumPolicy.WARN, repository.checksumPolicy)
+        assertEquals(['sha1', 'md5'], repository.algorithms as List)
+        assertEquals(['sha1', 'md5'], TEST_RESOLVER.checksumAlgorithms as List)
+    }
+
     @Test public void testWithGivenSettings() {
         IvySettings ivySettings = [:] as IvySettings
         converter.ivySettings = ivySettings
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.ivy.core.module.descriptor.Artifact;
+import org.apache.ivy.core.module.descriptor.DefaultArtifact;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.settings.IvySettings;
+import org.apache.ivy.plugins.repository.AbstractRepository;
+import org.apache.ivy.plugins.repository.Repository;
+import org.apache.ivy.plugins.repository.Resource;
+import org.apache.ivy.plugins.repository.file.FileRepository;
+import org.apache.ivy.plugins.resolver.FileSystemResolver;
+import org.gradle.util.HelperUtil;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ParallelPublishResolverTest {
+    private static final int ARTIFACT_COUNT = 20;
+
+    private ModuleRevisionId moduleRevisionId = ModuleRevisionId.newInstance("org", "someModule", "1.0");
+    private File testDir;
+    private File repositoryDir;
+    private ExecutorService executor;
+    private ConcurrencyRecordingRepository repository;
+    private FileSystemResolver fileSystemResolver;
+    private ParallelPublishResolver resolver;
+
+    @Before
+    public void setUp() {
+        testDir = HelperUtil.makeNewTestDir();
+        repositoryDir = new File(testDir, "repository");
+        fileSystemResolver = new FileSystemResolver();
+        fileSystemResolver.setName("fileRepo");
+        fileSystemResolver.setSettings(new IvySettings());
+        fileSystemResolver.setChecksums("");
+        repository = new ConcurrencyRecordingRepository();
+        fileSystemResolver.setRepository(repository);
+        fileSystemResolver.addIvyPattern(repositoryDir.getAbsolutePath()
+                + "/[organisation]/[module]/[revision]/[artifact]-[revision].xml");
+        fileSystemResolver.addArtifactPattern(repositoryDir.getAbsolutePath()
+                + "/[organisation]/[module]/[revision]/[artifact]-[revision].[ext]");
+        executor = Executors.newFixedThreadPool(4);
+        resolver = new ParallelPublishResolver(fileSystemResolver, executor);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+        HelperUtil.deleteTestDir();
+    }
+
+    @Test
+    public void uploadsAllArtifacts() throws IOException {
+        resolver.beginPublishTransaction(moduleRevisionId, true);
+        for (int i = 0; i < ARTIFACT_COUNT; i++) {
+            resolver.publish(artifact("artifact" + i), sourceFile("artifact" + i), true);
+        }
+        resolver.commitPublishTransaction();
+        resolver.complete();
+
+        for (int i = 0; i < ARTIFACT_COUNT; i++) {
+            File published = new File(repositoryDir, "org/someModule/1.0/artifact" + i + "-1.0.jar");
+            assertEquals("artifact" + i, FileUtils.readFileToString(published));
+        }
+    }
+
+    @Test
+    public void reportsAllFailedUploadsOnComplete() throws IOException {
+        resolver.beginPublishTransaction(moduleRevisionId, false);
+        for (int i = 0; i < ARTIFACT_COUNT; i++) {
+            File src = sourceFile("artifact" + i);
+            if (i % 5 == 0) {
+                src.delete();
+            }
+            resolver.publish(artifact("artifact" + i), src, false);
+        }
+        resolver.publish(DefaultArtifact.newIvyArtifact(moduleRevisionId, null), sourceFile("ivy"), false);
+        resolver.commitPublishTransaction();
+        try {
+            resolver.complete();
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage().startsWith("Could not upload 4 of " + ARTIFACT_COUNT + " artifacts to fileRepo"));
+            for (int i = 0; i < ARTIFACT_COUNT; i += 5) {
+                assertTrue(e.getMessage().contains("!artifact" + i + ".jar"));
+            }
+        }
+        assertFalse(new File(repositoryDir, "org/someModule/1.0").exists());
+    }
+
+    @Test
+    public void abortAwaitsUploadsAndDoesNotUploadDescriptor() throws IOException {
+        resolver.beginPublishTransaction(moduleRevisionId, true);
+        for (int i = 0; i < ARTIFACT_COUNT; i++) {
+            resolver.publish(artifact("artifact" + i), sourceFile("artifact" + i), true);
+        }
+        resolver.publish(DefaultArtifact.newIvyArtifact(moduleRevisionId, null), sourceFile("ivy"), true);
+        resolver.abortPublishTransaction();
+        resolver.complete();
+
+        assertFalse(new File(repositoryDir, "org/someModule/1.0/ivy-1.0.xml").exists());
+        assertEquals(0, repository.getActiveUploads());
+    }
+
+    @Test
+    public void uploadsToOneFileRepositoryConcurrently() throws IOException {
+        publishAll(resolver);
+
+        assertTrue(repository.getMaxActiveUploads() > 1);
+    }
+
+    @Test
+    public void uploadsToOneRepositoryWithASessionOneAtATime() throws IOException {
+        fileSystemResolver.setRepository(new SessionRepository(repository));
+        publishAll(new ParallelPublishResolver(fileSystemResolver, executor));
+
+        assertEquals(1, repository.getMaxActiveUploads());
+    }
+
+    private void publishAll(ParallelPublishResolver resolver) throws IOException {
+        resolver.beginPublishTransaction(moduleRevisionId, true);
+        for (int i = 0; i < ARTIFACT_COUNT; i++) {
+            resolver.publish(artifact("artifact" + i), sourceFile("artifact" + i), true);
+        }
+        resolver.commitPublishTransaction();
+        resolver.complete();
+    }
+
+    /**
+     * A repository which is neither a file nor a URL repository, like the repositories which share a session.
+     */
+    private static class SessionRepository extends AbstractRepository {
+        private final Repository repository;
+
+        private SessionRepository(Repository repository) {
+            this.repository = repository;
+        }
+
+        public void put(Artifact artifact, File source, String destination, boolean overwrite) throws IOException {
+            repository.put(artifact, source, destination, overwrite);
+        }
+
+        public Resource getResource(String source) throws IOException {
+            return repository.getResource(source);
+        }
+
+        public void get(String source, File destination) throws IOException {
+            repository.get(source, destination);
+        }
+
+        public List list(String parent) throws IOException {
+            return repository.list(parent);
+        }
+    }
+
+    private static class ConcurrencyRecordingRepository extends FileRepository {
+        private final AtomicInteger activeUploads = new AtomicInteger();
+        private final AtomicInteger maxActiveUploads = new AtomicInteger();
+
+        public void put(Artifact artifact, File source, String destination, boolean overwrite) throws IOException {
+            int active = activeUploads.incrementAndGet();
+            try {
+                int max = maxActiveUploads.get();
+                while (active > max && !maxActiveUploads.compareAndSet(max, active)) {
+                    max = maxActiveUploads.get();
+                }
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                super.put(artifact, source, destination, overwrite);
+            } finally {
+                activeUploads.decrementAndGet();
+            }
+        }
+
+        public int getActiveUploads() {
+            return activeUploads.get();
+        }
+
+        public int getMaxActiveUploads() {
+            return maxActiveUploads.get();
+        }
+    }
+
+    private Artifact artifact(String name) {
+        return new DefaultArtifact(moduleRevisionId, null, name, "jar", "jar");
+    }
+
+    private File sourceFile(String name) throws IOException {
+        File file = new File(testDir, name + ".jar");
+        FileUtils.writeStringToFile(file, name);
+        return file;
+    }
+}
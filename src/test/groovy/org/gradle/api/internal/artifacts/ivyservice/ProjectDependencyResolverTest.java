@@ -0,0 +1,127 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.apache.ivy.core.module.descriptor.Artifact;
+import org.apache.ivy.core.module.descriptor.DefaultArtifact;
+import org.apache.ivy.core.module.descriptor.DefaultDependencyDescriptor;
+import org.apache.ivy.core.module.descriptor.DefaultModuleDescriptor;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.report.ArtifactDownloadReport;
+import org.apache.ivy.core.report.DownloadStatus;
+import org.apache.ivy.core.resolve.ResolvedModuleRevision;
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.PublishArtifact;
+import org.gradle.api.internal.artifacts.DependencyManagerInternal;
+import org.gradle.util.HelperUtil;
+import org.gradle.util.WrapUtil;
+import org.jmock.Expectations;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import org.jmock.lib.legacy.ClassImposteriser;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+
+@RunWith(org.jmock.integration.junit4.JMock.class)
+public class ProjectDependencyResolverTest {
+    private JUnit4Mockery context = new JUnit4Mockery() {
+        {
+            setImposteriser(ClassImposteriser.INSTANCE);
+        }
+    };
+
+    private ModuleRevisionId projectModuleRevisionId = ModuleRevisionId.newInstance("org", "someProject", "1.0");
+    private DefaultModuleDescriptor projectModuleDescriptor = DefaultModuleDescriptor.newDefaultInstance(projectModuleRevisionId);
+    private Artifact projectArtifact = new DefaultArtifact(projectModuleRevisionId, null, "someProject", "jar", "jar");
+    private File artifactFile;
+    private ProjectDependencyResolver resolver;
+
+    @Before
+    public void setUp() throws IOException {
+        artifactFile = new File(HelperUtil.makeNewTestDir(), "someProject-1.0.jar");
+        artifactFile.createNewFile();
+        final Project project = context.mock(Project.class, "project");
+        final Project dependencyProject = context.mock(Project.class, "dependencyProject");
+        final DependencyManagerInternal dependencyManager = context.mock(DependencyManagerInternal.class);
+        final PublishArtifact publishArtifact = context.mock(PublishArtifact.class);
+        context.checking(new Expectations() {{
+            allowing(project).getRootProject();
+            will(returnValue(project));
+            allowing(project).getAllprojects();
+            will(returnValue(WrapUtil.toSet(dependencyProject)));
+            allowing(dependencyProject).getDependencies();
+            will(returnValue(dependencyManager));
+            allowing(dependencyProject).getGroup();
+            will(returnValue("org"));
+            allowing(dependencyProject).getName();
+            will(returnValue("someProject"));
+            allowing(dependencyProject).getVersion();
+            will(returnValue("1.0"));
+            allowing(dependencyManager).createModuleDescriptor(with(any(org.gradle.api.specs.Spec.class)),
+                    with(any(org.gradle.api.specs.Spec.class)), with(any(org.gradle.api.specs.Spec.class)));
+            will(returnValue(projectModuleDescriptor));
+            allowing(dependencyManager).getArtifacts();
+            will(returnValue(WrapUtil.toSet(publishArtifact)));
+            allowing(publishArtifact).createIvyArtifact(projectModuleRevisionId);
+            will(returnValue(projectArtifact));
+            allowing(publishArtifact).getFile();
+            will(returnValue(artifactFile));
+        }});
+        resolver = new ProjectDependencyResolver(SettingsConverter.PROJECT_DEPENDENCY_RESOLVER_NAME, project);
+    }
+
+    @After
+    public void tearDown() {
+        HelperUtil.deleteTestDir();
+    }
+
+    @Test
+    public void resolvesProjectOfBuildFromMemory() {
+        ResolvedModuleRevision moduleRevision = resolver.getDependency(
+                new DefaultDependencyDescriptor(projectModuleRevisionId, false), null);
+        assertSame(projectModuleDescriptor, moduleRevision.getDescriptor());
+        assertSame(resolver, moduleRevision.getArtifactResolver());
+    }
+
+    @Test
+    public void doesNotResolveModulesWhichAreNoProjectsOfBuild() {
+        assertNull(resolver.getDependency(new DefaultDependencyDescriptor(
+                ModuleRevisionId.newInstance("org", "other", "1.0"), false), null));
+    }
+
+    @Test
+    public void downloadReturnsFileProducedByProject() {
+        resolver.getDependency(new DefaultDependencyDescriptor(projectModuleRevisionId, false), null);
+        ArtifactDownloadReport report = resolver.download(new Artifact[] {projectArtifact}, null)
+                .getArtifactReport(projectArtifact);
+        assertEquals(DownloadStatus.NO, report.getDownloadStatus());
+        assertEquals(artifactFile, report.getLocalFile());
+    }
+
+    @Test
+    public void downloadFailsForArtifactWhichHasNotBeenBuilt() {
+        artifactFile.delete();
+        resolver.getDependency(new DefaultDependencyDescriptor(projectModuleRevisionId, false), null);
+        ArtifactDownloadReport report = resolver.download(new Artifact[] {projectArtifact}, null)
+                .getArtifactReport(projectArtifact);
+        assertEquals(DownloadStatus.FAILED, report.getDownloadStatus());
+    }
+}
@@ -18,6 +18,7 @@ package org.gradle.api.internal.artifacts.publish.maven;
 import org.apache.commons.io.FileUtils;
 import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
 import org.gradle.api.artifacts.maven.MavenPom;
+import org.gradle.api.internal.artifacts.publish.maven.dependencies.DefaultConf2ScopeMappingContainer;
 import org.hamcrest.Description;
 import org.jmock.Expectations;
 import org.jmock.api.Action;
@@ -55,6 +56,9 @@ public class DefaultPomFileWriterTest {
         final String expectedPomText = "somePomXml";
         context.checking(new Expectations() {
             {
+                allowing(testPom).getScopeMappings();
+                will(returnValue(new DefaultConf2ScopeMappingContainer()));
+                ignoring(testPom);
                 one(writerMock).convert(with(same(testPom)), with(same(testDependencies)), with(any(PrintWriter.class)));
                 will(new WriteAction(expectedPomText));
             }
@@ -67,6 +71,77 @@ public class DefaultPomFileWriterTest {
         assertEquals(expectedPomText + System.getProperty("line.separator"), wrote);
     }
 
+    @Test
+    public void generatesPomWithSameInputsOnlyOnce() throws Exception {
+        testDependencies = new ArrayList<DependencyDescriptor>();
+        final PomWriter writerMock = context.mock(PomWriter.class);
+        final MavenPom testPom = createPom("1.0");
+        context.checking(new Expectations() {
+            {
+                one(writerMock).convert(with(same(testPom)), with(same(testDependencies)), with(any(PrintWriter.class)));
+                will(new WriteAction("somePomXml"));
+            }
+        });
+
+        DefaultPomFileWriter pomFileWriter = new DefaultPomFileWriter(writerMock);
+        File otherDest = new File(_dest.getParentFile(), "test-write-other.xml");
+        pomFileWriter.write(testPom, testDependencies, _dest);
+        pomFileWriter.write(testPom.copy(), testDependencies, otherDest);
+
+        assertEquals(FileUtils.readFileToString(_dest), FileUtils.readFileToString(otherDest));
+        otherDest.delete();
+    }
+
+    @Test
+    public void doesNotRewritePomWithUnchangedContent() throws Exception {
+        testDependencies = new ArrayList<DependencyDescriptor>();
+        final PomWriter writerMock = context.mock(PomWriter.class);
+        final MavenPom testPom = createPom("1.0");
+        context.checking(new Expectations() {
+            {
+                exactly(2).of(writerMock).convert(with(same(testPom)), with(same(testDependencies)), with(any(PrintWriter.class)));
+                will(new WriteAction("somePomXml"));
+            }
+        });
+
+        new DefaultPomFileWriter(writerMock).write(testPom, testDependencies, _dest);
+        long lastModified = _dest.lastModified() - 10000;
+        _dest.setLastModified(lastModified);
+        new DefaultPomFileWriter(writerMock).write(testPom, testDependencies, _dest);
+
+        assertEquals(lastModified, _dest.lastModified());
+    }
+
+    @Test
+    public void regeneratesPomWhenInputsChange() throws Exception {
+        testDependencies = new ArrayList<DependencyDescriptor>();
+        final PomWriter writerMock = context.mock(PomWriter.class);
+        final MavenPom testPom = createPom("1.0");
+        context.checking(new Expectations() {
+            {
+                one(writerMock).convert(with(same(testPom)), with(same(testDependencies)), with(any(PrintWriter.class)));
+                will(new WriteAction("version1"));
+                one(writerMock).convert(with(same(testPom)), with(same(testDependencies)), with(any(PrintWriter.class)));
+                will(new WriteAction("version2"));
+            }
+        });
+
+        DefaultPomFileWriter pomFileWriter = new DefaultPomFileWriter(writerMock);
+        pomFileWriter.write(testPom, testDependencies, _dest);
+        testPom.setVersion("2.0");
+        pomFileWriter.write(testPom, testDependencies, _dest);
+
+        assertEquals("version2" + System.getProperty("line.separator"), FileUtils.readFileToString(_dest));
+    }
+
+    private MavenPom createPom(String version) {
+        MavenPom pom = new DefaultMavenPom(new DefaultConf2ScopeMappingContainer());
+        pom.setGroupId("org");
+        pom.setArtifactId("someModule");
+        pom.setVersion(version);
+        return pom;
+    }
+
     @Before
     public void setUp() {
         if (_dest.exists()) {
@@ -30,7 +30,9 @@ import org.gradle.api.artifacts.maven.MavenResolver;
 import org.gradle.api.artifacts.maven.PomFilterContainer;
 import org.gradle.api.artifacts.maven.PublishFilter;
 import org.gradle.api.internal.artifacts.DependencyManagerInternal;
+import org.apache.commons.io.FileUtils;
 import org.gradle.api.specs.Specs;
+import org.gradle.util.HelperUtil;
 import org.gradle.util.JUnit4GroovyMockery;
 import org.hamcrest.BaseMatcher;
 import org.hamcrest.Description;
@@ -38,6 +40,7 @@ import org.hamcrest.Matcher;
 import org.jmock.Expectations;
 import org.jmock.lib.legacy.ClassImposteriser;
 import static org.junit.Assert.assertSame;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -45,6 +48,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -115,6 +119,32 @@ public abstract class AbstractMavenResolverTest {
         assertSame(mavenSettingsMock, getMavenResolver().getSettings());
     }
 
+    @After
+    public void tearDown() {
+        HelperUtil.deleteTestDir();
+    }
+
+    @Test
+    public void deployOrInstallConcurrentlyDeploysPomsOfSameModuleWithOneTask() throws IOException, PlexusContainerException {
+        File testDir = HelperUtil.makeNewTestDir();
+        final Map<File, File> testDeployableUnits = new LinkedHashMap<File, File>();
+        for (String classifier : new String[] {"main", "sources", "javadoc"}) {
+            File pomFile = new File(testDir, "pom-" + classifier + ".xml");
+            FileUtils.writeStringToFile(pomFile, "<project><modelVersion>4.0.0</modelVersion><groupId>org</groupId>"
+                    + "<artifactId>" + TEST_NAME + "</artifactId><version>1.0</version></project>");
+            testDeployableUnits.put(pomFile, new File(testDir, classifier + ".jar"));
+        }
+        context.checking(new Expectations() {
+            {
+                allowing((CustomInstallDeployTaskSupport) getInstallDeployTask()).getSettings(); will(returnValue(mavenSettingsMock));
+                allowing(artifactPomContainerMock).createDeployableUnits(testDependencies); will(returnValue(testDeployableUnits));
+            }
+        });
+        getMavenResolver().setMaxParallelDeploys(4);
+        checkTransaction(testDeployableUnits);
+        assertSame(mavenSettingsMock, getMavenResolver().getSettings());
+    }
+
     protected void checkTransaction(final Map<File, File> deployableUnits) throws IOException, PlexusContainerException {
         context.checking(new Expectations() {
             {
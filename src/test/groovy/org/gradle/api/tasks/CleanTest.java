@@ -23,6 +23,7 @@ import org.gradle.api.internal.AbstractTask;
 import org.gradle.api.tasks.AbstractTaskTest;
 import org.gradle.api.tasks.Clean;
 import org.gradle.api.tasks.util.ExistingDirsFilter;
+import org.gradle.api.tasks.util.FileDeleter;
 import org.gradle.util.HelperUtil;
 import static org.junit.Assert.*;
 import org.junit.Before;
@@ -84,6 +85,21 @@ public class CleanTest extends AbstractConventionTaskTest {
         assertFalse(clean.dir.exists());
     }
 
+    @Test
+    public void testExecuteInBackground() throws IOException {
+        clean.dir = HelperUtil.makeNewTestDir();
+        clean.setDeleteInBackground(true);
+        final File cleanedDir = clean.dir;
+        clean.fileDeleter = context.mock(FileDeleter.class);
+        context.checking(new Expectations() {
+            {
+                allowing(existentDirsFilterMock).checkExistenceAndThrowStopActionIfNot(cleanedDir);
+                one(clean.fileDeleter).deleteInBackground(cleanedDir);
+            }
+        });
+        clean.execute();
+    }
+
     @Test(expected = GradleScriptException.class)
     public void testExecuteWithNullDir() {
         clean.execute();
@@ -21,6 +21,7 @@ import org.gradle.api.internal.AbstractTask
 import org.gradle.api.tasks.util.CopyInstruction
 import org.gradle.api.tasks.util.CopyInstructionFactory
 import org.gradle.api.tasks.util.ExistingDirsFilter
+import org.gradle.api.tasks.util.FileCopier
 import org.gradle.util.JUnit4GroovyMockery
 import org.jmock.lib.legacy.ClassImposteriser
 import static org.junit.Assert.assertEquals
@@ -112,8 +113,13 @@ class ResourcesTest extends AbstractTaskTest {
             resources.srcDirs
         }] as ExistingDirsFilter
 
-        int executeCounter = 0
-        CopyInstruction copyInstructionMock = [execute: {executeCounter++}] as CopyInstruction
+        CopyInstruction copyInstructionMock = new CopyInstruction()
+        List copiedInstructions = null
+        resources.fileCopier = [copy: {List instructions, File snapshotFile ->
+            assertEquals(resources.snapshotFile, snapshotFile)
+            copiedInstructions = instructions
+            0
+        }] as FileCopier
        
         context.checking {
             one(copyInstructionFactoryMock).createCopyInstruction(
@@ -152,10 +158,17 @@ class ResourcesTest extends AbstractTaskTest {
 
         resources.execute()
 
-        assert executeCounter == 3
+        assertEquals([copyInstructionMock, copyInstructionMock, copyInstructionMock], copiedInstructions)
         
     }
 
+    @Test public void testSnapshotFile() {
+        assertEquals(new File(project.buildDir, "$Resources.SNAPSHOT_DIR_NAME/${AbstractTaskTest.TEST_TASK_NAME}.properties"),
+                resources.snapshotFile)
+        resources.snapshotFile = new File('/snapshot.properties')
+        assertEquals(new File('/snapshot.properties'), resources.snapshotFile)
+    }
+
     private void checkCopyInstructionCall(List calledValues, File targetDir, List includes, List excludes, Map filter) {
         assertEquals(targetDir, calledValues[0])
         assertEquals(includes as HashSet, calledValues[1] as HashSet)
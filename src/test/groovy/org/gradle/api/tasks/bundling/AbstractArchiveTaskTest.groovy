@@ -55,6 +55,7 @@ abstract class AbstractArchiveTaskTest extends AbstractConventionTaskTest {
 
     void checkConstructor() {
         assertFalse(archiveTask.createIfEmpty)
+        assertFalse(archiveTask.useAnt)
         assertNull(archiveTask.resourceCollections)
         assertEquals([], archiveTask.mergeFileSets)
         assertEquals([], archiveTask.mergeGroupFileSets)
@@ -85,14 +86,23 @@ abstract class AbstractArchiveTaskTest extends AbstractConventionTaskTest {
         checkExecute {archiveTask -> archiveTask.appendix = null}
     }
 
-    private checkExecute(Closure archiveTaskModifier) {
-        archiveTaskModifier.call(archiveTask)
+    @Test public void testExecuteWithUseAnt() {
+        archiveTask.useAnt = true
         getAntMocker(true).use(ant) {
             archiveTask.execute()
         }
         assertTrue(archiveTask.destinationDir.isDirectory())
     }
 
+    private checkExecute(Closure archiveTaskModifier) {
+        new File(archiveTask.baseDir, 'file.txt').write('content')
+        archiveTaskModifier.call(archiveTask)
+        getAntMocker(false).use(ant) {
+            archiveTask.execute()
+        }
+        assertTrue(archiveTask.archivePath.isFile())
+    }
+
     @Test (expected = GradleScriptException) public void testExecuteWithNullDestinationDir() {
         archiveTask.destinationDir = null
         archiveTask.execute()
@@ -114,6 +124,13 @@ abstract class AbstractArchiveTaskTest extends AbstractConventionTaskTest {
         assert metaArchiveParameter.metaInfFileSets.is(task.metaInfResourceCollections)
     }
 
+    @Test public void testIndexFile() {
+        assertEquals(new File(archiveTask.project.buildDir, "$AbstractArchiveTask.INDEX_DIR_NAME/${archiveTask.name}.properties"),
+                archiveTask.indexFile)
+        archiveTask.indexFile = new File('/index.properties')
+        assertEquals(new File('/index.properties'), archiveTask.indexFile)
+    }
+
     @Test public void testFileSetWithTaskBaseDir() {
         assertEquals(archiveTask.baseDir, archiveTask.fileSet().dir)
     }
@@ -19,6 +19,7 @@ package org.gradle.api.tasks.bundling
 import groovy.mock.interceptor.MockFor
 import org.gradle.api.tasks.AbstractTaskTest
 import org.gradle.api.tasks.util.FileSet
+import java.util.jar.JarFile
 import org.junit.Before
 import static org.junit.Assert.*
 import org.junit.Test;
@@ -61,4 +62,25 @@ class JarTest extends AbstractArchiveTaskTest {
         assertEquals(Jar.DEFAULT_EXTENSION, jar.extension)
     }
 
+    @Test public void testExecuteWithZipArchiver() {
+        File sourceDir = new File(jar.baseDir, 'source')
+        new File(sourceDir, 'META-INF').mkdirs()
+        new File(sourceDir, 'META-INF/MANIFEST.MF').write('Manifest-Version: 1.0\nSkipped: true\n')
+        new File(sourceDir, 'a.txt').write('content')
+        jar.resourceCollections = [new FileSet(sourceDir)]
+        jar.metaInfResourceCollections = []
+        jar.manifest.mainAttributes(Main: 'value')
+
+        jar.execute()
+
+        JarFile jarFile = new JarFile(jar.archivePath)
+        try {
+            assertEquals(['META-INF/', 'META-INF/MANIFEST.MF', 'a.txt'], jarFile.entries().collect { it.name })
+            assertEquals('value', jarFile.manifest.mainAttributes.getValue('Main'))
+            assertNull(jarFile.manifest.mainAttributes.getValue('Skipped'))
+        } finally {
+            jarFile.close()
+        }
+    }
+
 }
\ No newline at end of file
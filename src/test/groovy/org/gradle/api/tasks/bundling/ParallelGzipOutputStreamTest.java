@@ -0,0 +1,88 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.bundling;
+
+import org.apache.commons.io.IOUtils;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+public class ParallelGzipOutputStreamTest {
+    private final MemberRecordingOutputStream compressed = new MemberRecordingOutputStream();
+
+    @Test
+    public void writesEachBlockAsGzipMember() throws IOException {
+        byte[] data = content(2500);
+
+        OutputStream outputStream = new ParallelGzipOutputStream(compressed, 1000, 4);
+        outputStream.write(data, 0, 1500);
+        for (int i = 1500; i < data.length; i++) {
+            outputStream.write(data[i]);
+        }
+        outputStream.close();
+
+        assertEquals(3, compressed.members.size());
+        assertTrue(Arrays.equals(block(data, 0, 1000), gunzip(compressed.members.get(0))));
+        assertTrue(Arrays.equals(block(data, 1000, 2000), gunzip(compressed.members.get(1))));
+        assertTrue(Arrays.equals(block(data, 2000, 2500), gunzip(compressed.members.get(2))));
+    }
+
+    @Test
+    public void writesGzipMemberForEmptyStream() throws IOException {
+        new ParallelGzipOutputStream(compressed, 1000, 4).close();
+
+        assertEquals(1, compressed.members.size());
+        assertEquals(0, gunzip(compressed.members.get(0)).length);
+    }
+
+    private static byte[] gunzip(byte[] member) throws IOException {
+        return IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(member)));
+    }
+
+    private static byte[] block(byte[] data, int start, int end) {
+        byte[] block = new byte[end - start];
+        System.arraycopy(data, start, block, 0, block.length);
+        return block;
+    }
+
+    private static byte[] content(int length) {
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte) ('a' + (i * 7) % 26);
+        }
+        return content;
+    }
+
+    /**
+     * Records each member, as each member is written with a single write.
+     */
+    private static class MemberRecordingOutputStream extends ByteArrayOutputStream {
+        private final List<byte[]> members = new ArrayList<byte[]>();
+
+        public synchronized void write(byte[] data, int offset, int length) {
+            super.write(data, offset, length);
+            members.add(block(data, offset, offset + length));
+        }
+    }
+}
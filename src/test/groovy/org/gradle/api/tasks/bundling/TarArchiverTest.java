@@ -0,0 +1,280 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.bundling;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.tools.bzip2.CBZip2InputStream;
+import org.apache.tools.tar.TarEntry;
+import org.apache.tools.tar.TarInputStream;
+import org.gradle.api.GradleException;
+import org.gradle.api.tasks.util.AntDirective;
+import org.gradle.api.tasks.util.FileCollection;
+import org.gradle.api.tasks.util.FileSet;
+import org.gradle.api.tasks.util.TarFileSet;
+import org.gradle.api.tasks.util.ZipFileSet;
+import org.gradle.util.HelperUtil;
+import org.gradle.util.WrapUtil;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+public class TarArchiverTest {
+    private static final String LONG_PATH = "org/gradle/" + repeat("long", 30) + ".txt";
+
+    private File testDir;
+    private File sourceDir;
+    private File archive;
+    private TarArchiver archiver = new TarArchiver(4);
+
+    @Before
+    public void setUp() {
+        testDir = HelperUtil.makeNewTestDir();
+        sourceDir = new File(testDir, "source");
+        archive = new File(testDir, "archive.tar");
+    }
+
+    @After
+    public void tearDown() {
+        HelperUtil.deleteTestDir();
+    }
+
+    @Test
+    public void writesFilesOfFileSetsSortedAndWithTheirAttributes() throws IOException {
+        write(new File(sourceDir, "org/b.txt"), "b");
+        write(new File(sourceDir, "a.sh"), "a");
+        TarFileSet tarFileSet = new TarFileSet(sourceDir);
+        tarFileSet.include(new String[]{"*.sh"});
+        tarFileSet.setPrefix("bin");
+        tarFileSet.setFileMode("755");
+        tarFileSet.setUserName("user");
+        tarFileSet.setUid("1000");
+
+        archiver.addResourceCollections(WrapUtil.toList(new FileSet(sourceDir), tarFileSet), "");
+        assertTrue(archiver.write(archive));
+
+        Map<String, TarEntry> entries = new LinkedHashMap<String, TarEntry>();
+        Map<String, String> contents = read(new FileInputStream(archive), entries);
+        assertEquals(WrapUtil.toList("org/", "a.sh", "org/b.txt", "bin/a.sh"), new ArrayList<String>(entries.keySet()));
+        assertEquals("b", contents.get("org/b.txt"));
+        assertEquals(0100644, entries.get("a.sh").getMode());
+        assertEquals(040755, entries.get("org/").getMode());
+        assertEquals(0100755, entries.get("bin/a.sh").getMode());
+        assertEquals("user", entries.get("bin/a.sh").getUserName());
+        assertEquals(1000, entries.get("bin/a.sh").getUserId());
+    }
+
+    @Test
+    public void compressesWithGzip() throws IOException {
+        write(new File(sourceDir, "a.txt"), "a");
+        archiver.setCompression(Compression.GZIP);
+        archiver.addResourceCollections(WrapUtil.toList(new FileCollection(WrapUtil.toSet(new File(sourceDir, "a.txt")))),
+                "lib/");
+        archiver.write(archive);
+
+        Map<String, String> contents = read(new GZIPInputStream(new FileInputStream(archive)),
+                new LinkedHashMap<String, TarEntry>());
+        assertEquals(WrapUtil.toMap("lib/a.txt", "a"), contents);
+    }
+
+    @Test
+    public void compressesContentOfSeveralMegabytesIntoOneGzipMember() throws IOException {
+        String content = content(3 * 1024 * 1024);
+        write(new File(sourceDir, "a.txt"), content);
+        archiver.setCompression(Compression.GZIP);
+        archiver.addResourceCollections(WrapUtil.toList(new FileSet(sourceDir)), "");
+        archiver.write(archive);
+
+        assertEquals(1, gzipMemberCount(archive));
+        Map<String, String> contents = read(new GZIPInputStream(new FileInputStream(archive)),
+                new LinkedHashMap<String, TarEntry>());
+        assertEquals(WrapUtil.toMap("a.txt", content), contents);
+    }
+
+    @Test
+    public void compressesWithGzipInBlocksOnRequest() throws IOException {
+        String content = content(3 * 1024 * 1024);
+        write(new File(sourceDir, "a.txt"), content);
+        archiver.setCompression(Compression.GZIP);
+        archiver.setParallelGzip(true);
+        archiver.addResourceCollections(WrapUtil.toList(new FileSet(sourceDir)), "");
+        archiver.write(archive);
+
+        assertTrue(gzipMemberCount(archive) > 1);
+    }
+
+    @Test
+    public void compressesWithBzip2() throws IOException {
+        write(new File(sourceDir, "a.txt"), "a");
+        archiver.setCompression(Compression.BZIP2);
+        archiver.addResourceCollections(WrapUtil.toList(new FileSet(sourceDir)), "");
+        archiver.write(archive);
+
+        InputStream inputStream = new FileInputStream(archive);
+        assertEquals('B', inputStream.read());
+        assertEquals('Z', inputStream.read());
+        Map<String, String> contents = read(new CBZip2InputStream(inputStream), new LinkedHashMap<String, TarEntry>());
+        assertEquals(WrapUtil.toMap("a.txt", "a"), contents);
+    }
+
+    @Test
+    public void compressesContentOfSeveralBzip2BlocksIntoOneBzip2Stream() throws IOException {
+        String content = content(2500 * 1000);
+        write(new File(sourceDir, "a.txt"), content);
+        archiver.setCompression(Compression.BZIP2);
+        archiver.addResourceCollections(WrapUtil.toList(new FileSet(sourceDir)), "");
+        archiver.write(archive);
+
+        InputStream inputStream = new FileInputStream(archive);
+        assertEquals('B', inputStream.read());
+        assertEquals('Z', inputStream.read());
+        Map<String, String> contents = read(new CBZip2InputStream(inputStream), new LinkedHashMap<String, TarEntry>());
+        assertEquals(WrapUtil.toMap("a.txt", content), contents);
+    }
+
+    @Test
+    public void handlesLongFileNamesLikeAnt() throws IOException {
+        write(new File(sourceDir, LONG_PATH), "long");
+        write(new File(sourceDir, "short.txt"), "short");
+
+        assertEquals(WrapUtil.toList("org/", "org/gradle/", LONG_PATH, "short.txt"), entryNames(LongFile.GNU));
+        assertEquals(WrapUtil.toList("org/", "org/gradle/", LONG_PATH, "short.txt"), entryNames(LongFile.WARN));
+        assertEquals(WrapUtil.toList("org/", "org/gradle/", "short.txt"), entryNames(LongFile.OMIT));
+        List<String> truncatedNames = entryNames(LongFile.TRUNCATE);
+        assertEquals(4, truncatedNames.size());
+        assertTrue(LONG_PATH.startsWith(truncatedNames.get(2)));
+        assertTrue(truncatedNames.get(2).length() <= 100);
+        try {
+            entryNames(LongFile.FAIL);
+            fail();
+        } catch (GradleException e) {
+            assertEquals(String.format("Entry: %s longer than 100 characters.", LONG_PATH), e.getMessage());
+        }
+        assertFalse(new File(archive.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void skipsEmptyArchiveUnlessCreateIfEmpty() throws IOException {
+        new File(sourceDir, "emptyDir").mkdirs();
+        archiver.addResourceCollections(WrapUtil.toList(new FileSet(sourceDir)), "");
+
+        assertFalse(archiver.write(archive));
+        assertFalse(archive.exists());
+
+        archiver.setCreateIfEmpty(true);
+        assertTrue(archiver.write(archive));
+        assertEquals(WrapUtil.toList("emptyDir/"), entryNames());
+    }
+
+    @Test
+    public void canNotArchiveArchivesOrAntDirectives() throws IOException {
+        File zip = new File(testDir, "source.zip");
+        write(zip, "zip");
+
+        assertTrue(TarArchiver.canArchive(WrapUtil.toList(new TarFileSet(sourceDir))));
+        assertFalse(TarArchiver.canArchive(WrapUtil.toList(new ZipFileSet(zip))));
+        assertFalse(TarArchiver.canArchive(WrapUtil.toList(new AntDirective())));
+    }
+
+    private List<String> entryNames(LongFile longFile) throws IOException {
+        TarArchiver archiver = new TarArchiver(2);
+        archiver.setLongFile(longFile);
+        archiver.addResourceCollections(WrapUtil.toList(new FileSet(sourceDir)), "");
+        archiver.write(archive);
+        return entryNames();
+    }
+
+    private List<String> entryNames() throws IOException {
+        Map<String, TarEntry> entries = new LinkedHashMap<String, TarEntry>();
+        read(new FileInputStream(archive), entries);
+        return new ArrayList<String>(entries.keySet());
+    }
+
+    private void write(File file, String content) throws IOException {
+        FileUtils.writeStringToFile(file, content);
+    }
+
+    private Map<String, String> read(InputStream inputStream, Map<String, TarEntry> entries) throws IOException {
+        Map<String, String> contents = new LinkedHashMap<String, String>();
+        TarInputStream tarStream = new TarInputStream(inputStream);
+        try {
+            TarEntry entry;
+            while ((entry = tarStream.getNextEntry()) != null) {
+                entries.put(entry.getName(), entry);
+                if (!entry.isDirectory()) {
+                    ByteArrayOutputStream content = new ByteArrayOutputStream();
+                    tarStream.copyEntryContents(content);
+                    contents.put(entry.getName(), content.toString());
+                }
+            }
+        } finally {
+            IOUtils.closeQuietly(tarStream);
+        }
+        return contents;
+    }
+
+    /**
+     * Counts the gzip members by inflating one member after the other. The members written by the archiver have a
+     * 10 byte header without optional fields and an 8 byte trailer.
+     */
+    private int gzipMemberCount(File archive) throws IOException {
+        byte[] data = FileUtils.readFileToByteArray(archive);
+        byte[] buffer = new byte[8192];
+        int count = 0;
+        int offset = 0;
+        while (offset < data.length) {
+            Inflater inflater = new Inflater(true);
+            inflater.setInput(data, offset + 10, data.length - offset - 10);
+            try {
+                while (!inflater.finished()) {
+                    inflater.inflate(buffer);
+                }
+            } catch (DataFormatException e) {
+                throw new IOException(e.getMessage());
+            }
+            offset = data.length - inflater.getRemaining() + 8;
+            inflater.end();
+            count++;
+        }
+        return count;
+    }
+
+    private static String content(int length) {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; content.length() < length; i++) {
+            content.append(Integer.toHexString(i * 31)).append('\n');
+        }
+        return content.toString();
+    }
+
+    private static String repeat(String text, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(text);
+        }
+        return builder.toString();
+    }
+}
@@ -17,7 +17,11 @@
 package org.gradle.api.tasks.bundling
 
 import groovy.mock.interceptor.MockFor
+import java.util.zip.GZIPInputStream
+import org.apache.tools.tar.TarInputStream
 import org.gradle.api.tasks.AbstractTaskTest
+import org.gradle.api.tasks.util.AntDirective
+import org.gradle.api.tasks.util.FileSet
 import static org.junit.Assert.*
 import org.junit.Before
 import org.junit.Test;
@@ -44,10 +48,39 @@ class TarTest extends AbstractArchiveTaskTest {
     @Test public void testTar() {
         assert tar.compression.is(Compression.NONE)
         assert tar.longFile.is(LongFile.WARN)
+        assert !tar.parallelGzip
         tar.compression = Compression.BZIP2
         assertEquals(Tar.TAR_EXTENSION, tar.extension)
     }
 
+    @Test public void testExecuteWithTarArchiver() {
+        File sourceDir = new File(tar.baseDir, 'source')
+        new File(sourceDir, 'org/gradle').mkdirs()
+        new File(sourceDir, 'org/gradle/a.txt').write('content')
+        tar.resourceCollections = [new FileSet(sourceDir)]
+        tar.compression = Compression.GZIP
+
+        tar.execute()
+
+        TarInputStream tarStream = new TarInputStream(new GZIPInputStream(new FileInputStream(tar.archivePath)))
+        try {
+            List names = []
+            for (def entry = tarStream.nextEntry; entry; entry = tarStream.nextEntry) {
+                names << entry.name
+            }
+            assertEquals(['org/', 'org/gradle/', 'org/gradle/a.txt'], names)
+        } finally {
+            tarStream.close()
+        }
+    }
+
+    @Test public void testExecuteWithAntDirective() {
+        tar.resourceCollections = [new AntDirective({})]
+        getAntMocker(true).use(ant) {
+            tar.execute()
+        }
+    }
+
     MockFor getAntMocker(boolean toBeCalled) {
         antTarMocker.demand.execute(toBeCalled ? 1..1 : 0..0) {AntArchiveParameter archiveParameter, Compression compression, LongFile longFile ->
             if (toBeCalled) {
@@ -32,6 +32,7 @@ import org.junit.Assert
 import org.junit.Before
 import org.junit.Test
 import org.junit.runner.RunWith
+import java.util.zip.ZipFile
 import org.gradle.api.tasks.bundling.*
 import static org.junit.Assert.assertEquals
 
@@ -61,17 +62,21 @@ class WarTest extends AbstractArchiveTaskTest {
         war.manifest = new GradleManifest()
         war.metaInfResourceCollections = [new FileSet()]
         war.webInfFileSets = [new FileSet()]
-        war.webXml = 'myweb.xml' as File
+        war.webXml = new File(war.baseDir, 'myweb.xml')
+        war.webXml.write('<web-app/>')
         war.classesFileSets = [new FileSet()]
         war.additionalLibFileSets = [new FileSet()]
         war.libConfigurations = TEST_LIB_CONFIGURATIONS
         war.libExcludeConfigurations = TEST_LIB_EXCLUDE_CONFIGURATIONS
         antWarMocker = new MockFor(AntWar)
+        File libDir = new File(war.baseDir, 'lib')
+        libDir.mkdirs()
+        (1..4).each { new File(libDir, "file${it}.jar").write("lib$it") }
         filesFromDepencencyManager = [
-                testLibConf1: ['/file1' as File, '/file3' as File],
-                testLibConf2: ['/file2' as File, '/file4' as File],
-                testLibConf3: ['/file3' as File],
-                testLibConf4: ['/file4' as File]
+                testLibConf1: [new File(libDir, 'file1.jar'), new File(libDir, 'file3.jar')],
+                testLibConf2: [new File(libDir, 'file2.jar'), new File(libDir, 'file4.jar')],
+                testLibConf3: [new File(libDir, 'file3.jar')],
+                testLibConf4: [new File(libDir, 'file4.jar')]
         ]
     }
 
@@ -115,7 +120,7 @@ class WarTest extends AbstractArchiveTaskTest {
                 checkMetaArchiveParameterEqualsArchive(metaArchiveParameter, war)
                 assert classesFileSets.is(war.classesFileSets)
                 assert additionalLibFileSets.is(war.additionalLibFileSets)
-                assertEquals(['/file1' as File, '/file2' as File], dependencyLibFiles)
+                assertEquals([new File(war.baseDir, 'lib/file1.jar'), new File(war.baseDir, 'lib/file2.jar')], dependencyLibFiles)
                 assertEquals(webXml, war.webXml)
                 assert webInfFileSets.is(war.webInfFileSets)
             }
@@ -145,6 +150,33 @@ class WarTest extends AbstractArchiveTaskTest {
         super.testExecute();
     }
 
+    @Override @Test
+    public void testExecuteWithUseAnt() {
+        prepareDependencyManagerMock(true, true)
+        super.testExecuteWithUseAnt();
+    }
+
+    @Test public void testExecuteWithZipArchiverAddsWebXmlBeforeWebappResources() {
+        File webappDir = new File(war.baseDir, 'webapp')
+        new File(webappDir, 'WEB-INF').mkdirs()
+        new File(webappDir, 'WEB-INF/web.xml').write('from webapp')
+        new File(webappDir, 'index.html').write('index')
+        war.webXml.write('from webXml')
+        war.resourceCollections = [new FileSet(webappDir)]
+        war.libConfigurations = []
+        war.libExcludeConfigurations = []
+
+        war.execute()
+
+        ZipFile zipFile = new ZipFile(war.archivePath)
+        try {
+            assertEquals('from webXml', zipFile.getInputStream(zipFile.getEntry('WEB-INF/web.xml')).text)
+            assertEquals('index', zipFile.getInputStream(zipFile.getEntry('index.html')).text)
+        } finally {
+            zipFile.close()
+        }
+    }
+
     @Override @Test(expected = GradleScriptException)
     public void testExecuteWithNullDestinationDir() {
         prepareDependencyManagerMock(true, true)
@@ -158,7 +190,7 @@ class WarTest extends AbstractArchiveTaskTest {
 
     @Test public void testDependencies() {
         prepareDependencyManagerMock(false, false)
-        assertEquals(['/file1' as File, '/file2' as File], war.dependencies(false, false))
+        assertEquals([new File(war.baseDir, 'lib/file1.jar'), new File(war.baseDir, 'lib/file2.jar')], war.dependencies(false, false))
     }
 
     @Test public void testLibConfigurations() {
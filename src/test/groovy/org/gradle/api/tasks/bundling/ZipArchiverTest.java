@@ -0,0 +1,349 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.bundling;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.gradle.api.tasks.util.AntDirective;
+import org.gradle.api.tasks.util.FileCollection;
+import org.gradle.api.tasks.util.FileSet;
+import org.gradle.api.tasks.util.ZipFileSet;
+import org.gradle.util.HelperUtil;
+import org.gradle.util.WrapUtil;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+public class ZipArchiverTest {
+    private File testDir;
+    private File sourceDir;
+    private File archive;
+    private ZipArchiver archiver = new ZipArchiver(4);
+
+    @Before
+    public void setUp() {
+        testDir = HelperUtil.makeNewTestDir();
+        sourceDir = new File(testDir, "source");
+        archive = new File(testDir, "archive.zip");
+    }
+
+    @After
+    public void tearDown() {
+        HelperUtil.deleteTestDir();
+    }
+
+    @Test
+    public void writesFilesOfFileSetsSortedAndWithParentDirs() throws IOException {
+        for (int i = 0; i < 200; i++) {
+            write(new File(sourceDir, String.format("org/gradle/file%03d.txt", i)), "content" + i);
+        }
+        write(new File(sourceDir, "a.txt"), "a");
+        new File(sourceDir, "emptyDir").mkdirs();
+        write(new File(sourceDir, "CVS/Entries"), "default exclude");
+        ZipFileSet prefixedFileSet = new ZipFileSet(sourceDir);
+        prefixedFileSet.include(new String[]{"a.txt"});
+        prefixedFileSet.setPrefix("prefix");
+
+        archiver.addResourceCollections(WrapUtil.toList(new FileSet(sourceDir), prefixedFileSet), "");
+        assertTrue(archiver.write(archive));
+
+        List<String> expectedNames = WrapUtil.toList("emptyDir/", "org/", "org/gradle/", "a.txt");
+        for (int i = 0; i < 200; i++) {
+            expectedNames.add(String.format("org/gradle/file%03d.txt", i));
+        }
+        expectedNames.add("prefix/");
+        expectedNames.add("prefix/a.txt");
+        assertEquals(expectedNames, entryNames(archive));
+        assertEquals("content42", read(archive, "org/gradle/file042.txt"));
+        assertEquals("a", read(archive, "prefix/a.txt"));
+    }
+
+    @Test
+    public void addsFirstOfSeveralEntriesWithTheSameName() throws IOException {
+        File otherDir = new File(testDir, "other");
+        write(new File(sourceDir, "same.txt"), "first");
+        write(new File(otherDir, "same.txt"), "second");
+
+        archiver.addResourceCollections(WrapUtil.toList(new FileSet(sourceDir), new FileSet(otherDir)), "");
+        archiver.write(archive);
+
+        assertEquals(WrapUtil.toList("same.txt"), entryNames(archive));
+        assertEquals("first", read(archive, "same.txt"));
+    }
+
+    @Test
+    public void addsFilesOfFileCollectionsWithPrefix() throws IOException {
+        File file = new File(testDir, "lib/some.jar");
+        write(file, "jar");
+
+        archiver.addResourceCollections(WrapUtil.toList(new FileCollection(WrapUtil.toSet(file))), "WEB-INF/lib/");
+        archiver.write(archive);
+
+        assertEquals(WrapUtil.toList("WEB-INF/", "WEB-INF/lib/", "WEB-INF/lib/some.jar"), entryNames(archive));
+    }
+
+    @Test
+    public void mergesSelectedEntriesOfZips() throws IOException {
+        write(new File(sourceDir, "org/a.class"), "a");
+        write(new File(sourceDir, "org/b.txt"), "b");
+        ZipArchiver sourceArchiver = new ZipArchiver();
+        sourceArchiver.addResourceCollections(WrapUtil.toList(new FileSet(sourceDir)), "");
+        File sourceZip = new File(testDir, "source.zip");
+        sourceArchiver.write(sourceZip);
+        ZipFileSet mergeFileSet = new ZipFileSet(sourceZip);
+        mergeFileSet.exclude(new String[]{"**/*.txt"});
+        FileSet mergeGroupFileSet = new FileSet(testDir);
+        mergeGroupFileSet.include(new String[]{"*.zip"});
+
+        ZipArchiver mergingArchiver = new ZipArchiver();
+        mergingArchiver.addMergeFileSets(WrapUtil.toList(mergeFileSet));
+        mergingArchiver.write(archive);
+        assertEquals(WrapUtil.toList("org/", "org/a.class"), entryNames(archive));
+        assertEquals("a", read(archive, "org/a.class"));
+
+        File groupArchive = new File(testDir, "group/archive.zip");
+        groupArchive.getParentFile().mkdirs();
+        archiver.addMergeGroupFileSets(WrapUtil.toList(mergeGroupFileSet));
+        archiver.write(groupArchive);
+        assertEquals(WrapUtil.toList("org/", "org/a.class", "org/b.txt"), entryNames(groupArchive));
+    }
+
+    @Test
+    public void copiesMergedEntriesWithoutChangingTheirCompressedData() throws IOException {
+        write(new File(sourceDir, "a.txt"), "some content which is deflated");
+        write(new File(sourceDir, "lib/b.txt"), "other content");
+        File sourceZip = new File(testDir, "source.zip");
+        ZipOutputStream outputStream = new ZipOutputStream(new FileOutputStream(sourceZip));
+        try {
+            outputStream.setLevel(Deflater.BEST_SPEED);
+            outputStream.putNextEntry(new ZipEntry("a.txt"));
+            outputStream.write(FileUtils.readFileToByteArray(new File(sourceDir, "a.txt")));
+            outputStream.putNextEntry(new ZipEntry("lib/"));
+            outputStream.putNextEntry(new ZipEntry("lib/b.txt"));
+            outputStream.write(FileUtils.readFileToByteArray(new File(sourceDir, "lib/b.txt")));
+        } finally {
+            outputStream.close();
+        }
+        ZipFileSet mergeFileSet = new ZipFileSet(sourceZip);
+        mergeFileSet.setPrefix("merged");
+
+        archiver.addResourceCollections(WrapUtil.toList(mergeFileSet), "");
+        archiver.write(archive);
+
+        assertEquals(WrapUtil.toList("merged/", "merged/a.txt", "merged/lib/", "merged/lib/b.txt"), entryNames(archive));
+        assertEquals("some content which is deflated", read(archive, "merged/a.txt"));
+        assertEquals("other content", read(archive, "merged/lib/b.txt"));
+        ZipFile sourceZipFile = new ZipFile(sourceZip);
+        ZipFile zipFile = new ZipFile(archive);
+        try {
+            ZipEntry sourceEntry = sourceZipFile.getEntry("a.txt");
+            ZipEntry entry = zipFile.getEntry("merged/a.txt");
+            assertEquals(sourceEntry.getCompressedSize(), entry.getCompressedSize());
+            assertEquals(sourceEntry.getCrc(), entry.getCrc());
+        } finally {
+            sourceZipFile.close();
+            zipFile.close();
+        }
+    }
+
+    @Test
+    public void mergesEntriesWithUtf8NamesWithoutUtf8FlagAndKeepsTheirVersionNeeded() throws IOException {
+        File sourceZip = new File(testDir, "source.zip");
+        byte[] content = "content".getBytes();
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        ZipOutputStream outputStream = new ZipOutputStream(new FileOutputStream(sourceZip));
+        try {
+            ZipEntry entry = new ZipEntry("caf\u00e9.txt");
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(content.length);
+            entry.setCrc(crc.getValue());
+            outputStream.putNextEntry(entry);
+            outputStream.write(content);
+        } finally {
+            outputStream.close();
+        }
+        clearUtf8Flags(sourceZip);
+
+        archiver.addResourceCollections(WrapUtil.toList(new ZipFileSet(sourceZip)), "");
+        archiver.write(archive);
+
+        assertEquals(WrapUtil.toList("caf\u00e9.txt"), entryNames(archive));
+        assertEquals("content", read(archive, "caf\u00e9.txt"));
+        assertEquals(10, RawZipFile.readEntries(sourceZip).get(0).versionNeeded);
+        assertEquals(10, RawZipFile.readEntries(archive).get(0).versionNeeded);
+    }
+
+    @Test
+    public void writesArchiveIncrementally() throws IOException {
+        File indexFile = new File(testDir, "index/archive.properties");
+        File a = new File(sourceDir, "a.txt");
+        File b = new File(sourceDir, "b.txt");
+        write(a, "a1");
+        write(b, "b1");
+        assertTrue(incrementalArchiver().write(archive, indexFile));
+        assertTrue(indexFile.isFile());
+
+        // A change which does not show in the index is not noticed, so the entries are not read again
+        long aLastModified = a.lastModified();
+        write(a, "a2");
+        a.setLastModified(aLastModified);
+        long archiveLastModified = archive.lastModified();
+        assertTrue(incrementalArchiver().write(archive, indexFile));
+        assertEquals(archiveLastModified, archive.lastModified());
+        assertEquals("a1", read(archive, "a.txt"));
+
+        write(b, "b2");
+        b.setLastModified(b.lastModified() + 2000);
+        assertTrue(incrementalArchiver().write(archive, indexFile));
+        assertEquals(WrapUtil.toList("META-INF/", "META-INF/MANIFEST.MF", "a.txt", "b.txt"), entryNames(archive));
+        assertEquals("a1", read(archive, "a.txt"));
+        assertEquals("b2", read(archive, "b.txt"));
+
+        // Without an index the archive is written from scratch
+        incrementalArchiver().write(archive);
+        assertEquals("a2", read(archive, "a.txt"));
+    }
+
+    @Test
+    public void writesManifestAsFirstEntryAndSkipsOtherManifests() throws IOException {
+        write(new File(sourceDir, "META-INF/MANIFEST.MF"), "Manifest-Version: 1.0\nSkipped: true\n");
+        write(new File(sourceDir, "a.txt"), "a");
+        Manifest manifest = GradleManifest.createDefaultManifest();
+        manifest.getMainAttributes().putValue("Main", "value");
+
+        archiver.setManifest(manifest);
+        archiver.addResourceCollections(WrapUtil.toList(new FileSet(sourceDir)), "");
+        archiver.write(archive);
+
+        assertEquals(WrapUtil.toList("META-INF/", "META-INF/MANIFEST.MF", "a.txt"), entryNames(archive));
+        JarFile jarFile = new JarFile(archive);
+        try {
+            assertEquals("value", jarFile.getManifest().getMainAttributes().getValue("Main"));
+            assertNull(jarFile.getManifest().getMainAttributes().getValue("Skipped"));
+        } finally {
+            jarFile.close();
+        }
+    }
+
+    @Test
+    public void skipsEmptyArchiveUnlessCreateIfEmpty() throws IOException {
+        archiver.setManifest(GradleManifest.createDefaultManifest());
+        archiver.addResourceCollections(WrapUtil.toList(new FileSet(sourceDir)), "");
+
+        assertFalse(archiver.write(archive));
+        assertFalse(archive.exists());
+
+        archiver.setCreateIfEmpty(true);
+        assertTrue(archiver.write(archive));
+        assertEquals(WrapUtil.toList("META-INF/", "META-INF/MANIFEST.MF"), entryNames(archive));
+    }
+
+    @Test
+    public void canNotArchiveAntDirectives() {
+        assertTrue(ZipArchiver.canArchive(WrapUtil.toList(new FileSet(sourceDir), new FileCollection(WrapUtil.toSet()))));
+        assertFalse(ZipArchiver.canArchive(WrapUtil.toList(new AntDirective())));
+    }
+
+    @Test
+    public void storesFilesWhichAreCompressedAlready() throws IOException {
+        write(new File(sourceDir, "lib/some.jar"), "jar content");
+        write(new File(sourceDir, "a.txt"), "text content");
+
+        archiver.addResourceCollections(WrapUtil.toList(new FileSet(sourceDir)), "");
+        archiver.write(archive);
+
+        ZipFile zipFile = new ZipFile(archive);
+        try {
+            assertEquals(ZipEntry.STORED, zipFile.getEntry("lib/some.jar").getMethod());
+            assertEquals(ZipEntry.DEFLATED, zipFile.getEntry("a.txt").getMethod());
+        } finally {
+            zipFile.close();
+        }
+        assertEquals("jar content", read(archive, "lib/some.jar"));
+        assertEquals("text content", read(archive, "a.txt"));
+    }
+
+    private ZipArchiver incrementalArchiver() {
+        ZipArchiver archiver = new ZipArchiver(2);
+        archiver.setManifest(GradleManifest.createDefaultManifest());
+        archiver.addResourceCollections(WrapUtil.toList(new FileSet(sourceDir)), "");
+        return archiver;
+    }
+
+    private void write(File file, String content) throws IOException {
+        FileUtils.writeStringToFile(file, content);
+    }
+
+    private List<String> entryNames(File archive) throws IOException {
+        List<String> names = new ArrayList<String>();
+        ZipFile zipFile = new ZipFile(archive);
+        try {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                names.add(entries.nextElement().getName());
+            }
+        } finally {
+            zipFile.close();
+        }
+        return names;
+    }
+
+    /**
+     * Clears the UTF-8 flag of the entries of the given zip, as the jar tool and the zip output stream of Java 5 and 6
+     * write UTF-8 names without the flag.
+     */
+    private void clearUtf8Flags(File zip) throws IOException {
+        byte[] data = FileUtils.readFileToByteArray(zip);
+        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        int endOfCentralDirectory = data.length - 22;
+        int position = buffer.getInt(endOfCentralDirectory + 16);
+        for (int i = buffer.getShort(endOfCentralDirectory + 10); i > 0; i--) {
+            buffer.putShort(position + 8, (short) (buffer.getShort(position + 8) & ~(1 << 11)));
+            int localHeader = buffer.getInt(position + 42);
+            buffer.putShort(localHeader + 6, (short) (buffer.getShort(localHeader + 6) & ~(1 << 11)));
+            position += 46 + buffer.getShort(position + 28) + buffer.getShort(position + 30)
+                    + buffer.getShort(position + 32);
+        }
+        FileUtils.writeByteArrayToFile(zip, data);
+    }
+
+    private String read(File archive, String entryName) throws IOException {
+        ZipFile zipFile = new ZipFile(archive);
+        try {
+            return IOUtils.toString(zipFile.getInputStream(zipFile.getEntry(entryName)));
+        } finally {
+            zipFile.close();
+        }
+    }
+}
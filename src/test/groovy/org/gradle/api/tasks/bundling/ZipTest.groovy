@@ -18,6 +18,9 @@ package org.gradle.api.tasks.bundling
 
 import groovy.mock.interceptor.MockFor
 import org.gradle.api.tasks.AbstractTaskTest
+import org.gradle.api.tasks.util.AntDirective
+import org.gradle.api.tasks.util.FileSet
+import java.util.zip.ZipFile
 import org.junit.Before
 import static org.junit.Assert.*
 import org.junit.Test;
@@ -61,6 +64,28 @@ class ZipTest extends AbstractArchiveTaskTest {
         checkConstructor()
     }
 
+    @Test public void testExecuteWithZipArchiver() {
+        File sourceDir = new File(zip.baseDir, 'source')
+        new File(sourceDir, 'org/gradle').mkdirs()
+        new File(sourceDir, 'org/gradle/a.txt').write('content')
+        zip.resourceCollections = [new FileSet(sourceDir)]
+
+        zip.execute()
+
+        ZipFile zipFile = new ZipFile(zip.archivePath)
+        try {
+            assertEquals(['org/', 'org/gradle/', 'org/gradle/a.txt'], zipFile.entries().collect { it.name })
+            assertEquals('content', zipFile.getInputStream(zipFile.getEntry('org/gradle/a.txt')).text)
+        } finally {
+            zipFile.close()
+        }
+    }
+
+    @Test public void testCreateZipArchiverWithAntDirective() {
+        zip.resourceCollections = [new AntDirective({})]
+        assertNull(zip.createZipArchiver())
+    }
+
     List getFileSetMethods() {
         super.getFileSetMethods() + ['zipFileSet']
     }
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.compile;
+
+import org.apache.commons.io.FileUtils;
+import org.gradle.util.HelperUtil;
+import org.gradle.util.WrapUtil;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class ClassAnalysisTest {
+    private File sourceDir;
+    private File targetDir;
+
+    @Before
+    public void setUp() throws IOException {
+        File testDir = HelperUtil.makeNewTestDir();
+        sourceDir = new File(testDir, "src");
+        targetDir = new File(testDir, "classes");
+        FileUtils.writeStringToFile(new File(sourceDir, "org/gradle/Types.java"),
+                "package org.gradle; public class Types { public static final String NAME = \"name\"; "
+                        + "private static final int PRIVATE = 1; }");
+        FileUtils.writeStringToFile(new File(sourceDir, "org/gradle/Field.java"), "package org.gradle; class Field {}");
+        FileUtils.writeStringToFile(new File(sourceDir, "org/gradle/Param.java"), "package org.gradle; class Param {}");
+        FileUtils.writeStringToFile(new File(sourceDir, "org/gradle/Generic.java"), "package org.gradle; class Generic {}");
+        FileUtils.writeStringToFile(new File(sourceDir, "org/gradle/Array.java"), "package org.gradle; class Array {}");
+        FileUtils.writeStringToFile(new File(sourceDir, "org/gradle/User.java"),
+                "package org.gradle; import java.util.List; public class User extends Thread { "
+                        + "Field field; long l = 5L; double d = 1.5; "
+                        + "void param(Param p, List<Generic> generics) { Object a = new Array[0]; String n = Types.NAME; } }");
+        new JdkJavac().execute(WrapUtil.toList(sourceDir), new ArrayList(), new ArrayList(), targetDir,
+                new ArrayList(), "1.5", "1.5", new CompileOptions());
+    }
+
+    @After
+    public void tearDown() {
+        JdkJavac.closeFileManager();
+        HelperUtil.deleteTestDir();
+    }
+
+    @Test
+    public void findsClassesReferencedInCodeAndSignatures() throws IOException {
+        ClassAnalysis analysis = ClassAnalysis.analyze(new File(targetDir, "org/gradle/User.class"));
+
+        assertEquals("org/gradle/User", analysis.getClassName());
+        assertTrue(analysis.getReferencedClasses().containsAll(WrapUtil.toSet("java/lang/Thread", "java/util/List",
+                "org/gradle/Field", "org/gradle/Param", "org/gradle/Generic", "org/gradle/Array")));
+        assertFalse(analysis.getReferencedClasses().contains("org/gradle/User"));
+        assertFalse(analysis.declaresConstants());
+    }
+
+    @Test
+    public void findsNonPrivateConstants() throws IOException {
+        assertTrue(ClassAnalysis.analyze(new File(targetDir, "org/gradle/Types.class")).declaresConstants());
+    }
+
+    @Test
+    public void findsTypesOfDescriptorsAfterPrimitives() {
+        assertEquals(WrapUtil.toSet("com/acme/Model"), typesOfDescriptor("(ILcom/acme/Model;)V"));
+        assertEquals(WrapUtil.toSet("com/acme/Model"), typesOfDescriptor("(JLcom/acme/Model;)V"));
+        assertEquals(WrapUtil.toSet("com/acme/Model", "com/acme/Result"),
+                typesOfDescriptor("(Z[[Lcom/acme/Model;D)[Lcom/acme/Result;"));
+        assertEquals(WrapUtil.toSet("com/acme/Model"), typesOfDescriptor("[Lcom/acme/Model;"));
+    }
+
+    @Test
+    public void findsTypesOfSignatures() {
+        assertEquals(WrapUtil.toSet("java/lang/Object", "java/util/List", "com/acme/Bound", "com/acme/Model"),
+                typesOfDescriptor("<T:Ljava/lang/Object;U::Lcom/acme/Bound;>(TT;Ljava/util/List<+Lcom/acme/Model;>;)TU;"));
+        assertEquals(WrapUtil.toSet("com/acme/Outer", "com/acme/Outer$Inner", "com/acme/Model"),
+                typesOfDescriptor("Lcom/acme/Outer<Lcom/acme/Model;>.Inner<*>;"));
+    }
+
+    @Test
+    public void findsNoTypesInConstantsWhichAreNoDescriptors() {
+        assertEquals(WrapUtil.toSet(), typesOfDescriptor("Code"));
+        assertEquals(WrapUtil.toSet(), typesOfDescriptor("see Lcom/acme/Model; for details"));
+        assertEquals(WrapUtil.toSet(), typesOfDescriptor("(ILcom/acme/Model;"));
+    }
+
+    private static Set<String> typesOfDescriptor(String descriptor) {
+        Set<String> classNames = new TreeSet<String>();
+        ClassAnalysis.addTypesOfDescriptor(descriptor, classNames);
+        return classNames;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.compile;
+
+import org.apache.commons.io.FileUtils;
+import org.gradle.util.HelperUtil;
+import org.gradle.util.WrapUtil;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ClasspathSnapshotTest {
+    private static final String LIB = "package lib; public class Lib { public static final int VERSION = 1; "
+            + "public String name(String prefix) { return prefix + helper(); } "
+            + "private String helper() { return \"lib\"; } "
+            + "Runnable runnable = new Runnable() { public void run() {} }; "
+            + "private static class Hidden {} }";
+
+    private static final String ANNOTATIONS = "package lib; import java.lang.annotation.*; "
+            + "@Retention(RetentionPolicy.RUNTIME) @interface Visible { String value() default \"default\"; "
+            + "int[] numbers() default {}; } "
+            + "@Retention(RetentionPolicy.CLASS) @interface Invisible {} "
+            + "@Visible(\"class\") public class Lib { @Visible(value = \"field\", numbers = {1, 2}) public String field; "
+            + "@Invisible public void method(@Visible(\"param\") String param) { int i = 1; } }";
+
+    private File testDir;
+    private File classesDir;
+
+    @Before
+    public void setUp() {
+        testDir = HelperUtil.makeNewTestDir();
+        classesDir = new File(testDir, "classes");
+    }
+
+    @After
+    public void tearDown() {
+        JdkJavac.closeFileManager();
+        HelperUtil.deleteTestDir();
+    }
+
+    @Test
+    public void fingerprintDoesNotChangeWithTheImplementation() throws IOException {
+        String fingerprint = fingerprint(LIB);
+
+        assertEquals(fingerprint, fingerprint(LIB.replace("return prefix + helper();", "return helper() + prefix;")));
+        assertEquals(fingerprint, fingerprint(LIB.replace("private String helper()", "private Object helper()")));
+        assertEquals(fingerprint, fingerprint(LIB.replace("public void run() {}", "public void run() { run(); }")));
+        assertEquals(fingerprint, fingerprint(LIB.replace("private static class Hidden {}", "")));
+    }
+
+    @Test
+    public void fingerprintChangesWithTheApi() throws IOException {
+        String fingerprint = fingerprint(LIB);
+
+        assertFalse(fingerprint.equals(fingerprint(LIB.replace("VERSION = 1", "VERSION = 2"))));
+        assertFalse(fingerprint.equals(fingerprint(LIB.replace("String name(String", "Object name(String"))));
+        assertFalse(fingerprint.equals(fingerprint(LIB.replace("public String name", "String name"))));
+        assertFalse(fingerprint.equals(fingerprint(LIB.replace("public class Lib {", "public class Lib extends Thread {"))));
+        assertFalse(fingerprint.equals(fingerprint(LIB.replace("private static class Hidden", "public static class Hidden"))));
+    }
+
+    @Test
+    public void fingerprintChangesWithTheAnnotations() throws IOException {
+        String fingerprint = fingerprint(ANNOTATIONS);
+
+        assertEquals(fingerprint, fingerprint(ANNOTATIONS.replace("int i = 1;", "int i = 2; String s = \"other\";")));
+        assertFalse(fingerprint.equals(fingerprint(ANNOTATIONS.replace("@Visible(\"class\")", "@Visible(\"other\")"))));
+        assertFalse(fingerprint.equals(fingerprint(ANNOTATIONS.replace("numbers = {1, 2}", "numbers = {1, 3}"))));
+        assertFalse(fingerprint.equals(fingerprint(ANNOTATIONS.replace("@Invisible public", "public"))));
+        assertFalse(fingerprint.equals(fingerprint(ANNOTATIONS.replace("@Visible(\"param\")", ""))));
+        assertFalse(fingerprint.equals(fingerprint(ANNOTATIONS.replace("default \"default\"", "default \"other\""))));
+    }
+
+    @Test
+    public void reusesFingerprintsOfUnchangedElements() throws IOException {
+        fingerprint(LIB);
+        ClasspathSnapshot snapshot = new ClasspathSnapshot(new HashMap<String, String>());
+        snapshot.fingerprint(WrapUtil.toList(classesDir));
+        String state = snapshot.getEntries().get(classesDir.getAbsolutePath());
+        Map<String, String> previousEntries = WrapUtil.toMap(classesDir.getAbsolutePath(),
+                state.substring(0, state.indexOf(';')) + ";previous");
+
+        ClasspathSnapshot unchanged = new ClasspathSnapshot(previousEntries);
+        unchanged.fingerprint(WrapUtil.toList(classesDir));
+        assertTrue(unchanged.getEntries().get(classesDir.getAbsolutePath()).endsWith(";previous"));
+
+        new File(classesDir, "lib/Lib.class").setLastModified(0);
+        ClasspathSnapshot changed = new ClasspathSnapshot(previousEntries);
+        changed.fingerprint(WrapUtil.toList(classesDir));
+        assertFalse(changed.getEntries().get(classesDir.getAbsolutePath()).endsWith(";previous"));
+    }
+
+    private String fingerprint(String source) throws IOException {
+        File sourceDir = new File(testDir, "src");
+        FileUtils.deleteDirectory(classesDir);
+        FileUtils.writeStringToFile(new File(sourceDir, "lib/Lib.java"), source);
+        new JdkJavac().execute(WrapUtil.toList(sourceDir), new ArrayList(), new ArrayList(), classesDir,
+                new ArrayList(), "1.5", "1.5", new CompileOptions());
+        return new ClasspathSnapshot(new HashMap<String, String>()).fingerprint(WrapUtil.toList(classesDir));
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.compile;
+
+import org.gradle.api.Task;
+import org.gradle.util.WrapUtil;
+import static org.junit.Assert.*;
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.lib.legacy.ClassImposteriser;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompileMetricsCollectorTest {
+    private final Mockery context = new Mockery();
+    private final CompileMetricsCollector collector = new CompileMetricsCollector();
+
+    @Before
+    public void setUp() {
+        context.setImposteriser(ClassImposteriser.INSTANCE);
+    }
+
+    @Test
+    public void collectsTheMetricsOfCompileTasksMostCostlyFirst() {
+        CompileMetrics cheap = metrics(":a:compile", 10);
+        CompileMetrics costly = metrics(":b:compile", 100);
+
+        collector.afterExecute(compile(cheap), null);
+        collector.afterExecute(compile(costly), null);
+        collector.afterExecute(compile(null), null);
+        collector.afterExecute(context.mock(Task.class), null);
+
+        assertEquals(WrapUtil.toList(costly, cheap), collector.getMetrics());
+    }
+
+    private CompileMetrics metrics(String taskPath, long compileTime) {
+        CompileMetrics metrics = new CompileMetrics(taskPath);
+        metrics.setCompileTime(compileTime);
+        return metrics;
+    }
+
+    private Compile compile(final CompileMetrics metrics) {
+        final Compile compile = context.mock(Compile.class, String.valueOf(metrics));
+        context.checking(new Expectations() {{
+            allowing(compile).getMetrics();
+            will(returnValue(metrics));
+        }});
+        return compile;
+    }
+}
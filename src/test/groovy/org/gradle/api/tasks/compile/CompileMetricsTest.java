@@ -0,0 +1,82 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.compile;
+
+import org.apache.commons.io.FileUtils;
+import org.gradle.util.HelperUtil;
+import org.gradle.util.WrapUtil;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+public class CompileMetricsTest {
+    private final CompileMetrics metrics = new CompileMetrics(":compile");
+
+    @After
+    public void tearDown() {
+        HelperUtil.deleteTestDir();
+    }
+
+    @Test
+    public void measuresTheClasspath() throws IOException {
+        File testDir = HelperUtil.makeNewTestDir();
+        File jar = new File(testDir, "lib.jar");
+        FileUtils.writeStringToFile(jar, "12345");
+        File classesDir = new File(testDir, "classes");
+        FileUtils.writeStringToFile(new File(classesDir, "org/A.class"), "123");
+        FileUtils.writeStringToFile(new File(classesDir, "org/B.class"), "12");
+
+        metrics.classpathResolved(WrapUtil.toList(jar, classesDir, new File(testDir, "missing.jar")), 30);
+
+        assertEquals(3, metrics.getClasspathEntryCount());
+        assertEquals(10, metrics.getClasspathSize());
+        assertEquals(30, metrics.getClasspathResolveTime());
+    }
+
+    @Test
+    public void measuresTheClasspathWhenAskedFor() throws IOException {
+        File testDir = HelperUtil.makeNewTestDir();
+        File jar = new File(testDir, "lib.jar");
+        metrics.classpathResolved(WrapUtil.toList(jar), 30);
+        FileUtils.writeStringToFile(jar, "12345");
+
+        assertEquals(5, metrics.getClasspathSize());
+    }
+
+    @Test
+    public void sourcesAndCompiledClassesAreUnknownUntilCounted() {
+        assertEquals(-1, metrics.getSourceCount());
+        assertEquals(-1, metrics.getCompiledClassCount());
+
+        metrics.setSourceCount(2);
+        metrics.setCompiledClassCount(3);
+
+        assertEquals(2, metrics.getSourceCount());
+        assertEquals(3, metrics.getCompiledClassCount());
+    }
+
+    @Test
+    public void totalTimeIsClasspathResolveTimeAndCompileTime() {
+        metrics.classpathResolved(WrapUtil.toList(), 30);
+        metrics.setCompileTime(100);
+
+        assertEquals(130, metrics.getTotalTime());
+        assertEquals(":compile", metrics.getTaskPath());
+    }
+}
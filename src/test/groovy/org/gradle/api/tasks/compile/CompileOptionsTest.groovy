@@ -39,12 +39,15 @@ class CompileOptionsTest {
         assertTrue(compileOptions.debug)
         assertTrue(compileOptions.failOnError)
         assertTrue(compileOptions.warnings)
+        assertTrue(compileOptions.useAnt)
 
         assertFalse(compileOptions.includeJavaRuntime)
         assertFalse(compileOptions.deprecation)
         assertFalse(compileOptions.listFiles)
         assertFalse(compileOptions.verbose)
         assertFalse(compileOptions.fork)
+        assertFalse(compileOptions.daemon)
+        assertFalse(compileOptions.parallel)
 
         assertNull(compileOptions.compilerArgs)
         assertNull(compileOptions.encoding)
@@ -54,6 +57,7 @@ class CompileOptionsTest {
 
         assertNotNull(compileOptions.forkOptions)
         assertNotNull(compileOptions.debugOptions)
+        assertNotNull(compileOptions.daemonOptions)
     }
 
     @Test public void testOptionMapForDebugAndForkOptions() {
@@ -116,7 +120,7 @@ class CompileOptionsTest {
     @Test public void testWithExcludeFieldsFromOptionMap() {
       compileOptions.compilerArgs = [[value: 'something']]
         Map optionMap = compileOptions.optionMap()
-        ['debugOptions', 'forkOptions', 'compilerArgs'].each {
+        ['debugOptions', 'forkOptions', 'compilerArgs', 'useAnt', 'daemon', 'daemonOptions', 'parallel'].each {
             assertFalse(optionMap.containsKey(it))
         }
     }
@@ -133,6 +137,18 @@ class CompileOptionsTest {
         assertTrue(forkUseCalled)
     }
 
+    @Test public void testDaemon() {
+        compileOptions.daemon = false
+        boolean daemonUseCalled = false
+        compileOptions.daemonOptions = [define: {Map args ->
+            daemonUseCalled = true
+            assertEquals([idleTimeout: 60], args)
+        }] as DaemonOptions
+        assert compileOptions.daemon(idleTimeout: 60).is(compileOptions)
+        assertTrue(compileOptions.daemon)
+        assertTrue(daemonUseCalled)
+    }
+
     @Test public void testDebug() {
         compileOptions.debug = false
         boolean debugUseCalled = false
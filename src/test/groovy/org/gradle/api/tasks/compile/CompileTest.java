@@ -16,7 +16,9 @@
 
 package org.gradle.api.tasks.compile;
 
+import org.apache.tools.ant.BuildException;
 import org.gradle.api.DependencyManager;
+import org.gradle.api.GradleException;
 import org.gradle.api.Task;
 import org.gradle.api.internal.AbstractTask;
 import org.gradle.api.tasks.AbstractTaskTest;
@@ -29,6 +31,8 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import static org.junit.Assert.*;
 
+import java.io.File;
+
 
 /**
  * @author Hans Dockter
@@ -39,6 +43,8 @@ public class CompileTest extends AbstractCompileTest {
 
     private AntJavac antCompileMock;
 
+    private JdkJavac jdkCompileMock;
+
     private Mockery context = new Mockery();
 
     @Before public void setUp()  {
@@ -48,6 +54,8 @@ public class CompileTest extends AbstractCompileTest {
         compile = new Compile(getProject(), AbstractTaskTest.TEST_TASK_NAME);
         antCompileMock = context.mock(AntJavac.class);
         compile.antCompile = antCompileMock;
+        jdkCompileMock = context.mock(JdkJavac.class);
+        compile.jdkCompile = jdkCompileMock;
     }
            
     public AbstractTask getTask() {
@@ -65,6 +73,104 @@ public class CompileTest extends AbstractCompileTest {
         compile.execute();
     }
 
+    @Test
+    public void testExecuteRecordsMetrics() {
+        setUpMocksAndAttributes(compile);
+        compile.getOptions().setUseAnt(false);
+        context.checking(new Expectations() {{
+            one(jdkCompileMock).execute(compile.getSrcDirs(), compile.getIncludes(), compile.getExcludes(), compile.getDestinationDir(),
+                    compile.getClasspath(), compile.getSourceCompatibility(), compile.getTargetCompatibility(), compile.getOptions(),
+                    compile.getDependencyGraphFile());
+            allowing(jdkCompileMock).getSourceCount();
+            will(returnValue(3));
+            allowing(jdkCompileMock).getCompiledClassCount();
+            will(returnValue(4));
+        }});
+        assertNull(compile.getMetrics());
+
+        compile.execute();
+
+        CompileMetrics metrics = compile.getMetrics();
+        assertEquals(compile.getPath(), metrics.getTaskPath());
+        assertEquals(compile.getClasspath().size(), metrics.getClasspathEntryCount());
+        assertEquals(3, metrics.getSourceCount());
+        assertEquals(4, metrics.getCompiledClassCount());
+    }
+
+    @Test
+    public void testExecuteRecordsMetricsOfFailedCompile() {
+        setUpMocksAndAttributes(compile);
+        final BuildException failure = new BuildException("compile failed");
+        context.checking(new Expectations() {{
+            one(antCompileMock).execute(compile.getSrcDirs(), compile.getIncludes(), compile.getExcludes(), compile.getDestinationDir(),
+                    compile.getClasspath(), compile.getSourceCompatibility(), compile.getTargetCompatibility(), compile.getOptions(),
+                    compile.getProject().getAnt());
+            will(throwException(failure));
+        }});
+
+        try {
+            compile.execute();
+            fail();
+        } catch (GradleException e) {
+            assertSame(failure, e.getCause());
+        }
+
+        assertEquals(compile.getPath(), compile.getMetrics().getTaskPath());
+    }
+
+    @Test
+    public void testExecuteWithJdkCompiler() {
+        setUpMocksAndAttributes(compile);
+        compile.getOptions().setUseAnt(false);
+        context.checking(new Expectations() {{
+            one(jdkCompileMock).execute(compile.getSrcDirs(), compile.getIncludes(), compile.getExcludes(), compile.getDestinationDir(),
+                    compile.getClasspath(), compile.getSourceCompatibility(), compile.getTargetCompatibility(), compile.getOptions(),
+                    compile.getDependencyGraphFile());
+            allowing(jdkCompileMock).getSourceCount();
+            allowing(jdkCompileMock).getCompiledClassCount();
+        }});
+        compile.execute();
+    }
+
+    @Test
+    public void testExecuteWithJdkCompilerAndFork() {
+        setUpMocksAndAttributes(compile);
+        compile.getOptions().setUseAnt(false);
+        compile.getOptions().setFork(true);
+        context.checking(new Expectations() {{
+            one(antCompileMock).execute(compile.getSrcDirs(), compile.getIncludes(), compile.getExcludes(), compile.getDestinationDir(),
+                    compile.getClasspath(), compile.getSourceCompatibility(), compile.getTargetCompatibility(), compile.getOptions(),
+                    compile.getProject().getAnt());
+        }});
+        compile.execute();
+    }
+
+    @Test
+    public void testExecuteWithDaemon() {
+        setUpMocksAndAttributes(compile);
+        compile.getOptions().setDaemon(true);
+        context.checking(new Expectations() {{
+            one(antCompileMock).executeInDaemon(compile.getSrcDirs(), compile.getIncludes(), compile.getExcludes(),
+                    compile.getDestinationDir(), compile.getClasspath(), compile.getSourceCompatibility(),
+                    compile.getTargetCompatibility(), compile.getOptions(), compile.getDaemonRegistryDir());
+        }});
+        compile.execute();
+    }
+
+    @Test
+    public void testDaemonRegistryDir() {
+        assertEquals(new File(getProject().getBuild().getGradleUserHomeDir(), Compile.DAEMON_REGISTRY_DIR_NAME),
+                compile.getDaemonRegistryDir());
+    }
+
+    @Test
+    public void testDependencyGraphFile() {
+        assertEquals(new File(getProject().getBuildDir(), Compile.DEPENDENCY_GRAPH_DIR_NAME + "/" + compile.getName()
+                + ".properties"), compile.getDependencyGraphFile());
+        compile.setDependencyGraphFile(new File("/graph.properties"));
+        assertEquals(new File("/graph.properties"), compile.getDependencyGraphFile());
+    }
+
     // todo We need to do this to make the compiler happy. We need to file a Jira to Groovy.
     public Compile getCompile() {
         return compile;
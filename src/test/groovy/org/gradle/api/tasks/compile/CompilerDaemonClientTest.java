@@ -0,0 +1,89 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.compile;
+
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.launch.AntMain;
+import org.gradle.util.GUtil;
+import org.gradle.util.HelperUtil;
+import org.gradle.util.WrapUtil;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Properties;
+
+public class CompilerDaemonClientTest {
+    private File testDir;
+    private File registryDir;
+    private File registryFile;
+    private List<File> classpath;
+    private List<String> jvmArgs = WrapUtil.toList("-Xmx64m");
+
+    @Before
+    public void setUp() throws URISyntaxException {
+        testDir = HelperUtil.makeNewTestDir();
+        registryDir = new File(testDir, "registry");
+        classpath = WrapUtil.toList(codeSource(Project.class), codeSource(AntMain.class));
+        registryFile = new File(registryDir, CompilerDaemonClient.key(classpath, jvmArgs) + ".properties");
+    }
+
+    @After
+    public void tearDown() {
+        if (registryFile.isFile()) {
+            Properties properties = GUtil.loadProperties(registryFile);
+            new CompilerDaemonClient.Daemon(Integer.parseInt(properties.getProperty("port")),
+                    properties.getProperty("secret"), null).stop();
+        }
+        CompilerDaemonClient.stopDaemons();
+        HelperUtil.deleteTestDir();
+    }
+
+    @Test
+    public void startsANewDaemonWhenTheRegisteredDaemonHasStopped() throws IOException {
+        ServerSocket stoppedDaemon = new ServerSocket(0, 50, InetAddress.getByName(null));
+        String stoppedPort = String.valueOf(stoppedDaemon.getLocalPort());
+        stoppedDaemon.close();
+        Properties properties = new Properties();
+        properties.setProperty("port", stoppedPort);
+        properties.setProperty("secret", "secret");
+        registryDir.mkdirs();
+        GUtil.saveProperties(properties, registryFile);
+        DaemonOptions options = new DaemonOptions();
+        options.setReuseAcrossBuilds(true);
+        options.setIdleTimeout(60);
+        File dir = new File(testDir, "dir");
+
+        CompilerDaemonClient.execute(classpath, jvmArgs, options, registryDir,
+                WrapUtil.toList(new DaemonTask("mkdir", WrapUtil.toMap("dir", dir))));
+
+        assertTrue(dir.isDirectory());
+        Properties registeredProperties = GUtil.loadProperties(registryFile);
+        assertFalse(stoppedPort.equals(registeredProperties.getProperty("port")));
+        assertFalse("secret".equals(registeredProperties.getProperty("secret")));
+    }
+
+    private static File codeSource(Class<?> type) throws URISyntaxException {
+        return new File(type.getProtectionDomain().getCodeSource().getLocation().toURI());
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.compile;
+
+import org.apache.tools.ant.Task;
+import org.gradle.api.GradleException;
+import org.gradle.util.HelperUtil;
+import org.gradle.util.WrapUtil;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.Collections;
+
+public class CompilerDaemonTest {
+    private static final String SECRET = "secret";
+
+    private File testDir;
+    private ServerSocket serverSocket;
+    private Thread daemonThread;
+    private volatile Throwable daemonFailure;
+
+    @Before
+    public void setUp() throws IOException {
+        testDir = HelperUtil.makeNewTestDir();
+        serverSocket = new ServerSocket(0, 50, InetAddress.getByName(null));
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        if (daemonThread.isAlive()) {
+            client(SECRET).stop();
+            daemonThread.join(10000);
+        }
+        HelperUtil.deleteTestDir();
+    }
+
+    @Test
+    public void runsTheTasksOfACompile() throws IOException {
+        startDaemon(10000);
+        File dir = new File(testDir, "dir");
+
+        client(SECRET).execute(WrapUtil.toList(new DaemonTask("mkdir", WrapUtil.toMap("dir", dir))));
+
+        assertTrue(dir.isDirectory());
+    }
+
+    @Test
+    public void answersAFailedCompileWithItsFailure() throws IOException {
+        startDaemon(10000);
+
+        try {
+            client(SECRET).execute(WrapUtil.toList(new DaemonTask("fail", WrapUtil.toMap("message", "broken"))));
+            fail();
+        } catch (GradleException e) {
+            assertEquals("broken", e.getMessage());
+        }
+        assertTrue(daemonThread.isAlive());
+    }
+
+    @Test
+    public void ignoresRequestsWithAWrongSecret() throws IOException {
+        startDaemon(10000);
+        File dir = new File(testDir, "dir");
+
+        try {
+            client("wrong").execute(WrapUtil.toList(new DaemonTask("mkdir", WrapUtil.toMap("dir", dir))));
+            fail();
+        } catch (IOException e) {
+            // The daemon has closed the connection without an answer
+        }
+        client("wrong").stop();
+
+        assertFalse(dir.exists());
+        client(SECRET).execute(WrapUtil.toList(new DaemonTask("mkdir", WrapUtil.toMap("dir", dir))));
+        assertTrue(dir.isDirectory());
+    }
+
+    @Test
+    public void stopsOnAStopRequest() throws IOException, InterruptedException {
+        startDaemon(10000);
+
+        client(SECRET).stop();
+
+        assertStopped();
+        assertNull(daemonFailure);
+    }
+
+    @Test
+    public void stopsAfterTheIdleTimeout() throws IOException, InterruptedException {
+        startDaemon(100);
+
+        assertStopped();
+        assertNull(daemonFailure);
+    }
+
+    @Test
+    public void stopsWhenACompileFailsWithAnError() throws IOException, InterruptedException {
+        startDaemon(10000);
+        DaemonTask definition = new DaemonTask("taskdef", WrapUtil.toMap("name", "outOfMemory"));
+        definition.getAttributes().put("classname", OutOfMemoryTask.class.getName());
+
+        try {
+            client(SECRET).execute(WrapUtil.toList(definition, new DaemonTask("outOfMemory", Collections.emptyMap())));
+            fail();
+        } catch (IOException e) {
+            // The daemon has stopped without an answer, so the client starts a new one
+        }
+
+        assertStopped();
+        assertTrue(daemonFailure instanceof OutOfMemoryError);
+    }
+
+    private void startDaemon(int idleTimeout) throws IOException {
+        serverSocket.setSoTimeout(idleTimeout);
+        daemonThread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    new CompilerDaemon(SECRET).run(serverSocket);
+                } catch (Throwable t) {
+                    daemonFailure = t;
+                }
+            }
+        });
+        daemonThread.start();
+    }
+
+    private CompilerDaemonClient.Daemon client(String secret) {
+        return new CompilerDaemonClient.Daemon(serverSocket.getLocalPort(), secret, null);
+    }
+
+    private void assertStopped() throws InterruptedException {
+        daemonThread.join(10000);
+        assertFalse(daemonThread.isAlive());
+        assertTrue(serverSocket.isClosed());
+    }
+
+    public static class OutOfMemoryTask extends Task {
+        public void execute() {
+            throw new OutOfMemoryError("compile");
+        }
+    }
+}
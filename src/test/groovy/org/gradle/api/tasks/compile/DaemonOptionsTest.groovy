@@ -0,0 +1,39 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.compile
+
+import org.junit.Test
+import org.junit.Before;
+import static org.junit.Assert.*
+
+public class DaemonOptionsTest {
+    DaemonOptions daemonOptions
+
+    @Before public void setUp()  {
+        daemonOptions = new DaemonOptions()
+    }
+
+    @Test public void testDaemonOptions() {
+        assertEquals(180, daemonOptions.idleTimeout)
+        assertFalse(daemonOptions.reuseAcrossBuilds)
+    }
+
+    @Test public void testDefine() {
+        daemonOptions.define(idleTimeout: 10, reuseAcrossBuilds: true)
+        assertEquals(10, daemonOptions.idleTimeout)
+        assertTrue(daemonOptions.reuseAcrossBuilds)
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.compile;
+
+import org.gradle.util.WrapUtil;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.io.*;
+
+public class DaemonTaskTest {
+    @Test
+    public void convertsAttributeValuesToStringsAndLeavesOutNullValues() {
+        DaemonTask task = new DaemonTask("javac", WrapUtil.toMap("fork", false));
+        assertEquals(WrapUtil.toMap("fork", "false"), task.getAttributes());
+        assertTrue(new DaemonTask("javac", WrapUtil.toMap("encoding", null)).getAttributes().isEmpty());
+    }
+
+    @Test
+    public void canBeWrittenAndReadWithNestedElements() throws IOException {
+        DaemonTask task = new DaemonTask("javac", WrapUtil.toMap("srcdir", "src's \"dir\"\n"));
+        task.add("include", WrapUtil.toMap("name", "**/*.java"));
+        task.add("compilerarg", WrapUtil.toMap("line", "-Xlint -g")).add("nested", WrapUtil.toMap("a", "b"));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream outputStream = new DataOutputStream(bytes);
+        task.writeTo(outputStream);
+        outputStream.close();
+        DaemonTask readTask = DaemonTask.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(task, readTask);
+        assertEquals("src's \"dir\"\n", readTask.getAttributes().get("srcdir"));
+        assertEquals(2, readTask.getChildren().size());
+    }
+}
@@ -40,8 +40,17 @@ class GroovyCompileOptionsTest {
         assertFalse(compileOptions.listFiles)
         assertFalse(compileOptions.verbose)
         assertTrue(compileOptions.fork)
+        assertFalse(compileOptions.daemon)
         assertNull(compileOptions.encoding)
         assertNotNull(compileOptions.forkOptions)
+        assertNotNull(compileOptions.daemonOptions)
+    }
+
+    @Test public void testWithExcludeFieldsFromOptionMap() {
+        Map optionMap = compileOptions.optionMap()
+        ['forkOptions', 'daemon', 'daemonOptions'].each {
+            assertFalse(optionMap.containsKey(it))
+        }
     }
 
     @Test public void testOptionMapForForkOptions() {
@@ -105,6 +114,17 @@ class GroovyCompileOptionsTest {
         assertTrue(forkUseCalled)
     }
 
+    @Test public void testDaemon() {
+        boolean daemonUseCalled = false
+        compileOptions.daemonOptions = [define: {Map args ->
+            daemonUseCalled = true
+            assertEquals([reuseAcrossBuilds: true], args)
+        }] as DaemonOptions
+        assert compileOptions.daemon(reuseAcrossBuilds: true).is(compileOptions)
+        assertTrue(compileOptions.daemon)
+        assertTrue(daemonUseCalled)
+    }
+
     @Test public void testDefine() {
         compileOptions.stacktrace = false
         compileOptions.verbose = false
@@ -82,6 +82,26 @@ public class GroovyCompileTest extends AbstractCompileTest {
         testObj.execute();
     }
 
+    @Test
+    public void testExecuteWithDaemon() {
+        setUpMocksAndAttributes(testObj);
+        testObj.getOptions().setDaemon(true);
+        testObj.getGroovyOptions().setDaemon(true);
+        context.checking(new Expectations() {
+            {
+                one(antJavacCompileMock).executeInDaemon(testObj.getSrcDirs(), testObj.getIncludes(), testObj.getExcludes(), testObj.getDestinationDir(),
+                        GUtil.addLists(AbstractCompileTest.TEST_CONVERTED_UNMANAGED_CLASSPATH, AbstractCompileTest.TEST_DEPENDENCY_MANAGER_CLASSPATH),
+                        testObj.getSourceCompatibility(), testObj.getTargetCompatibility(), testObj.getOptions(), testObj.getDaemonRegistryDir());
+                one(antGroovycCompileMock).executeInDaemon(testObj.getGroovySourceDirs(), testObj.getGroovyIncludes(), testObj.getGroovyExcludes(),
+                        testObj.getGroovyJavaIncludes(), testObj.getGroovyJavaExcludes(), testObj.getDestinationDir(),
+                        GUtil.addLists(AbstractCompileTest.TEST_CONVERTED_UNMANAGED_CLASSPATH, AbstractCompileTest.TEST_DEPENDENCY_MANAGER_CLASSPATH),
+                        testObj.getSourceCompatibility(), testObj.getTargetCompatibility(), testObj.getGroovyOptions(), testObj.getOptions(),
+                        TEST_GROOVY_CLASSPATH, testObj.getDaemonRegistryDir());
+            }
+        });
+        testObj.execute();
+    }
+
     void setUpMocksAndAttributes(GroovyCompile compile) {
         super.setUpMocksAndAttributes((Compile) compile);
         compile.setGroovyClasspath(TEST_GROOVY_CLASSPATH);
@@ -0,0 +1,409 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.compile;
+
+import org.apache.commons.io.FileUtils;
+import org.gradle.api.GradleException;
+import org.gradle.util.HelperUtil;
+import org.gradle.util.WrapUtil;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+public class JdkJavacTest {
+    private File testDir;
+    private File sourceDir;
+    private File targetDir;
+    private File dependencyGraphFile;
+    private CompileOptions compileOptions = new CompileOptions();
+    private JdkJavac jdkJavac = new JdkJavac();
+
+    @Before
+    public void setUp() {
+        testDir = HelperUtil.makeNewTestDir();
+        sourceDir = new File(testDir, "src");
+        targetDir = new File(testDir, "classes");
+        dependencyGraphFile = new File(testDir, "graph.properties");
+    }
+
+    @After
+    public void tearDown() {
+        JdkJavac.closeFileManager();
+        HelperUtil.deleteTestDir();
+    }
+
+    @Test
+    public void compilesOnlySourcesWhichAreNewerThanTheirClasses() throws IOException {
+        File sourceA = writeSource("org/gradle/A.java", "package org.gradle; public class A {}");
+        writeSource("org/gradle/B.java", "package org.gradle; public class B extends A {}");
+        writeSource("org/gradle/notCompiled.txt", "text");
+
+        compile(new ArrayList());
+
+        File classA = new File(targetDir, "org/gradle/A.class");
+        File classB = new File(targetDir, "org/gradle/B.class");
+        assertTrue(classA.isFile());
+        assertTrue(classB.isFile());
+        assertFalse(new File(targetDir, "org/gradle/notCompiled.txt").exists());
+
+        long classTime = sourceA.lastModified() + 10000;
+        classA.setLastModified(classTime);
+        classB.setLastModified(classTime);
+        compile(new ArrayList());
+        assertEquals(classTime, classA.lastModified());
+        assertEquals(classTime, classB.lastModified());
+
+        sourceA.setLastModified(classTime + 10000);
+        compile(new ArrayList());
+        assertTrue(classA.lastModified() != classTime);
+        assertEquals(classTime, classB.lastModified());
+    }
+
+    @Test
+    public void countsSourcesAndCompiledClasses() throws IOException {
+        writeSource("org/gradle/A.java", "package org.gradle; public class A { Runnable r = new Runnable() { public void run() {} }; }");
+        writeSource("org/gradle/B.java", "package org.gradle; public class B {}");
+
+        compileIncrementally(new ArrayList());
+        assertEquals(2, jdkJavac.getSourceCount());
+        assertEquals(3, jdkJavac.getCompiledClassCount());
+
+        compileIncrementally(new ArrayList());
+        assertEquals(2, jdkJavac.getSourceCount());
+        assertEquals(0, jdkJavac.getCompiledClassCount());
+    }
+
+    @Test
+    public void recompilesChangedSourcesAndTheSourcesDependingOnThem() throws IOException {
+        File sourceA = writeSource("org/gradle/A.java", "package org.gradle; public class A {}");
+        writeSource("org/gradle/B.java", "package org.gradle; public class B { void b(A a) {} }");
+        writeSource("org/gradle/C.java", "package org.gradle; public class C { B b = new B(); }");
+        writeSource("org/gradle/D.java", "package org.gradle; public class D {}");
+
+        compileIncrementally(new ArrayList());
+        assertTrue(dependencyGraphFile.isFile());
+        long classTime = setClassTimes("A", "B", "C", "D");
+
+        compileIncrementally(new ArrayList());
+        assertUnchanged(classTime, "A", "B", "C", "D");
+
+        writeSource("org/gradle/A.java", "package org.gradle; public class A { void a() {} }");
+        sourceA.setLastModified(classTime + 10000);
+        compileIncrementally(new ArrayList());
+        assertChanged(classTime, "A", "B", "C");
+        assertUnchanged(classTime, "D");
+    }
+
+    @Test
+    public void deletesClassesOfRemovedSources() throws IOException {
+        File sourceA = writeSource("org/gradle/A.java",
+                "package org.gradle; public class A { Runnable r = new Runnable() { public void run() {} }; } class A2 {}");
+        writeSource("org/gradle/B.java", "package org.gradle; public class B {}");
+
+        compileIncrementally(new ArrayList());
+        assertTrue(new File(targetDir, "org/gradle/A$1.class").isFile());
+        assertTrue(new File(targetDir, "org/gradle/A2.class").isFile());
+        long classTime = setClassTimes("B");
+
+        sourceA.delete();
+        compileIncrementally(new ArrayList());
+        assertFalse(new File(targetDir, "org/gradle/A.class").exists());
+        assertFalse(new File(targetDir, "org/gradle/A$1.class").exists());
+        assertFalse(new File(targetDir, "org/gradle/A2.class").exists());
+        assertUnchanged(classTime, "B");
+    }
+
+    @Test
+    public void recompilesAllSourcesWhenTheApiOfTheClasspathChanges() throws IOException {
+        File jar = writeJar(new File(testDir, "lib.jar"), "content");
+        writeSource("org/gradle/A.java", "package org.gradle; public class A {}");
+
+        compileIncrementally(WrapUtil.toList(jar));
+        long classTime = setClassTimes("A");
+
+        writeLibJar(jar, "public void added() {}");
+        compileIncrementally(WrapUtil.toList(jar));
+        assertChanged(classTime, "A");
+    }
+
+    @Test
+    public void skipsCompileWhenOnlyTheImplementationOfTheClasspathChanges() throws IOException {
+        File jar = writeJar(new File(testDir, "lib.jar"), "content");
+        writeSource("org/gradle/A.java", "package org.gradle; public class A { Object lib = new lib.Lib(); }");
+
+        compileIncrementally(WrapUtil.toList(jar));
+        long classTime = setClassTimes("A");
+
+        writeJar(jar, "changed content");
+        jar.setLastModified(jar.lastModified() + 10000);
+        compileIncrementally(WrapUtil.toList(jar));
+        assertUnchanged(classTime, "A");
+    }
+
+    @Test
+    public void recompilesAllSourcesWhenAChangedClassDeclaresConstants() throws IOException {
+        File sourceA = writeSource("org/gradle/A.java", "package org.gradle; public class A { public static final int X = 1; }");
+        writeSource("org/gradle/B.java", "package org.gradle; public class B { int x = A.X; }");
+
+        compileIncrementally(new ArrayList());
+        long classTime = setClassTimes("A", "B");
+
+        writeSource("org/gradle/A.java", "package org.gradle; public class A { public static final int X = 2; }");
+        sourceA.setLastModified(classTime + 10000);
+        compileIncrementally(new ArrayList());
+        assertChanged(classTime, "A", "B");
+    }
+
+    @Test
+    public void compilesFailedSourcesAgain() throws IOException {
+        File sourceA = writeSource("org/gradle/A.java", "package org.gradle; public class A extends Unknown {}");
+        compileOptions.setFailOnError(false);
+
+        compileIncrementally(new ArrayList());
+        assertFalse(new File(targetDir, "org/gradle/A.class").exists());
+
+        compileIncrementally(new ArrayList());
+        assertFalse(new File(targetDir, "org/gradle/A.class").exists());
+
+        writeSource("org/gradle/A.java", "package org.gradle; public class A {}");
+        sourceA.setLastModified(sourceA.lastModified() + 10000);
+        compileIncrementally(new ArrayList());
+        assertTrue(new File(targetDir, "org/gradle/A.class").isFile());
+    }
+
+    @Test
+    public void compilesAgainstJarsOfTheClasspath() throws IOException {
+        File jar = writeJar(new File(testDir, "lib.jar"), "content");
+        writeSource("org/gradle/A.java", "package org.gradle; public class A { Object lib = lib.Lib.class; }");
+
+        compile(WrapUtil.toList(jar));
+
+        assertTrue(new File(targetDir, "org/gradle/A.class").isFile());
+    }
+
+    @Test
+    public void reusesFileManagerUntilAnOpenedJarChanges() throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        File jar = writeJar(new File(testDir, "lib.jar"), "content");
+        List<File> classpath = WrapUtil.toList(targetDir, jar);
+
+        StandardJavaFileManager fileManager = JdkJavac.getFileManager(compiler, classpath);
+        assertSame(fileManager, JdkJavac.getFileManager(compiler, classpath));
+        assertSame(fileManager, JdkJavac.getFileManager(compiler, WrapUtil.toList(targetDir)));
+
+        writeJar(jar, "changed content");
+        assertNotSame(fileManager, JdkJavac.getFileManager(compiler, classpath));
+    }
+
+    @Test
+    public void failsOnCompileErrorsUnlessFailOnErrorIsFalse() throws IOException {
+        writeSource("org/gradle/A.java", "package org.gradle; public class A extends Unknown {}");
+
+        try {
+            compile(new ArrayList());
+            fail();
+        } catch (GradleException e) {
+            assertEquals("Compile failed; see the compiler error output for details.", e.getMessage());
+        }
+
+        compileOptions.setFailOnError(false);
+        compile(new ArrayList());
+    }
+
+    @Test
+    public void compilesIndependentGroupsOfSourcesInParallelToTheSameClassesAsSerially() throws IOException {
+        writeSource("org/gradle/A.java", "package org.gradle; public class A { B b; }");
+        writeSource("org/gradle/B.java", "package org.gradle; public class B { public static final int X = 1; }");
+        writeSource("org/gradle/C.java", "package org.gradle; public class C { Runnable r = new Runnable() { public void run() {} }; }");
+        writeSource("org/other/D.java", "package org.other; public class D { int x = org.gradle.B.X; }");
+        writeSource("org/other/E.java", "package org.other; public class E {}");
+
+        compile(new ArrayList());
+        File serialDir = new File(testDir, "serial");
+        FileUtils.moveDirectory(targetDir, serialDir);
+
+        compileOptions.setParallel(true);
+        compile(new ArrayList());
+
+        for (String className : WrapUtil.toList("org/gradle/A", "org/gradle/B", "org/gradle/C", "org/gradle/C$1",
+                "org/other/D", "org/other/E")) {
+            assertTrue(className, Arrays.equals(
+                    FileUtils.readFileToByteArray(new File(serialDir, className + ".class")),
+                    FileUtils.readFileToByteArray(new File(targetDir, className + ".class"))));
+        }
+    }
+
+    @Test
+    public void compilesIncrementallyInParallel() throws IOException {
+        writeSource("org/gradle/A.java", "package org.gradle; public class A { B b; }");
+        File sourceB = writeSource("org/gradle/B.java", "package org.gradle; public class B {}");
+        writeSource("org/gradle/C.java", "package org.gradle; public class C {}");
+        compileOptions.setParallel(true);
+        compileIncrementally(new ArrayList());
+        long classTime = setClassTimes("A", "B", "C");
+
+        writeSource("org/gradle/B.java", "package org.gradle; public class B { void added() {} }");
+        sourceB.setLastModified(sourceB.lastModified() + 10000);
+        compileIncrementally(new ArrayList());
+
+        assertChanged(classTime, "A", "B");
+        assertUnchanged(classTime, "C");
+    }
+
+    @Test
+    public void compilesSeriallyWhenASourceUsesAnExcludedSource() throws IOException {
+        writeSource("org/gradle/A.java", "package org.gradle; public class A { Excluded excluded; }");
+        writeSource("org/gradle/B.java", "package org.gradle; public class B {}");
+        writeSource("org/gradle/Excluded.java", "package org.gradle; public class Excluded {}");
+        compileOptions.setParallel(true);
+
+        jdkJavac.execute(WrapUtil.toList(sourceDir), new ArrayList(), WrapUtil.toList("**/Excluded.java"), targetDir,
+                new ArrayList(), "1.5", "1.5", compileOptions);
+
+        assertTrue(new File(targetDir, "org/gradle/A.class").isFile());
+        assertTrue(new File(targetDir, "org/gradle/B.class").isFile());
+        assertTrue(new File(targetDir, "org/gradle/Excluded.class").isFile());
+    }
+
+    @Test
+    public void failsOnCompileErrorsInParallelGroups() throws IOException {
+        writeSource("org/gradle/A.java", "package org.gradle; public class A extends Unknown {}");
+        writeSource("org/gradle/B.java", "package org.gradle; public class B {}");
+        compileOptions.setParallel(true);
+
+        try {
+            compile(new ArrayList());
+            fail();
+        } catch (GradleException e) {
+            assertEquals("Compile failed; see the compiler error output for details.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void detectsAnnotationProcessingByOptionsAndProcessorsOnTheClasspath() throws IOException {
+        File jar = new File(testDir, "processor.jar");
+        JarOutputStream outputStream = new JarOutputStream(new FileOutputStream(jar));
+        outputStream.putNextEntry(new ZipEntry("META-INF/services/javax.annotation.processing.Processor"));
+        outputStream.write("org.gradle.Processor".getBytes());
+        outputStream.close();
+        File classesDir = new File(testDir, "processorClasses");
+        FileUtils.writeStringToFile(new File(classesDir, "META-INF/services/javax.annotation.processing.Processor"),
+                "org.gradle.Processor");
+        List<String> options = WrapUtil.toList("-d", targetDir.getPath());
+
+        assertFalse(JdkJavac.usesAnnotationProcessing(options, WrapUtil.toList(targetDir, new File(testDir, "other.jar"))));
+        assertTrue(JdkJavac.usesAnnotationProcessing(options, WrapUtil.toList(targetDir, jar)));
+        assertTrue(JdkJavac.usesAnnotationProcessing(options, WrapUtil.toList(classesDir)));
+        assertTrue(JdkJavac.usesAnnotationProcessing(WrapUtil.toList("-processor", "org.gradle.Processor"),
+                WrapUtil.toList(targetDir)));
+        assertFalse(JdkJavac.usesAnnotationProcessing(WrapUtil.toList("-proc:none"), WrapUtil.toList(jar)));
+    }
+
+    @Test
+    public void createsOptionsLikeTheAntJavacTask() {
+        compileOptions.getDebugOptions().setDebugLevel("lines,source");
+        compileOptions.setWarnings(false);
+        compileOptions.setDeprecation(true);
+        compileOptions.setEncoding("UTF-8");
+        compileOptions.setCompilerArgs(WrapUtil.toList(WrapUtil.toMap("value", "-Xlint"),
+                WrapUtil.toMap("line", "-Xmaxerrs 10")));
+        File jar = new File("lib.jar");
+
+        List<String> options = jdkJavac.createOptions(WrapUtil.toList(sourceDir), targetDir,
+                WrapUtil.toList(targetDir, jar), "1.5", "1.6", compileOptions);
+
+        assertEquals(WrapUtil.toList("-d", targetDir.getPath(),
+                "-classpath", targetDir.getPath() + File.pathSeparator + jar.getPath(),
+                "-sourcepath", sourceDir.getPath(), "-source", "1.5", "-target", "1.6", "-g:lines,source", "-nowarn",
+                "-deprecation", "-encoding", "UTF-8", "-Xlint", "-Xmaxerrs", "10"), options);
+
+        compileOptions.setDebug(false);
+        assertTrue(jdkJavac.createOptions(WrapUtil.toList(sourceDir), targetDir, WrapUtil.toList(targetDir), "1.5",
+                "1.5", compileOptions).contains("-g:none"));
+    }
+
+    private void compile(List classpath) {
+        jdkJavac.execute(WrapUtil.toList(sourceDir), new ArrayList(), new ArrayList(), targetDir, classpath, "1.5", "1.5",
+                compileOptions);
+    }
+
+    private void compileIncrementally(List classpath) {
+        jdkJavac.execute(WrapUtil.toList(sourceDir), new ArrayList(), new ArrayList(), targetDir, classpath, "1.5", "1.5",
+                compileOptions, dependencyGraphFile);
+    }
+
+    private long setClassTimes(String... classNames) {
+        long classTime = System.currentTimeMillis() - 100000;
+        classTime -= classTime % 1000;
+        for (String className : classNames) {
+            new File(targetDir, "org/gradle/" + className + ".class").setLastModified(classTime);
+        }
+        return classTime;
+    }
+
+    private void assertChanged(long classTime, String... classNames) {
+        for (String className : classNames) {
+            assertTrue(className, new File(targetDir, "org/gradle/" + className + ".class").lastModified() != classTime);
+        }
+    }
+
+    private void assertUnchanged(long classTime, String... classNames) {
+        for (String className : classNames) {
+            assertEquals(className, classTime, new File(targetDir, "org/gradle/" + className + ".class").lastModified());
+        }
+    }
+
+    private File writeSource(String path, String content) throws IOException {
+        File file = new File(sourceDir, path);
+        FileUtils.writeStringToFile(file, content);
+        return file;
+    }
+
+    private File writeJar(File jar, String content) throws IOException {
+        return writeLibJar(jar, String.format("String content = \"%s\";", content));
+    }
+
+    private File writeLibJar(File jar, String classBody) throws IOException {
+        File libSourceDir = new File(testDir, "libSrc");
+        File libClassesDir = new File(testDir, "libClasses");
+        FileUtils.deleteDirectory(libClassesDir);
+        FileUtils.writeStringToFile(new File(libSourceDir, "lib/Lib.java"),
+                String.format("package lib; public class Lib { %s }", classBody));
+        new JdkJavac().execute(WrapUtil.toList(libSourceDir), new ArrayList(), new ArrayList(), libClassesDir,
+                new ArrayList(), "1.5", "1.5", new CompileOptions());
+        JarOutputStream outputStream = new JarOutputStream(new FileOutputStream(jar));
+        try {
+            outputStream.putNextEntry(new ZipEntry("lib/Lib.class"));
+            outputStream.write(FileUtils.readFileToByteArray(new File(libClassesDir, "lib/Lib.class")));
+        } finally {
+            outputStream.close();
+        }
+        return jar;
+    }
+}
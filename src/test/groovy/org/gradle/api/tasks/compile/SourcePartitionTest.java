@@ -0,0 +1,113 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.compile;
+
+import org.apache.commons.io.FileUtils;
+import org.gradle.util.HelperUtil;
+import org.gradle.util.WrapUtil;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class SourcePartitionTest {
+    private File testDir;
+
+    @Before
+    public void setUp() {
+        testDir = HelperUtil.makeNewTestDir();
+    }
+
+    @After
+    public void tearDown() {
+        HelperUtil.deleteTestDir();
+    }
+
+    @Test
+    public void putsSourcesUsingEachOtherIntoTheSameGroup() throws IOException {
+        File a = writeSource("a/A.java", "package a; import b.B; public class A extends B {}");
+        File b = writeSource("b/B.java", "package b; public class B { c.C c; }");
+        File c = writeSource("c/C.java", "package c; public class C {}");
+        File d = writeSource("d/D.java", "package d; public class D { static class Nested {} }");
+        File e = writeSource("e/E.java", "package e; public class E { d.D.Nested nested; }");
+        File f = writeSource("f/F.java", "package f; interface F {} enum G {}");
+
+        List<List<File>> groups = SourcePartition.partition(WrapUtil.toList(a, b, c, d, e, f), null);
+
+        assertEquals(WrapUtil.toList(WrapUtil.toList(a, b, c), WrapUtil.toList(d, e), WrapUtil.toList(f)), groups);
+    }
+
+    @Test
+    public void putsSourcesDeclaringTheSameNameIntoTheSameGroup() throws IOException {
+        File a = writeSource("a/Same.java", "package a; public class Same {}");
+        File b = writeSource("b/Same.java", "package b; public class Same {}");
+
+        assertEquals(1, SourcePartition.partition(WrapUtil.toList(a, b), null).size());
+    }
+
+    @Test
+    public void detectsSourcesUsingNamesDeclaredOnlyByOtherSources() throws IOException {
+        File a = writeSource("a/A.java", "package a; public class A { b.B b; }");
+        File b = writeSource("b/B.java", "package b; public class B {}");
+        File otherB = writeSource("other/b/B.java", "package b; public class B {}");
+        File c = writeSource("other/c/C.java", "package c; public class C {}");
+
+        assertTrue(SourcePartition.usesNamesDeclaredBy(WrapUtil.toList(a), WrapUtil.toList(otherB, c), null));
+        assertFalse(SourcePartition.usesNamesDeclaredBy(WrapUtil.toList(a, b), WrapUtil.toList(otherB, c), null));
+        assertFalse(SourcePartition.usesNamesDeclaredBy(WrapUtil.toList(a), WrapUtil.toList(c), null));
+    }
+
+    @Test
+    public void packsGroupsIntoBatchesOfAboutTheSameSize() {
+        File a = new File("A.java");
+        File b = new File("B.java");
+        File c = new File("C.java");
+        File d = new File("D.java");
+        File e = new File("E.java");
+        File f = new File("F.java");
+        List<List<File>> groups = WrapUtil.toList(WrapUtil.toList(a), WrapUtil.toList(b, c, d), WrapUtil.toList(e),
+                WrapUtil.toList(f));
+
+        assertEquals(WrapUtil.toList(WrapUtil.toList(b, c, d), WrapUtil.toList(a, e, f)), SourcePartition.pack(groups, 2));
+        assertEquals(groups.size(), SourcePartition.pack(groups, 8).size());
+        assertEquals(Collections.singletonList(WrapUtil.toList(b, c, d, a, e, f)), SourcePartition.pack(groups, 1));
+    }
+
+    @Test
+    public void scansIdentifiersAndDeclaredTypes() {
+        Set<String> usedNames = new HashSet<String>();
+        Set<String> declaredNames = new HashSet<String>();
+
+        SourcePartition.scan("enum $C { ONE } public @interface A { Class<?> b = B.class; }", usedNames,
+                declaredNames);
+
+        assertEquals(WrapUtil.toSet("$C", "A"), declaredNames);
+        assertTrue(usedNames.containsAll(WrapUtil.toSet("public", "interface", "A", "Class", "b", "B", "$C", "ONE")));
+    }
+
+    private File writeSource(String path, String content) throws IOException {
+        File file = new File(testDir, path);
+        FileUtils.writeStringToFile(file, content);
+        return file;
+    }
+}
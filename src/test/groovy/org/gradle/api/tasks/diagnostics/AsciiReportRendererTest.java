@@ -15,25 +15,49 @@
  */
 package org.gradle.api.tasks.diagnostics;
 
+import org.apache.ivy.core.module.descriptor.DefaultModuleDescriptor;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.report.ResolveReport;
+import org.apache.ivy.core.resolve.IvyNode;
+import org.apache.ivy.core.resolve.IvyNodeCallers.Caller;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import static org.junit.Assert.*;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.report.IvyDependency;
+import org.gradle.api.artifacts.report.IvyDependencyGraph;
+import org.gradle.api.artifacts.report.IvyDependencyGraphWalker;
 import org.gradle.util.HelperUtil;
 import org.gradle.util.Matchers;
+import org.gradle.util.WrapUtil;
 import static org.gradle.util.Matchers.*;
 import static org.hamcrest.Matchers.*;
+import org.jmock.api.Invocation;
+import org.jmock.api.Invokable;
 import org.jmock.integration.junit4.JMock;
 import org.jmock.integration.junit4.JUnit4Mockery;
+import org.jmock.lib.legacy.ClassImposteriser;
 import org.jmock.Expectations;
 
+import java.io.IOException;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 @RunWith(JMock.class)
 public class AsciiReportRendererTest {
-    private final JUnit4Mockery context = new JUnit4Mockery();
+    private static final String CONF = "compile";
+
+    private final JUnit4Mockery context = new JUnit4Mockery() {{
+        setImposteriser(ClassImposteriser.INSTANCE);
+    }};
+    private final ModuleRevisionId rootId = ModuleRevisionId.newInstance("org", "root", "1.0");
+    private final Caller rootCaller = context.mock(Caller.class);
+    private int dependencyQueries;
     private final StringWriter writer = new StringWriter();
     private final AsciiReportRenderer renderer = new AsciiReportRenderer(writer);
 
@@ -64,4 +88,127 @@ public class AsciiReportRendererTest {
         assertThat(writer.toString(), containsLine("configName"));
         assertThat(writer.toString(), not(containsLine("No configurations")));
     }
+
+    @Test
+    public void listsDependenciesOfModuleOnlyWhereItOccursFirst() throws IOException {
+        Project project = HelperUtil.createRootProject();
+        final Configuration configuration = context.mock(Configuration.class);
+        context.checking(new Expectations(){{
+            allowing(configuration).getName();
+            will(returnValue("configName"));
+        }});
+        IvyDependencyGraph graph = new IvyDependencyGraph();
+        IvyDependency root = graph.findOrCreateDependeny("root", "org", "1.0");
+        IvyDependency shared = graph.findOrCreateDependeny("shared", "org", "1.0");
+        graph.setRoot(root);
+        root.addDependency(graph.findOrCreateDependeny("a", "org", "1.0"));
+        root.addDependency(graph.findOrCreateDependeny("b", "org", "1.0"));
+        graph.findOrCreateDependeny("a", "org", "1.0").addDependency(shared);
+        graph.findOrCreateDependeny("b", "org", "1.0").addDependency(shared);
+        shared.addDependency(graph.findOrCreateDependeny("leaf", "org", "1.0"));
+
+        renderer.startProject(project);
+        renderer.startConfiguration(configuration);
+        renderer.render(graph);
+        renderer.completeConfiguration(configuration);
+        renderer.completeProject(project);
+
+        String report = writer.toString();
+        assertThat(report, containsString("org:shared:1.0 (*)"));
+        assertEquals(report.indexOf("org:leaf:1.0"), report.lastIndexOf("org:leaf:1.0"));
+        assertThat(report, containsLine("(*) - dependencies omitted (listed previously)"));
+    }
+
+    @Test
+    public void listsDirectDependenciesBelowTheRootAndTransitiveDependenciesBelowTheirModule() throws IOException {
+        IvyNode leaf = stubNode("leaf", Collections.<IvyNode>emptyList(), false);
+        IvyNode shared = stubNode("shared", WrapUtil.toList(leaf), false);
+        IvyNode a = stubNode("a", WrapUtil.toList(shared), true);
+        IvyNode b = stubNode("b", WrapUtil.toList(shared, leaf), true);
+
+        new IvyDependencyGraphWalker().walk(resolveReport(Arrays.asList(a, b, shared, leaf)), CONF, renderer);
+
+        // Transitive dependencies are not listed below the root, as the resolve report lists them
+        assertEquals(WrapUtil.toList(
+                "|-----org:root:1.0",
+                "      |-----org:a:1.0",
+                "      |      |-----org:shared:1.0",
+                "      |      |      |-----org:leaf:1.0",
+                "      |-----org:b:1.0",
+                "      |      |-----org:shared:1.0 (*)",
+                "      |      |-----org:leaf:1.0"), lines());
+    }
+
+    @Test
+    public void rendersLargeGraphWithSharedSubtreesInLinearSize() throws IOException {
+        // 50 layers of 100 modules, each depending on 3 modules of the next layer. Listing every path would never end.
+        int layers = 50;
+        int modulesPerLayer = 100;
+        List<IvyNode> nodes = new ArrayList<IvyNode>();
+        List<IvyNode> nextLayer = Collections.emptyList();
+        for (int layer = layers - 1; layer >= 0; layer--) {
+            List<IvyNode> currentLayer = new ArrayList<IvyNode>();
+            for (int module = 0; module < modulesPerLayer; module++) {
+                List<IvyNode> dependencies = new ArrayList<IvyNode>();
+                for (int i = 0; i < 3 && !nextLayer.isEmpty(); i++) {
+                    dependencies.add(nextLayer.get((module + i) % modulesPerLayer));
+                }
+                currentLayer.add(stubNode("module" + layer + "_" + module, dependencies, layer == 0));
+            }
+            nodes.addAll(currentLayer);
+            nextLayer = currentLayer;
+        }
+
+        new IvyDependencyGraphWalker().walk(resolveReport(nodes), CONF, renderer);
+
+        int edges = modulesPerLayer + (layers - 1) * modulesPerLayer * 3;
+        assertEquals(edges + 1, lines().size());
+        assertEquals(layers * modulesPerLayer, dependencyQueries);
+    }
+
+    private List<String> lines() {
+        return Arrays.asList(writer.toString().split(System.getProperty("line.separator")));
+    }
+
+    private ResolveReport resolveReport(final List<IvyNode> nodes) {
+        final ResolveReport report = context.mock(ResolveReport.class);
+        context.checking(new Expectations() {{
+            allowing(report).getModuleDescriptor();
+            will(returnValue(DefaultModuleDescriptor.newDefaultInstance(rootId)));
+            allowing(report).getDependencies();
+            will(returnValue(nodes));
+            allowing(report).getConfigurationReport(CONF);
+            will(returnValue(null));
+            allowing(rootCaller).getModuleRevisionId();
+            will(returnValue(rootId));
+        }});
+        return report;
+    }
+
+    /**
+     * Creates a node which is not a mock of the mockery, as looking up the expectations of thousands of mocks would take
+     * longer than the walk itself.
+     */
+    private IvyNode stubNode(String name, final List<IvyNode> dependencies, final boolean direct) {
+        final ModuleRevisionId id = ModuleRevisionId.newInstance("org", name, "1.0");
+        return ClassImposteriser.INSTANCE.imposterise(new Invokable() {
+            public Object invoke(Invocation invocation) {
+                String method = invocation.getInvokedMethod().getName();
+                if (method.equals("getResolvedId")) {
+                    return id;
+                }
+                if (method.equals("getDependencies")) {
+                    dependencyQueries++;
+                    return dependencies;
+                }
+                if (method.equals("getCallers")) {
+                    return direct ? new Caller[] {rootCaller} : new Caller[0];
+                }
+                if (method.equals("getModuleRevision")) {
+                    return null;
+                }
+                throw new UnsupportedOperationException(method);
+            }
+        }, IvyNode.class);
+    }
 }
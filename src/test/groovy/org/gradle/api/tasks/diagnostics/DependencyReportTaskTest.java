@@ -22,6 +22,8 @@ import org.apache.ivy.core.report.ResolveReport;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.ConfigurationResolver;
 import org.gradle.api.artifacts.ResolveInstruction;
+import org.gradle.api.artifacts.ResolveInstructionModifier;
+import org.gradle.api.artifacts.report.IvyDependency;
 import org.gradle.api.artifacts.report.IvyDependencyGraph;
 import org.gradle.api.internal.artifacts.DependencyManagerInternal;
 import org.gradle.api.internal.project.ProjectInternal;
@@ -121,5 +123,41 @@ public class DependencyReportTaskTest {
         task.generate(project);
     }
 
-    
+    @Test
+    public void feedsRendererWhichIsVisitorWhileWalkingResolveReport() throws IOException {
+        final AsciiReportRenderer visitingRenderer = context.mock(AsciiReportRenderer.class);
+        task.setRenderer(visitingRenderer);
+        final DependencyManagerInternal dependencyManager = context.mock(DependencyManagerInternal.class);
+        final ConfigurationResolver configuration = context.mock(ConfigurationResolver.class);
+        final ResolveReport report = new ResolveReport(new DefaultModuleDescriptor(new ModuleRevisionId(new ModuleId("org", "mod"), "rev"), "status", null));
+
+        context.checking(new Expectations() {{
+            allowing(project).getDependencies();
+            will(returnValue(dependencyManager));
+
+            allowing(dependencyManager).getConfigurations();
+            will(returnValue(WrapUtil.toList(configuration)));
+
+            allowing(configuration).getName();
+            will(returnValue("config"));
+
+            allowing(configuration).resolveAsReport(with(any(ResolveInstructionModifier.class)));
+            will(returnValue(report));
+
+            Sequence render = context.sequence("render");
+
+            one(visitingRenderer).startConfiguration(configuration);
+            inSequence(render);
+
+            one(visitingRenderer).visitDependency(with(equal(new IvyDependency("mod", "org", "rev"))), with(equal(0)), with(equal(false)));
+            inSequence(render);
+
+            one(visitingRenderer).completeConfiguration(configuration);
+            inSequence(render);
+
+            never(visitingRenderer).render(with(any(IvyDependencyGraph.class)));
+        }});
+
+        task.generate(project);
+    }
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.diagnostics;
+
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.report.IvyDependency;
+import org.gradle.api.artifacts.report.IvyDependencyGraph;
+import org.gradle.util.HelperUtil;
+import static org.hamcrest.Matchers.*;
+import org.jmock.Expectations;
+import org.jmock.integration.junit4.JMock;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+@RunWith(JMock.class)
+public class JsonReportRendererTest {
+    private final JUnit4Mockery context = new JUnit4Mockery();
+    private final StringWriter writer = new StringWriter();
+    private final JsonReportRenderer renderer = new JsonReportRenderer(writer);
+
+    @Test
+    public void writesProjectsAndConfigurations() throws IOException {
+        Project project = HelperUtil.createRootProject();
+        Configuration configuration = configuration("compile");
+
+        renderer.startProject(project);
+        renderer.startConfiguration(configuration);
+        renderer.completeConfiguration(configuration);
+        renderer.completeProject(project);
+        renderer.startProject(project);
+        renderer.completeProject(project);
+        renderer.complete();
+
+        String report = writer.toString().replaceAll("\\s", "");
+        assertEquals("[{\"project\":\":\",\"configurations\":[{\"name\":\"compile\",\"dependencies\":[]}]},"
+                + "{\"project\":\":\",\"configurations\":[]}]", report);
+    }
+
+    @Test
+    public void writesResolutionDetailsOfDependencies() throws IOException {
+        Configuration configuration = configuration("compile");
+        IvyDependency dependency = new IvyDependency("a", "org", "1.0");
+        dependency.setResolver("someResolver");
+        dependency.setFromCache(false);
+        dependency.setSize(1024);
+        dependency.setResolveTimeMillis(5);
+        dependency.setDownloadTimeMillis(20);
+
+        renderer.startConfiguration(configuration);
+        renderer.visitDependency(new IvyDependency("root", "org", "1.0"), 0, false);
+        renderer.visitDependency(dependency, 1, false);
+        renderer.completeConfiguration(configuration);
+
+        String report = writer.toString().replaceAll("\\s", "");
+        assertEquals("{\"name\":\"compile\",\"dependencies\":[{\"group\":\"org\",\"name\":\"a\",\"version\":\"1.0\","
+                + "\"resolver\":\"someResolver\",\"fromCache\":false,\"size\":1024,\"resolveTimeMillis\":5,"
+                + "\"downloadTimeMillis\":20,\"dependencies\":[]}]}", report);
+    }
+
+    @Test
+    public void listsDependenciesOfModuleOnlyWhereItOccursFirst() throws IOException {
+        Configuration configuration = configuration("compile");
+        IvyDependencyGraph graph = new IvyDependencyGraph();
+        IvyDependency root = graph.findOrCreateDependeny("root", "org", "1.0");
+        IvyDependency a = graph.findOrCreateDependeny("a", "org", "1.0");
+        IvyDependency shared = graph.findOrCreateDependeny("shared", "org", "1.0");
+        graph.setRoot(root);
+        root.addDependency(a);
+        a.addDependency(shared);
+        a.addDependency(graph.findOrCreateDependeny("b", "org", "1.0"));
+        graph.findOrCreateDependeny("b", "org", "1.0").addDependency(shared);
+        shared.addDependency(graph.findOrCreateDependeny("leaf", "org", "1.0"));
+
+        renderer.startConfiguration(configuration);
+        renderer.render(graph);
+        renderer.completeConfiguration(configuration);
+
+        String report = writer.toString();
+        assertThat(report, containsString("\"name\": \"shared\", \"version\": \"1.0\", \"dependenciesOmitted\": true"));
+        assertEquals(report.indexOf("\"leaf\""), report.lastIndexOf("\"leaf\""));
+        assertEquals(count(report, '['), count(report, ']'));
+        assertEquals(count(report, '{'), count(report, '}'));
+    }
+
+    @Test
+    public void escapesNames() throws IOException {
+        Configuration configuration = configuration("some \"quoted\" \\ name");
+
+        renderer.startConfiguration(configuration);
+        renderer.completeConfiguration(configuration);
+
+        assertThat(writer.toString(), containsString("\"some \\\"quoted\\\" \\\\ name\""));
+    }
+
+    private Configuration configuration(final String name) {
+        final Configuration configuration = context.mock(Configuration.class);
+        context.checking(new Expectations() {{
+            allowing(configuration).getName();
+            will(returnValue(name));
+        }});
+        return configuration;
+    }
+
+    private int count(String report, char c) {
+        int count = 0;
+        for (int i = 0; i < report.length(); i++) {
+            if (report.charAt(i) == c) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
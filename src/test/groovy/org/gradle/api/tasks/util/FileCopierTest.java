@@ -0,0 +1,220 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.util;
+
+import org.apache.commons.io.FileUtils;
+import org.gradle.api.GradleException;
+import org.gradle.util.GUtil;
+import org.gradle.util.HelperUtil;
+import org.gradle.util.WrapUtil;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+
+public class FileCopierTest {
+    private File sourceDir1;
+    private File sourceDir2;
+    private File targetDir;
+    private File snapshotFile;
+    private FileCopier fileCopier = new FileCopier(4);
+
+    @Before
+    public void setUp() {
+        File rootDir = HelperUtil.makeNewTestDir();
+        sourceDir1 = new File(rootDir, "source1");
+        sourceDir2 = new File(rootDir, "source2");
+        targetDir = new File(rootDir, "target");
+        snapshotFile = new File(rootDir, "snapshot/copy.properties");
+    }
+
+    @After
+    public void tearDown() {
+        HelperUtil.deleteTestDir();
+    }
+
+    @Test
+    public void copiesFilesOfAllSourceDirs() throws IOException {
+        for (int i = 0; i < 100; i++) {
+            write(new File(sourceDir1, "org/gradle/file" + i + ".txt"), "content" + i);
+            write(new File(sourceDir2, "org/other/file" + i + ".dat"), "other" + i);
+        }
+        new File(sourceDir1, "emptyDir").mkdirs();
+        write(new File(sourceDir1, "CVS/Entries"), "default exclude");
+
+        assertEquals(200, fileCopier.copy(WrapUtil.toList(instruction(sourceDir1), instruction(sourceDir2))));
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals("content" + i, read(new File(targetDir, "org/gradle/file" + i + ".txt")));
+            assertEquals("other" + i, read(new File(targetDir, "org/other/file" + i + ".dat")));
+        }
+        assertTrue(new File(targetDir, "emptyDir").isDirectory());
+        assertFalse(new File(targetDir, "CVS").exists());
+    }
+
+    @Test
+    public void appliesIncludesAndExcludesOfEachSourceDir() throws IOException {
+        write(new File(sourceDir1, "a.txt"), "a");
+        write(new File(sourceDir1, "b.dat"), "b");
+        write(new File(sourceDir2, "c.txt"), "c");
+        CopyInstruction instruction1 = instruction(sourceDir1);
+        instruction1.setIncludes(WrapUtil.toSet("**/*.txt"));
+        CopyInstruction instruction2 = instruction(sourceDir2);
+        instruction2.setExcludes(WrapUtil.toSet("c.*"));
+
+        fileCopier.copy(WrapUtil.toList(instruction1, instruction2));
+
+        assertTrue(new File(targetDir, "a.txt").isFile());
+        assertFalse(new File(targetDir, "b.dat").exists());
+        assertFalse(new File(targetDir, "c.txt").exists());
+    }
+
+    @Test
+    public void copiesFileOfFirstSourceDirIfSeveralSourceDirsContainIt() throws IOException {
+        write(new File(sourceDir1, "org/same.txt"), "first");
+        write(new File(sourceDir2, "org/same.txt"), "second");
+
+        fileCopier.copy(WrapUtil.toList(instruction(sourceDir1), instruction(sourceDir2)));
+
+        assertEquals("first", read(new File(targetDir, "org/same.txt")));
+    }
+
+    @Test
+    public void replacesTokensOfFilters() throws IOException {
+        write(new File(sourceDir1, "filtered.txt"), String.format("@token1@ and @@token2@, @unknown@ @token1%n@token2@"));
+        CopyInstruction instruction = instruction(sourceDir1);
+        instruction.setFilters(GUtil.map("token1", "value1", "token2", 2));
+
+        fileCopier.copy(WrapUtil.toList(instruction));
+
+        assertEquals(String.format("value1 and @2, @unknown@ @token1%n2"), read(new File(targetDir, "filtered.txt")));
+    }
+
+    @Test
+    public void doesNotCopyFilesWhichAreUpToDate() throws IOException {
+        File source = new File(sourceDir1, "file.txt");
+        write(source, "content");
+        assertEquals(1, fileCopier.copy(WrapUtil.toList(instruction(sourceDir1))));
+
+        assertEquals(0, fileCopier.copy(WrapUtil.toList(instruction(sourceDir1))));
+
+        write(source, "changed");
+        source.setLastModified(new File(targetDir, "file.txt").lastModified() + 2000);
+        assertEquals(1, fileCopier.copy(WrapUtil.toList(instruction(sourceDir1))));
+        assertEquals("changed", read(new File(targetDir, "file.txt")));
+    }
+
+    @Test
+    public void reportsAllFilesWhichCouldNotBeCopied() throws IOException {
+        write(new File(sourceDir1, "a.txt"), "a");
+        write(new File(sourceDir1, "b.txt"), "b");
+        write(new File(targetDir, "a.txt/nested"), "a target dir in the way");
+        write(new File(targetDir, "b.txt/nested"), "a target dir in the way");
+        new File(sourceDir1, "a.txt").setLastModified(System.currentTimeMillis() + 10000);
+        new File(sourceDir1, "b.txt").setLastModified(System.currentTimeMillis() + 10000);
+
+        try {
+            fileCopier.copy(WrapUtil.toList(instruction(sourceDir1)));
+            fail();
+        } catch (GradleException e) {
+            assertTrue(e.getMessage().startsWith("Could not copy 2 of 2 files:"));
+        }
+    }
+
+    @Test
+    public void copiesOnlyChangedFilesWithSnapshot() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            write(new File(sourceDir1, "file" + i + ".txt"), "content" + i);
+        }
+        assertEquals(10, fileCopier.copy(WrapUtil.toList(instruction(sourceDir1)), snapshotFile));
+        assertTrue(snapshotFile.isFile());
+
+        assertEquals(0, fileCopier.copy(WrapUtil.toList(instruction(sourceDir1)), snapshotFile));
+
+        // Changed content with an older timestamp is copied nevertheless
+        File source = new File(sourceDir1, "file1.txt");
+        write(source, "changed content");
+        source.setLastModified(new File(targetDir, "file1.txt").lastModified() - 10000);
+        new File(targetDir, "file2.txt").delete();
+        assertEquals(2, fileCopier.copy(WrapUtil.toList(instruction(sourceDir1)), snapshotFile));
+        assertEquals("changed content", read(new File(targetDir, "file1.txt")));
+        assertEquals("content2", read(new File(targetDir, "file2.txt")));
+    }
+
+    @Test
+    public void deletesTargetFilesWithoutSourceWithSnapshot() throws IOException {
+        write(new File(sourceDir1, "org/kept.txt"), "kept");
+        write(new File(sourceDir1, "org/removed.txt"), "removed");
+        write(new File(targetDir, "unknown.txt"), "not copied by the file copier");
+        fileCopier.copy(WrapUtil.toList(instruction(sourceDir1)), snapshotFile);
+
+        new File(sourceDir1, "org/removed.txt").delete();
+
+        assertEquals(1, fileCopier.copy(WrapUtil.toList(instruction(sourceDir1)), snapshotFile));
+        assertTrue(new File(targetDir, "org/kept.txt").isFile());
+        assertFalse(new File(targetDir, "org/removed.txt").exists());
+        assertTrue(new File(targetDir, "unknown.txt").isFile());
+    }
+
+    @Test
+    public void copiesFilesAgainIfFiltersChangeWithSnapshot() throws IOException {
+        write(new File(sourceDir1, "filtered.txt"), "@token@");
+        CopyInstruction instruction = instruction(sourceDir1);
+        instruction.setFilters(GUtil.map("token", "value1"));
+        fileCopier.copy(WrapUtil.toList(instruction), snapshotFile);
+
+        assertEquals(0, fileCopier.copy(WrapUtil.toList(instruction), snapshotFile));
+
+        instruction.setFilters(GUtil.map("token", "value2"));
+        assertEquals(1, fileCopier.copy(WrapUtil.toList(instruction), snapshotFile));
+        assertEquals("value2", read(new File(targetDir, "filtered.txt")));
+    }
+
+    @Test
+    public void copiesFilesAgainIfFiltersWithSameStringRepresentationChangeWithSnapshot() throws IOException {
+        write(new File(sourceDir1, "filtered.txt"), "@a@");
+        CopyInstruction instruction = instruction(sourceDir1);
+        instruction.setFilters(GUtil.map("a", "1, b=2"));
+        fileCopier.copy(WrapUtil.toList(instruction), snapshotFile);
+
+        instruction.setFilters(GUtil.map("a", "1", "b", "2"));
+        assertEquals(1, fileCopier.copy(WrapUtil.toList(instruction), snapshotFile));
+        assertEquals("1", read(new File(targetDir, "filtered.txt")));
+    }
+
+    private CopyInstruction instruction(File sourceDir) {
+        CopyInstruction instruction = new CopyInstruction();
+        instruction.setSourceDir(sourceDir);
+        instruction.setTargetDir(targetDir);
+        instruction.setIncludes(new HashSet());
+        instruction.setExcludes(new HashSet());
+        instruction.setFilters(new HashMap());
+        return instruction;
+    }
+
+    private void write(File file, String content) throws IOException {
+        FileUtils.writeStringToFile(file, content);
+    }
+
+    private String read(File file) throws IOException {
+        return FileUtils.readFileToString(file);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.tasks.util;
+
+import org.apache.commons.io.FileUtils;
+import org.gradle.util.HelperUtil;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+public class FileDeleterTest {
+    private File rootDir;
+    private File dir;
+    private FileDeleter fileDeleter = new FileDeleter(4);
+
+    @Before
+    public void setUp() {
+        rootDir = HelperUtil.makeNewTestDir();
+        dir = new File(rootDir, "build");
+    }
+
+    @After
+    public void tearDown() {
+        HelperUtil.deleteTestDir();
+    }
+
+    @Test
+    public void deletesDirWithAllItsContent() throws IOException {
+        createTree(dir);
+        new File(dir, "emptyDir").mkdirs();
+
+        assertEquals(3 * 10 * 11 + 3 + 1 + 1, fileDeleter.delete(dir));
+
+        assertFalse(dir.exists());
+        assertTrue(rootDir.isDirectory());
+    }
+
+    @Test
+    public void deletesLeftoversOfBackgroundDeletes() throws IOException {
+        createTree(dir);
+        File leftover = new File(rootDir, "build" + FileDeleter.TRASH_DIR_INFIX + "1234");
+        createTree(leftover);
+        File otherDir = new File(rootDir, "buildOther");
+        otherDir.mkdirs();
+
+        fileDeleter.delete(dir);
+
+        assertFalse(dir.exists());
+        assertFalse(leftover.exists());
+        assertTrue(otherDir.isDirectory());
+    }
+
+    @Test
+    public void deletesDirInBackground() throws IOException, InterruptedException {
+        createTree(dir);
+
+        fileDeleter.deleteInBackground(dir);
+
+        assertFalse(dir.exists());
+        long timeout = System.currentTimeMillis() + 10000;
+        while (rootDir.list().length > 0 && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, rootDir.list().length);
+    }
+
+    private void createTree(File dir) throws IOException {
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 10; j++) {
+                File subDir = new File(dir, "dir" + i + "/sub" + j);
+                for (int k = 0; k < 10; k++) {
+                    FileUtils.writeStringToFile(new File(subDir, "file" + k + ".class"), "content");
+                }
+            }
+        }
+    }
+}